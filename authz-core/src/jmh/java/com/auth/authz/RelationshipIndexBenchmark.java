@@ -0,0 +1,128 @@
+package com.auth.authz;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of relationship checks and object listing on a synthetic sharing graph.
+ * <p>
+ * Each product is shared with six users and two groups; each group has members and a parent group,
+ * giving roughly {@code tuples} tuples in total. Queries cycle through precomputed inputs so lookups
+ * are spread over the whole graph.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xms2g", "-Xmx2g"})
+public class RelationshipIndexBenchmark {
+
+    private static final int DIRECT_VIEWERS = 6;
+    private static final int GROUP_VIEWERS = 2;
+    private static final int QUERIES = 4096;
+
+    @Param({"100000", "1000000"})
+    private int tuples;
+
+    private RelationshipIndex index;
+    private String[] products;
+    private String[] directViewers;
+    private String[] groupViewers;
+    private String[] strangers;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void buildGraph() {
+        Random random = new Random(42);
+        int productCount = tuples / 10;
+        int groupCount = Math.max(1, productCount / 50);
+        int userCount = productCount / 2;
+        int membersPerGroup = (tuples - productCount * (DIRECT_VIEWERS + GROUP_VIEWERS)) / groupCount - 1;
+
+        index = new RelationshipIndex();
+        String[][] groupMembers = new String[groupCount][];
+        for (int g = 0; g < groupCount; g++) {
+            String group = "group:g" + g;
+            groupMembers[g] = new String[Math.max(1, membersPerGroup)];
+            for (int m = 0; m < groupMembers[g].length; m++) {
+                groupMembers[g][m] = "user:u" + random.nextInt(userCount);
+                index.add(RelationTuple.of(group, "member", groupMembers[g][m]));
+            }
+            if (g > 0) {
+                index.add(RelationTuple.of("group:g" + random.nextInt(g), "member", group + "#member"));
+            }
+        }
+
+        String[] productDirectViewer = new String[productCount];
+        String[] productGroupViewer = new String[productCount];
+        for (int p = 0; p < productCount; p++) {
+            String product = "product:p" + p;
+            for (int v = 0; v < DIRECT_VIEWERS; v++) {
+                String user = "user:u" + random.nextInt(userCount);
+                index.add(RelationTuple.of(product, "viewer", user));
+                productDirectViewer[p] = user;
+            }
+            for (int v = 0; v < GROUP_VIEWERS; v++) {
+                int group = random.nextInt(groupCount);
+                index.add(RelationTuple.of(product, "viewer", "group:g" + group + "#member"));
+                productGroupViewer[p] = groupMembers[group][random.nextInt(groupMembers[group].length)];
+            }
+        }
+
+        products = new String[QUERIES];
+        directViewers = new String[QUERIES];
+        groupViewers = new String[QUERIES];
+        strangers = new String[QUERIES];
+        for (int q = 0; q < QUERIES; q++) {
+            int p = random.nextInt(productCount);
+            products[q] = "product:p" + p;
+            directViewers[q] = productDirectViewer[p];
+            groupViewers[q] = productGroupViewer[p];
+            // IDs outside the user range never appear in the graph
+            strangers[q] = "user:u" + (userCount + q);
+        }
+    }
+
+    private int next() {
+        cursor = (cursor + 1) & (QUERIES - 1);
+        return cursor;
+    }
+
+    @Benchmark
+    public boolean checkDirectGrant() {
+        int q = next();
+        return index.check(products[q], "viewer", directViewers[q]);
+    }
+
+    @Benchmark
+    public boolean checkGroupGrant() {
+        int q = next();
+        return index.check(products[q], "viewer", groupViewers[q]);
+    }
+
+    @Benchmark
+    public boolean checkDenied() {
+        int q = next();
+        return index.check(products[q], "viewer", strangers[q]);
+    }
+
+    @Benchmark
+    public Set<String> listObjects() {
+        return index.listObjects("product", "viewer", Set.of(groupViewers[next()]));
+    }
+}
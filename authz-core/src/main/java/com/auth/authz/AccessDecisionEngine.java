@@ -0,0 +1,116 @@
+package com.auth.authz;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * In-process policy decision point for product access.
+ * <p>
+ * A subject's roles are resolved once into {@link SubjectRoles} (hierarchy expansion plus bitset
+ * encoding); every decision after that is a hash lookup and a bitset intersection against the
+ * {@link ProductAccessIndex}, so evaluating many products costs microseconds rather than a round trip.
+ */
+public final class AccessDecisionEngine {
+
+    /**
+     * Role that is granted access to every product regardless of the hierarchy.
+     */
+    public static final String DEFAULT_SUPERUSER_ROLE = "ADMIN";
+
+    private final ProductAccessIndex index;
+    private final String superuserRole;
+    private volatile RoleHierarchy hierarchy;
+
+    public AccessDecisionEngine(ProductAccessIndex index, RoleHierarchy hierarchy) {
+        this(index, hierarchy, DEFAULT_SUPERUSER_ROLE);
+    }
+
+    public AccessDecisionEngine(ProductAccessIndex index, RoleHierarchy hierarchy, String superuserRole) {
+        this.index = index;
+        this.hierarchy = hierarchy;
+        this.superuserRole = superuserRole;
+    }
+
+    public ProductAccessIndex getIndex() {
+        return index;
+    }
+
+    public RoleHierarchy getHierarchy() {
+        return hierarchy;
+    }
+
+    /**
+     * Replaces the role hierarchy. Subjects resolved earlier keep their old expansion.
+     *
+     * @param hierarchy the new hierarchy
+     */
+    public void setHierarchy(RoleHierarchy hierarchy) {
+        this.hierarchy = hierarchy;
+    }
+
+    /**
+     * Resolves the roles of a subject for repeated decisions.
+     *
+     * @param roles the roles granted to the subject, e.g. from its token
+     * @return the expanded and encoded roles
+     */
+    public SubjectRoles resolveSubject(Collection<String> roles) {
+        Set<String> expanded = hierarchy.expand(roles);
+        BitSet bits = index.getDictionary().encode(expanded);
+        return new SubjectRoles(expanded, bits, expanded.contains(superuserRole));
+    }
+
+    /**
+     * Checks if a subject may access a product. Products missing from the index are denied.
+     *
+     * @param subject the resolved subject roles
+     * @param productId the product ID
+     * @return true if access is granted
+     */
+    public boolean canAccessProduct(SubjectRoles subject, String productId) {
+        if (subject.isSuperuser()) {
+            return index.contains(productId);
+        }
+        return index.isAccessible(productId, subject.bits());
+    }
+
+    /**
+     * Checks access to many products for one subject.
+     *
+     * @param subject the resolved subject roles
+     * @param productIds the product IDs
+     * @return map of product ID to access decision, in request order
+     */
+    public Map<String, Boolean> checkProducts(SubjectRoles subject, Collection<String> productIds) {
+        Map<String, Boolean> decisions = new LinkedHashMap<>();
+        for (String productId : new LinkedHashSet<>(productIds)) {
+            decisions.put(productId, canAccessProduct(subject, productId));
+        }
+        return decisions;
+    }
+
+    /**
+     * Evaluates a product access decision directly on role names, for callers without an index.
+     * The subject roles must already be expanded through the role hierarchy.
+     *
+     * @param allowedRoles the roles allowed on the product
+     * @param subjectRoles the expanded roles of the subject
+     * @param superuserRole the role granted access to every product
+     * @return true if access is granted
+     */
+    public static boolean isAccessible(Set<String> allowedRoles, Collection<String> subjectRoles, String superuserRole) {
+        if (subjectRoles.contains(superuserRole)) {
+            return true;
+        }
+        for (String role : subjectRoles) {
+            if (allowedRoles.contains(role)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
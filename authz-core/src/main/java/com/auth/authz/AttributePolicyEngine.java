@@ -0,0 +1,140 @@
+package com.auth.authz;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable set of compiled {@link PolicyRule}s, indexed by action and resource type.
+ * <p>
+ * A decision only looks at the rules registered for its action and resource type, and evaluates
+ * their precompiled conditions: deny rules first, so any matching deny wins, then permit rules.
+ * When no rule applies the result is {@link Decision#NOT_APPLICABLE}, leaving the decision to the
+ * caller's other checks. Rule changes are applied by building a new engine.
+ */
+public final class AttributePolicyEngine {
+
+    /**
+     * Outcome of evaluating the rules for a request.
+     */
+    public enum Decision {
+        PERMIT,
+        DENY,
+        NOT_APPLICABLE
+    }
+
+    /**
+     * Engine without rules.
+     */
+    public static final AttributePolicyEngine EMPTY = new AttributePolicyEngine(Collections.emptyList());
+
+    private static final PolicyRule[] NO_RULES = new PolicyRule[0];
+
+    private final Map<String, Map<String, RuleSet>> rulesByAction;
+    private final int size;
+
+    public AttributePolicyEngine(Collection<PolicyRule> rules) {
+        Map<String, Map<String, List<PolicyRule>>> grouped = new HashMap<>();
+        for (PolicyRule rule : rules) {
+            grouped.computeIfAbsent(rule.getAction(), action -> new HashMap<>())
+                    .computeIfAbsent(rule.getResourceType(), type -> new ArrayList<>())
+                    .add(rule);
+        }
+        Map<String, Map<String, RuleSet>> index = new HashMap<>();
+        grouped.forEach((action, byType) -> {
+            Map<String, RuleSet> sets = new HashMap<>();
+            byType.forEach((type, typeRules) -> sets.put(type, new RuleSet(typeRules)));
+            index.put(action, sets);
+        });
+        this.rulesByAction = index;
+        this.size = rules.size();
+    }
+
+    /**
+     * Decides a request.
+     *
+     * @param action the action
+     * @param resourceType the resource type
+     * @param subject the attributes of the caller
+     * @param resource the attributes of the resource
+     * @return the decision
+     */
+    public Decision evaluate(String action, String resourceType, AttributeSource subject, AttributeSource resource) {
+        RuleSet rules = lookup(action, resourceType);
+        if (rules == null) {
+            return Decision.NOT_APPLICABLE;
+        }
+        for (PolicyRule rule : rules.deny) {
+            if (rule.matches(subject, resource)) {
+                return Decision.DENY;
+            }
+        }
+        for (PolicyRule rule : rules.permit) {
+            if (rule.matches(subject, resource)) {
+                return Decision.PERMIT;
+            }
+        }
+        return Decision.NOT_APPLICABLE;
+    }
+
+    /**
+     * Checks if any rule is registered for an action and resource type, so callers can skip
+     * building attribute views when nothing would read them.
+     *
+     * @param action the action
+     * @param resourceType the resource type
+     * @return true if rules apply
+     */
+    public boolean hasRules(String action, String resourceType) {
+        return lookup(action, resourceType) != null;
+    }
+
+    /**
+     * Gets the rules registered for an action and resource type, deny rules first.
+     *
+     * @param action the action
+     * @param resourceType the resource type
+     * @return the rules
+     */
+    public List<PolicyRule> getRules(String action, String resourceType) {
+        RuleSet rules = lookup(action, resourceType);
+        if (rules == null) {
+            return Collections.emptyList();
+        }
+        List<PolicyRule> result = new ArrayList<>(rules.deny.length + rules.permit.length);
+        Collections.addAll(result, rules.deny);
+        Collections.addAll(result, rules.permit);
+        return result;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private RuleSet lookup(String action, String resourceType) {
+        Map<String, RuleSet> byType = rulesByAction.get(action);
+        return byType != null ? byType.get(resourceType) : null;
+    }
+
+    /**
+     * The rules of one action and resource type, split by effect.
+     */
+    private static final class RuleSet {
+
+        private final PolicyRule[] deny;
+        private final PolicyRule[] permit;
+
+        RuleSet(List<PolicyRule> rules) {
+            List<PolicyRule> denyRules = new ArrayList<>();
+            List<PolicyRule> permitRules = new ArrayList<>();
+            for (PolicyRule rule : rules) {
+                (rule.getEffect() == PolicyRule.Effect.DENY ? denyRules : permitRules).add(rule);
+            }
+            this.deny = denyRules.toArray(NO_RULES);
+            this.permit = permitRules.toArray(NO_RULES);
+        }
+    }
+}
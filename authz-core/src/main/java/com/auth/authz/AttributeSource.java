@@ -0,0 +1,34 @@
+package com.auth.authz;
+
+import java.util.Map;
+
+/**
+ * Read-only view of the attributes of a subject or resource, as seen by {@link PolicyCondition}s.
+ * Values are strings, numbers, booleans, collections or nested maps; a missing attribute is null.
+ */
+@FunctionalInterface
+public interface AttributeSource {
+
+    /**
+     * An attribute source without any attributes.
+     */
+    AttributeSource EMPTY = name -> null;
+
+    /**
+     * Gets a top-level attribute.
+     *
+     * @param name the attribute name
+     * @return the value, or null if absent
+     */
+    Object get(String name);
+
+    /**
+     * Wraps a map, e.g. the claims of a token.
+     *
+     * @param attributes the attributes
+     * @return the attribute source
+     */
+    static AttributeSource of(Map<String, ?> attributes) {
+        return attributes::get;
+    }
+}
@@ -0,0 +1,217 @@
+package com.auth.authz;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Compiled path to a claim nested in token claims, such as {@code realm_access.roles} or {@code aud[0]}.
+ * <p>
+ * A path is a dot-separated list of member names, each optionally followed by array indexes
+ * ({@code resource_access.account.roles[1]}). It is parsed once by {@link #of(String)} and cached by its
+ * text, so resolving it is a plain walk over maps and lists without splitting strings. The typed
+ * accessors return {@code null} or an empty list when the path is absent or has another type,
+ * rather than failing.
+ */
+public final class ClaimPath {
+
+    private static final int MAX_CACHED_PATHS = 1_024;
+    private static final Map<String, ClaimPath> CACHE = new ConcurrentHashMap<>();
+
+    private final String path;
+    // For each segment either a member name, or null with the array index in indexes
+    private final String[] names;
+    private final int[] indexes;
+
+    private ClaimPath(String path, String[] names, int[] indexes) {
+        this.path = path;
+        this.names = names;
+        this.indexes = indexes;
+    }
+
+    /**
+     * Gets the compiled form of a path.
+     *
+     * @param path the path, e.g. {@code realm_access.roles}
+     * @return the compiled path
+     * @throws IllegalArgumentException if the path is empty or malformed
+     */
+    public static ClaimPath of(String path) {
+        ClaimPath cached = CACHE.get(path);
+        if (cached != null) {
+            return cached;
+        }
+        ClaimPath compiled = compile(path);
+        if (CACHE.size() < MAX_CACHED_PATHS) {
+            // Guard against unbounded growth from caller-supplied paths
+            CACHE.putIfAbsent(path, compiled);
+        }
+        return compiled;
+    }
+
+    private static ClaimPath compile(String path) {
+        if (path == null || path.isEmpty()) {
+            throw new IllegalArgumentException("Claim path must not be empty");
+        }
+        List<String> names = new ArrayList<>();
+        List<Integer> indexes = new ArrayList<>();
+        int pos = 0;
+        while (true) {
+            int end = pos;
+            while (end < path.length() && path.charAt(end) != '.' && path.charAt(end) != '[') {
+                end++;
+            }
+            if (end == pos) {
+                throw new IllegalArgumentException("Empty member name at position " + pos + " in claim path: " + path);
+            }
+            names.add(path.substring(pos, end));
+            indexes.add(-1);
+            pos = end;
+            while (pos < path.length() && path.charAt(pos) == '[') {
+                int close = path.indexOf(']', pos);
+                if (close < 0) {
+                    throw new IllegalArgumentException("Unterminated index in claim path: " + path);
+                }
+                int index;
+                try {
+                    index = Integer.parseInt(path.substring(pos + 1, close));
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("Invalid index in claim path: " + path);
+                }
+                if (index < 0) {
+                    throw new IllegalArgumentException("Negative index in claim path: " + path);
+                }
+                names.add(null);
+                indexes.add(index);
+                pos = close + 1;
+            }
+            if (pos == path.length()) {
+                break;
+            }
+            if (path.charAt(pos) != '.') {
+                throw new IllegalArgumentException("Expected '.' at position " + pos + " in claim path: " + path);
+            }
+            pos++;
+        }
+
+        int[] indexArray = new int[indexes.size()];
+        for (int i = 0; i < indexArray.length; i++) {
+            indexArray[i] = indexes.get(i);
+        }
+        return new ClaimPath(path, names.toArray(new String[0]), indexArray);
+    }
+
+    /**
+     * Resolves the path against a claims map.
+     *
+     * @param claims the claims, or a nested object to resolve relative to
+     * @return the value at the path, or null if any segment is absent
+     */
+    public Object resolve(Map<?, ?> claims) {
+        Object current = claims;
+        for (int i = 0; i < names.length && current != null; i++) {
+            String name = names[i];
+            if (name != null) {
+                current = current instanceof Map ? ((Map<?, ?>) current).get(name) : null;
+            } else if (current instanceof List && indexes[i] < ((List<?>) current).size()) {
+                current = ((List<?>) current).get(indexes[i]);
+            } else {
+                current = null;
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Gets the value at the path if it is a string.
+     *
+     * @param claims the claims
+     * @return the string, or null if absent or not a string
+     */
+    public String getString(Map<?, ?> claims) {
+        Object value = resolve(claims);
+        return value instanceof String ? (String) value : null;
+    }
+
+    /**
+     * Gets the value at the path if it is a boolean, accepting {@code "true"} and {@code "false"}
+     * strings as some identity providers emit them.
+     *
+     * @param claims the claims
+     * @return the boolean, or null if absent or not a boolean
+     */
+    public Boolean getBoolean(Map<?, ?> claims) {
+        Object value = resolve(claims);
+        if (value instanceof Boolean) {
+            return (Boolean) value;
+        }
+        if ("true".equals(value)) {
+            return Boolean.TRUE;
+        }
+        if ("false".equals(value)) {
+            return Boolean.FALSE;
+        }
+        return null;
+    }
+
+    /**
+     * Gets the strings of the array at the path. Non-string elements are skipped.
+     * <p>
+     * When every element is already a string, the claim list is returned as an unmodifiable view
+     * instead of being copied.
+     *
+     * @param claims the claims
+     * @return the unmodifiable list of strings, empty if absent or not an array
+     */
+    @SuppressWarnings("unchecked")
+    public List<String> getStringList(Map<?, ?> claims) {
+        Object value = resolve(claims);
+        if (!(value instanceof Collection)) {
+            return Collections.emptyList();
+        }
+        Collection<?> values = (Collection<?>) value;
+        if (values.isEmpty()) {
+            return Collections.emptyList();
+        }
+        if (value instanceof List && allStrings(values)) {
+            return Collections.unmodifiableList((List<String>) value);
+        }
+
+        List<String> strings = new ArrayList<>(values.size());
+        for (Object element : values) {
+            if (element instanceof String) {
+                strings.add((String) element);
+            }
+        }
+        return Collections.unmodifiableList(strings);
+    }
+
+    private static boolean allStrings(Collection<?> values) {
+        for (Object element : values) {
+            if (!(element instanceof String)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        return path.equals(((ClaimPath) o).path);
+    }
+
+    @Override
+    public int hashCode() {
+        return path.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return path;
+    }
+}
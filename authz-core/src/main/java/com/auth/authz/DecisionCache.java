@@ -0,0 +1,162 @@
+package com.auth.authz;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Bounded cache of authorization decisions keyed by (principal, resource, action).
+ * <p>
+ * Role-based decisions use a canonical role-set ID as principal, so every subject carrying
+ * the same roles shares one entry. Each entry records the policy generation it was computed
+ * in; {@link #invalidateAll()} bumps the generation, which makes all older entries misses
+ * immediately without waiting for them to be evicted.
+ */
+public class DecisionCache {
+
+    private static final int MAX_ROLE_SETS = 10_000;
+
+    private final int maxSize;
+    private final Map<DecisionKey, Decision> decisions = new ConcurrentHashMap<>();
+    private final Map<String, Integer> roleSetIds = new ConcurrentHashMap<>();
+    private final AtomicInteger nextRoleSetId = new AtomicInteger();
+    private final AtomicLong generation = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    public DecisionCache(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Gets the canonical principal key of a role set, independent of role order and duplicates.
+     *
+     * @param roles the roles
+     * @return the principal key for the role set
+     */
+    public String roleSetKey(Collection<String> roles) {
+        String canonical = String.join(",", new TreeSet<>(roles));
+        if (roleSetIds.size() >= MAX_ROLE_SETS && !roleSetIds.containsKey(canonical)) {
+            // Guard against unbounded growth from arbitrary role combinations
+            return "roles:" + canonical;
+        }
+        return "rs:" + roleSetIds.computeIfAbsent(canonical, key -> nextRoleSetId.incrementAndGet());
+    }
+
+    /**
+     * Returns the cached decision, or evaluates and caches it.
+     *
+     * @param principalKey the principal key, e.g. from {@link #roleSetKey}
+     * @param resourceId the resource ID
+     * @param action the action
+     * @param evaluator evaluates the decision on a miss
+     * @return the decision
+     */
+    public boolean getOrEvaluate(String principalKey, String resourceId, String action, BooleanSupplier evaluator) {
+        Boolean cached = get(principalKey, resourceId, action);
+        if (cached != null) {
+            return cached;
+        }
+
+        // Read the generation before evaluating so a concurrent change leaves a stale entry behind
+        long evaluatedGeneration = generation.get();
+        boolean decision = evaluator.getAsBoolean();
+        store(new DecisionKey(principalKey, resourceId, action), decision, evaluatedGeneration);
+        return decision;
+    }
+
+    /**
+     * Gets a cached decision.
+     *
+     * @param principalKey the principal key
+     * @param resourceId the resource ID
+     * @param action the action
+     * @return the cached decision, or null on a miss
+     */
+    public Boolean get(String principalKey, String resourceId, String action) {
+        Decision decision = decisions.get(new DecisionKey(principalKey, resourceId, action));
+        if (decision != null && decision.generation == generation.get()) {
+            hits.increment();
+            return decision.allowed;
+        }
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * Caches a decision. The decision is dropped if the policy changed since {@code evaluatedGeneration}.
+     *
+     * @param principalKey the principal key
+     * @param resourceId the resource ID
+     * @param action the action
+     * @param allowed the decision
+     * @param evaluatedGeneration the generation read before the decision was evaluated
+     */
+    public void put(String principalKey, String resourceId, String action, boolean allowed, long evaluatedGeneration) {
+        store(new DecisionKey(principalKey, resourceId, action), allowed, evaluatedGeneration);
+    }
+
+    /**
+     * Gets the current policy generation, to be read before evaluating a decision passed to {@link #put}.
+     *
+     * @return the current generation
+     */
+    public long getGeneration() {
+        return generation.get();
+    }
+
+    /**
+     * Invalidates all cached decisions.
+     */
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        decisions.clear();
+        invalidations.increment();
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    public long getInvalidationCount() {
+        return invalidations.sum();
+    }
+
+    public int size() {
+        return decisions.size();
+    }
+
+    private void store(DecisionKey key, boolean allowed, long decisionGeneration) {
+        if (decisionGeneration != generation.get()) {
+            return;
+        }
+        if (decisions.size() >= maxSize) {
+            // Decisions are cheap to recompute, so a full cache is simply emptied
+            evictions.add(decisions.size());
+            decisions.clear();
+        }
+        decisions.put(key, new Decision(allowed, decisionGeneration));
+    }
+
+    private record DecisionKey(String principalKey, String resourceId, String action) {
+    }
+
+    private record Decision(boolean allowed, long generation) {
+    }
+}
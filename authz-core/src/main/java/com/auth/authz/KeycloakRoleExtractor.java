@@ -0,0 +1,58 @@
+package com.auth.authz;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Extracts realm and client roles from the claims of a Keycloak access token.
+ * Malformed role claims are ignored rather than failing the whole extraction.
+ * Role lists are read through shared {@link ClaimPath} accessors.
+ */
+public final class KeycloakRoleExtractor {
+
+    public static final String REALM_ACCESS = "realm_access";
+    public static final String RESOURCE_ACCESS = "resource_access";
+    public static final String ROLES = "roles";
+
+    private static final ClaimPath REALM_ROLES = ClaimPath.of(REALM_ACCESS + "." + ROLES);
+    private static final ClaimPath CLIENT_ROLES = ClaimPath.of(ROLES);
+
+    private KeycloakRoleExtractor() {
+    }
+
+    /**
+     * Gets the realm roles from {@code realm_access.roles}.
+     *
+     * @param claims the token claims
+     * @return the unmodifiable realm roles, empty if absent
+     */
+    public static List<String> realmRoles(Map<String, Object> claims) {
+        return REALM_ROLES.getStringList(claims);
+    }
+
+    /**
+     * Gets the client roles from {@code resource_access.<client>.roles}.
+     *
+     * @param claims the token claims
+     * @return map of client ID to its roles, empty if absent
+     */
+    public static Map<String, List<String>> clientRoles(Map<String, Object> claims) {
+        Object resourceAccess = claims.get(RESOURCE_ACCESS);
+        if (!(resourceAccess instanceof Map)) {
+            return Collections.emptyMap();
+        }
+
+        Map<String, List<String>> clientRoles = new LinkedHashMap<>();
+        ((Map<?, ?>) resourceAccess).forEach((clientId, clientAccess) -> {
+            List<String> roles = clientAccess instanceof Map
+                    ? CLIENT_ROLES.getStringList((Map<?, ?>) clientAccess)
+                    : Collections.emptyList();
+            if (!roles.isEmpty()) {
+                clientRoles.put(String.valueOf(clientId), roles);
+            }
+        });
+        return clientRoles;
+    }
+}
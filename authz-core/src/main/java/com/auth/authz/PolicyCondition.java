@@ -0,0 +1,23 @@
+package com.auth.authz;
+
+/**
+ * Compiled condition of an attribute-based policy rule, a tree of predicates produced by
+ * {@link PolicyExpression#compile(String)}.
+ */
+@FunctionalInterface
+public interface PolicyCondition {
+
+    /**
+     * Condition that always holds.
+     */
+    PolicyCondition ALWAYS = (subject, resource) -> true;
+
+    /**
+     * Evaluates the condition.
+     *
+     * @param subject the attributes of the caller, e.g. its token claims
+     * @param resource the attributes of the resource
+     * @return true if the condition holds
+     */
+    boolean test(AttributeSource subject, AttributeSource resource);
+}
@@ -0,0 +1,490 @@
+package com.auth.authz;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Compiler for the condition language of attribute-based policy rules.
+ * <p>
+ * An expression compares attributes of the caller ({@code subject.*}, e.g. token claims) and of the
+ * resource ({@code resource.*}) with literals or with each other:
+ * <pre>
+ * subject.roles contains 'SALES_MANAGER' and resource.price &lt; 1000 and resource.region in ['EU', 'UK']
+ * </pre>
+ * Supported are {@code == != < <= > >=}, {@code in} (value in list, or any of a collection in list),
+ * {@code contains} (collection element or substring), {@code and}/{@code or}/{@code not} (also
+ * {@code && || !}), parentheses, and string, number, boolean and list literals. A bare attribute holds
+ * when it is {@code true}. Nested claims use dots, e.g. {@code subject.realm_access.roles}.
+ * <p>
+ * The expression is parsed once into a {@link PolicyCondition} tree: attribute paths are split,
+ * literal numbers parsed and literal lists turned into hash sets up front, so evaluating a rule only
+ * walks the tree. Ordering comparisons are numeric; a missing or non-numeric attribute never matches.
+ */
+public final class PolicyExpression {
+
+    /**
+     * Prefix of attributes of the caller.
+     */
+    public static final String SUBJECT = "subject";
+
+    /**
+     * Prefix of attributes of the resource.
+     */
+    public static final String RESOURCE = "resource";
+
+    private final String source;
+    private final List<Token> tokens;
+    private int position;
+
+    private PolicyExpression(String source) {
+        this.source = source;
+        this.tokens = tokenize(source);
+    }
+
+    /**
+     * Compiles an expression.
+     *
+     * @param expression the expression
+     * @return the compiled condition
+     * @throws IllegalArgumentException if the expression is malformed
+     */
+    public static PolicyCondition compile(String expression) {
+        if (expression == null || expression.isBlank()) {
+            throw new IllegalArgumentException("Policy expression must not be empty");
+        }
+        PolicyExpression parser = new PolicyExpression(expression);
+        PolicyCondition condition = parser.parseOr();
+        if (parser.peek().kind != Kind.END) {
+            throw parser.error("Unexpected '" + parser.peek().text + "'");
+        }
+        return condition;
+    }
+
+    // Parser
+
+    private PolicyCondition parseOr() {
+        List<PolicyCondition> operands = new ArrayList<>();
+        operands.add(parseAnd());
+        while (accept("or", "||")) {
+            operands.add(parseAnd());
+        }
+        if (operands.size() == 1) {
+            return operands.get(0);
+        }
+        PolicyCondition[] any = operands.toArray(new PolicyCondition[0]);
+        return (subject, resource) -> {
+            for (PolicyCondition operand : any) {
+                if (operand.test(subject, resource)) {
+                    return true;
+                }
+            }
+            return false;
+        };
+    }
+
+    private PolicyCondition parseAnd() {
+        List<PolicyCondition> operands = new ArrayList<>();
+        operands.add(parseUnary());
+        while (accept("and", "&&")) {
+            operands.add(parseUnary());
+        }
+        if (operands.size() == 1) {
+            return operands.get(0);
+        }
+        PolicyCondition[] all = operands.toArray(new PolicyCondition[0]);
+        return (subject, resource) -> {
+            for (PolicyCondition operand : all) {
+                if (!operand.test(subject, resource)) {
+                    return false;
+                }
+            }
+            return true;
+        };
+    }
+
+    private PolicyCondition parseUnary() {
+        if (accept("not", "!")) {
+            PolicyCondition operand = parseUnary();
+            return (subject, resource) -> !operand.test(subject, resource);
+        }
+        if (accept("(")) {
+            PolicyCondition inner = parseOr();
+            expect(")");
+            return inner;
+        }
+        return parseComparison();
+    }
+
+    private PolicyCondition parseComparison() {
+        Operand left = parseOperand();
+        Token operator = peek();
+        if (operator.kind != Kind.OPERATOR && !operator.isKeyword("in") && !operator.isKeyword("contains")) {
+            return truthy(left);
+        }
+        position++;
+        Operand right = parseOperand();
+        switch (operator.text) {
+            case "==":
+                return equalTo(left, right);
+            case "!=":
+                PolicyCondition equal = equalTo(left, right);
+                return (subject, resource) -> !equal.test(subject, resource);
+            case "<":
+            case "<=":
+            case ">":
+            case ">=":
+                return ordered(operator, left, right);
+            case "in":
+                return in(left, right);
+            case "contains":
+                return contains(left, right);
+            default:
+                throw error("Unknown operator '" + operator.text + "'");
+        }
+    }
+
+    private Operand parseOperand() {
+        Token token = peek();
+        position++;
+        switch (token.kind) {
+            case STRING:
+                return Operand.literal(token.text);
+            case NUMBER:
+                return Operand.literal(Double.parseDouble(token.text));
+            case IDENTIFIER:
+                if (token.text.equals("true") || token.text.equals("false")) {
+                    return Operand.literal(Boolean.parseBoolean(token.text));
+                }
+                return attribute(token);
+            case PUNCTUATION:
+                if (token.text.equals("[")) {
+                    return parseList();
+                }
+                break;
+            default:
+                break;
+        }
+        position--;
+        throw error(token.kind == Kind.END ? "Unexpected end of expression" : "Unexpected '" + token.text + "'");
+    }
+
+    private Operand parseList() {
+        List<Object> values = new ArrayList<>();
+        if (!accept("]")) {
+            do {
+                Operand element = parseOperand();
+                if (!element.isLiteral()) {
+                    throw error("Lists may only contain literals");
+                }
+                values.add(element.value);
+            } while (accept(","));
+            expect("]");
+        }
+        return Operand.literal(values);
+    }
+
+    private Operand attribute(Token token) {
+        String[] path = token.text.split("\\.");
+        if (path.length < 2 || (!path[0].equals(SUBJECT) && !path[0].equals(RESOURCE))) {
+            throw error("Attribute '" + token.text + "' must start with 'subject.' or 'resource.'");
+        }
+        for (String part : path) {
+            if (part.isEmpty()) {
+                throw error("Malformed attribute '" + token.text + "'");
+            }
+        }
+        String[] names = new String[path.length - 1];
+        System.arraycopy(path, 1, names, 0, names.length);
+        return Operand.attribute(path[0].equals(SUBJECT), names);
+    }
+
+    private boolean accept(String... texts) {
+        Token token = peek();
+        if (token.kind == Kind.STRING || token.kind == Kind.NUMBER) {
+            return false;
+        }
+        for (String text : texts) {
+            if (token.text.equals(text)) {
+                position++;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void expect(String text) {
+        if (!accept(text)) {
+            throw error("Expected '" + text + "'");
+        }
+    }
+
+    private Token peek() {
+        return tokens.get(position);
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException("Invalid policy expression '" + source + "' at position "
+                + peek().offset + ": " + message);
+    }
+
+    // Compiled predicates
+
+    private static PolicyCondition truthy(Operand operand) {
+        if (operand.isLiteral()) {
+            if (operand.value instanceof Boolean) {
+                return (Boolean) operand.value ? PolicyCondition.ALWAYS : (subject, resource) -> false;
+            }
+            throw new IllegalArgumentException("Literal " + operand.value + " is not a condition");
+        }
+        return (subject, resource) -> Boolean.TRUE.equals(operand.resolve(subject, resource));
+    }
+
+    private static PolicyCondition equalTo(Operand left, Operand right) {
+        if (right.isLiteral() || left.isLiteral()) {
+            Operand attribute = right.isLiteral() ? left : right;
+            Object literal = right.isLiteral() ? right.value : left.value;
+            return (subject, resource) -> valuesEqual(attribute.resolve(subject, resource), literal);
+        }
+        return (subject, resource) -> valuesEqual(left.resolve(subject, resource), right.resolve(subject, resource));
+    }
+
+    private PolicyCondition ordered(Token operator, Operand left, Operand right) {
+        for (Operand operand : new Operand[]{left, right}) {
+            if (operand.isLiteral() && !(operand.value instanceof Double)) {
+                throw error("Operator '" + operator.text + "' compares numbers, got " + operand.value);
+            }
+        }
+        String op = operator.text;
+        if (right.isLiteral()) {
+            double bound = (Double) right.value;
+            switch (op) {
+                case "<":
+                    return (subject, resource) -> left.resolve(subject, resource) instanceof Number value
+                            && value.doubleValue() < bound;
+                case "<=":
+                    return (subject, resource) -> left.resolve(subject, resource) instanceof Number value
+                            && value.doubleValue() <= bound;
+                case ">":
+                    return (subject, resource) -> left.resolve(subject, resource) instanceof Number value
+                            && value.doubleValue() > bound;
+                default:
+                    return (subject, resource) -> left.resolve(subject, resource) instanceof Number value
+                            && value.doubleValue() >= bound;
+            }
+        }
+        return (subject, resource) -> {
+            if (!(left.resolve(subject, resource) instanceof Number a)
+                    || !(right.resolve(subject, resource) instanceof Number b)) {
+                return false;
+            }
+            int comparison = Double.compare(a.doubleValue(), b.doubleValue());
+            switch (op) {
+                case "<":
+                    return comparison < 0;
+                case "<=":
+                    return comparison <= 0;
+                case ">":
+                    return comparison > 0;
+                default:
+                    return comparison >= 0;
+            }
+        };
+    }
+
+    private static PolicyCondition in(Operand left, Operand right) {
+        if (right.isLiteral()) {
+            if (!(right.value instanceof Collection)) {
+                throw new IllegalArgumentException("Right side of 'in' must be a list, got " + right.value);
+            }
+            Set<Object> allowed = new HashSet<>();
+            for (Object value : (Collection<?>) right.value) {
+                allowed.add(normalize(value));
+            }
+            return (subject, resource) -> anyIn(left.resolve(subject, resource), allowed);
+        }
+        return (subject, resource) -> {
+            Object container = right.resolve(subject, resource);
+            if (!(container instanceof Collection<?> values)) {
+                return false;
+            }
+            Object value = left.resolve(subject, resource);
+            for (Object candidate : values) {
+                if (valuesEqual(value, candidate)) {
+                    return true;
+                }
+            }
+            return false;
+        };
+    }
+
+    private static PolicyCondition contains(Operand left, Operand right) {
+        return (subject, resource) -> {
+            Object container = left.resolve(subject, resource);
+            Object value = right.resolve(subject, resource);
+            if (container instanceof Collection<?> values) {
+                for (Object candidate : values) {
+                    if (valuesEqual(candidate, value)) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+            return container instanceof String text && value instanceof String part && text.contains(part);
+        };
+    }
+
+    private static boolean anyIn(Object value, Set<Object> allowed) {
+        if (value instanceof Collection<?> values) {
+            for (Object element : values) {
+                if (allowed.contains(normalize(element))) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        return value != null && allowed.contains(normalize(value));
+    }
+
+    private static boolean valuesEqual(Object a, Object b) {
+        if (a == null || b == null) {
+            return false;
+        }
+        if (a instanceof Number x && b instanceof Number y) {
+            return Double.compare(x.doubleValue(), y.doubleValue()) == 0;
+        }
+        return a.equals(b);
+    }
+
+    private static Object normalize(Object value) {
+        return value instanceof Number number ? (Object) number.doubleValue() : value;
+    }
+
+    /**
+     * A literal value or a compiled attribute path.
+     */
+    private static final class Operand {
+
+        private final Object value;
+        private final boolean subject;
+        private final String[] path;
+
+        private Operand(Object value, boolean subject, String[] path) {
+            this.value = value;
+            this.subject = subject;
+            this.path = path;
+        }
+
+        static Operand literal(Object value) {
+            return new Operand(value, false, null);
+        }
+
+        static Operand attribute(boolean subject, String[] path) {
+            return new Operand(null, subject, path);
+        }
+
+        boolean isLiteral() {
+            return path == null;
+        }
+
+        Object resolve(AttributeSource subjectAttributes, AttributeSource resourceAttributes) {
+            if (path == null) {
+                return value;
+            }
+            Object current = (subject ? subjectAttributes : resourceAttributes).get(path[0]);
+            for (int i = 1; i < path.length && current != null; i++) {
+                current = current instanceof Map<?, ?> map ? map.get(path[i]) : null;
+            }
+            return current;
+        }
+    }
+
+    // Tokenizer
+
+    private enum Kind { IDENTIFIER, STRING, NUMBER, OPERATOR, PUNCTUATION, END }
+
+    private static final class Token {
+
+        private final Kind kind;
+        private final String text;
+        private final int offset;
+
+        Token(Kind kind, String text, int offset) {
+            this.kind = kind;
+            this.text = text;
+            this.offset = offset;
+        }
+
+        boolean isKeyword(String keyword) {
+            return kind == Kind.IDENTIFIER && text.equals(keyword);
+        }
+    }
+
+    private static List<Token> tokenize(String source) {
+        List<Token> tokens = new ArrayList<>();
+        int i = 0;
+        while (i < source.length()) {
+            char c = source.charAt(i);
+            int start = i;
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (c == '\'' || c == '"') {
+                StringBuilder text = new StringBuilder();
+                i++;
+                while (i < source.length() && source.charAt(i) != c) {
+                    if (source.charAt(i) == '\\' && i + 1 < source.length()) {
+                        i++;
+                    }
+                    text.append(source.charAt(i++));
+                }
+                if (i >= source.length()) {
+                    throw new IllegalArgumentException("Invalid policy expression '" + source
+                            + "' at position " + start + ": Unterminated string");
+                }
+                i++;
+                tokens.add(new Token(Kind.STRING, text.toString(), start));
+            } else if (Character.isDigit(c) || (c == '-' && i + 1 < source.length()
+                    && Character.isDigit(source.charAt(i + 1)))) {
+                i++;
+                while (i < source.length() && (Character.isDigit(source.charAt(i)) || source.charAt(i) == '.')) {
+                    i++;
+                }
+                String number = source.substring(start, i);
+                try {
+                    Double.parseDouble(number);
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("Invalid policy expression '" + source
+                            + "' at position " + start + ": Malformed number " + number);
+                }
+                tokens.add(new Token(Kind.NUMBER, number, start));
+            } else if (Character.isLetter(c) || c == '_') {
+                while (i < source.length() && (Character.isLetterOrDigit(source.charAt(i))
+                        || source.charAt(i) == '_' || source.charAt(i) == '.')) {
+                    i++;
+                }
+                tokens.add(new Token(Kind.IDENTIFIER, source.substring(start, i), start));
+            } else if (source.startsWith("==", i) || source.startsWith("!=", i) || source.startsWith("<=", i)
+                    || source.startsWith(">=", i)) {
+                i += 2;
+                tokens.add(new Token(Kind.OPERATOR, source.substring(start, i), start));
+            } else if (source.startsWith("&&", i) || source.startsWith("||", i)) {
+                i += 2;
+                tokens.add(new Token(Kind.PUNCTUATION, source.substring(start, i), start));
+            } else if (c == '<' || c == '>') {
+                i++;
+                tokens.add(new Token(Kind.OPERATOR, String.valueOf(c), start));
+            } else if ("()[],!".indexOf(c) >= 0) {
+                i++;
+                tokens.add(new Token(Kind.PUNCTUATION, String.valueOf(c), start));
+            } else {
+                throw new IllegalArgumentException("Invalid policy expression '" + source
+                        + "' at position " + start + ": Unexpected character '" + c + "'");
+            }
+        }
+        tokens.add(new Token(Kind.END, "", source.length()));
+        return tokens;
+    }
+}
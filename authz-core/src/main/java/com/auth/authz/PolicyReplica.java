@@ -0,0 +1,103 @@
+package com.auth.authz;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Local copy of a remote access model, kept current by applying {@link PolicySnapshot}s.
+ * <p>
+ * Typical use is to poll the snapshot endpoint with {@link #getEpoch()} and {@link #getVersion()}
+ * and pass every response to {@link #apply(PolicySnapshot)}; decisions are then made in-process
+ * through {@link #getEngine()}. A full snapshot swaps in a fresh engine; a delta is applied to the
+ * current one, so concurrent readers may briefly see some changes of the delta before others.
+ */
+public final class PolicyReplica {
+
+    private final String superuserRole;
+    private volatile AccessDecisionEngine engine;
+    private long epoch;
+    private long version;
+
+    public PolicyReplica() {
+        this(AccessDecisionEngine.DEFAULT_SUPERUSER_ROLE);
+    }
+
+    public PolicyReplica(String superuserRole) {
+        this.superuserRole = superuserRole;
+        this.engine = new AccessDecisionEngine(new ProductAccessIndex(new RoleDictionary()), RoleHierarchy.empty(),
+                superuserRole);
+    }
+
+    public AccessDecisionEngine getEngine() {
+        return engine;
+    }
+
+    public synchronized long getEpoch() {
+        return epoch;
+    }
+
+    /**
+     * Gets the version of the last applied snapshot.
+     *
+     * @return the version, 0 if nothing was applied yet
+     */
+    public synchronized long getVersion() {
+        return version;
+    }
+
+    /**
+     * Applies a full or delta snapshot.
+     *
+     * @param snapshot the snapshot
+     * @throws IllegalStateException if a delta does not start at the current epoch and version;
+     *                               the caller should then request a full snapshot
+     */
+    public synchronized void apply(PolicySnapshot snapshot) {
+        if (snapshot.isFull()) {
+            RoleDictionary dictionary = new RoleDictionary();
+            snapshot.getRoleNames().forEach(dictionary::register);
+            ProductAccessIndex index = new ProductAccessIndex(dictionary);
+            snapshot.getProducts().forEach(index::putEncoded);
+            RoleHierarchy hierarchy = snapshot.getIncludedRoles() != null
+                    ? RoleHierarchy.of(snapshot.getIncludedRoles())
+                    : RoleHierarchy.empty();
+            engine = new AccessDecisionEngine(index, hierarchy, superuserRole);
+        } else {
+            if (snapshot.getEpoch() != epoch || snapshot.getBaseVersion() != version) {
+                throw new IllegalStateException("Delta from " + snapshot.getEpoch() + "/" + snapshot.getBaseVersion()
+                        + " cannot be applied to " + epoch + "/" + version);
+            }
+            AccessDecisionEngine current = engine;
+            ProductAccessIndex index = current.getIndex();
+            appendRoles(index.getDictionary(), snapshot.getDictionaryOffset(), snapshot.getRoleNames());
+            for (Map.Entry<String, BitSet> entry : snapshot.getProducts().entrySet()) {
+                index.putEncoded(entry.getKey(), entry.getValue());
+            }
+            snapshot.getRemovedProducts().forEach(index::remove);
+            if (snapshot.getIncludedRoles() != null) {
+                current.setHierarchy(RoleHierarchy.of(snapshot.getIncludedRoles()));
+            }
+        }
+        epoch = snapshot.getEpoch();
+        version = snapshot.getVersion();
+    }
+
+    private static void appendRoles(RoleDictionary dictionary, int offset, List<String> roleNames) {
+        if (offset > dictionary.size()) {
+            throw new IllegalStateException("Role dictionary gap: delta starts at " + offset
+                    + " but only " + dictionary.size() + " roles are known");
+        }
+        for (int i = 0; i < roleNames.size(); i++) {
+            int position = offset + i;
+            String role = roleNames.get(i);
+            if (position < dictionary.size()) {
+                if (!dictionary.nameOf(position).equals(role)) {
+                    throw new IllegalStateException("Role dictionary mismatch at position " + position);
+                }
+            } else if (dictionary.register(role) != position) {
+                throw new IllegalStateException("Role " + role + " is already registered at another position");
+            }
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.auth.authz;
+
+import java.util.Objects;
+
+/**
+ * An attribute-based policy rule: for one action on one resource type, permit or deny when the
+ * compiled condition holds.
+ */
+public final class PolicyRule {
+
+    /**
+     * Effect of a matching rule.
+     */
+    public enum Effect {
+        PERMIT,
+        DENY
+    }
+
+    private final String id;
+    private final String action;
+    private final String resourceType;
+    private final Effect effect;
+    private final String expression;
+    private final PolicyCondition condition;
+
+    private PolicyRule(String id, String action, String resourceType, Effect effect, String expression,
+                       PolicyCondition condition) {
+        this.id = id;
+        this.action = action;
+        this.resourceType = resourceType;
+        this.effect = effect;
+        this.expression = expression;
+        this.condition = condition;
+    }
+
+    /**
+     * Creates a rule, compiling its condition.
+     *
+     * @param id the rule ID, used in decisions and logs
+     * @param action the action, e.g. {@code read}
+     * @param resourceType the resource type, e.g. {@code product}
+     * @param effect the effect when the condition holds
+     * @param expression the condition, see {@link PolicyExpression}
+     * @return the compiled rule
+     * @throws IllegalArgumentException if a part is missing or the expression is malformed
+     */
+    public static PolicyRule compile(String id, String action, String resourceType, Effect effect,
+                                     String expression) {
+        requireText(action, "action");
+        requireText(resourceType, "resource type");
+        if (effect == null) {
+            throw new IllegalArgumentException("Policy rule effect must not be null");
+        }
+        return new PolicyRule(id, action, resourceType, effect, expression, PolicyExpression.compile(expression));
+    }
+
+    private static void requireText(String value, String name) {
+        if (value == null || value.isBlank()) {
+            throw new IllegalArgumentException("Policy rule " + name + " must not be empty");
+        }
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getAction() {
+        return action;
+    }
+
+    public String getResourceType() {
+        return resourceType;
+    }
+
+    public Effect getEffect() {
+        return effect;
+    }
+
+    public String getExpression() {
+        return expression;
+    }
+
+    public PolicyCondition getCondition() {
+        return condition;
+    }
+
+    /**
+     * Checks if the rule's condition holds.
+     *
+     * @param subject the attributes of the caller
+     * @param resource the attributes of the resource
+     * @return true if the condition holds
+     */
+    public boolean matches(AttributeSource subject, AttributeSource resource) {
+        return condition.test(subject, resource);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        PolicyRule that = (PolicyRule) o;
+        return Objects.equals(id, that.id) &&
+                action.equals(that.action) &&
+                resourceType.equals(that.resourceType) &&
+                effect == that.effect &&
+                expression.equals(that.expression);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, action, resourceType, effect, expression);
+    }
+
+    @Override
+    public String toString() {
+        return "PolicyRule{" +
+                "id='" + id + '\'' +
+                ", action='" + action + '\'' +
+                ", resourceType='" + resourceType + '\'' +
+                ", effect=" + effect +
+                ", expression='" + expression + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,156 @@
+package com.auth.authz;
+
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Versioned copy of the access model: the role dictionary, the role hierarchy and the allowed role
+ * bitset of each product.
+ * <p>
+ * A full snapshot replaces everything a replica holds. A delta only carries what changed after
+ * {@code baseVersion}: dictionary roles appended from {@code dictionaryOffset}, products whose roles
+ * changed, removed products and, if it changed, the complete role hierarchy. Versions are only
+ * comparable within one {@code epoch}; a new epoch means the source restarted and a full snapshot is needed.
+ * <p>
+ * The collections passed to the factory methods are wrapped, not copied, so a snapshot of a large
+ * catalog is not duplicated; callers must not modify them afterwards.
+ */
+public final class PolicySnapshot {
+
+    private final long epoch;
+    private final long version;
+    private final long baseVersion;
+    private final boolean full;
+    private final int dictionaryOffset;
+    private final List<String> roleNames;
+    private final Map<String, Set<String>> includedRoles;
+    private final Map<String, BitSet> products;
+    private final Set<String> removedProducts;
+
+    private PolicySnapshot(long epoch, long version, long baseVersion, boolean full, int dictionaryOffset,
+                           List<String> roleNames, Map<String, Set<String>> includedRoles,
+                           Map<String, BitSet> products, Set<String> removedProducts) {
+        this.epoch = epoch;
+        this.version = version;
+        this.baseVersion = baseVersion;
+        this.full = full;
+        this.dictionaryOffset = dictionaryOffset;
+        this.roleNames = Collections.unmodifiableList(roleNames);
+        this.includedRoles = includedRoles != null ? Collections.unmodifiableMap(includedRoles) : null;
+        this.products = Collections.unmodifiableMap(products);
+        this.removedProducts = Collections.unmodifiableSet(removedProducts);
+    }
+
+    /**
+     * Creates a full snapshot.
+     *
+     * @param epoch the epoch of the source
+     * @param version the version of the source
+     * @param roleNames every dictionary role, ordered by bit position
+     * @param includedRoles the roles directly included by each role
+     * @param products the allowed role bitset of every product
+     * @return the snapshot
+     */
+    public static PolicySnapshot full(long epoch, long version, List<String> roleNames,
+                                      Map<String, Set<String>> includedRoles, Map<String, BitSet> products) {
+        return new PolicySnapshot(epoch, version, 0, true, 0, roleNames, includedRoles, products,
+                Collections.emptySet());
+    }
+
+    /**
+     * Creates a delta snapshot.
+     *
+     * @param epoch the epoch of the source
+     * @param version the version the delta leads to
+     * @param baseVersion the version the delta applies on top of
+     * @param dictionaryOffset the bit position of the first appended role
+     * @param roleNames the roles appended to the dictionary since the base version
+     * @param includedRoles the complete role hierarchy, or null if it did not change
+     * @param products the new allowed role bitsets of changed products
+     * @param removedProducts the IDs of removed products
+     * @return the snapshot
+     */
+    public static PolicySnapshot delta(long epoch, long version, long baseVersion, int dictionaryOffset,
+                                       List<String> roleNames, Map<String, Set<String>> includedRoles,
+                                       Map<String, BitSet> products, Set<String> removedProducts) {
+        return new PolicySnapshot(epoch, version, baseVersion, false, dictionaryOffset, roleNames, includedRoles,
+                products, removedProducts);
+    }
+
+    public long getEpoch() {
+        return epoch;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Gets the version this snapshot applies on top of.
+     *
+     * @return the base version, 0 for full snapshots
+     */
+    public long getBaseVersion() {
+        return baseVersion;
+    }
+
+    public boolean isFull() {
+        return full;
+    }
+
+    public int getDictionaryOffset() {
+        return dictionaryOffset;
+    }
+
+    public List<String> getRoleNames() {
+        return roleNames;
+    }
+
+    /**
+     * Gets the roles directly included by each role.
+     *
+     * @return the role hierarchy, or null if a delta leaves it unchanged
+     */
+    public Map<String, Set<String>> getIncludedRoles() {
+        return includedRoles;
+    }
+
+    /**
+     * Gets the allowed role bitset of each product. The bitsets must not be modified.
+     *
+     * @return map of product ID to allowed role bitset
+     */
+    public Map<String, BitSet> getProducts() {
+        return products;
+    }
+
+    public Set<String> getRemovedProducts() {
+        return removedProducts;
+    }
+
+    /**
+     * Checks if applying this snapshot would change nothing.
+     *
+     * @return true for a delta without any change
+     */
+    public boolean isEmpty() {
+        return !full && roleNames.isEmpty() && includedRoles == null && products.isEmpty()
+                && removedProducts.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return "PolicySnapshot{" +
+                "epoch=" + epoch +
+                ", version=" + version +
+                ", baseVersion=" + baseVersion +
+                ", full=" + full +
+                ", roles=" + roleNames.size() +
+                ", products=" + products.size() +
+                ", removedProducts=" + removedProducts.size() +
+                '}';
+    }
+}
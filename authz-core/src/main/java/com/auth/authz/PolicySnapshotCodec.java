@@ -0,0 +1,230 @@
+package com.auth.authz;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Compact binary encoding of {@link PolicySnapshot}.
+ * <p>
+ * Layout (all counts and lengths are unsigned varints, strings are length-prefixed UTF-8):
+ * <pre>
+ * magic "BPOL" | format version (1 byte) | flags (1 byte: 1 = full, 2 = hierarchy present)
+ * epoch (8 bytes) | version (8 bytes) | base version (8 bytes)
+ * dictionary offset | role count | role names...
+ * [hierarchy: role count | (role | included count | included roles...)...]
+ * product count | (product ID | bitset length | little-endian bitset bytes)...
+ * removed count | removed product IDs...
+ * </pre>
+ * A product whose roles fit in the first eight dictionary positions costs its ID plus two bytes.
+ */
+public final class PolicySnapshotCodec {
+
+    /**
+     * Media type under which encoded snapshots are served.
+     */
+    public static final String MEDIA_TYPE = "application/octet-stream";
+
+    private static final int MAGIC = 0x42504F4C;
+    private static final byte FORMAT_VERSION = 1;
+    private static final int FLAG_FULL = 1;
+    private static final int FLAG_HIERARCHY = 2;
+
+    private PolicySnapshotCodec() {
+    }
+
+    /**
+     * Encodes a snapshot.
+     *
+     * @param snapshot the snapshot
+     * @return the encoded bytes
+     */
+    public static byte[] encode(PolicySnapshot snapshot) {
+        Writer out = new Writer(64 + snapshot.getProducts().size() * 16);
+        out.writeInt(MAGIC);
+        out.write(FORMAT_VERSION);
+        int flags = (snapshot.isFull() ? FLAG_FULL : 0) | (snapshot.getIncludedRoles() != null ? FLAG_HIERARCHY : 0);
+        out.write(flags);
+        out.writeLong(snapshot.getEpoch());
+        out.writeLong(snapshot.getVersion());
+        out.writeLong(snapshot.getBaseVersion());
+
+        out.writeVarInt(snapshot.getDictionaryOffset());
+        out.writeStrings(snapshot.getRoleNames());
+
+        if (snapshot.getIncludedRoles() != null) {
+            out.writeVarInt(snapshot.getIncludedRoles().size());
+            for (Map.Entry<String, Set<String>> entry : snapshot.getIncludedRoles().entrySet()) {
+                out.writeString(entry.getKey());
+                out.writeStrings(entry.getValue());
+            }
+        }
+
+        out.writeVarInt(snapshot.getProducts().size());
+        for (Map.Entry<String, BitSet> entry : snapshot.getProducts().entrySet()) {
+            out.writeString(entry.getKey());
+            byte[] bits = entry.getValue().toByteArray();
+            out.writeVarInt(bits.length);
+            out.write(bits, 0, bits.length);
+        }
+
+        out.writeStrings(snapshot.getRemovedProducts());
+        return out.toByteArray();
+    }
+
+    /**
+     * Decodes a snapshot.
+     *
+     * @param bytes the encoded bytes
+     * @return the snapshot
+     * @throws IllegalArgumentException if the bytes are not a valid snapshot
+     */
+    public static PolicySnapshot decode(byte[] bytes) {
+        try {
+            Reader in = new Reader(ByteBuffer.wrap(bytes));
+            if (in.buffer.getInt() != MAGIC) {
+                throw new IllegalArgumentException("Not a policy snapshot");
+            }
+            byte formatVersion = in.buffer.get();
+            if (formatVersion != FORMAT_VERSION) {
+                throw new IllegalArgumentException("Unsupported policy snapshot format version " + formatVersion);
+            }
+            int flags = in.buffer.get();
+            long epoch = in.buffer.getLong();
+            long version = in.buffer.getLong();
+            long baseVersion = in.buffer.getLong();
+
+            int dictionaryOffset = in.readVarInt();
+            List<String> roleNames = in.readStrings();
+
+            Map<String, Set<String>> includedRoles = null;
+            if ((flags & FLAG_HIERARCHY) != 0) {
+                int count = in.readCount();
+                includedRoles = new LinkedHashMap<>();
+                for (int i = 0; i < count; i++) {
+                    String role = in.readString();
+                    includedRoles.put(role, new LinkedHashSet<>(in.readStrings()));
+                }
+            }
+
+            int productCount = in.readCount();
+            Map<String, BitSet> products = new LinkedHashMap<>();
+            for (int i = 0; i < productCount; i++) {
+                String productId = in.readString();
+                byte[] bits = new byte[in.readCount()];
+                in.buffer.get(bits);
+                products.put(productId, BitSet.valueOf(bits));
+            }
+
+            Set<String> removedProducts = new LinkedHashSet<>(in.readStrings());
+            if (in.buffer.hasRemaining()) {
+                throw new IllegalArgumentException("Trailing bytes after policy snapshot");
+            }
+
+            if ((flags & FLAG_FULL) != 0) {
+                return PolicySnapshot.full(epoch, version, roleNames, includedRoles, products);
+            }
+            return PolicySnapshot.delta(epoch, version, baseVersion, dictionaryOffset, roleNames, includedRoles,
+                    products, removedProducts);
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Truncated policy snapshot", e);
+        }
+    }
+
+    private static final class Writer extends ByteArrayOutputStream {
+
+        Writer(int size) {
+            super(size);
+        }
+
+        void writeInt(int value) {
+            write(value >>> 24);
+            write(value >>> 16);
+            write(value >>> 8);
+            write(value);
+        }
+
+        void writeLong(long value) {
+            writeInt((int) (value >>> 32));
+            writeInt((int) value);
+        }
+
+        void writeVarInt(int value) {
+            while ((value & ~0x7F) != 0) {
+                write((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            write(value);
+        }
+
+        void writeString(String value) {
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            writeVarInt(utf8.length);
+            write(utf8, 0, utf8.length);
+        }
+
+        void writeStrings(Collection<String> values) {
+            writeVarInt(values.size());
+            for (String value : values) {
+                writeString(value);
+            }
+        }
+    }
+
+    private static final class Reader {
+
+        private final ByteBuffer buffer;
+
+        Reader(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        int readVarInt() {
+            int value = 0;
+            for (int shift = 0; shift < 32; shift += 7) {
+                byte b = buffer.get();
+                value |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Malformed varint in policy snapshot");
+        }
+
+        /**
+         * Reads a count or length, rejecting values that could not fit in the remaining bytes
+         * so a corrupt header cannot trigger a huge allocation.
+         */
+        int readCount() {
+            int count = readVarInt();
+            if (count < 0 || count > buffer.remaining()) {
+                throw new IllegalArgumentException("Invalid length " + count + " in policy snapshot");
+            }
+            return count;
+        }
+
+        String readString() {
+            byte[] utf8 = new byte[readCount()];
+            buffer.get(utf8);
+            return new String(utf8, StandardCharsets.UTF_8);
+        }
+
+        List<String> readStrings() {
+            int count = readCount();
+            List<String> values = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                values.add(readString());
+            }
+            return values;
+        }
+    }
+}
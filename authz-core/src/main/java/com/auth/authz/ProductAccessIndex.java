@@ -0,0 +1,99 @@
+package com.auth.authz;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory index of the roles allowed on each product, stored as role bitsets.
+ * An access check is a single hash lookup plus a bitset intersection.
+ * Bitsets are replaced, never modified in place, so readers need no locking.
+ */
+public final class ProductAccessIndex {
+
+    private final RoleDictionary dictionary;
+    private final Map<String, BitSet> allowedRolesByProduct = new ConcurrentHashMap<>();
+
+    public ProductAccessIndex(RoleDictionary dictionary) {
+        this.dictionary = dictionary;
+    }
+
+    public RoleDictionary getDictionary() {
+        return dictionary;
+    }
+
+    /**
+     * Adds or replaces the allowed roles of a product.
+     *
+     * @param productId the product ID
+     * @param allowedRoles the allowed role names
+     */
+    public void put(String productId, Collection<String> allowedRoles) {
+        allowedRolesByProduct.put(productId, dictionary.registerAll(allowedRoles));
+    }
+
+    /**
+     * Adds or replaces the allowed roles of a product, already encoded against the dictionary.
+     *
+     * @param productId the product ID
+     * @param allowedRoles the allowed role bitset, which must not be modified afterwards
+     */
+    public void putEncoded(String productId, BitSet allowedRoles) {
+        allowedRolesByProduct.put(productId, allowedRoles);
+    }
+
+    public void remove(String productId) {
+        allowedRolesByProduct.remove(productId);
+    }
+
+    public void clear() {
+        allowedRolesByProduct.clear();
+    }
+
+    public boolean contains(String productId) {
+        return allowedRolesByProduct.containsKey(productId);
+    }
+
+    /**
+     * Gets the allowed roles of a product. The bitset must not be modified.
+     *
+     * @param productId the product ID
+     * @return the allowed role bitset, or null if the product is not indexed
+     */
+    public BitSet allowedRoles(String productId) {
+        return allowedRolesByProduct.get(productId);
+    }
+
+    /**
+     * Checks if any of the roles is allowed on the product.
+     *
+     * @param productId the product ID
+     * @param roles the role bitset of the subject
+     * @return true if the product is indexed and shares a role with the subject
+     */
+    public boolean isAccessible(String productId, BitSet roles) {
+        BitSet allowedRoles = allowedRolesByProduct.get(productId);
+        return allowedRoles != null && allowedRoles.intersects(roles);
+    }
+
+    /**
+     * Copies the index. The bitsets are shared and must not be modified.
+     *
+     * @return map of product ID to allowed role bitset
+     */
+    public Map<String, BitSet> copyEntries() {
+        return new HashMap<>(allowedRolesByProduct);
+    }
+
+    public Set<String> productIds() {
+        return Collections.unmodifiableSet(allowedRolesByProduct.keySet());
+    }
+
+    public int size() {
+        return allowedRolesByProduct.size();
+    }
+}
@@ -0,0 +1,133 @@
+package com.auth.authz;
+
+import java.util.Objects;
+
+/**
+ * A relationship tuple {@code object#relation@subject}, e.g. {@code product:iphone#viewer@user:42}.
+ * <p>
+ * Objects are written {@code type:id}. A subject is either a plain object ({@code user:42}) or a
+ * userset ({@code group:sales#member}), meaning every subject holding that relation on that object.
+ */
+public final class RelationTuple {
+
+    /**
+     * Separator between an object and a relation, also used in usersets.
+     */
+    public static final char RELATION_SEPARATOR = '#';
+
+    /**
+     * Separator between an object type and an object ID.
+     */
+    public static final char TYPE_SEPARATOR = ':';
+
+    private static final char SUBJECT_SEPARATOR = '@';
+
+    private final String object;
+    private final String relation;
+    private final String subject;
+
+    private RelationTuple(String object, String relation, String subject) {
+        this.object = object;
+        this.relation = relation;
+        this.subject = subject;
+    }
+
+    /**
+     * Creates a tuple, validating each part.
+     *
+     * @param object the object, {@code type:id}
+     * @param relation the relation name
+     * @param subject the subject, {@code type:id} or {@code type:id#relation}
+     * @return the tuple
+     * @throws IllegalArgumentException if a part is malformed
+     */
+    public static RelationTuple of(String object, String relation, String subject) {
+        requireObject(object, "object");
+        if (relation == null || relation.isEmpty() || containsSeparator(relation)) {
+            throw new IllegalArgumentException("Invalid relation: " + relation);
+        }
+        if (subject == null) {
+            throw new IllegalArgumentException("Subject is required");
+        }
+        int relationIndex = subject.indexOf(RELATION_SEPARATOR);
+        if (relationIndex >= 0) {
+            requireObject(subject.substring(0, relationIndex), "subject");
+            String subjectRelation = subject.substring(relationIndex + 1);
+            if (subjectRelation.isEmpty() || containsSeparator(subjectRelation)) {
+                throw new IllegalArgumentException("Invalid subject relation: " + subject);
+            }
+        } else {
+            requireObject(subject, "subject");
+        }
+        return new RelationTuple(object, relation, subject);
+    }
+
+    /**
+     * Parses a tuple written as {@code object#relation@subject}.
+     *
+     * @param tuple the tuple string
+     * @return the tuple
+     * @throws IllegalArgumentException if the string is malformed
+     */
+    public static RelationTuple parse(String tuple) {
+        int relationIndex = tuple.indexOf(RELATION_SEPARATOR);
+        int subjectIndex = tuple.indexOf(SUBJECT_SEPARATOR);
+        if (relationIndex < 0 || subjectIndex < relationIndex) {
+            throw new IllegalArgumentException("Expected object#relation@subject but got: " + tuple);
+        }
+        return of(tuple.substring(0, relationIndex), tuple.substring(relationIndex + 1, subjectIndex),
+                tuple.substring(subjectIndex + 1));
+    }
+
+    /**
+     * Builds the key of an object's relation, which is also how that relation is written as a userset.
+     *
+     * @param object the object
+     * @param relation the relation
+     * @return {@code object#relation}
+     */
+    public static String userset(String object, String relation) {
+        return object + RELATION_SEPARATOR + relation;
+    }
+
+    private static void requireObject(String value, String part) {
+        int typeIndex = value != null ? value.indexOf(TYPE_SEPARATOR) : -1;
+        if (typeIndex <= 0 || typeIndex == value.length() - 1 || containsSeparator(value)) {
+            throw new IllegalArgumentException("Invalid " + part + ", expected type:id but got: " + value);
+        }
+    }
+
+    private static boolean containsSeparator(String value) {
+        return value.indexOf(RELATION_SEPARATOR) >= 0 || value.indexOf(SUBJECT_SEPARATOR) >= 0;
+    }
+
+    public String getObject() {
+        return object;
+    }
+
+    public String getRelation() {
+        return relation;
+    }
+
+    public String getSubject() {
+        return subject;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        RelationTuple that = (RelationTuple) o;
+        return object.equals(that.object) && relation.equals(that.relation) && subject.equals(that.subject);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(object, relation, subject);
+    }
+
+    @Override
+    public String toString() {
+        return object + RELATION_SEPARATOR + relation + SUBJECT_SEPARATOR + subject;
+    }
+}
@@ -0,0 +1,193 @@
+package com.auth.authz;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * In-memory adjacency index over relationship tuples.
+ * <p>
+ * Tuples are kept twice: forward, from {@code object#relation} to its subjects, for {@link #check};
+ * and reverse, from a subject to the {@code object#relation} nodes it appears in, for
+ * {@link #listObjects}. The userset subjects of each node are also kept apart, so a check costs a
+ * few hash lookups per visited node instead of a scan over all of its direct members.
+ * Both queries walk usersets breadth-first with a visited set, so nested groups and cycles are
+ * handled, and the cost depends on the part of the graph reached rather than its size.
+ * Reads need no locking; concurrent writes are safe but a query racing a write may or may not see it.
+ */
+public final class RelationshipIndex {
+
+    private final Map<String, Set<String>> subjectsByNode = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> usersetsByNode = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> nodesBySubject = new ConcurrentHashMap<>();
+    private final AtomicInteger size = new AtomicInteger();
+
+    /**
+     * Adds a tuple.
+     *
+     * @param tuple the tuple
+     * @return true if the tuple was not present yet
+     */
+    public boolean add(RelationTuple tuple) {
+        String node = RelationTuple.userset(tuple.getObject(), tuple.getRelation());
+        boolean added = subjectsByNode.computeIfAbsent(node, key -> ConcurrentHashMap.newKeySet()).add(tuple.getSubject());
+        if (added) {
+            if (isUserset(tuple.getSubject())) {
+                usersetsByNode.computeIfAbsent(node, key -> ConcurrentHashMap.newKeySet()).add(tuple.getSubject());
+            }
+            nodesBySubject.computeIfAbsent(tuple.getSubject(), key -> ConcurrentHashMap.newKeySet()).add(node);
+            size.incrementAndGet();
+        }
+        return added;
+    }
+
+    /**
+     * Removes a tuple.
+     *
+     * @param tuple the tuple
+     * @return true if the tuple was present
+     */
+    public boolean remove(RelationTuple tuple) {
+        String node = RelationTuple.userset(tuple.getObject(), tuple.getRelation());
+        Set<String> subjects = subjectsByNode.get(node);
+        if (subjects == null || !subjects.remove(tuple.getSubject())) {
+            return false;
+        }
+        Set<String> nodes = nodesBySubject.get(tuple.getSubject());
+        if (nodes != null) {
+            nodes.remove(node);
+        }
+        Set<String> usersets = usersetsByNode.get(node);
+        if (usersets != null) {
+            usersets.remove(tuple.getSubject());
+        }
+        size.decrementAndGet();
+        return true;
+    }
+
+    public boolean contains(RelationTuple tuple) {
+        Set<String> subjects = subjectsByNode.get(RelationTuple.userset(tuple.getObject(), tuple.getRelation()));
+        return subjects != null && subjects.contains(tuple.getSubject());
+    }
+
+    public void clear() {
+        subjectsByNode.clear();
+        usersetsByNode.clear();
+        nodesBySubject.clear();
+        size.set(0);
+    }
+
+    public int size() {
+        return size.get();
+    }
+
+    /**
+     * Calls an action for every tuple in the index, in no particular order.
+     *
+     * @param action the action
+     */
+    public void forEach(Consumer<RelationTuple> action) {
+        subjectsByNode.forEach((node, subjects) -> {
+            int separator = node.indexOf(RelationTuple.RELATION_SEPARATOR);
+            String object = node.substring(0, separator);
+            String relation = node.substring(separator + 1);
+            for (String subject : subjects) {
+                action.accept(RelationTuple.of(object, relation, subject));
+            }
+        });
+    }
+
+    /**
+     * Checks if a subject holds a relation on an object, directly or through usersets.
+     *
+     * @param object the object, {@code type:id}
+     * @param relation the relation
+     * @param subject the subject, e.g. {@code user:42}
+     * @return true if the relation holds
+     */
+    public boolean check(String object, String relation, String subject) {
+        return check(object, relation, Collections.singleton(subject));
+    }
+
+    /**
+     * Checks if any of the given subjects holds a relation on an object, directly or through usersets.
+     * Passing every identity of a caller at once (its user plus its roles) answers in a single walk.
+     *
+     * @param object the object, {@code type:id}
+     * @param relation the relation
+     * @param subjects the subjects acting together
+     * @return true if the relation holds for one of the subjects
+     */
+    public boolean check(String object, String relation, Collection<String> subjects) {
+        String start = RelationTuple.userset(object, relation);
+        Set<String> visited = new HashSet<>();
+        Deque<String> pending = new ArrayDeque<>();
+        visited.add(start);
+        pending.add(start);
+        while (!pending.isEmpty()) {
+            String node = pending.poll();
+            Set<String> nodeSubjects = subjectsByNode.get(node);
+            if (nodeSubjects == null) {
+                continue;
+            }
+            for (String subject : subjects) {
+                if (nodeSubjects.contains(subject)) {
+                    return true;
+                }
+            }
+            Set<String> usersets = usersetsByNode.get(node);
+            if (usersets != null) {
+                for (String userset : usersets) {
+                    if (visited.add(userset)) {
+                        pending.add(userset);
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Lists the IDs of objects of a type on which any of the subjects holds a relation.
+     *
+     * @param objectType the object type, e.g. {@code product}
+     * @param relation the relation
+     * @param subjects the subjects acting together
+     * @return the object IDs without the type prefix
+     */
+    public Set<String> listObjects(String objectType, String relation, Collection<String> subjects) {
+        String prefix = objectType + RelationTuple.TYPE_SEPARATOR;
+        String suffix = RelationTuple.RELATION_SEPARATOR + relation;
+        Set<String> objectIds = new LinkedHashSet<>();
+        Set<String> visited = new HashSet<>(subjects);
+        Deque<String> pending = new ArrayDeque<>(visited);
+        while (!pending.isEmpty()) {
+            Set<String> nodes = nodesBySubject.get(pending.poll());
+            if (nodes == null) {
+                continue;
+            }
+            for (String node : nodes) {
+                if (node.startsWith(prefix) && node.endsWith(suffix)) {
+                    objectIds.add(node.substring(prefix.length(), node.length() - suffix.length()));
+                }
+                // Holders of this node are themselves a userset that may appear further up
+                if (visited.add(node)) {
+                    pending.add(node);
+                }
+            }
+        }
+        return objectIds;
+    }
+
+    private static boolean isUserset(String subject) {
+        return subject.indexOf(RelationTuple.RELATION_SEPARATOR) >= 0;
+    }
+}
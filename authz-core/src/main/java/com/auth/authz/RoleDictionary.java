@@ -0,0 +1,127 @@
+package com.auth.authz;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Append-only mapping between role names and bit positions.
+ * Indexes are never reused or reassigned, so role bitsets encoded earlier stay valid as roles are added.
+ */
+public final class RoleDictionary {
+
+    private final Map<String, Integer> indexes = new ConcurrentHashMap<>();
+    private volatile String[] names = new String[0];
+
+    /**
+     * Gets the bit position of a role.
+     *
+     * @param role the role name
+     * @return the bit position, or -1 if the role is unknown
+     */
+    public int indexOf(String role) {
+        Integer index = indexes.get(role);
+        return index != null ? index : -1;
+    }
+
+    /**
+     * Gets the bit position of a role, assigning the next free position to unknown roles.
+     *
+     * @param role the role name
+     * @return the bit position
+     */
+    public int register(String role) {
+        Integer index = indexes.get(role);
+        if (index != null) {
+            return index;
+        }
+        synchronized (this) {
+            index = indexes.get(role);
+            if (index == null) {
+                String[] current = names;
+                String[] extended = Arrays.copyOf(current, current.length + 1);
+                extended[current.length] = role;
+                index = current.length;
+                names = extended;
+                indexes.put(role, index);
+            }
+            return index;
+        }
+    }
+
+    /**
+     * Gets the role name at a bit position.
+     *
+     * @param index the bit position
+     * @return the role name
+     */
+    public String nameOf(int index) {
+        return names[index];
+    }
+
+    public int size() {
+        return names.length;
+    }
+
+    /**
+     * Gets all role names ordered by bit position.
+     *
+     * @return immutable snapshot of the role names
+     */
+    public List<String> names() {
+        return Collections.unmodifiableList(Arrays.asList(names.clone()));
+    }
+
+    /**
+     * Encodes roles as a bitset, registering unknown roles.
+     *
+     * @param roles the role names
+     * @return the role bitset
+     */
+    public BitSet registerAll(Collection<String> roles) {
+        BitSet bits = new BitSet();
+        for (String role : roles) {
+            bits.set(register(role));
+        }
+        return bits;
+    }
+
+    /**
+     * Encodes roles as a bitset, skipping unknown roles.
+     * Unknown roles cannot be allowed on any indexed resource, so dropping them does not change decisions.
+     *
+     * @param roles the role names
+     * @return the role bitset
+     */
+    public BitSet encode(Collection<String> roles) {
+        BitSet bits = new BitSet();
+        for (String role : roles) {
+            int index = indexOf(role);
+            if (index >= 0) {
+                bits.set(index);
+            }
+        }
+        return bits;
+    }
+
+    /**
+     * Decodes a role bitset into role names.
+     *
+     * @param bits the role bitset
+     * @return the role names
+     */
+    public Set<String> decode(BitSet bits) {
+        String[] current = names;
+        Set<String> roles = new HashSet<>();
+        for (int i = bits.nextSetBit(0); i >= 0 && i < current.length; i = bits.nextSetBit(i + 1)) {
+            roles.add(current[i]);
+        }
+        return roles;
+    }
+}
@@ -0,0 +1,111 @@
+package com.auth.authz;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable role hierarchy with its transitive closure precomputed.
+ * A role reaches every role it includes, directly or transitively, so expanding a role set
+ * is one map lookup per role rather than a graph walk.
+ */
+public final class RoleHierarchy {
+
+    private static final RoleHierarchy EMPTY = new RoleHierarchy(Collections.emptyMap(), Collections.emptyMap());
+
+    private final Map<String, Set<String>> includedRoles;
+    private final Map<String, Set<String>> closure;
+
+    private RoleHierarchy(Map<String, Set<String>> includedRoles, Map<String, Set<String>> closure) {
+        this.includedRoles = includedRoles;
+        this.closure = closure;
+    }
+
+    /**
+     * Gets a hierarchy in which every role only reaches itself.
+     *
+     * @return the empty hierarchy
+     */
+    public static RoleHierarchy empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Builds a hierarchy from the direct include edges of each role.
+     * Cycles are tolerated: roles in a cycle simply reach each other.
+     *
+     * @param includedRolesByRole the roles directly included by each role
+     * @return the hierarchy with its closure computed
+     */
+    public static RoleHierarchy of(Map<String, ? extends Collection<String>> includedRolesByRole) {
+        Map<String, Set<String>> edges = new HashMap<>();
+        includedRolesByRole.forEach((role, included) ->
+                edges.put(role, Collections.unmodifiableSet(new HashSet<>(included))));
+
+        Map<String, Set<String>> closure = new HashMap<>();
+        for (String role : edges.keySet()) {
+            Set<String> reachable = new HashSet<>();
+            Deque<String> pending = new ArrayDeque<>();
+            pending.push(role);
+            while (!pending.isEmpty()) {
+                String current = pending.pop();
+                if (reachable.add(current)) {
+                    pending.addAll(edges.getOrDefault(current, Collections.emptySet()));
+                }
+            }
+            closure.put(role, Collections.unmodifiableSet(reachable));
+        }
+        return new RoleHierarchy(Collections.unmodifiableMap(edges), Collections.unmodifiableMap(closure));
+    }
+
+    /**
+     * Gets the given role and every role it includes, directly or transitively.
+     *
+     * @param role the role
+     * @return the reachable roles, including the role itself
+     */
+    public Set<String> reachableRoles(String role) {
+        Set<String> reachable = closure.get(role);
+        return reachable != null ? reachable : Collections.singleton(role);
+    }
+
+    /**
+     * Expands a set of roles with every role they include.
+     *
+     * @param roles the roles to expand
+     * @return the expanded role set
+     */
+    public Set<String> expand(Collection<String> roles) {
+        Set<String> expanded = new HashSet<>(roles);
+        for (String role : roles) {
+            Set<String> reachable = closure.get(role);
+            if (reachable != null) {
+                expanded.addAll(reachable);
+            }
+        }
+        return expanded;
+    }
+
+    /**
+     * Gets the roles directly included by each role.
+     *
+     * @return immutable map of role to directly included roles
+     */
+    public Map<String, Set<String>> includedRoles() {
+        return includedRoles;
+    }
+
+    /**
+     * Gets the transitive closure of the hierarchy.
+     *
+     * @return immutable map of role to reachable roles, including the role itself
+     */
+    public Map<String, Set<String>> closure() {
+        return closure;
+    }
+}
@@ -0,0 +1,52 @@
+package com.auth.authz;
+
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * Roles of a subject resolved once for repeated decisions: expanded through the role hierarchy
+ * and encoded as a bitset against a {@link RoleDictionary}.
+ */
+public final class SubjectRoles {
+
+    private final Set<String> names;
+    private final BitSet bits;
+    private final boolean superuser;
+
+    public SubjectRoles(Set<String> names, BitSet bits, boolean superuser) {
+        this.names = Collections.unmodifiableSet(names);
+        this.bits = bits;
+        this.superuser = superuser;
+    }
+
+    /**
+     * Gets the expanded role names.
+     *
+     * @return immutable set of role names
+     */
+    public Set<String> names() {
+        return names;
+    }
+
+    /**
+     * Gets the expanded roles as a bitset. The bitset must not be modified.
+     *
+     * @return the role bitset
+     */
+    public BitSet bits() {
+        return bits;
+    }
+
+    public boolean isSuperuser() {
+        return superuser;
+    }
+
+    @Override
+    public String toString() {
+        return "SubjectRoles{" +
+                "names=" + names +
+                ", superuser=" + superuser +
+                '}';
+    }
+}
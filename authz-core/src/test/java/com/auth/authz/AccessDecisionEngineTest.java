@@ -0,0 +1,59 @@
+package com.auth.authz;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for in-process product access decisions.
+ */
+public class AccessDecisionEngineTest {
+
+    private AccessDecisionEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        ProductAccessIndex index = new ProductAccessIndex(new RoleDictionary());
+        index.put("iphone", Arrays.asList("CRM_REP", "SALES_MANAGER", "ADMIN"));
+        index.put("ipad", Arrays.asList("SALES_MANAGER", "ADMIN"));
+        index.put("macbook", Collections.singletonList("ADMIN"));
+
+        engine = new AccessDecisionEngine(index, RoleHierarchy.empty());
+    }
+
+    /**
+     * Tests decisions for flat roles, including unknown products and roles.
+     */
+    @Test
+    void flatRolesMatchAllowedRoles() {
+        SubjectRoles crmRep = engine.resolveSubject(Collections.singletonList("CRM_REP"));
+
+        assertTrue(engine.canAccessProduct(crmRep, "iphone"));
+        assertFalse(engine.canAccessProduct(crmRep, "ipad"));
+        assertFalse(engine.canAccessProduct(crmRep, "unknown"));
+        assertFalse(engine.canAccessProduct(engine.resolveSubject(Collections.singletonList("GUEST")), "iphone"));
+    }
+
+    /**
+     * Tests that inherited roles and the superuser role are honored.
+     */
+    @Test
+    void hierarchyAndSuperuserGrantAccess() {
+        engine.setHierarchy(RoleHierarchy.of(Map.of("REGIONAL_LEAD", Set.of("SALES_MANAGER"))));
+
+        Map<String, Boolean> lead = engine.checkProducts(
+                engine.resolveSubject(Collections.singletonList("REGIONAL_LEAD")),
+                Arrays.asList("iphone", "ipad", "macbook"));
+        assertEquals(Map.of("iphone", true, "ipad", true, "macbook", false), lead);
+
+        SubjectRoles admin = engine.resolveSubject(Collections.singletonList("ADMIN"));
+        assertTrue(engine.canAccessProduct(admin, "macbook"));
+        assertFalse(engine.canAccessProduct(admin, "unknown"));
+    }
+}
@@ -0,0 +1,98 @@
+package com.auth.authz;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for compiled attribute-based policy rules.
+ */
+public class AttributePolicyEngineTest {
+
+    private static final AttributeSource SALES_MANAGER = AttributeSource.of(Map.of(
+            "roles", List.of("SALES_MANAGER", "CRM_REP"),
+            "realm_access", Map.of("roles", List.of("SALES_MANAGER")),
+            "region", "EU"));
+
+    private static final AttributeSource CHEAP_EU_PRODUCT = AttributeSource.of(Map.of(
+            "price", 499.0, "region", "EU", "name", "iPad"));
+
+    private static final AttributeSource EXPENSIVE_EU_PRODUCT = AttributeSource.of(Map.of(
+            "price", 2499.0, "region", "EU", "name", "MacBook Pro"));
+
+    private static final AttributeSource CHEAP_US_PRODUCT = AttributeSource.of(Map.of(
+            "price", 799, "region", "US", "name", "iPhone"));
+
+    /**
+     * Tests comparisons, membership, nested claims and boolean operators.
+     */
+    @Test
+    void expressionsCompareClaimsWithResourceAttributes() {
+        PolicyCondition condition = PolicyExpression.compile(
+                "subject.roles contains 'SALES_MANAGER' and resource.price < 1000 and resource.region in ['EU', 'UK']");
+        assertTrue(condition.test(SALES_MANAGER, CHEAP_EU_PRODUCT));
+        assertFalse(condition.test(SALES_MANAGER, EXPENSIVE_EU_PRODUCT));
+        assertFalse(condition.test(SALES_MANAGER, CHEAP_US_PRODUCT));
+
+        assertTrue(PolicyExpression.compile("subject.region == resource.region")
+                .test(SALES_MANAGER, CHEAP_EU_PRODUCT));
+        assertTrue(PolicyExpression.compile("subject.realm_access.roles contains 'SALES_MANAGER'")
+                .test(SALES_MANAGER, AttributeSource.EMPTY));
+        assertTrue(PolicyExpression.compile("resource.price >= 799 && !(resource.region != 'US')")
+                .test(SALES_MANAGER, CHEAP_US_PRODUCT));
+        assertTrue(PolicyExpression.compile("subject.roles in ['ADMIN', 'CRM_REP'] or false")
+                .test(SALES_MANAGER, AttributeSource.EMPTY));
+    }
+
+    /**
+     * Tests that missing and mistyped attributes never match.
+     */
+    @Test
+    void missingAttributesDoNotMatch() {
+        assertFalse(PolicyExpression.compile("resource.stock > 0").test(SALES_MANAGER, CHEAP_EU_PRODUCT));
+        assertFalse(PolicyExpression.compile("resource.name < 10").test(SALES_MANAGER, CHEAP_EU_PRODUCT));
+        assertFalse(PolicyExpression.compile("subject.email == 'a@b.c'").test(SALES_MANAGER, CHEAP_EU_PRODUCT));
+    }
+
+    /**
+     * Tests that rules are looked up by action and resource type and that deny rules win.
+     */
+    @Test
+    void engineIndexesRulesAndDenyOverrides() {
+        AttributePolicyEngine engine = new AttributePolicyEngine(List.of(
+                PolicyRule.compile("cheap-eu", "read", "product", PolicyRule.Effect.PERMIT,
+                        "subject.roles contains 'SALES_MANAGER' and resource.price < 1000 and resource.region == 'EU'"),
+                PolicyRule.compile("no-macbooks", "read", "product", PolicyRule.Effect.DENY,
+                        "resource.name == 'MacBook Pro'"),
+                PolicyRule.compile("anyone-writes", "write", "product", PolicyRule.Effect.PERMIT, "true")));
+
+        assertEquals(AttributePolicyEngine.Decision.PERMIT,
+                engine.evaluate("read", "product", SALES_MANAGER, CHEAP_EU_PRODUCT));
+        assertEquals(AttributePolicyEngine.Decision.DENY,
+                engine.evaluate("read", "product", SALES_MANAGER, EXPENSIVE_EU_PRODUCT));
+        assertEquals(AttributePolicyEngine.Decision.NOT_APPLICABLE,
+                engine.evaluate("read", "product", SALES_MANAGER, CHEAP_US_PRODUCT));
+        assertEquals(AttributePolicyEngine.Decision.NOT_APPLICABLE,
+                engine.evaluate("read", "user", SALES_MANAGER, CHEAP_EU_PRODUCT));
+        assertTrue(engine.hasRules("write", "product"));
+        assertEquals("no-macbooks", engine.getRules("read", "product").get(0).getId());
+        assertEquals(3, engine.size());
+    }
+
+    /**
+     * Tests that malformed expressions are rejected when compiled.
+     */
+    @Test
+    void malformedExpressionsAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> PolicyExpression.compile(""));
+        assertThrows(IllegalArgumentException.class, () -> PolicyExpression.compile("price < 10"));
+        assertThrows(IllegalArgumentException.class, () -> PolicyExpression.compile("resource.price < 'ten'"));
+        assertThrows(IllegalArgumentException.class, () -> PolicyExpression.compile("resource.region in 'EU'"));
+        assertThrows(IllegalArgumentException.class, () -> PolicyExpression.compile("(resource.flag"));
+        assertThrows(IllegalArgumentException.class, () -> PolicyExpression.compile("resource.name == 'x"));
+        assertThrows(IllegalArgumentException.class, () -> PolicyExpression.compile("resource.a == 1 resource.b"));
+    }
+}
@@ -0,0 +1,65 @@
+package com.auth.authz;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for compiled claim paths.
+ */
+public class ClaimPathTest {
+
+    private final Map<String, Object> claims = Map.of(
+            "sub", "user-1",
+            "email_verified", "true",
+            "aud", List.of("account", "iam-client"),
+            "realm_access", Map.of("roles", List.of("ADMIN", "USER")),
+            "resource_access", Map.of("account", Map.of("roles", Arrays.asList("view-profile", 42, "manage-account"))),
+            "groups", List.of(Map.of("name", "sales", "path", List.of("/org", "/org/sales"))));
+
+    /**
+     * Tests that dotted and indexed segments walk maps and lists.
+     */
+    @Test
+    void resolvesDottedAndIndexedSegments() {
+        assertEquals("user-1", ClaimPath.of("sub").getString(claims));
+        assertEquals("iam-client", ClaimPath.of("aud[1]").getString(claims));
+        assertEquals(List.of("ADMIN", "USER"), ClaimPath.of("realm_access.roles").getStringList(claims));
+        assertEquals("/org/sales", ClaimPath.of("groups[0].path[1]").getString(claims));
+        assertEquals(Boolean.TRUE, ClaimPath.of("email_verified").getBoolean(claims));
+    }
+
+    /**
+     * Tests that absent segments and mismatched types yield null or an empty list instead of failing.
+     */
+    @Test
+    void missingOrMistypedValuesAreAbsent() {
+        assertNull(ClaimPath.of("realm_access.missing").resolve(claims));
+        assertNull(ClaimPath.of("sub.nested").resolve(claims));
+        assertNull(ClaimPath.of("aud[5]").resolve(claims));
+        assertNull(ClaimPath.of("realm_access[0]").resolve(claims));
+        assertNull(ClaimPath.of("realm_access").getString(claims));
+        assertNull(ClaimPath.of("sub").getBoolean(claims));
+        assertTrue(ClaimPath.of("sub").getStringList(claims).isEmpty());
+        assertEquals(List.of("view-profile", "manage-account"),
+                ClaimPath.of("resource_access.account.roles").getStringList(claims));
+    }
+
+    /**
+     * Tests that paths are compiled once and malformed paths are rejected.
+     */
+    @Test
+    void compilesPathsOnceAndRejectsMalformedOnes() {
+        assertSame(ClaimPath.of("realm_access.roles"), ClaimPath.of("realm_access.roles"));
+        assertThrows(UnsupportedOperationException.class,
+                () -> ClaimPath.of("realm_access.roles").getStringList(claims).add("HACKER"));
+
+        for (String malformed : List.of("", "a..b", ".a", "a.", "a[", "a[x]", "a[-1]", "a[0]b", "[0]")) {
+            assertThrows(IllegalArgumentException.class, () -> ClaimPath.of(malformed), malformed);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.auth.authz;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for policy snapshot encoding and replica synchronization.
+ */
+public class PolicySnapshotCodecTest {
+
+    private static BitSet bits(int... positions) {
+        BitSet bits = new BitSet();
+        for (int position : positions) {
+            bits.set(position);
+        }
+        return bits;
+    }
+
+    /**
+     * Tests that full and delta snapshots survive an encode/decode round trip.
+     */
+    @Test
+    void snapshotsRoundTrip() {
+        PolicySnapshot full = PolicySnapshot.full(42L, 7L,
+                Arrays.asList("ADMIN", "SALES_MANAGER", "CRM_REP"),
+                Map.of("SALES_MANAGER", Set.of("CRM_REP")),
+                Map.of("iphone", bits(0, 1, 2), "macbook", bits(0)));
+
+        PolicySnapshot decodedFull = PolicySnapshotCodec.decode(PolicySnapshotCodec.encode(full));
+        assertTrue(decodedFull.isFull());
+        assertEquals(42L, decodedFull.getEpoch());
+        assertEquals(7L, decodedFull.getVersion());
+        assertEquals(full.getRoleNames(), decodedFull.getRoleNames());
+        assertEquals(full.getIncludedRoles(), decodedFull.getIncludedRoles());
+        assertEquals(full.getProducts(), decodedFull.getProducts());
+
+        PolicySnapshot delta = PolicySnapshot.delta(42L, 9L, 7L, 3, Collections.singletonList("AUDITOR"),
+                null, Map.of("ipad", bits(3)), Set.of("macbook"));
+
+        PolicySnapshot decodedDelta = PolicySnapshotCodec.decode(PolicySnapshotCodec.encode(delta));
+        assertFalse(decodedDelta.isFull());
+        assertEquals(7L, decodedDelta.getBaseVersion());
+        assertEquals(3, decodedDelta.getDictionaryOffset());
+        assertNull(decodedDelta.getIncludedRoles());
+        assertEquals(delta.getProducts(), decodedDelta.getProducts());
+        assertEquals(delta.getRemovedProducts(), decodedDelta.getRemovedProducts());
+    }
+
+    /**
+     * Tests that corrupt input is rejected rather than misread.
+     */
+    @Test
+    void malformedSnapshotsAreRejected() {
+        byte[] encoded = PolicySnapshotCodec.encode(PolicySnapshot.full(1L, 1L,
+                Collections.singletonList("ADMIN"), Collections.emptyMap(), Map.of("iphone", bits(0))));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> PolicySnapshotCodec.decode(Arrays.copyOf(encoded, encoded.length - 3)));
+        assertThrows(IllegalArgumentException.class, () -> PolicySnapshotCodec.decode(new byte[] {1, 2, 3, 4}));
+    }
+
+    /**
+     * Tests that a replica follows a full snapshot and a delta, and refuses deltas from another base.
+     */
+    @Test
+    void replicaAppliesFullSnapshotThenDelta() {
+        PolicyReplica replica = new PolicyReplica();
+        replica.apply(PolicySnapshot.full(42L, 7L,
+                Arrays.asList("ADMIN", "SALES_MANAGER", "CRM_REP"),
+                Map.of("REGIONAL_LEAD", Set.of("SALES_MANAGER")),
+                Map.of("iphone", bits(0, 1, 2), "ipad", bits(0, 1))));
+
+        AccessDecisionEngine engine = replica.getEngine();
+        SubjectRoles lead = engine.resolveSubject(List.of("REGIONAL_LEAD"));
+        assertTrue(engine.canAccessProduct(lead, "ipad"));
+        assertFalse(engine.canAccessProduct(engine.resolveSubject(List.of("CRM_REP")), "ipad"));
+
+        replica.apply(PolicySnapshot.delta(42L, 8L, 7L, 3, Collections.singletonList("AUDITOR"),
+                null, Map.of("ipad", bits(0, 1, 2, 3)), Collections.emptySet()));
+
+        assertEquals(8L, replica.getVersion());
+        assertTrue(engine.canAccessProduct(engine.resolveSubject(List.of("CRM_REP")), "ipad"));
+        assertTrue(engine.canAccessProduct(engine.resolveSubject(List.of("AUDITOR")), "ipad"));
+
+        assertThrows(IllegalStateException.class, () -> replica.apply(PolicySnapshot.delta(42L, 10L, 9L, 4,
+                Collections.emptyList(), null, Collections.emptyMap(), Collections.emptySet())));
+    }
+}
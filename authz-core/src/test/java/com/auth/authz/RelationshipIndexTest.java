@@ -0,0 +1,91 @@
+package com.auth.authz;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for relationship tuple checks and object listing.
+ */
+public class RelationshipIndexTest {
+
+    private RelationshipIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new RelationshipIndex();
+        index.add(RelationTuple.parse("product:iphone#viewer@user:alice"));
+        index.add(RelationTuple.parse("product:ipad#viewer@group:sales#member"));
+        index.add(RelationTuple.parse("product:macbook#viewer@role:ADMIN"));
+        index.add(RelationTuple.parse("group:sales#member@group:emea#member"));
+        index.add(RelationTuple.parse("group:emea#member@user:bob"));
+    }
+
+    /**
+     * Tests direct grants, nested group grants and grants to other subjects.
+     */
+    @Test
+    void checkFollowsUsersets() {
+        assertTrue(index.check("product:iphone", "viewer", "user:alice"));
+        assertTrue(index.check("product:ipad", "viewer", "user:bob"));
+        assertFalse(index.check("product:ipad", "viewer", "user:alice"));
+        assertFalse(index.check("product:iphone", "editor", "user:alice"));
+        assertTrue(index.check("product:macbook", "viewer", List.of("user:alice", "role:ADMIN")));
+    }
+
+    /**
+     * Tests that objects reachable through nested groups are listed, filtered by type and relation.
+     */
+    @Test
+    void listObjectsWalksReverseEdges() {
+        assertEquals(Set.of("ipad"), index.listObjects("product", "viewer", List.of("user:bob")));
+        assertEquals(Set.of("iphone", "macbook"),
+                index.listObjects("product", "viewer", List.of("user:alice", "role:ADMIN")));
+        assertEquals(Set.of("sales", "emea"), index.listObjects("group", "member", List.of("user:bob")));
+    }
+
+    /**
+     * Tests removal and cycle tolerance.
+     */
+    @Test
+    void removeAndCyclesAreHandled() {
+        index.add(RelationTuple.parse("group:emea#member@group:sales#member"));
+        assertFalse(index.check("product:ipad", "viewer", "user:carol"));
+
+        assertTrue(index.remove(RelationTuple.parse("group:emea#member@user:bob")));
+        assertFalse(index.remove(RelationTuple.parse("group:emea#member@user:bob")));
+        assertFalse(index.check("product:ipad", "viewer", "user:bob"));
+        assertEquals(5, index.size());
+    }
+
+    /**
+     * Tests that every tuple is visited once, and removed ones are not.
+     */
+    @Test
+    void forEachVisitsEveryTuple() {
+        index.remove(RelationTuple.parse("product:iphone#viewer@user:alice"));
+        Set<RelationTuple> tuples = new HashSet<>();
+        index.forEach(tuples::add);
+
+        assertEquals(Set.of(
+                RelationTuple.parse("product:ipad#viewer@group:sales#member"),
+                RelationTuple.parse("product:macbook#viewer@role:ADMIN"),
+                RelationTuple.parse("group:sales#member@group:emea#member"),
+                RelationTuple.parse("group:emea#member@user:bob")), tuples);
+    }
+
+    /**
+     * Tests that malformed tuples are rejected.
+     */
+    @Test
+    void malformedTuplesAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> RelationTuple.parse("product:iphone@user:alice"));
+        assertThrows(IllegalArgumentException.class, () -> RelationTuple.parse("iphone#viewer@user:alice"));
+        assertThrows(IllegalArgumentException.class, () -> RelationTuple.of("product:iphone", "viewer", "group:sales#"));
+    }
+}
@@ -0,0 +1,49 @@
+package com.auth.authz;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the role hierarchy closure computation.
+ */
+public class RoleHierarchyTest {
+
+    /**
+     * Tests that a role reaches every role below it in a chain.
+     */
+    @Test
+    void closureFollowsIncludedRolesTransitively() {
+        Map<String, Set<String>> edges = new HashMap<>();
+        edges.put("ADMIN", Set.of("SALES_MANAGER"));
+        edges.put("SALES_MANAGER", Set.of("CRM_REP"));
+
+        RoleHierarchy hierarchy = RoleHierarchy.of(edges);
+
+        assertEquals(Set.of("ADMIN", "SALES_MANAGER", "CRM_REP"), hierarchy.reachableRoles("ADMIN"));
+        assertEquals(Set.of("SALES_MANAGER", "CRM_REP"), hierarchy.reachableRoles("SALES_MANAGER"));
+        assertEquals(Set.of("CRM_REP"), hierarchy.reachableRoles("CRM_REP"));
+        assertEquals(Set.of("SALES_MANAGER", "CRM_REP", "USER"),
+                hierarchy.expand(Arrays.asList("SALES_MANAGER", "USER")));
+    }
+
+    /**
+     * Tests that cycles terminate and make every role in the cycle reach the others.
+     */
+    @Test
+    void closureToleratesCycles() {
+        Map<String, Set<String>> edges = new HashMap<>();
+        edges.put("A", Set.of("B"));
+        edges.put("B", Set.of("A", "C"));
+
+        RoleHierarchy hierarchy = RoleHierarchy.of(edges);
+
+        assertEquals(Set.of("A", "B", "C"), hierarchy.reachableRoles("A"));
+        assertEquals(Set.of("A", "B", "C"), hierarchy.reachableRoles("B"));
+    }
+}
@@ -0,0 +1,129 @@
+package com.auth.oidcprovider.util;
+
+import com.auth.authz.KeycloakRoleExtractor;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.proc.SingleKeyJWSKeySelector;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.interfaces.RSAPublicKey;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of decoding a realistic Keycloak access token with the Nimbus decoder and with the lazy claim
+ * parsing decoder, reading what most requests read ({@code sub} and realm roles).
+ * <p>
+ * Tokens carry the usual Keycloak claims plus {@code clients} entries in {@code resource_access} and a
+ * map of custom attributes. Both decoders verify RS256 signatures with the same key, so the difference
+ * is claim parsing and conversion.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xms1g", "-Xmx1g"})
+public class JwtDecoderBenchmark {
+
+    @Param({"2", "20"})
+    private int clients;
+
+    private JwtDecoder nimbusDecoder;
+    private JwtDecoder lazyDecoder;
+    private String token;
+
+    @Setup(Level.Trial)
+    public void createToken() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        KeyPair keyPair = generator.generateKeyPair();
+        nimbusDecoder = NimbusJwtDecoder.withPublicKey((RSAPublicKey) keyPair.getPublic()).build();
+        lazyDecoder = new LazyClaimsJwtDecoder(new SingleKeyJWSKeySelector<>(JWSAlgorithm.RS256, keyPair.getPublic()));
+
+        Map<String, Object> resourceAccess = new LinkedHashMap<>();
+        resourceAccess.put("account", Map.of("roles", List.of("manage-account", "manage-account-links", "view-profile")));
+        for (int i = 0; i < clients; i++) {
+            List<String> roles = new ArrayList<>();
+            for (int r = 0; r < 8; r++) {
+                roles.add("client-" + i + "-role-" + r);
+            }
+            resourceAccess.put("client-" + i, Map.of("roles", roles));
+        }
+        Map<String, Object> attributes = new LinkedHashMap<>();
+        for (int i = 0; i < clients; i++) {
+            attributes.put("attribute-" + i, List.of("value-" + i, "other-" + i));
+        }
+
+        long now = System.currentTimeMillis();
+        JWTClaimsSet claims = new JWTClaimsSet.Builder()
+                .expirationTime(new Date(now + 3_600_000))
+                .issueTime(new Date(now))
+                .claim("auth_time", now / 1000)
+                .jwtID(UUID.randomUUID().toString())
+                .issuer("http://localhost:8080/realms/iam-realm")
+                .audience(List.of("account", "iam-client"))
+                .subject(UUID.randomUUID().toString())
+                .claim("typ", "Bearer")
+                .claim("azp", "iam-client")
+                .claim("session_state", UUID.randomUUID().toString())
+                .claim("acr", "1")
+                .claim("allowed-origins", List.of("http://localhost:3000", "https://app.example.com"))
+                .claim("realm_access", Map.of("roles", List.of("default-roles-iam-realm", "offline_access",
+                        "uma_authorization", "SALES_MANAGER", "USER")))
+                .claim("resource_access", resourceAccess)
+                .claim("scope", "openid email profile")
+                .claim("sid", UUID.randomUUID().toString())
+                .claim("email_verified", true)
+                .claim("name", "Jane Doe")
+                .claim("preferred_username", "jane.doe")
+                .claim("given_name", "Jane")
+                .claim("family_name", "Doe")
+                .claim("email", "jane.doe@example.com")
+                .claim("attributes", attributes)
+                .build();
+        SignedJWT jwt = new SignedJWT(new JWSHeader.Builder(JWSAlgorithm.RS256).keyID("key-1").build(), claims);
+        jwt.sign(new RSASSASigner(keyPair.getPrivate()));
+        token = jwt.serialize();
+    }
+
+    @Benchmark
+    public void nimbus(Blackhole blackhole) {
+        read(nimbusDecoder.decode(token), blackhole);
+    }
+
+    @Benchmark
+    public void lazy(Blackhole blackhole) {
+        read(lazyDecoder.decode(token), blackhole);
+    }
+
+    private static void read(Jwt jwt, Blackhole blackhole) {
+        blackhole.consume(jwt.getSubject());
+        blackhole.consume(KeycloakRoleExtractor.realmRoles(jwt.getClaims()));
+    }
+}
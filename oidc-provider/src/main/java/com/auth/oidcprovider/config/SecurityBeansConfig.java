@@ -1,6 +1,7 @@
 package com.auth.oidcprovider.config;
 
 import com.auth.oidcprovider.services.UserService;
+import com.auth.oidcprovider.util.AuthorizationDecisionCache;
 import com.auth.oidcprovider.util.JwtUtil;
 import com.auth.oidcprovider.util.SecurityUtils;
 import org.springframework.context.annotation.Bean;
@@ -11,14 +12,16 @@ public class SecurityBeansConfig {
     
     private final UserService userService;
     private final JwtUtil jwtUtil;
+    private final AuthorizationDecisionCache decisionCache;
     
-    public SecurityBeansConfig(UserService userService, JwtUtil jwtUtil) {
+    public SecurityBeansConfig(UserService userService, JwtUtil jwtUtil, AuthorizationDecisionCache decisionCache) {
         this.userService = userService;
         this.jwtUtil = jwtUtil;
+        this.decisionCache = decisionCache;
     }
     
     @Bean
     public SecurityUtils securityUtils() {
-        return new SecurityUtils(userService, jwtUtil);
+        return new SecurityUtils(userService, jwtUtil, decisionCache);
     }
 } 
\ No newline at end of file
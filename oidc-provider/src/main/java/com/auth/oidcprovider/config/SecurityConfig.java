@@ -1,29 +1,41 @@
 package com.auth.oidcprovider.config;
 
+import com.auth.oidcprovider.repositories.VerifiedTokenRepository;
+import com.auth.oidcprovider.services.LocalTokenService;
+import com.auth.oidcprovider.services.ServiceTicketService;
+import com.auth.oidcprovider.util.DPoPBearerTokenResolver;
+import com.auth.oidcprovider.util.DPoPProofFilter;
+import com.auth.oidcprovider.util.DPoPProofVerifier;
+import com.auth.oidcprovider.util.IssuerRoutingJwtDecoder;
+import com.auth.oidcprovider.util.JtiReplayCache;
+import com.auth.oidcprovider.util.RejectedTokenCache;
+import com.auth.oidcprovider.util.ServiceTicketJwtDecoder;
+import com.auth.oidcprovider.util.TokenPrincipalConverter;
+import com.auth.oidcprovider.util.VerifiedTokenCache;
+import jakarta.servlet.DispatcherType;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.core.convert.converter.Converter;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
-import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.security.oauth2.jwt.JwtDecoder;
-import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
-import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationConverter;
+import org.springframework.security.oauth2.server.resource.web.authentication.BearerTokenAuthenticationFilter;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
 import java.util.Arrays;
-import java.util.Collection;
 import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 @Configuration
 @EnableWebSecurity
@@ -33,37 +45,126 @@ public class SecurityConfig {
     @Value("${spring.security.oauth2.resourceserver.jwt.jwk-set-uri}")
     private String jwkSetUri;
     
-    @Value("${keycloak.realm}")
-    private String realm;
+    @Value("${spring.security.oauth2.resourceserver.jwt.issuer-uri}")
+    private String issuerUri;
+    
+    // Further realms or tenants whose tokens are accepted next to the default issuer
+    @Value("${authz.issuers.trusted:}")
+    private List<String> trustedIssuers;
+    
+    @Value("${authz.issuers.jwk-set-path:/protocol/openid-connect/certs}")
+    private String jwkSetPath;
+    
+    @Value("${authz.tokens.allowed-algorithms:RS256,RS384,RS512,PS256,PS384,PS512,ES256,ES384,ES512}")
+    private List<String> allowedAlgorithms;
+    
+    @Value("${authz.tokens.rejected-cache.max-size:10000}")
+    private int rejectedCacheMaxSize;
+    
+    @Value("${authz.tokens.rejected-cache.ttl-seconds:30}")
+    private long rejectedCacheTtlSeconds;
+    
+    @Value("${authz.tokens.verified-cache.max-size:10000}")
+    private int verifiedCacheMaxSize;
+    
+    @Value("${authz.tokens.verified-cache.ttl-seconds:300}")
+    private long verifiedCacheTtlSeconds;
+    
+    // Shares verified tokens between nodes; every node needs the same secret
+    @Value("${authz.tokens.verified-cache.shared.enabled:false}")
+    private boolean sharedVerifiedCache;
+    
+    @Value("${authz.tokens.verified-cache.shared.secret:}")
+    private String sharedVerifiedCacheSecret;
+    
+    @Value("${authz.tokens.lazy-claims:false}")
+    private boolean lazyClaims;
+    
+    // Accept sender-constrained tokens sent with the DPoP scheme and a proof header
+    @Value("${authz.dpop.enabled:false}")
+    private boolean dpopEnabled;
+    
+    @Value("${authz.dpop.max-age-seconds:300}")
+    private long dpopMaxAgeSeconds;
+    
+    @Value("${authz.dpop.key-cache.max-size:10000}")
+    private int dpopKeyCacheMaxSize;
+    
+    @Value("${authz.dpop.replay.max-entries:100000}")
+    private int dpopReplayMaxEntries;
     
     @Bean
-    public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain securityFilterChain(HttpSecurity http,
+                                                   TokenPrincipalConverter tokenPrincipalConverter,
+                                                   IssuerRoutingJwtDecoder jwtDecoder,
+                                                   ServiceTicketService serviceTicketService,
+                                                   DPoPProofVerifier dpopProofVerifier) throws Exception {
+        if (dpopEnabled) {
+            // Proofs are checked once the token is authenticated, against its cnf.jkt binding
+            http.addFilterAfter(new DPoPProofFilter(dpopProofVerifier), BearerTokenAuthenticationFilter.class);
+        }
         return http
             .cors(cors -> cors.configurationSource(corsConfigurationSource()))
             .csrf(csrf -> csrf.disable())
             .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
             .authorizeHttpRequests(authorize -> authorize
+                // Async dispatches (e.g. completing an event stream) were authorized on the original request
+                .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                 .requestMatchers("/api/public/**", "/swagger-ui/**", "/swagger-ui.html", "/v3/api-docs/**").permitAll()
+                .requestMatchers("/.well-known/**").permitAll()
                 .requestMatchers("/api/admin/**").hasRole("ADMIN")
                 .requestMatchers("/api/users/**").hasAnyRole("ADMIN", "USER")
                 .anyRequest().authenticated()
             )
-            .oauth2ResourceServer(oauth2 -> oauth2
-                .jwt(jwt -> jwt.jwtAuthenticationConverter(jwtAuthenticationConverter()))
-            )
+            .oauth2ResourceServer(oauth2 -> {
+                if (dpopEnabled) {
+                    oauth2.bearerTokenResolver(new DPoPBearerTokenResolver());
+                }
+                oauth2.jwt(jwt -> {
+                    jwt.jwtAuthenticationConverter(tokenPrincipalConverter);
+                    if (serviceTicketService.isEnabled()) {
+                        // Service tickets take the HMAC path; all other tokens go to the issuer decoders
+                        jwt.decoder(new ServiceTicketJwtDecoder(serviceTicketService, jwtDecoder));
+                    }
+                });
+            })
             .build();
     }
     
+    /**
+     * Routes each token to the decoder of its issuer. The default issuer keeps its configured JWK set URI;
+     * the JWK sets of further trusted issuers are found under {@code authz.issuers.jwk-set-path}.
+     * Locally issued tokens, when enabled, are verified against the local signing keys.
+     */
     @Bean
-    public JwtDecoder jwtDecoder() {
-        return NimbusJwtDecoder.withJwkSetUri(jwkSetUri).build();
+    public IssuerRoutingJwtDecoder jwtDecoder(VerifiedTokenRepository verifiedTokenRepository,
+                                              LocalTokenService localTokenService) {
+        Map<String, String> jwkSetUris = new LinkedHashMap<>();
+        jwkSetUris.put(issuerUri, jwkSetUri);
+        for (String issuer : trustedIssuers) {
+            jwkSetUris.putIfAbsent(issuer, issuer + jwkSetPath);
+        }
+        Duration verifiedCacheTtl = Duration.ofSeconds(verifiedCacheTtlSeconds);
+        VerifiedTokenCache verifiedTokens = sharedVerifiedCache
+                ? new VerifiedTokenCache(verifiedCacheMaxSize, verifiedCacheTtl, verifiedTokenRepository,
+                        sharedVerifiedCacheSecret.getBytes(StandardCharsets.UTF_8), lazyClaims)
+                : new VerifiedTokenCache(verifiedCacheMaxSize, verifiedCacheTtl);
+        Map<String, JwtDecoder> localDecoders = localTokenService.isEnabled()
+                ? Map.of(localTokenService.getIssuer(), localTokenService.getAccessTokenDecoder())
+                : Map.of();
+        return new IssuerRoutingJwtDecoder(jwkSetUris, localDecoders, new HashSet<>(allowedAlgorithms),
+                new RejectedTokenCache(rejectedCacheMaxSize, Duration.ofSeconds(rejectedCacheTtlSeconds)),
+                verifiedTokens, lazyClaims);
     }
     
+    /**
+     * Verifies DPoP proofs, caching the parsed key and thumbprint of each client's proof header.
+     * Proof ids are kept for the maximum proof age to reject replays.
+     */
     @Bean
-    public JwtAuthenticationConverter jwtAuthenticationConverter() {
-        JwtAuthenticationConverter converter = new JwtAuthenticationConverter();
-        converter.setJwtGrantedAuthoritiesConverter(new KeycloakRealmRoleConverter());
-        return converter;
+    public DPoPProofVerifier dpopProofVerifier() {
+        return new DPoPProofVerifier(dpopKeyCacheMaxSize, Duration.ofSeconds(dpopMaxAgeSeconds),
+                new JtiReplayCache(dpopReplayMaxEntries, 16, Clock.systemUTC()), Clock.systemUTC(), lazyClaims);
     }
     
     @Bean
@@ -71,7 +172,7 @@ public class SecurityConfig {
         CorsConfiguration configuration = new CorsConfiguration();
         configuration.setAllowedOrigins(Collections.singletonList("*"));
         configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "DELETE", "OPTIONS"));
-        configuration.setAllowedHeaders(Arrays.asList("Authorization", "Content-Type"));
+        configuration.setAllowedHeaders(Arrays.asList("Authorization", "Content-Type", "DPoP"));
         configuration.setExposedHeaders(Collections.singletonList("Authorization"));
         configuration.setMaxAge(3600L);
         
@@ -79,22 +180,4 @@ public class SecurityConfig {
         source.registerCorsConfiguration("/**", configuration);
         return source;
     }
-    
-    static class KeycloakRealmRoleConverter implements Converter<Jwt, Collection<GrantedAuthority>> {
-        @Override
-        public Collection<GrantedAuthority> convert(Jwt jwt) {
-            final Map<String, Object> realmAccess = (Map<String, Object>) jwt.getClaims().get("realm_access");
-            
-            if (realmAccess == null || realmAccess.isEmpty()) {
-                return Collections.emptyList();
-            }
-            
-            @SuppressWarnings("unchecked")
-            Collection<String> roles = (Collection<String>) realmAccess.get("roles");
-            
-            return roles.stream()
-                    .map(role -> new SimpleGrantedAuthority("ROLE_" + role.toUpperCase()))
-                    .collect(Collectors.toList());
-        }
-    }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,68 @@
+package com.auth.oidcprovider.controllers;
+
+import com.auth.oidcprovider.dto.AccessPolicyRequest;
+import com.auth.oidcprovider.dto.ApiResponse;
+import com.auth.oidcprovider.models.AccessPolicy;
+import com.auth.oidcprovider.services.AccessPolicyService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/authz/policies")
+@Tag(name = "Access Policy Controller", description = "APIs for managing attribute-based access policies")
+@SecurityRequirement(name = "bearerAuth")
+public class AccessPolicyController {
+    
+    private static final Logger log = LoggerFactory.getLogger(AccessPolicyController.class);
+    private final AccessPolicyService accessPolicyService;
+    
+    public AccessPolicyController(AccessPolicyService accessPolicyService) {
+        this.accessPolicyService = accessPolicyService;
+    }
+    
+    @GetMapping
+    @Operation(summary = "Get access policies", description = "Retrieves all attribute-based access policies (admin only)")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<List<AccessPolicy>>> getPolicies() {
+        log.debug("REST request to get all access policies");
+        return ResponseEntity.ok(ApiResponse.success("Access policies retrieved successfully",
+                accessPolicyService.getPolicies()));
+    }
+    
+    @PostMapping
+    @Operation(summary = "Create access policy", description = "Creates an attribute-based access policy, compiling its condition (admin only)")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<AccessPolicy>> createPolicy(@Valid @RequestBody AccessPolicyRequest request) {
+        log.debug("REST request to create access policy {}", request);
+        AccessPolicy policy = accessPolicyService.createPolicy(request);
+        return ResponseEntity.ok(ApiResponse.success("Access policy created successfully", policy));
+    }
+    
+    @PutMapping("/{id}")
+    @Operation(summary = "Update access policy", description = "Replaces an attribute-based access policy (admin only)")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<AccessPolicy>> updatePolicy(@PathVariable String id,
+                                                                  @Valid @RequestBody AccessPolicyRequest request) {
+        log.debug("REST request to update access policy {}: {}", id, request);
+        AccessPolicy policy = accessPolicyService.updatePolicy(id, request);
+        return ResponseEntity.ok(ApiResponse.success("Access policy updated successfully", policy));
+    }
+    
+    @DeleteMapping("/{id}")
+    @Operation(summary = "Delete access policy", description = "Deletes an attribute-based access policy (admin only)")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<Void>> deletePolicy(@PathVariable String id) {
+        log.debug("REST request to delete access policy {}", id);
+        accessPolicyService.deletePolicy(id);
+        return ResponseEntity.ok(ApiResponse.success("Access policy deleted successfully", null));
+    }
+}
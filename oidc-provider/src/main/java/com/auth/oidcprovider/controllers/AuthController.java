@@ -1,9 +1,16 @@
 package com.auth.oidcprovider.controllers;
 
 import com.auth.oidcprovider.dto.ApiResponse;
+import com.auth.oidcprovider.dto.ServiceTicketResponse;
 import com.auth.oidcprovider.dto.TokenRefreshRequest;
 import com.auth.oidcprovider.dto.TokenRefreshResponse;
+import com.auth.oidcprovider.dto.TokenResponse;
+import com.auth.oidcprovider.exceptions.BadRequestException;
 import com.auth.oidcprovider.services.KeycloakService;
+import com.auth.oidcprovider.services.LocalTokenService;
+import com.auth.oidcprovider.services.ServiceTicketService;
+import com.auth.oidcprovider.util.JwtUtil;
+import com.auth.oidcprovider.util.TokenPrincipalAuthenticationToken;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -27,9 +34,16 @@ public class AuthController {
     
     private static final Logger log = LoggerFactory.getLogger(AuthController.class);
     private final KeycloakService keycloakService;
+    private final JwtUtil jwtUtil;
+    private final ServiceTicketService serviceTicketService;
+    private final LocalTokenService localTokenService;
     
-    public AuthController(KeycloakService keycloakService) {
+    public AuthController(KeycloakService keycloakService, JwtUtil jwtUtil,
+                          ServiceTicketService serviceTicketService, LocalTokenService localTokenService) {
         this.keycloakService = keycloakService;
+        this.jwtUtil = jwtUtil;
+        this.serviceTicketService = serviceTicketService;
+        this.localTokenService = localTokenService;
     }
     
     @GetMapping("/userinfo")
@@ -41,23 +55,74 @@ public class AuthController {
     public ResponseEntity<ApiResponse<Map<String, Object>>> getUserInfo(Authentication authentication) {
         log.debug("REST request to get user info from token");
         
-        if (!(authentication instanceof JwtAuthenticationToken)) {
+        if (!(authentication instanceof TokenPrincipalAuthenticationToken)) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                     .body(ApiResponse.error("Not authenticated with a valid token"));
         }
         
-        String token = ((JwtAuthenticationToken) authentication).getToken().getTokenValue();
-        Map<String, Object> userInfo = keycloakService.getUserInfo(token);
+        // The token was verified and its claims read when the request was authenticated
+        TokenPrincipalAuthenticationToken token = (TokenPrincipalAuthenticationToken) authentication;
+        Map<String, Object> userInfo = jwtUtil.getUserInfoClaims(token.getTokenPrincipal(), token.getToken());
         
         return ResponseEntity.ok(ApiResponse.success("User info retrieved successfully", userInfo));
     }
     
+    @PostMapping("/ticket")
+    @Operation(
+        summary = "Issue service ticket", 
+        description = "Exchanges the current access token for a short-lived HMAC-signed ticket for internal service calls",
+        security = @SecurityRequirement(name = "bearerAuth")
+    )
+    public ResponseEntity<ApiResponse<ServiceTicketResponse>> issueServiceTicket(Authentication authentication) {
+        log.debug("REST request to issue a service ticket");
+        
+        if (!(authentication instanceof TokenPrincipalAuthenticationToken)) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(ApiResponse.error("Not authenticated with a valid token"));
+        }
+        
+        TokenPrincipalAuthenticationToken token = (TokenPrincipalAuthenticationToken) authentication;
+        ServiceTicketResponse ticket = serviceTicketService.issueTicket(token.getToken(), token.getTokenPrincipal());
+        
+        return ResponseEntity.ok(ApiResponse.success("Service ticket issued successfully", ticket));
+    }
+    
+    @PostMapping("/token")
+    @Operation(
+        summary = "Issue local tokens", 
+        description = "Exchanges the current access token for a locally signed access token and refresh token",
+        security = @SecurityRequirement(name = "bearerAuth")
+    )
+    public ResponseEntity<ApiResponse<TokenResponse>> issueLocalTokens(Authentication authentication) {
+        log.debug("REST request to issue local tokens");
+        
+        if (!(authentication instanceof TokenPrincipalAuthenticationToken)) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(ApiResponse.error("Not authenticated with a valid token"));
+        }
+        
+        TokenPrincipalAuthenticationToken token = (TokenPrincipalAuthenticationToken) authentication;
+        if (serviceTicketService.isTicket(token.getToken().getTokenValue())) {
+            throw new BadRequestException("token", "A service ticket cannot be exchanged for local tokens");
+        }
+        TokenResponse tokens = localTokenService.issueTokens(token.getToken(), token.getTokenPrincipal());
+        
+        return ResponseEntity.ok(ApiResponse.success("Local tokens issued successfully", tokens));
+    }
+    
     @PostMapping("/refresh")
     @Operation(summary = "Refresh token", description = "Refresh an access token using a refresh token")
     public ResponseEntity<ApiResponse<TokenRefreshResponse>> refreshToken(
             @Valid @RequestBody TokenRefreshRequest request) {
         log.debug("REST request to refresh token");
         
+        if (localTokenService.isLocalToken(request.getRefreshToken())) {
+            // Local refresh tokens are verified and reissued here, without a call to Keycloak
+            TokenResponse tokens = localTokenService.refresh(request.getRefreshToken());
+            TokenRefreshResponse response = TokenRefreshResponse.of(tokens.getAccessToken(), tokens.getRefreshToken());
+            return ResponseEntity.ok(ApiResponse.success("Token refreshed successfully", response));
+        }
+        
         try {
             Map<String, String> tokens = keycloakService.refreshToken(request.getRefreshToken());
             
@@ -0,0 +1,99 @@
+package com.auth.oidcprovider.controllers;
+
+import com.auth.oidcprovider.dto.ApiResponse;
+import com.auth.oidcprovider.dto.DPoPStats;
+import com.auth.oidcprovider.dto.DecisionCacheStats;
+import com.auth.oidcprovider.dto.IssuerRoutingStats;
+import com.auth.oidcprovider.dto.RefreshTokenStats;
+import com.auth.oidcprovider.dto.ReplayCacheStats;
+import com.auth.oidcprovider.services.RefreshTokenRotationService;
+import com.auth.oidcprovider.services.TokenReplayService;
+import com.auth.oidcprovider.util.AuthorizationDecisionCache;
+import com.auth.oidcprovider.util.DPoPProofVerifier;
+import com.auth.oidcprovider.util.IssuerRoutingJwtDecoder;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/admin/authz")
+@Tag(name = "Authorization Admin Controller", description = "APIs for inspecting authorization internals")
+@SecurityRequirement(name = "bearerAuth")
+public class AuthorizationAdminController {
+    
+    private static final Logger log = LoggerFactory.getLogger(AuthorizationAdminController.class);
+    private final AuthorizationDecisionCache decisionCache;
+    private final IssuerRoutingJwtDecoder issuerRoutingJwtDecoder;
+    private final TokenReplayService tokenReplayService;
+    private final DPoPProofVerifier dpopProofVerifier;
+    private final RefreshTokenRotationService refreshTokenRotationService;
+    
+    public AuthorizationAdminController(AuthorizationDecisionCache decisionCache,
+                                        IssuerRoutingJwtDecoder issuerRoutingJwtDecoder,
+                                        TokenReplayService tokenReplayService,
+                                        DPoPProofVerifier dpopProofVerifier,
+                                        RefreshTokenRotationService refreshTokenRotationService) {
+        this.decisionCache = decisionCache;
+        this.issuerRoutingJwtDecoder = issuerRoutingJwtDecoder;
+        this.tokenReplayService = tokenReplayService;
+        this.dpopProofVerifier = dpopProofVerifier;
+        this.refreshTokenRotationService = refreshTokenRotationService;
+    }
+    
+    @GetMapping("/decision-cache")
+    @Operation(summary = "Get decision cache stats", description = "Retrieves hit-rate statistics of the authorization decision cache (admin only)")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<DecisionCacheStats>> getDecisionCacheStats() {
+        log.debug("REST request to get decision cache stats");
+        return ResponseEntity.ok(ApiResponse.success("Decision cache stats retrieved successfully", decisionCache.getStats()));
+    }
+    
+    @DeleteMapping("/decision-cache")
+    @Operation(summary = "Flush decision cache", description = "Invalidates all cached authorization decisions (admin only)")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<Void>> flushDecisionCache() {
+        log.debug("REST request to flush decision cache");
+        decisionCache.invalidateAll();
+        return ResponseEntity.ok(ApiResponse.success("Decision cache flushed successfully", null));
+    }
+    
+    @GetMapping("/issuers")
+    @Operation(summary = "Get token issuer stats", description = "Retrieves per-issuer token decode latency and JWKS statistics (admin only)")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<IssuerRoutingStats>> getIssuerStats() {
+        log.debug("REST request to get token issuer stats");
+        return ResponseEntity.ok(ApiResponse.success("Token issuer stats retrieved successfully",
+                issuerRoutingJwtDecoder.getStats()));
+    }
+    
+    @GetMapping("/replay-cache")
+    @Operation(summary = "Get replay cache stats", description = "Retrieves first-use, replay and capacity statistics of the token replay cache (admin only)")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<ReplayCacheStats>> getReplayCacheStats() {
+        log.debug("REST request to get replay cache stats");
+        return ResponseEntity.ok(ApiResponse.success("Replay cache stats retrieved successfully",
+                tokenReplayService.getStats()));
+    }
+    
+    @GetMapping("/dpop")
+    @Operation(summary = "Get DPoP stats", description = "Retrieves DPoP proof verification and key cache statistics (admin only)")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<DPoPStats>> getDPoPStats() {
+        log.debug("REST request to get DPoP stats");
+        return ResponseEntity.ok(ApiResponse.success("DPoP stats retrieved successfully", dpopProofVerifier.getStats()));
+    }
+    
+    @GetMapping("/refresh-tokens")
+    @Operation(summary = "Get refresh token stats", description = "Retrieves rotation, reuse and front cache statistics of locally issued refresh tokens (admin only)")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<RefreshTokenStats>> getRefreshTokenStats() {
+        log.debug("REST request to get refresh token stats");
+        return ResponseEntity.ok(ApiResponse.success("Refresh token stats retrieved successfully",
+                refreshTokenRotationService.getStats()));
+    }
+}
@@ -0,0 +1,88 @@
+package com.auth.oidcprovider.controllers;
+
+import com.auth.authz.PolicySnapshot;
+import com.auth.authz.PolicySnapshotCodec;
+import com.auth.oidcprovider.dto.ApiResponse;
+import com.auth.oidcprovider.dto.AuthorizationCheckRequest;
+import com.auth.oidcprovider.services.AuthorizationService;
+import com.auth.oidcprovider.services.PermissionEventStreamService;
+import com.auth.oidcprovider.services.PolicySnapshotService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/authz")
+@Tag(name = "Authorization Controller", description = "APIs for services that make authorization decisions locally")
+@SecurityRequirement(name = "bearerAuth")
+public class AuthorizationController {
+
+    public static final String EPOCH_HEADER = "X-Policy-Epoch";
+    public static final String VERSION_HEADER = "X-Policy-Version";
+    public static final String SNAPSHOT_TYPE_HEADER = "X-Policy-Snapshot";
+
+    private static final Logger log = LoggerFactory.getLogger(AuthorizationController.class);
+    private final PolicySnapshotService policySnapshotService;
+    private final PermissionEventStreamService permissionEventStreamService;
+    private final AuthorizationService authorizationService;
+
+    public AuthorizationController(PolicySnapshotService policySnapshotService,
+                                   PermissionEventStreamService permissionEventStreamService,
+                                   AuthorizationService authorizationService) {
+        this.policySnapshotService = policySnapshotService;
+        this.permissionEventStreamService = permissionEventStreamService;
+        this.authorizationService = authorizationService;
+    }
+
+    @PostMapping("/check")
+    @Operation(summary = "Check authorization in bulk",
+            description = "Answers many (subject or token, action, resource) questions in one call; "
+                    + "decisions are returned in request order (admin only)")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<List<Boolean>>> check(@Valid @RequestBody AuthorizationCheckRequest request) {
+        log.debug("REST request to evaluate {} authorization checks", request.getChecks().size());
+        List<Boolean> decisions = authorizationService.checkAll(request.getChecks());
+        return ResponseEntity.ok(ApiResponse.success("Authorization checked successfully", decisions));
+    }
+
+    @GetMapping(value = "/snapshot", produces = PolicySnapshotCodec.MEDIA_TYPE)
+    @Operation(summary = "Get access model snapshot",
+            description = "Retrieves the binary access model, or only the changes since the given epoch and version. "
+                    + "Returns 304 when the caller is up to date (admin only)")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<byte[]> getSnapshot(@RequestParam(required = false) Long epoch,
+                                              @RequestParam(required = false) Long sinceVersion) {
+        log.debug("REST request to get access model snapshot since {}/{}", epoch, sinceVersion);
+        PolicySnapshot snapshot = policySnapshotService.getSnapshot(epoch, sinceVersion);
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(snapshot.isEmpty() ? HttpStatus.NOT_MODIFIED : HttpStatus.OK)
+                .header(EPOCH_HEADER, String.valueOf(snapshot.getEpoch()))
+                .header(VERSION_HEADER, String.valueOf(snapshot.getVersion()))
+                .header(SNAPSHOT_TYPE_HEADER, snapshot.isFull() ? "full" : "delta");
+        if (snapshot.isEmpty()) {
+            return response.build();
+        }
+        return response.contentType(MediaType.APPLICATION_OCTET_STREAM).body(PolicySnapshotCodec.encode(snapshot));
+    }
+
+    @GetMapping(value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Stream permission changes",
+            description = "Pushes product role, user role and role hierarchy changes as Server-Sent Events. "
+                    + "Reconnect with Last-Event-ID to resume without gaps (admin only)")
+    @PreAuthorize("hasRole('ADMIN')")
+    public SseEmitter streamPermissionChanges(@RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        log.debug("REST request to stream permission changes after {}", lastEventId);
+        return permissionEventStreamService.subscribe(lastEventId);
+    }
+}
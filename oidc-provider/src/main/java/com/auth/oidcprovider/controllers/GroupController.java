@@ -0,0 +1,115 @@
+package com.auth.oidcprovider.controllers;
+
+import com.auth.oidcprovider.dto.ApiResponse;
+import com.auth.oidcprovider.dto.GroupRequest;
+import com.auth.oidcprovider.dto.UserDTO;
+import com.auth.oidcprovider.mapper.UserMapper;
+import com.auth.oidcprovider.models.Group;
+import com.auth.oidcprovider.services.GroupService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/groups")
+@Tag(name = "Group Controller", description = "APIs for managing nested groups and their members")
+@SecurityRequirement(name = "bearerAuth")
+public class GroupController {
+
+    private static final Logger log = LoggerFactory.getLogger(GroupController.class);
+    private final GroupService groupService;
+    private final UserMapper userMapper;
+
+    public GroupController(GroupService groupService, UserMapper userMapper) {
+        this.groupService = groupService;
+        this.userMapper = userMapper;
+    }
+
+    @GetMapping
+    @Operation(summary = "Get groups", description = "Retrieves all groups (admin only)")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<List<Group>>> getGroups() {
+        log.debug("REST request to get all groups");
+        return ResponseEntity.ok(ApiResponse.success("Groups retrieved successfully", groupService.getGroups()));
+    }
+
+    @GetMapping("/{id}")
+    @Operation(summary = "Get group", description = "Retrieves a group by its ID (admin only)")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<Group>> getGroup(@PathVariable String id) {
+        log.debug("REST request to get group {}", id);
+        return ResponseEntity.ok(ApiResponse.success("Group retrieved successfully", groupService.getGroup(id)));
+    }
+
+    @PostMapping
+    @Operation(summary = "Create group", description = "Creates a group (admin only)")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<Group>> createGroup(@Valid @RequestBody GroupRequest request) {
+        log.debug("REST request to create group {}", request);
+        Group group = groupService.createGroup(request);
+        return ResponseEntity.ok(ApiResponse.success("Group created successfully", group));
+    }
+
+    @PutMapping("/{id}")
+    @Operation(summary = "Update group", description = "Updates a group, recomputing the roles of its members (admin only)")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<Group>> updateGroup(@PathVariable String id,
+                                                          @Valid @RequestBody GroupRequest request) {
+        log.debug("REST request to update group {}: {}", id, request);
+        Group group = groupService.updateGroup(id, request);
+        return ResponseEntity.ok(ApiResponse.success("Group updated successfully", group));
+    }
+
+    @DeleteMapping("/{id}")
+    @Operation(summary = "Delete group", description = "Deletes a group, removing it from its members and subgroups (admin only)")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<Void>> deleteGroup(@PathVariable String id) {
+        log.debug("REST request to delete group {}", id);
+        groupService.deleteGroup(id);
+        return ResponseEntity.ok(ApiResponse.success("Group deleted successfully", null));
+    }
+
+    @PostMapping("/{id}/groups/{childId}")
+    @Operation(summary = "Nest group", description = "Nests a group in this group (admin only)")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<Group>> addSubgroup(@PathVariable String id, @PathVariable String childId) {
+        log.debug("REST request to nest group {} in group {}", childId, id);
+        Group child = groupService.addSubgroup(id, childId);
+        return ResponseEntity.ok(ApiResponse.success("Group nested successfully", child));
+    }
+
+    @DeleteMapping("/{id}/groups/{childId}")
+    @Operation(summary = "Unnest group", description = "Removes a nested group from this group (admin only)")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<Group>> removeSubgroup(@PathVariable String id, @PathVariable String childId) {
+        log.debug("REST request to remove group {} from group {}", childId, id);
+        Group child = groupService.removeSubgroup(id, childId);
+        return ResponseEntity.ok(ApiResponse.success("Group removed successfully", child));
+    }
+
+    @PostMapping("/{id}/users/{userId}")
+    @Operation(summary = "Add member", description = "Adds a user to this group (admin only)")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<UserDTO>> addMember(@PathVariable String id, @PathVariable String userId) {
+        log.debug("REST request to add user {} to group {}", userId, id);
+        UserDTO user = userMapper.toDto(groupService.addMember(id, userId));
+        return ResponseEntity.ok(ApiResponse.success("Member added successfully", user));
+    }
+
+    @DeleteMapping("/{id}/users/{userId}")
+    @Operation(summary = "Remove member", description = "Removes a user from this group (admin only)")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<UserDTO>> removeMember(@PathVariable String id, @PathVariable String userId) {
+        log.debug("REST request to remove user {} from group {}", userId, id);
+        UserDTO user = userMapper.toDto(groupService.removeMember(id, userId));
+        return ResponseEntity.ok(ApiResponse.success("Member removed successfully", user));
+    }
+}
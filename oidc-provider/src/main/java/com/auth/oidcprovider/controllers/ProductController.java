@@ -1,12 +1,16 @@
 package com.auth.oidcprovider.controllers;
 
 import com.auth.oidcprovider.dto.ApiResponse;
+import com.auth.oidcprovider.dto.ProductAccessCheckRequest;
+import com.auth.oidcprovider.dto.ProductPage;
 import com.auth.oidcprovider.exceptions.ResourceNotFoundException;
 import com.auth.oidcprovider.exceptions.UnauthorizedException;
 import com.auth.oidcprovider.models.Product;
 import com.auth.oidcprovider.models.User;
+import com.auth.oidcprovider.services.AuthorizationService;
 import com.auth.oidcprovider.services.ProductService;
 import com.auth.oidcprovider.util.SecurityUtils;
+import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.ResponseEntity;
@@ -15,7 +19,7 @@ import org.springframework.web.bind.annotation.*;
 
 import java.util.Collection;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
 
 /**
  * REST controller for product operations.
@@ -27,10 +31,13 @@ public class ProductController {
     private static final Logger logger = LoggerFactory.getLogger(ProductController.class);
     
     private final ProductService productService;
+    private final AuthorizationService authorizationService;
     private final SecurityUtils securityUtils;
     
-    public ProductController(ProductService productService, SecurityUtils securityUtils) {
+    public ProductController(ProductService productService, AuthorizationService authorizationService,
+                             SecurityUtils securityUtils) {
         this.productService = productService;
+        this.authorizationService = authorizationService;
         this.securityUtils = securityUtils;
     }
     
@@ -42,17 +49,7 @@ public class ProductController {
     @GetMapping
     public ResponseEntity<ApiResponse<List<Product>>> getAccessibleProducts() {
         Collection<String> roles = securityUtils.getCurrentUserRoles();
-        List<Product> products;
-        
-        if (roles.contains("ADMIN")) {
-            products = productService.getAllProducts();
-        } else {
-            products = roles.stream()
-                    .flatMap(role -> productService.getProductsByRole(role).stream())
-                    .distinct()
-                    .collect(Collectors.toList());
-        }
-        
+        List<Product> products = authorizationService.getReadableProducts(securityUtils.getCurrentClaims(), roles);
         return ResponseEntity.ok(ApiResponse.success("Products retrieved successfully", products));
     }
     
@@ -67,6 +64,29 @@ public class ProductController {
         return ResponseEntity.ok(ApiResponse.success("All products retrieved successfully", products));
     }
     
+    /**
+     * Gets one page of the product catalog (requires authentication).
+     * Use {@code cursor} from the previous page for deep paging and {@code fields} to limit
+     * the returned product fields.
+     *
+     * @param page the zero-based page number
+     * @param size the page size
+     * @param sort the sort order, e.g. {@code price,desc}
+     * @param cursor the cursor returned with the previous page
+     * @param fields the product fields to include
+     * @return the requested page of products
+     */
+    @GetMapping("/catalog")
+    public ResponseEntity<ApiResponse<ProductPage>> getProductCatalog(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) List<String> fields) {
+        ProductPage productPage = productService.getProductPage(page, size, sort, cursor, fields);
+        return ResponseEntity.ok(ApiResponse.success("Product catalog retrieved successfully", productPage));
+    }
+    
     /**
      * Gets a specific iPhone product (accessible by CRM Rep, Sales Manager, and Admin).
      *
@@ -109,6 +129,22 @@ public class ProductController {
         return ResponseEntity.ok(ApiResponse.success("MacBook Pro retrieved successfully", product));
     }
     
+    /**
+     * Checks which of the given products the authenticated user may access.
+     * Products are loaded in a single query and decided as for a single product in one pass.
+     *
+     * @param request the product IDs to check
+     * @return map of product ID to access decision
+     */
+    @PostMapping("/access-check")
+    public ResponseEntity<ApiResponse<Map<String, Boolean>>> checkAccess(
+            @Valid @RequestBody ProductAccessCheckRequest request) {
+        Collection<String> roles = securityUtils.getCurrentUserRoles();
+        Map<String, Boolean> decisions = authorizationService.checkProductAccess(
+                securityUtils.getCurrentClaims(), request.getProductIds(), roles);
+        return ResponseEntity.ok(ApiResponse.success("Product access checked successfully", decisions));
+    }
+    
     /**
      * Creates a new product (admin only).
      *
@@ -157,17 +193,17 @@ public class ProductController {
     }
     
     /**
-     * Validates if the current user has access to a product.
+     * Validates if the current user has access to a product: attribute-based policies on its token
+     * claims and the product's attributes decide first, then its roles or, when relationships are
+     * enabled, tuples shared with the user, its groups or its roles.
      *
      * @param product the product to check
      * @throws UnauthorizedException if the user does not have access
      */
     private void validateAccess(Product product) {
         Collection<String> roles = securityUtils.getCurrentUserRoles();
-        boolean hasAccess = roles.contains("ADMIN") || 
-                roles.stream().anyMatch(role -> product.getAllowedRoles().contains(role));
         
-        if (!hasAccess) {
+        if (!authorizationService.canReadProduct(securityUtils.getCurrentClaims(), product, roles)) {
             throw new UnauthorizedException("access", "product");
         }
     }
@@ -0,0 +1,85 @@
+package com.auth.oidcprovider.controllers;
+
+import com.auth.oidcprovider.dto.ApiResponse;
+import com.auth.oidcprovider.dto.RelationshipRequest;
+import com.auth.oidcprovider.models.Relationship;
+import com.auth.oidcprovider.services.RelationshipService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+@RestController
+@RequestMapping("/api/authz/relationships")
+@Tag(name = "Relationship Controller", description = "APIs for managing and querying relationship tuples")
+@SecurityRequirement(name = "bearerAuth")
+public class RelationshipController {
+    
+    private static final Logger log = LoggerFactory.getLogger(RelationshipController.class);
+    private final RelationshipService relationshipService;
+    
+    public RelationshipController(RelationshipService relationshipService) {
+        this.relationshipService = relationshipService;
+    }
+    
+    @GetMapping
+    @Operation(summary = "Get relationships", description = "Retrieves all relationship tuples on an object (admin only)")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<List<Relationship>>> getRelationships(@RequestParam String object) {
+        log.debug("REST request to get relationships on {}", object);
+        return ResponseEntity.ok(ApiResponse.success("Relationships retrieved successfully",
+                relationshipService.getRelationships(object)));
+    }
+    
+    @PostMapping
+    @Operation(summary = "Write relationship", description = "Writes an object#relation@subject tuple (admin only)")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<Relationship>> writeRelationship(@Valid @RequestBody RelationshipRequest request) {
+        log.debug("REST request to write relationship {}", request);
+        Relationship relationship = relationshipService.writeRelationship(
+                request.getObject(), request.getRelation(), request.getSubject());
+        return ResponseEntity.ok(ApiResponse.success("Relationship written successfully", relationship));
+    }
+    
+    @DeleteMapping
+    @Operation(summary = "Delete relationship", description = "Deletes an object#relation@subject tuple (admin only)")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<Void>> deleteRelationship(@RequestParam String object,
+                                                                @RequestParam String relation,
+                                                                @RequestParam String subject) {
+        log.debug("REST request to delete relationship {}#{}@{}", object, relation, subject);
+        relationshipService.deleteRelationship(object, relation, subject);
+        return ResponseEntity.ok(ApiResponse.success("Relationship deleted successfully", null));
+    }
+    
+    @GetMapping("/check")
+    @Operation(summary = "Check relationship", description = "Checks if a subject holds a relation on an object, directly or through groups (admin only)")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<Boolean>> check(@RequestParam String object,
+                                                      @RequestParam String relation,
+                                                      @RequestParam String subject) {
+        log.debug("REST request to check {}#{}@{}", object, relation, subject);
+        boolean allowed = relationshipService.check(object, relation, Collections.singleton(subject));
+        return ResponseEntity.ok(ApiResponse.success("Relationship checked successfully", allowed));
+    }
+    
+    @GetMapping("/objects")
+    @Operation(summary = "List objects", description = "Lists the IDs of objects of a type on which a subject holds a relation (admin only)")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<Set<String>>> listObjects(@RequestParam String type,
+                                                                @RequestParam String relation,
+                                                                @RequestParam String subject) {
+        log.debug("REST request to list {} objects with {} for {}", type, relation, subject);
+        Set<String> objectIds = relationshipService.listObjects(type, relation, Collections.singleton(subject));
+        return ResponseEntity.ok(ApiResponse.success("Objects listed successfully", objectIds));
+    }
+}
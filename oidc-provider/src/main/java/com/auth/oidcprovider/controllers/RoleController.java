@@ -0,0 +1,60 @@
+package com.auth.oidcprovider.controllers;
+
+import com.auth.oidcprovider.dto.ApiResponse;
+import com.auth.oidcprovider.dto.RoleDefinitionRequest;
+import com.auth.oidcprovider.models.RoleDefinition;
+import com.auth.oidcprovider.services.RoleHierarchyService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/admin/roles")
+@Tag(name = "Role Controller", description = "APIs for managing the role hierarchy")
+@SecurityRequirement(name = "bearerAuth")
+public class RoleController {
+    
+    private static final Logger log = LoggerFactory.getLogger(RoleController.class);
+    private final RoleHierarchyService roleHierarchyService;
+    
+    public RoleController(RoleHierarchyService roleHierarchyService) {
+        this.roleHierarchyService = roleHierarchyService;
+    }
+    
+    @GetMapping
+    @Operation(summary = "Get role hierarchy", description = "Retrieves all role definitions (admin only)")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<List<RoleDefinition>>> getRoleDefinitions() {
+        log.debug("REST request to get role definitions");
+        return ResponseEntity.ok(ApiResponse.success("Role definitions retrieved successfully",
+                roleHierarchyService.getRoleDefinitions()));
+    }
+    
+    @PutMapping("/{role}")
+    @Operation(summary = "Save role", description = "Creates or replaces the roles included by a role (admin only)")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<RoleDefinition>> saveRoleDefinition(
+            @PathVariable String role,
+            @Valid @RequestBody RoleDefinitionRequest request) {
+        log.debug("REST request to save role definition {}: {}", role, request);
+        RoleDefinition saved = roleHierarchyService.saveRoleDefinition(role, request.getIncludedRoles());
+        return ResponseEntity.ok(ApiResponse.success("Role definition saved successfully", saved));
+    }
+    
+    @DeleteMapping("/{role}")
+    @Operation(summary = "Delete role", description = "Removes a role from the hierarchy (admin only)")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<Void>> deleteRoleDefinition(@PathVariable String role) {
+        log.debug("REST request to delete role definition {}", role);
+        roleHierarchyService.deleteRoleDefinition(role);
+        return ResponseEntity.ok(ApiResponse.success("Role definition deleted successfully", null));
+    }
+}
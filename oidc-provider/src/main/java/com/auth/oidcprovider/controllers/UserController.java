@@ -2,12 +2,17 @@ package com.auth.oidcprovider.controllers;
 
 import com.auth.oidcprovider.dto.ApiResponse;
 import com.auth.oidcprovider.dto.CreateUserRequest;
+import com.auth.oidcprovider.dto.RoleGrantRequest;
 import com.auth.oidcprovider.dto.UpdateUserRequest;
 import com.auth.oidcprovider.dto.UserDTO;
 import com.auth.oidcprovider.mapper.UserMapper;
+import com.auth.oidcprovider.models.RoleGrant;
 import com.auth.oidcprovider.models.User;
+import com.auth.oidcprovider.services.RoleGrantService;
+import com.auth.oidcprovider.services.TokenReplayService;
 import com.auth.oidcprovider.services.UserService;
 import com.auth.oidcprovider.util.SecurityUtils;
+import com.auth.oidcprovider.util.TokenPrincipalAuthenticationToken;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -18,6 +23,7 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
@@ -36,11 +42,16 @@ public class UserController {
     private final UserService userService;
     private final UserMapper userMapper;
     private final SecurityUtils securityUtils;
+    private final RoleGrantService roleGrantService;
+    private final TokenReplayService tokenReplayService;
     
-    public UserController(UserService userService, UserMapper userMapper, SecurityUtils securityUtils) {
+    public UserController(UserService userService, UserMapper userMapper, SecurityUtils securityUtils,
+                          RoleGrantService roleGrantService, TokenReplayService tokenReplayService) {
         this.userService = userService;
         this.userMapper = userMapper;
         this.securityUtils = securityUtils;
+        this.roleGrantService = roleGrantService;
+        this.tokenReplayService = tokenReplayService;
     }
     
     @GetMapping
@@ -72,8 +83,8 @@ public class UserController {
         log.debug("REST request to get current user");
         
         String keycloakId = "";
-        if (authentication instanceof JwtAuthenticationToken) {
-            keycloakId = ((JwtAuthenticationToken) authentication).getToken().getSubject();
+        if (authentication instanceof TokenPrincipalAuthenticationToken) {
+            keycloakId = ((TokenPrincipalAuthenticationToken) authentication).getTokenPrincipal().sub();
         } else {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                     .body(ApiResponse.error("Not authenticated with a valid token"));
@@ -91,11 +102,26 @@ public class UserController {
     @PostMapping
     @Operation(summary = "Create user", description = "Creates a new user (admin only)")
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<ApiResponse<UserDTO>> createUser(@Valid @RequestBody CreateUserRequest request) {
+    public ResponseEntity<ApiResponse<UserDTO>> createUser(@Valid @RequestBody CreateUserRequest request,
+                                                           Authentication authentication) {
         log.debug("REST request to create User: {}", request);
         
-        User newUser = userMapper.toEntity(request);
-        User savedUser = userService.saveUser(newUser);
+        if (!(authentication instanceof JwtAuthenticationToken)) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(ApiResponse.error("Not authenticated with a valid token"));
+        }
+        Jwt token = ((JwtAuthenticationToken) authentication).getToken();
+        tokenReplayService.checkFirstUse(token);
+        
+        User savedUser;
+        try {
+            User newUser = userMapper.toEntity(request);
+            savedUser = userService.saveUser(newUser);
+        } catch (RuntimeException e) {
+            // No user was created, so the token may still be used to create one
+            tokenReplayService.forget(token);
+            throw e;
+        }
         return ResponseEntity.status(HttpStatus.CREATED)
                 .body(ApiResponse.success("User created successfully", userMapper.toDto(savedUser)));
     }
@@ -128,14 +154,54 @@ public class UserController {
     @DeleteMapping("/{id}")
     @Operation(summary = "Delete user", description = "Deletes a user by their ID (admin only)")
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<ApiResponse<Void>> deleteUser(@PathVariable String id) {
+    public ResponseEntity<ApiResponse<Void>> deleteUser(@PathVariable String id, Authentication authentication) {
         log.debug("REST request to delete User with ID: {}", id);
         
+        if (!(authentication instanceof JwtAuthenticationToken)) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(ApiResponse.error("Not authenticated with a valid token"));
+        }
         if (!userService.findUserById(id).isPresent()) {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found with ID: " + id);
         }
         
-        userService.deleteUser(id);
+        Jwt token = ((JwtAuthenticationToken) authentication).getToken();
+        tokenReplayService.checkFirstUse(token);
+        try {
+            userService.deleteUser(id);
+        } catch (RuntimeException e) {
+            // No user was deleted, so the token may still be used to delete one
+            tokenReplayService.forget(token);
+            throw e;
+        }
         return ResponseEntity.ok(ApiResponse.success("User deleted successfully", null));
     }
-} 
\ No newline at end of file
+    
+    @GetMapping("/{id}/role-grants")
+    @Operation(summary = "Get role grants", description = "Retrieves the pending and active time-bound role grants of a user (protected)")
+    @PreAuthorize("hasRole('ADMIN') or @securityUtils.isResourceOwner(#id)")
+    public ResponseEntity<ApiResponse<List<RoleGrant>>> getRoleGrants(@PathVariable String id) {
+        log.debug("REST request to get role grants of User with ID: {}", id);
+        return ResponseEntity.ok(ApiResponse.success("Role grants retrieved successfully",
+                roleGrantService.getRoleGrants(id)));
+    }
+    
+    @PostMapping("/{id}/role-grants")
+    @Operation(summary = "Grant role temporarily", description = "Grants a role to a user between notBefore and notAfter (admin only)")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<List<RoleGrant>>> grantRole(@PathVariable String id,
+                                                                  @Valid @RequestBody RoleGrantRequest request) {
+        log.debug("REST request to grant {} to User with ID: {}", request, id);
+        return ResponseEntity.ok(ApiResponse.success("Role granted successfully",
+                roleGrantService.grantRole(id, request)));
+    }
+    
+    @DeleteMapping("/{id}/role-grants/{role}")
+    @Operation(summary = "Revoke role grants", description = "Revokes the time-bound grants of a role from a user (admin only)")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<List<RoleGrant>>> revokeRole(@PathVariable String id, @PathVariable String role) {
+        log.debug("REST request to revoke grants of {} from User with ID: {}", role, id);
+        return ResponseEntity.ok(ApiResponse.success("Role grants revoked successfully",
+                roleGrantService.revokeRole(id, role)));
+    }
+}
@@ -0,0 +1,120 @@
+package com.auth.oidcprovider.controllers;
+
+import com.auth.oidcprovider.services.DiscoveryService;
+import com.auth.oidcprovider.util.PublishedDocument;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Locale;
+
+/**
+ * Publishes the OpenID Provider metadata and JWK set of locally issued tokens. The documents are served as the
+ * pre-rendered bytes of a {@link PublishedDocument}, not wrapped in {@code ApiResponse}, since resource servers
+ * expect the standard formats.
+ */
+@RestController
+@RequestMapping("/.well-known")
+@Tag(name = "Well-Known Controller", description = "APIs for OpenID Provider discovery")
+public class WellKnownController {
+
+    private static final Logger log = LoggerFactory.getLogger(WellKnownController.class);
+    private final DiscoveryService discoveryService;
+
+    public WellKnownController(DiscoveryService discoveryService) {
+        this.discoveryService = discoveryService;
+    }
+
+    @GetMapping("/openid-configuration")
+    @Operation(summary = "Get OpenID configuration", description = "Retrieves the OpenID Provider metadata of locally issued tokens")
+    public ResponseEntity<byte[]> getConfiguration(
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        log.debug("REST request to get OpenID configuration");
+        return discoveryService.isEnabled()
+                ? serve(discoveryService.getConfiguration(), acceptEncoding, ifNoneMatch)
+                : ResponseEntity.notFound().build();
+    }
+
+    @GetMapping("/jwks.json")
+    @Operation(summary = "Get JWK set", description = "Retrieves the public keys that verify locally issued tokens")
+    public ResponseEntity<byte[]> getJwks(
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        log.debug("REST request to get JWK set");
+        return discoveryService.isEnabled()
+                ? serve(discoveryService.getJwks(), acceptEncoding, ifNoneMatch)
+                : ResponseEntity.notFound().build();
+    }
+
+    private static ResponseEntity<byte[]> serve(PublishedDocument document, String acceptEncoding, String ifNoneMatch) {
+        boolean gzip = acceptsGzip(acceptEncoding);
+        String etag = gzip ? document.getGzipEtag() : document.getEtag();
+        if (ifNoneMatch != null && (ifNoneMatch.contains(etag) || ifNoneMatch.trim().equals("*"))) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .header(HttpHeaders.ETAG, etag)
+                    .header(HttpHeaders.CACHE_CONTROL, document.getCacheControl())
+                    .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                    .build();
+        }
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.ETAG, etag)
+                .header(HttpHeaders.CACHE_CONTROL, document.getCacheControl())
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(document.getGzipBody());
+        }
+        return response.body(document.getBody());
+    }
+
+    /**
+     * Checks if an {@code Accept-Encoding} header allows gzip: named with a non-zero quality, or covered by
+     * {@code *} when not named. {@code gzip;q=0} refuses it, and a malformed quality is read as a refusal.
+     */
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        Double gzipQuality = null;
+        Double wildcardQuality = null;
+        for (String element : acceptEncoding.split(",")) {
+            String[] parts = element.split(";");
+            String coding = parts[0].trim().toLowerCase(Locale.ROOT);
+            double quality = quality(parts);
+            if (coding.equals("gzip") || coding.equals("x-gzip")) {
+                gzipQuality = gzipQuality == null ? quality : Math.max(gzipQuality, quality);
+            } else if (coding.equals("*")) {
+                wildcardQuality = quality;
+            }
+        }
+        if (gzipQuality != null) {
+            return gzipQuality > 0;
+        }
+        return wildcardQuality != null && wildcardQuality > 0;
+    }
+
+    private static double quality(String[] parts) {
+        for (int i = 1; i < parts.length; i++) {
+            String parameter = parts[i].trim();
+            if (parameter.length() > 2 && parameter.substring(0, 2).equalsIgnoreCase("q=")) {
+                try {
+                    double quality = Double.parseDouble(parameter.substring(2).trim());
+                    return quality >= 0 && quality <= 1 ? quality : 0;
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
+}
@@ -0,0 +1,120 @@
+package com.auth.oidcprovider.dto;
+
+import com.auth.authz.PolicyRule;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+
+import java.util.Objects;
+
+/**
+ * Request body for creating or replacing an attribute-based access policy rule.
+ */
+public class AccessPolicyRequest {
+
+    @NotBlank(message = "Name is required")
+    private String name;
+
+    private String description;
+
+    @NotBlank(message = "Action is required")
+    private String action;
+
+    @NotBlank(message = "Resource type is required")
+    private String resourceType;
+
+    @NotNull(message = "Effect is required")
+    private PolicyRule.Effect effect;
+
+    @NotBlank(message = "Condition is required")
+    private String condition;
+
+    public AccessPolicyRequest() {
+        // Default constructor
+    }
+
+    public AccessPolicyRequest(String name, String action, String resourceType, PolicyRule.Effect effect,
+                               String condition) {
+        this.name = name;
+        this.action = action;
+        this.resourceType = resourceType;
+        this.effect = effect;
+        this.condition = condition;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public void setDescription(String description) {
+        this.description = description;
+    }
+
+    public String getAction() {
+        return action;
+    }
+
+    public void setAction(String action) {
+        this.action = action;
+    }
+
+    public String getResourceType() {
+        return resourceType;
+    }
+
+    public void setResourceType(String resourceType) {
+        this.resourceType = resourceType;
+    }
+
+    public PolicyRule.Effect getEffect() {
+        return effect;
+    }
+
+    public void setEffect(PolicyRule.Effect effect) {
+        this.effect = effect;
+    }
+
+    public String getCondition() {
+        return condition;
+    }
+
+    public void setCondition(String condition) {
+        this.condition = condition;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        AccessPolicyRequest that = (AccessPolicyRequest) o;
+        return Objects.equals(name, that.name) &&
+                Objects.equals(description, that.description) &&
+                Objects.equals(action, that.action) &&
+                Objects.equals(resourceType, that.resourceType) &&
+                effect == that.effect &&
+                Objects.equals(condition, that.condition);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(name, description, action, resourceType, effect, condition);
+    }
+
+    @Override
+    public String toString() {
+        return "AccessPolicyRequest{" +
+                "name='" + name + '\'' +
+                ", action='" + action + '\'' +
+                ", resourceType='" + resourceType + '\'' +
+                ", effect=" + effect +
+                ", condition='" + condition + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,54 @@
+package com.auth.oidcprovider.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Request body for answering many authorization questions in one call.
+ */
+public class AuthorizationCheckRequest {
+
+    @NotEmpty(message = "At least one check is required")
+    @Size(max = 1000, message = "At most 1000 checks can be evaluated per request")
+    private List<@Valid AuthorizationCheckTuple> checks;
+
+    public AuthorizationCheckRequest() {
+        // Default constructor
+    }
+
+    public AuthorizationCheckRequest(List<AuthorizationCheckTuple> checks) {
+        this.checks = checks;
+    }
+
+    public List<AuthorizationCheckTuple> getChecks() {
+        return checks;
+    }
+
+    public void setChecks(List<AuthorizationCheckTuple> checks) {
+        this.checks = checks;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        AuthorizationCheckRequest that = (AuthorizationCheckRequest) o;
+        return Objects.equals(checks, that.checks);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(checks);
+    }
+
+    @Override
+    public String toString() {
+        return "AuthorizationCheckRequest{" +
+                "checks=" + checks +
+                '}';
+    }
+}
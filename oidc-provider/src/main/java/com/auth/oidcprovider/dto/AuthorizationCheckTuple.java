@@ -0,0 +1,98 @@
+package com.auth.oidcprovider.dto;
+
+import jakarta.validation.constraints.NotBlank;
+
+import java.util.Objects;
+
+/**
+ * A single "can subject do action on resource" question.
+ * The subject is given either as a user ID or as a bearer token; the token wins when both are set.
+ */
+public class AuthorizationCheckTuple {
+
+    private String subject;
+    private String token;
+
+    @NotBlank(message = "Action is required")
+    private String action;
+
+    @NotBlank(message = "Resource is required")
+    private String resource;
+
+    public AuthorizationCheckTuple() {
+        // Default constructor
+    }
+
+    public AuthorizationCheckTuple(String subject, String token, String action, String resource) {
+        this.subject = subject;
+        this.token = token;
+        this.action = action;
+        this.resource = resource;
+    }
+
+    public static AuthorizationCheckTuple forSubject(String subject, String action, String resource) {
+        return new AuthorizationCheckTuple(subject, null, action, resource);
+    }
+
+    public static AuthorizationCheckTuple forToken(String token, String action, String resource) {
+        return new AuthorizationCheckTuple(null, token, action, resource);
+    }
+
+    public String getSubject() {
+        return subject;
+    }
+
+    public void setSubject(String subject) {
+        this.subject = subject;
+    }
+
+    public String getToken() {
+        return token;
+    }
+
+    public void setToken(String token) {
+        this.token = token;
+    }
+
+    public String getAction() {
+        return action;
+    }
+
+    public void setAction(String action) {
+        this.action = action;
+    }
+
+    public String getResource() {
+        return resource;
+    }
+
+    public void setResource(String resource) {
+        this.resource = resource;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        AuthorizationCheckTuple that = (AuthorizationCheckTuple) o;
+        return Objects.equals(subject, that.subject) &&
+                Objects.equals(token, that.token) &&
+                Objects.equals(action, that.action) &&
+                Objects.equals(resource, that.resource);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(subject, token, action, resource);
+    }
+
+    @Override
+    public String toString() {
+        return "AuthorizationCheckTuple{" +
+                "subject='" + subject + '\'' +
+                ", token=" + (token != null ? "[PROTECTED]" : null) +
+                ", action='" + action + '\'' +
+                ", resource='" + resource + '\'' +
+                '}';
+    }
+}
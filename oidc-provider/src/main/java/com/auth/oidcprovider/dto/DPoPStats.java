@@ -0,0 +1,109 @@
+package com.auth.oidcprovider.dto;
+
+import java.util.Objects;
+
+/**
+ * Statistics of DPoP proof verification: accepted and rejected proofs, and hits and misses of the cache of
+ * parsed proof keys and their thumbprints.
+ */
+public class DPoPStats {
+
+    private long verified;
+    private long rejected;
+    private long keyCacheHits;
+    private long keyCacheMisses;
+    private long evictions;
+    private int keyCacheSize;
+
+    public DPoPStats() {
+        // Default constructor
+    }
+
+    public DPoPStats(long verified, long rejected, long keyCacheHits, long keyCacheMisses,
+                     long evictions, int keyCacheSize) {
+        this.verified = verified;
+        this.rejected = rejected;
+        this.keyCacheHits = keyCacheHits;
+        this.keyCacheMisses = keyCacheMisses;
+        this.evictions = evictions;
+        this.keyCacheSize = keyCacheSize;
+    }
+
+    public long getVerified() {
+        return verified;
+    }
+
+    public void setVerified(long verified) {
+        this.verified = verified;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+
+    public void setRejected(long rejected) {
+        this.rejected = rejected;
+    }
+
+    public long getKeyCacheHits() {
+        return keyCacheHits;
+    }
+
+    public void setKeyCacheHits(long keyCacheHits) {
+        this.keyCacheHits = keyCacheHits;
+    }
+
+    public long getKeyCacheMisses() {
+        return keyCacheMisses;
+    }
+
+    public void setKeyCacheMisses(long keyCacheMisses) {
+        this.keyCacheMisses = keyCacheMisses;
+    }
+
+    public long getEvictions() {
+        return evictions;
+    }
+
+    public void setEvictions(long evictions) {
+        this.evictions = evictions;
+    }
+
+    public int getKeyCacheSize() {
+        return keyCacheSize;
+    }
+
+    public void setKeyCacheSize(int keyCacheSize) {
+        this.keyCacheSize = keyCacheSize;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        DPoPStats that = (DPoPStats) o;
+        return verified == that.verified &&
+                rejected == that.rejected &&
+                keyCacheHits == that.keyCacheHits &&
+                keyCacheMisses == that.keyCacheMisses &&
+                evictions == that.evictions &&
+                keyCacheSize == that.keyCacheSize;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(verified, rejected, keyCacheHits, keyCacheMisses, evictions, keyCacheSize);
+    }
+
+    @Override
+    public String toString() {
+        return "DPoPStats{" +
+                "verified=" + verified +
+                ", rejected=" + rejected +
+                ", keyCacheHits=" + keyCacheHits +
+                ", keyCacheMisses=" + keyCacheMisses +
+                ", evictions=" + evictions +
+                ", keyCacheSize=" + keyCacheSize +
+                '}';
+    }
+}
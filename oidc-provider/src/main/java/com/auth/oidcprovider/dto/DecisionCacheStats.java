@@ -0,0 +1,112 @@
+package com.auth.oidcprovider.dto;
+
+import java.util.Objects;
+
+/**
+ * Hit-rate and size statistics of the authorization decision cache.
+ */
+public class DecisionCacheStats {
+
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long invalidations;
+    private int size;
+    private long generation;
+
+    public DecisionCacheStats() {
+        // Default constructor
+    }
+
+    public DecisionCacheStats(long hits, long misses, long evictions, long invalidations, int size, long generation) {
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.invalidations = invalidations;
+        this.size = size;
+        this.generation = generation;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public void setHits(long hits) {
+        this.hits = hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    public void setMisses(long misses) {
+        this.misses = misses;
+    }
+
+    public long getEvictions() {
+        return evictions;
+    }
+
+    public void setEvictions(long evictions) {
+        this.evictions = evictions;
+    }
+
+    public long getInvalidations() {
+        return invalidations;
+    }
+
+    public void setInvalidations(long invalidations) {
+        this.invalidations = invalidations;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public void setSize(int size) {
+        this.size = size;
+    }
+
+    public long getGeneration() {
+        return generation;
+    }
+
+    public void setGeneration(long generation) {
+        this.generation = generation;
+    }
+
+    public double getHitRate() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0.0 : (double) hits / lookups;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        DecisionCacheStats that = (DecisionCacheStats) o;
+        return hits == that.hits &&
+                misses == that.misses &&
+                evictions == that.evictions &&
+                invalidations == that.invalidations &&
+                size == that.size &&
+                generation == that.generation;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(hits, misses, evictions, invalidations, size, generation);
+    }
+
+    @Override
+    public String toString() {
+        return "DecisionCacheStats{" +
+                "hits=" + hits +
+                ", misses=" + misses +
+                ", evictions=" + evictions +
+                ", invalidations=" + invalidations +
+                ", size=" + size +
+                ", generation=" + generation +
+                '}';
+    }
+}
@@ -0,0 +1,79 @@
+package com.auth.oidcprovider.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Request body for creating or updating a group.
+ */
+public class GroupRequest {
+
+    @NotBlank(message = "Name is required")
+    private String name;
+
+    private String description;
+
+    @NotNull(message = "Roles are required")
+    private Set<String> roles;
+
+    public GroupRequest() {
+        // Default constructor
+    }
+
+    public GroupRequest(String name, String description, Set<String> roles) {
+        this.name = name;
+        this.description = description;
+        this.roles = roles;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public void setDescription(String description) {
+        this.description = description;
+    }
+
+    public Set<String> getRoles() {
+        return roles;
+    }
+
+    public void setRoles(Set<String> roles) {
+        this.roles = roles;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        GroupRequest that = (GroupRequest) o;
+        return Objects.equals(name, that.name) &&
+                Objects.equals(description, that.description) &&
+                Objects.equals(roles, that.roles);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(name, description, roles);
+    }
+
+    @Override
+    public String toString() {
+        return "GroupRequest{" +
+                "name='" + name + '\'' +
+                ", description='" + description + '\'' +
+                ", roles=" + roles +
+                '}';
+    }
+}
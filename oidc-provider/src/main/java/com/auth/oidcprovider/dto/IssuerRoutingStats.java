@@ -0,0 +1,124 @@
+package com.auth.oidcprovider.dto;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Statistics of the issuer-routing JWT decoder: tokens rejected before verification, the rejected-token
+ * and verified-token caches and per-issuer stats.
+ */
+public class IssuerRoutingStats {
+
+    private long unknownIssuers;
+    private long malformed;
+    private long precheckFailures;
+    private long rejectedTokenHits;
+    private int rejectedTokenCacheSize;
+    private VerifiedTokenCacheStats verifiedTokenCache;
+    private List<IssuerStats> issuers;
+
+    public IssuerRoutingStats() {
+        // Default constructor
+    }
+
+    public IssuerRoutingStats(long unknownIssuers, long malformed, long precheckFailures, long rejectedTokenHits,
+                              int rejectedTokenCacheSize, VerifiedTokenCacheStats verifiedTokenCache,
+                              List<IssuerStats> issuers) {
+        this.unknownIssuers = unknownIssuers;
+        this.malformed = malformed;
+        this.precheckFailures = precheckFailures;
+        this.rejectedTokenHits = rejectedTokenHits;
+        this.rejectedTokenCacheSize = rejectedTokenCacheSize;
+        this.verifiedTokenCache = verifiedTokenCache;
+        this.issuers = issuers;
+    }
+
+    public long getUnknownIssuers() {
+        return unknownIssuers;
+    }
+
+    public void setUnknownIssuers(long unknownIssuers) {
+        this.unknownIssuers = unknownIssuers;
+    }
+
+    public long getMalformed() {
+        return malformed;
+    }
+
+    public void setMalformed(long malformed) {
+        this.malformed = malformed;
+    }
+
+    public long getPrecheckFailures() {
+        return precheckFailures;
+    }
+
+    public void setPrecheckFailures(long precheckFailures) {
+        this.precheckFailures = precheckFailures;
+    }
+
+    public long getRejectedTokenHits() {
+        return rejectedTokenHits;
+    }
+
+    public void setRejectedTokenHits(long rejectedTokenHits) {
+        this.rejectedTokenHits = rejectedTokenHits;
+    }
+
+    public int getRejectedTokenCacheSize() {
+        return rejectedTokenCacheSize;
+    }
+
+    public void setRejectedTokenCacheSize(int rejectedTokenCacheSize) {
+        this.rejectedTokenCacheSize = rejectedTokenCacheSize;
+    }
+
+    public VerifiedTokenCacheStats getVerifiedTokenCache() {
+        return verifiedTokenCache;
+    }
+
+    public void setVerifiedTokenCache(VerifiedTokenCacheStats verifiedTokenCache) {
+        this.verifiedTokenCache = verifiedTokenCache;
+    }
+
+    public List<IssuerStats> getIssuers() {
+        return issuers;
+    }
+
+    public void setIssuers(List<IssuerStats> issuers) {
+        this.issuers = issuers;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        IssuerRoutingStats that = (IssuerRoutingStats) o;
+        return unknownIssuers == that.unknownIssuers &&
+                malformed == that.malformed &&
+                precheckFailures == that.precheckFailures &&
+                rejectedTokenHits == that.rejectedTokenHits &&
+                rejectedTokenCacheSize == that.rejectedTokenCacheSize &&
+                Objects.equals(verifiedTokenCache, that.verifiedTokenCache) &&
+                Objects.equals(issuers, that.issuers);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(unknownIssuers, malformed, precheckFailures, rejectedTokenHits, rejectedTokenCacheSize,
+                verifiedTokenCache, issuers);
+    }
+
+    @Override
+    public String toString() {
+        return "IssuerRoutingStats{" +
+                "unknownIssuers=" + unknownIssuers +
+                ", malformed=" + malformed +
+                ", precheckFailures=" + precheckFailures +
+                ", rejectedTokenHits=" + rejectedTokenHits +
+                ", rejectedTokenCacheSize=" + rejectedTokenCacheSize +
+                ", verifiedTokenCache=" + verifiedTokenCache +
+                ", issuers=" + issuers +
+                '}';
+    }
+}
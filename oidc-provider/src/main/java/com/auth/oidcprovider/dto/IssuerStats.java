@@ -0,0 +1,120 @@
+package com.auth.oidcprovider.dto;
+
+import java.util.Objects;
+
+/**
+ * Decode and JWKS statistics of one trusted token issuer.
+ */
+public class IssuerStats {
+
+    private String issuer;
+    private boolean decoderCreated;
+    private long decoded;
+    private long failed;
+    private long jwksFetches;
+    private double averageMicros;
+    private double maxMicros;
+
+    public IssuerStats() {
+        // Default constructor
+    }
+
+    public IssuerStats(String issuer, boolean decoderCreated, long decoded, long failed, long jwksFetches,
+                       double averageMicros, double maxMicros) {
+        this.issuer = issuer;
+        this.decoderCreated = decoderCreated;
+        this.decoded = decoded;
+        this.failed = failed;
+        this.jwksFetches = jwksFetches;
+        this.averageMicros = averageMicros;
+        this.maxMicros = maxMicros;
+    }
+
+    public String getIssuer() {
+        return issuer;
+    }
+
+    public void setIssuer(String issuer) {
+        this.issuer = issuer;
+    }
+
+    public boolean isDecoderCreated() {
+        return decoderCreated;
+    }
+
+    public void setDecoderCreated(boolean decoderCreated) {
+        this.decoderCreated = decoderCreated;
+    }
+
+    public long getDecoded() {
+        return decoded;
+    }
+
+    public void setDecoded(long decoded) {
+        this.decoded = decoded;
+    }
+
+    public long getFailed() {
+        return failed;
+    }
+
+    public void setFailed(long failed) {
+        this.failed = failed;
+    }
+
+    public long getJwksFetches() {
+        return jwksFetches;
+    }
+
+    public void setJwksFetches(long jwksFetches) {
+        this.jwksFetches = jwksFetches;
+    }
+
+    public double getAverageMicros() {
+        return averageMicros;
+    }
+
+    public void setAverageMicros(double averageMicros) {
+        this.averageMicros = averageMicros;
+    }
+
+    public double getMaxMicros() {
+        return maxMicros;
+    }
+
+    public void setMaxMicros(double maxMicros) {
+        this.maxMicros = maxMicros;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        IssuerStats that = (IssuerStats) o;
+        return decoderCreated == that.decoderCreated &&
+                decoded == that.decoded &&
+                failed == that.failed &&
+                jwksFetches == that.jwksFetches &&
+                Double.compare(that.averageMicros, averageMicros) == 0 &&
+                Double.compare(that.maxMicros, maxMicros) == 0 &&
+                Objects.equals(issuer, that.issuer);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(issuer, decoderCreated, decoded, failed, jwksFetches, averageMicros, maxMicros);
+    }
+
+    @Override
+    public String toString() {
+        return "IssuerStats{" +
+                "issuer='" + issuer + '\'' +
+                ", decoderCreated=" + decoderCreated +
+                ", decoded=" + decoded +
+                ", failed=" + failed +
+                ", jwksFetches=" + jwksFetches +
+                ", averageMicros=" + averageMicros +
+                ", maxMicros=" + maxMicros +
+                '}';
+    }
+}
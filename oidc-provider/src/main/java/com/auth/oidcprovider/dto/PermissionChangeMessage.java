@@ -0,0 +1,75 @@
+package com.auth.oidcprovider.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Payload of a permission change pushed to event stream subscribers.
+ */
+@JsonInclude(JsonInclude.Include.NON_EMPTY)
+public class PermissionChangeMessage {
+
+    private String type;
+    private String resourceId;
+    private Set<String> roles;
+
+    public PermissionChangeMessage() {
+        // Default constructor
+    }
+
+    public PermissionChangeMessage(String type, String resourceId, Set<String> roles) {
+        this.type = type;
+        this.resourceId = resourceId;
+        this.roles = roles;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public String getResourceId() {
+        return resourceId;
+    }
+
+    public void setResourceId(String resourceId) {
+        this.resourceId = resourceId;
+    }
+
+    public Set<String> getRoles() {
+        return roles;
+    }
+
+    public void setRoles(Set<String> roles) {
+        this.roles = roles;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        PermissionChangeMessage that = (PermissionChangeMessage) o;
+        return Objects.equals(type, that.type) &&
+                Objects.equals(resourceId, that.resourceId) &&
+                Objects.equals(roles, that.roles);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(type, resourceId, roles);
+    }
+
+    @Override
+    public String toString() {
+        return "PermissionChangeMessage{" +
+                "type='" + type + '\'' +
+                ", resourceId='" + resourceId + '\'' +
+                ", roles=" + roles +
+                '}';
+    }
+}
@@ -0,0 +1,53 @@
+package com.auth.oidcprovider.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Request body for checking the caller's access to many products in one call.
+ */
+public class ProductAccessCheckRequest {
+
+    @NotEmpty(message = "At least one product ID is required")
+    @Size(max = 500, message = "At most 500 product IDs can be checked per request")
+    private List<String> productIds;
+
+    public ProductAccessCheckRequest() {
+        // Default constructor
+    }
+
+    public ProductAccessCheckRequest(List<String> productIds) {
+        this.productIds = productIds;
+    }
+
+    public List<String> getProductIds() {
+        return productIds;
+    }
+
+    public void setProductIds(List<String> productIds) {
+        this.productIds = productIds;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ProductAccessCheckRequest that = (ProductAccessCheckRequest) o;
+        return Objects.equals(productIds, that.productIds);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(productIds);
+    }
+
+    @Override
+    public String toString() {
+        return "ProductAccessCheckRequest{" +
+                "productIds=" + productIds +
+                '}';
+    }
+}
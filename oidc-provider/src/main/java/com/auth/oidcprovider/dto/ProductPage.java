@@ -0,0 +1,99 @@
+package com.auth.oidcprovider.dto;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A single page of the product catalog. Each entry holds the product ID and the requested fields only.
+ * {@code nextCursor} can be passed back to continue with keyset pagination;
+ * {@code page} is only set when the page was requested by number.
+ */
+public class ProductPage {
+
+    private List<Map<String, Object>> content;
+    private Integer page;
+    private int size;
+    private boolean hasNext;
+    private String nextCursor;
+
+    public ProductPage() {
+        // Default constructor
+    }
+
+    public ProductPage(List<Map<String, Object>> content, Integer page, int size, boolean hasNext, String nextCursor) {
+        this.content = content;
+        this.page = page;
+        this.size = size;
+        this.hasNext = hasNext;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<Map<String, Object>> getContent() {
+        return content;
+    }
+
+    public void setContent(List<Map<String, Object>> content) {
+        this.content = content;
+    }
+
+    public Integer getPage() {
+        return page;
+    }
+
+    public void setPage(Integer page) {
+        this.page = page;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public void setSize(int size) {
+        this.size = size;
+    }
+
+    public boolean isHasNext() {
+        return hasNext;
+    }
+
+    public void setHasNext(boolean hasNext) {
+        this.hasNext = hasNext;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ProductPage that = (ProductPage) o;
+        return size == that.size &&
+                hasNext == that.hasNext &&
+                Objects.equals(content, that.content) &&
+                Objects.equals(page, that.page) &&
+                Objects.equals(nextCursor, that.nextCursor);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(content, page, size, hasNext, nextCursor);
+    }
+
+    @Override
+    public String toString() {
+        return "ProductPage{" +
+                "content=" + content +
+                ", page=" + page +
+                ", size=" + size +
+                ", hasNext=" + hasNext +
+                ", nextCursor='" + nextCursor + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,63 @@
+package com.auth.oidcprovider.dto;
+
+import java.util.Objects;
+
+/**
+ * A (product ID, role) pair used for batched product access checks.
+ */
+public class ProductRolePair {
+
+    private String productId;
+    private String role;
+
+    public ProductRolePair() {
+        // Default constructor
+    }
+
+    public ProductRolePair(String productId, String role) {
+        this.productId = productId;
+        this.role = role;
+    }
+
+    public static ProductRolePair of(String productId, String role) {
+        return new ProductRolePair(productId, role);
+    }
+
+    public String getProductId() {
+        return productId;
+    }
+
+    public void setProductId(String productId) {
+        this.productId = productId;
+    }
+
+    public String getRole() {
+        return role;
+    }
+
+    public void setRole(String role) {
+        this.role = role;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ProductRolePair that = (ProductRolePair) o;
+        return Objects.equals(productId, that.productId) &&
+                Objects.equals(role, that.role);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(productId, role);
+    }
+
+    @Override
+    public String toString() {
+        return "ProductRolePair{" +
+                "productId='" + productId + '\'' +
+                ", role='" + role + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,134 @@
+package com.auth.oidcprovider.dto;
+
+import java.util.Objects;
+
+/**
+ * Statistics of refresh token rotation: successful rotations, reused tokens that revoked their family, tokens
+ * refused because their family was already revoked, front cache hits and evictions, and store errors.
+ */
+public class RefreshTokenStats {
+
+    private boolean enabled;
+    private long rotations;
+    private long reuses;
+    private long revokedRejections;
+    private long cacheHits;
+    private long cacheEvictions;
+    private long storeErrors;
+    private int cacheSize;
+
+    public RefreshTokenStats() {
+        // Default constructor
+    }
+
+    public RefreshTokenStats(boolean enabled, long rotations, long reuses, long revokedRejections, long cacheHits,
+                             long cacheEvictions, long storeErrors, int cacheSize) {
+        this.enabled = enabled;
+        this.rotations = rotations;
+        this.reuses = reuses;
+        this.revokedRejections = revokedRejections;
+        this.cacheHits = cacheHits;
+        this.cacheEvictions = cacheEvictions;
+        this.storeErrors = storeErrors;
+        this.cacheSize = cacheSize;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public long getRotations() {
+        return rotations;
+    }
+
+    public void setRotations(long rotations) {
+        this.rotations = rotations;
+    }
+
+    public long getReuses() {
+        return reuses;
+    }
+
+    public void setReuses(long reuses) {
+        this.reuses = reuses;
+    }
+
+    public long getRevokedRejections() {
+        return revokedRejections;
+    }
+
+    public void setRevokedRejections(long revokedRejections) {
+        this.revokedRejections = revokedRejections;
+    }
+
+    public long getCacheHits() {
+        return cacheHits;
+    }
+
+    public void setCacheHits(long cacheHits) {
+        this.cacheHits = cacheHits;
+    }
+
+    public long getCacheEvictions() {
+        return cacheEvictions;
+    }
+
+    public void setCacheEvictions(long cacheEvictions) {
+        this.cacheEvictions = cacheEvictions;
+    }
+
+    public long getStoreErrors() {
+        return storeErrors;
+    }
+
+    public void setStoreErrors(long storeErrors) {
+        this.storeErrors = storeErrors;
+    }
+
+    public int getCacheSize() {
+        return cacheSize;
+    }
+
+    public void setCacheSize(int cacheSize) {
+        this.cacheSize = cacheSize;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        RefreshTokenStats that = (RefreshTokenStats) o;
+        return enabled == that.enabled &&
+                rotations == that.rotations &&
+                reuses == that.reuses &&
+                revokedRejections == that.revokedRejections &&
+                cacheHits == that.cacheHits &&
+                cacheEvictions == that.cacheEvictions &&
+                storeErrors == that.storeErrors &&
+                cacheSize == that.cacheSize;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(enabled, rotations, reuses, revokedRejections, cacheHits, cacheEvictions, storeErrors,
+                cacheSize);
+    }
+
+    @Override
+    public String toString() {
+        return "RefreshTokenStats{" +
+                "enabled=" + enabled +
+                ", rotations=" + rotations +
+                ", reuses=" + reuses +
+                ", revokedRejections=" + revokedRejections +
+                ", cacheHits=" + cacheHits +
+                ", cacheEvictions=" + cacheEvictions +
+                ", storeErrors=" + storeErrors +
+                ", cacheSize=" + cacheSize +
+                '}';
+    }
+}
@@ -0,0 +1,78 @@
+package com.auth.oidcprovider.dto;
+
+import jakarta.validation.constraints.NotBlank;
+
+import java.util.Objects;
+
+/**
+ * Request body for writing a relationship tuple {@code object#relation@subject}.
+ */
+public class RelationshipRequest {
+
+    @NotBlank(message = "Object is required")
+    private String object;
+
+    @NotBlank(message = "Relation is required")
+    private String relation;
+
+    @NotBlank(message = "Subject is required")
+    private String subject;
+
+    public RelationshipRequest() {
+        // Default constructor
+    }
+
+    public RelationshipRequest(String object, String relation, String subject) {
+        this.object = object;
+        this.relation = relation;
+        this.subject = subject;
+    }
+
+    public String getObject() {
+        return object;
+    }
+
+    public void setObject(String object) {
+        this.object = object;
+    }
+
+    public String getRelation() {
+        return relation;
+    }
+
+    public void setRelation(String relation) {
+        this.relation = relation;
+    }
+
+    public String getSubject() {
+        return subject;
+    }
+
+    public void setSubject(String subject) {
+        this.subject = subject;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        RelationshipRequest that = (RelationshipRequest) o;
+        return Objects.equals(object, that.object) &&
+                Objects.equals(relation, that.relation) &&
+                Objects.equals(subject, that.subject);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(object, relation, subject);
+    }
+
+    @Override
+    public String toString() {
+        return "RelationshipRequest{" +
+                "object='" + object + '\'' +
+                ", relation='" + relation + '\'' +
+                ", subject='" + subject + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,133 @@
+package com.auth.oidcprovider.dto;
+
+import java.util.Objects;
+
+/**
+ * Statistics of the token replay cache: first uses and replays of token ids, replays only caught by the
+ * shared store, ids refused because the cache was full, and shared store errors.
+ */
+public class ReplayCacheStats {
+
+    private boolean enabled;
+    private boolean sharedEnabled;
+    private long firstUses;
+    private long replays;
+    private long sharedReplays;
+    private long overflows;
+    private long sharedErrors;
+    private int size;
+
+    public ReplayCacheStats() {
+        // Default constructor
+    }
+
+    public ReplayCacheStats(boolean enabled, boolean sharedEnabled, long firstUses, long replays, long sharedReplays,
+                            long overflows, long sharedErrors, int size) {
+        this.enabled = enabled;
+        this.sharedEnabled = sharedEnabled;
+        this.firstUses = firstUses;
+        this.replays = replays;
+        this.sharedReplays = sharedReplays;
+        this.overflows = overflows;
+        this.sharedErrors = sharedErrors;
+        this.size = size;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public boolean isSharedEnabled() {
+        return sharedEnabled;
+    }
+
+    public void setSharedEnabled(boolean sharedEnabled) {
+        this.sharedEnabled = sharedEnabled;
+    }
+
+    public long getFirstUses() {
+        return firstUses;
+    }
+
+    public void setFirstUses(long firstUses) {
+        this.firstUses = firstUses;
+    }
+
+    public long getReplays() {
+        return replays;
+    }
+
+    public void setReplays(long replays) {
+        this.replays = replays;
+    }
+
+    public long getSharedReplays() {
+        return sharedReplays;
+    }
+
+    public void setSharedReplays(long sharedReplays) {
+        this.sharedReplays = sharedReplays;
+    }
+
+    public long getOverflows() {
+        return overflows;
+    }
+
+    public void setOverflows(long overflows) {
+        this.overflows = overflows;
+    }
+
+    public long getSharedErrors() {
+        return sharedErrors;
+    }
+
+    public void setSharedErrors(long sharedErrors) {
+        this.sharedErrors = sharedErrors;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public void setSize(int size) {
+        this.size = size;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ReplayCacheStats that = (ReplayCacheStats) o;
+        return enabled == that.enabled &&
+                sharedEnabled == that.sharedEnabled &&
+                firstUses == that.firstUses &&
+                replays == that.replays &&
+                sharedReplays == that.sharedReplays &&
+                overflows == that.overflows &&
+                sharedErrors == that.sharedErrors &&
+                size == that.size;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(enabled, sharedEnabled, firstUses, replays, sharedReplays, overflows, sharedErrors, size);
+    }
+
+    @Override
+    public String toString() {
+        return "ReplayCacheStats{" +
+                "enabled=" + enabled +
+                ", sharedEnabled=" + sharedEnabled +
+                ", firstUses=" + firstUses +
+                ", replays=" + replays +
+                ", sharedReplays=" + sharedReplays +
+                ", overflows=" + overflows +
+                ", sharedErrors=" + sharedErrors +
+                ", size=" + size +
+                '}';
+    }
+}
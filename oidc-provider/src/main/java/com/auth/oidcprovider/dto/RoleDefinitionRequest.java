@@ -0,0 +1,51 @@
+package com.auth.oidcprovider.dto;
+
+import jakarta.validation.constraints.NotNull;
+
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Request body for creating or replacing a role in the role hierarchy.
+ */
+public class RoleDefinitionRequest {
+
+    @NotNull(message = "Included roles are required")
+    private Set<String> includedRoles;
+
+    public RoleDefinitionRequest() {
+        // Default constructor
+    }
+
+    public RoleDefinitionRequest(Set<String> includedRoles) {
+        this.includedRoles = includedRoles;
+    }
+
+    public Set<String> getIncludedRoles() {
+        return includedRoles;
+    }
+
+    public void setIncludedRoles(Set<String> includedRoles) {
+        this.includedRoles = includedRoles;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        RoleDefinitionRequest that = (RoleDefinitionRequest) o;
+        return Objects.equals(includedRoles, that.includedRoles);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(includedRoles);
+    }
+
+    @Override
+    public String toString() {
+        return "RoleDefinitionRequest{" +
+                "includedRoles=" + includedRoles +
+                '}';
+    }
+}
@@ -0,0 +1,94 @@
+package com.auth.oidcprovider.dto;
+
+import jakarta.validation.constraints.Future;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+
+import java.time.Instant;
+import java.util.Objects;
+
+/**
+ * Request body for granting a role to a user for a limited time.
+ */
+public class RoleGrantRequest {
+
+    @NotBlank(message = "Role is required")
+    private String role;
+
+    private Instant notBefore;
+
+    @NotNull(message = "End of the grant is required")
+    @Future(message = "End of the grant must be in the future")
+    private Instant notAfter;
+
+    private String reason;
+
+    public RoleGrantRequest() {
+        // Default constructor
+    }
+
+    public RoleGrantRequest(String role, Instant notBefore, Instant notAfter, String reason) {
+        this.role = role;
+        this.notBefore = notBefore;
+        this.notAfter = notAfter;
+        this.reason = reason;
+    }
+
+    public String getRole() {
+        return role;
+    }
+
+    public void setRole(String role) {
+        this.role = role;
+    }
+
+    public Instant getNotBefore() {
+        return notBefore;
+    }
+
+    public void setNotBefore(Instant notBefore) {
+        this.notBefore = notBefore;
+    }
+
+    public Instant getNotAfter() {
+        return notAfter;
+    }
+
+    public void setNotAfter(Instant notAfter) {
+        this.notAfter = notAfter;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+
+    public void setReason(String reason) {
+        this.reason = reason;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        RoleGrantRequest that = (RoleGrantRequest) o;
+        return Objects.equals(role, that.role) &&
+                Objects.equals(notBefore, that.notBefore) &&
+                Objects.equals(notAfter, that.notAfter) &&
+                Objects.equals(reason, that.reason);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(role, notBefore, notAfter, reason);
+    }
+
+    @Override
+    public String toString() {
+        return "RoleGrantRequest{" +
+                "role='" + role + '\'' +
+                ", notBefore=" + notBefore +
+                ", notAfter=" + notAfter +
+                ", reason='" + reason + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,71 @@
+package com.auth.oidcprovider.dto;
+
+import java.util.Objects;
+
+/**
+ * A service ticket issued in exchange for an access token, for calls between internal services.
+ */
+public class ServiceTicketResponse {
+
+    private String ticket;
+    private String tokenType = "Bearer";
+    private long expiresIn;
+
+    public ServiceTicketResponse() {
+        // Default constructor
+    }
+
+    public ServiceTicketResponse(String ticket, String tokenType, long expiresIn) {
+        this.ticket = ticket;
+        this.tokenType = tokenType;
+        this.expiresIn = expiresIn;
+    }
+
+    public String getTicket() {
+        return ticket;
+    }
+
+    public void setTicket(String ticket) {
+        this.ticket = ticket;
+    }
+
+    public String getTokenType() {
+        return tokenType;
+    }
+
+    public void setTokenType(String tokenType) {
+        this.tokenType = tokenType;
+    }
+
+    public long getExpiresIn() {
+        return expiresIn;
+    }
+
+    public void setExpiresIn(long expiresIn) {
+        this.expiresIn = expiresIn;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ServiceTicketResponse that = (ServiceTicketResponse) o;
+        return expiresIn == that.expiresIn &&
+                Objects.equals(ticket, that.ticket) &&
+                Objects.equals(tokenType, that.tokenType);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(ticket, tokenType, expiresIn);
+    }
+
+    @Override
+    public String toString() {
+        return "ServiceTicketResponse{" +
+                "ticket='" + ticket + '\'' +
+                ", tokenType='" + tokenType + '\'' +
+                ", expiresIn=" + expiresIn +
+                '}';
+    }
+}
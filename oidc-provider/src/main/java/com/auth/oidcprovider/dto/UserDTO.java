@@ -25,6 +25,10 @@ public class UserDTO {
     @NotEmpty(message = "At least one role is required")
     private List<String> roles;
     
+    private List<String> groupIds;
+    
+    private List<String> effectiveRoles;
+    
     private boolean active;
     
     private Date createdAt;
@@ -85,6 +89,22 @@ public class UserDTO {
         this.roles = roles;
     }
     
+    public List<String> getGroupIds() {
+        return groupIds;
+    }
+    
+    public void setGroupIds(List<String> groupIds) {
+        this.groupIds = groupIds;
+    }
+    
+    public List<String> getEffectiveRoles() {
+        return effectiveRoles;
+    }
+    
+    public void setEffectiveRoles(List<String> effectiveRoles) {
+        this.effectiveRoles = effectiveRoles;
+    }
+    
     public boolean isActive() {
         return active;
     }
@@ -120,13 +140,15 @@ public class UserDTO {
                 Objects.equals(email, userDTO.email) &&
                 Objects.equals(keycloakId, userDTO.keycloakId) &&
                 Objects.equals(roles, userDTO.roles) &&
+                Objects.equals(groupIds, userDTO.groupIds) &&
+                Objects.equals(effectiveRoles, userDTO.effectiveRoles) &&
                 Objects.equals(createdAt, userDTO.createdAt) &&
                 Objects.equals(updatedAt, userDTO.updatedAt);
     }
     
     @Override
     public int hashCode() {
-        return Objects.hash(id, username, email, keycloakId, roles, active, createdAt, updatedAt);
+        return Objects.hash(id, username, email, keycloakId, roles, groupIds, effectiveRoles, active, createdAt, updatedAt);
     }
     
     @Override
@@ -137,6 +159,8 @@ public class UserDTO {
                 ", email='" + email + '\'' +
                 ", keycloakId='" + keycloakId + '\'' +
                 ", roles=" + roles +
+                ", groupIds=" + groupIds +
+                ", effectiveRoles=" + effectiveRoles +
                 ", active=" + active +
                 ", createdAt=" + createdAt +
                 ", updatedAt=" + updatedAt +
@@ -153,6 +177,8 @@ public class UserDTO {
         private String email;
         private String keycloakId;
         private List<String> roles;
+        private List<String> groupIds;
+        private List<String> effectiveRoles;
         private boolean active;
         private Date createdAt;
         private Date updatedAt;
@@ -182,6 +208,16 @@ public class UserDTO {
             return this;
         }
         
+        public UserDTOBuilder groupIds(List<String> groupIds) {
+            this.groupIds = groupIds;
+            return this;
+        }
+        
+        public UserDTOBuilder effectiveRoles(List<String> effectiveRoles) {
+            this.effectiveRoles = effectiveRoles;
+            return this;
+        }
+        
         public UserDTOBuilder active(boolean active) {
             this.active = active;
             return this;
@@ -198,7 +234,10 @@ public class UserDTO {
         }
         
         public UserDTO build() {
-            return new UserDTO(id, username, email, keycloakId, roles, active, createdAt, updatedAt);
+            UserDTO dto = new UserDTO(id, username, email, keycloakId, roles, active, createdAt, updatedAt);
+            dto.setGroupIds(groupIds);
+            dto.setEffectiveRoles(effectiveRoles);
+            return dto;
         }
     }
 } 
\ No newline at end of file
@@ -0,0 +1,121 @@
+package com.auth.oidcprovider.dto;
+
+import java.util.Objects;
+
+/**
+ * Statistics of the verified-token cache: hits on the local and the shared level, shared records
+ * ignored because they failed authentication, and shared store errors.
+ */
+public class VerifiedTokenCacheStats {
+
+    private boolean sharedEnabled;
+    private long hits;
+    private long sharedHits;
+    private long sharedRejections;
+    private long sharedErrors;
+    private long evictions;
+    private int size;
+
+    public VerifiedTokenCacheStats() {
+        // Default constructor
+    }
+
+    public VerifiedTokenCacheStats(boolean sharedEnabled, long hits, long sharedHits, long sharedRejections,
+                                   long sharedErrors, long evictions, int size) {
+        this.sharedEnabled = sharedEnabled;
+        this.hits = hits;
+        this.sharedHits = sharedHits;
+        this.sharedRejections = sharedRejections;
+        this.sharedErrors = sharedErrors;
+        this.evictions = evictions;
+        this.size = size;
+    }
+
+    public boolean isSharedEnabled() {
+        return sharedEnabled;
+    }
+
+    public void setSharedEnabled(boolean sharedEnabled) {
+        this.sharedEnabled = sharedEnabled;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public void setHits(long hits) {
+        this.hits = hits;
+    }
+
+    public long getSharedHits() {
+        return sharedHits;
+    }
+
+    public void setSharedHits(long sharedHits) {
+        this.sharedHits = sharedHits;
+    }
+
+    public long getSharedRejections() {
+        return sharedRejections;
+    }
+
+    public void setSharedRejections(long sharedRejections) {
+        this.sharedRejections = sharedRejections;
+    }
+
+    public long getSharedErrors() {
+        return sharedErrors;
+    }
+
+    public void setSharedErrors(long sharedErrors) {
+        this.sharedErrors = sharedErrors;
+    }
+
+    public long getEvictions() {
+        return evictions;
+    }
+
+    public void setEvictions(long evictions) {
+        this.evictions = evictions;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public void setSize(int size) {
+        this.size = size;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        VerifiedTokenCacheStats that = (VerifiedTokenCacheStats) o;
+        return sharedEnabled == that.sharedEnabled &&
+                hits == that.hits &&
+                sharedHits == that.sharedHits &&
+                sharedRejections == that.sharedRejections &&
+                sharedErrors == that.sharedErrors &&
+                evictions == that.evictions &&
+                size == that.size;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(sharedEnabled, hits, sharedHits, sharedRejections, sharedErrors, evictions, size);
+    }
+
+    @Override
+    public String toString() {
+        return "VerifiedTokenCacheStats{" +
+                "sharedEnabled=" + sharedEnabled +
+                ", hits=" + hits +
+                ", sharedHits=" + sharedHits +
+                ", sharedRejections=" + sharedRejections +
+                ", sharedErrors=" + sharedErrors +
+                ", evictions=" + evictions +
+                ", size=" + size +
+                '}';
+    }
+}
@@ -0,0 +1,71 @@
+package com.auth.oidcprovider.events;
+
+import org.springframework.context.ApplicationEvent;
+
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * Event published whenever data that authorization decisions depend on has changed:
+ * product role grants, user roles, groups, the role hierarchy, relationship tuples or access policies.
+ */
+public class PermissionChangedEvent extends ApplicationEvent {
+
+    /**
+     * Kind of change that was made.
+     */
+    public enum Type {
+        PRODUCT_CREATED,
+        PRODUCT_ROLES_CHANGED,
+        USER_SAVED,
+        USER_ROLES_CHANGED,
+        USER_DELETED,
+        ROLE_HIERARCHY_CHANGED,
+        RELATIONSHIP_CHANGED,
+        POLICY_CHANGED,
+        GROUP_CHANGED
+    }
+
+    private final Type type;
+    private final String resourceId;
+    private final Set<String> roles;
+
+    public PermissionChangedEvent(Object source, Type type, String resourceId, Set<String> roles) {
+        super(source);
+        this.type = type;
+        this.resourceId = resourceId;
+        this.roles = roles != null ? Collections.unmodifiableSet(roles) : Collections.emptySet();
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * Gets the ID of the changed product, user or group, the role name for hierarchy changes, the tuple
+     * for relationship changes, or the policy ID for access policy changes.
+     *
+     * @return the changed resource ID
+     */
+    public String getResourceId() {
+        return resourceId;
+    }
+
+    /**
+     * Gets the roles held by the resource after the change.
+     *
+     * @return the roles, empty if not applicable
+     */
+    public Set<String> getRoles() {
+        return roles;
+    }
+
+    @Override
+    public String toString() {
+        return "PermissionChangedEvent{" +
+                "type=" + type +
+                ", resourceId='" + resourceId + '\'' +
+                ", roles=" + roles +
+                '}';
+    }
+}
@@ -26,6 +26,8 @@ public class UserMapper {
                 .email(user.getEmail())
                 .keycloakId(user.getKeycloakId())
                 .roles(user.getRoles())
+                .groupIds(user.getGroupIds())
+                .effectiveRoles(user.getEffectiveRoles())
                 .active(user.isActive())
                 .createdAt(user.getCreatedAt())
                 .updatedAt(user.getUpdatedAt())
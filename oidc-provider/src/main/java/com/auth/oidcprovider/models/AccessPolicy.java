@@ -0,0 +1,123 @@
+package com.auth.oidcprovider.models;
+
+import com.auth.authz.PolicyRule;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.Objects;
+
+/**
+ * Attribute-based access policy rule, e.g. "SALES_MANAGER may read products priced under 1000 in the EU":
+ * action {@code read}, resource type {@code product}, effect {@code PERMIT} and condition
+ * {@code subject.roles contains 'SALES_MANAGER' and resource.price < 1000 and resource.region == 'EU'}.
+ */
+@Document(collection = "access_policies")
+public class AccessPolicy {
+
+    @Id
+    private String id;
+    private String name;
+    private String description;
+    private String action;
+    private String resourceType;
+    private PolicyRule.Effect effect;
+    private String condition;
+
+    public AccessPolicy() {
+    }
+
+    public AccessPolicy(String name, String action, String resourceType, PolicyRule.Effect effect, String condition) {
+        this.name = name;
+        this.action = action;
+        this.resourceType = resourceType;
+        this.effect = effect;
+        this.condition = condition;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public void setDescription(String description) {
+        this.description = description;
+    }
+
+    public String getAction() {
+        return action;
+    }
+
+    public void setAction(String action) {
+        this.action = action;
+    }
+
+    public String getResourceType() {
+        return resourceType;
+    }
+
+    public void setResourceType(String resourceType) {
+        this.resourceType = resourceType;
+    }
+
+    public PolicyRule.Effect getEffect() {
+        return effect;
+    }
+
+    public void setEffect(PolicyRule.Effect effect) {
+        this.effect = effect;
+    }
+
+    public String getCondition() {
+        return condition;
+    }
+
+    public void setCondition(String condition) {
+        this.condition = condition;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        AccessPolicy that = (AccessPolicy) o;
+        return Objects.equals(id, that.id) &&
+                Objects.equals(name, that.name) &&
+                Objects.equals(description, that.description) &&
+                Objects.equals(action, that.action) &&
+                Objects.equals(resourceType, that.resourceType) &&
+                effect == that.effect &&
+                Objects.equals(condition, that.condition);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, name, description, action, resourceType, effect, condition);
+    }
+
+    @Override
+    public String toString() {
+        return "AccessPolicy{" +
+                "id='" + id + '\'' +
+                ", name='" + name + '\'' +
+                ", action='" + action + '\'' +
+                ", resourceType='" + resourceType + '\'' +
+                ", effect=" + effect +
+                ", condition='" + condition + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,111 @@
+package com.auth.oidcprovider.models;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Group of users and other groups carrying roles. Members hold the roles of the group and of every
+ * group it is nested in. Membership is stored on the member side ({@link User#getGroupIds()} and
+ * {@link #getParentGroupIds()}), so large groups never grow a single document.
+ */
+@Document(collection = "groups")
+public class Group {
+
+    @Id
+    private String id;
+
+    @Indexed(unique = true)
+    private String name;
+
+    private String description;
+    private Set<String> roles = new HashSet<>();
+
+    @Indexed
+    private Set<String> parentGroupIds = new HashSet<>();
+
+    public Group() {
+    }
+
+    public Group(String name, String description, Set<String> roles) {
+        this.name = name;
+        this.description = description;
+        this.roles = roles;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public void setDescription(String description) {
+        this.description = description;
+    }
+
+    public Set<String> getRoles() {
+        return roles;
+    }
+
+    public void setRoles(Set<String> roles) {
+        this.roles = roles;
+    }
+
+    /**
+     * Gets the IDs of the groups this group is a member of.
+     *
+     * @return the parent group IDs
+     */
+    public Set<String> getParentGroupIds() {
+        return parentGroupIds;
+    }
+
+    public void setParentGroupIds(Set<String> parentGroupIds) {
+        this.parentGroupIds = parentGroupIds;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        Group group = (Group) o;
+        return Objects.equals(id, group.id) &&
+                Objects.equals(name, group.name) &&
+                Objects.equals(description, group.description) &&
+                Objects.equals(roles, group.roles) &&
+                Objects.equals(parentGroupIds, group.parentGroupIds);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, name, description, roles, parentGroupIds);
+    }
+
+    @Override
+    public String toString() {
+        return "Group{" +
+                "id='" + id + '\'' +
+                ", name='" + name + '\'' +
+                ", roles=" + roles +
+                ", parentGroupIds=" + parentGroupIds +
+                '}';
+    }
+}
@@ -1,6 +1,8 @@
 package com.auth.oidcprovider.models;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.util.HashSet;
@@ -11,6 +13,10 @@ import java.util.Set;
  * Product entity representing a product in the system.
  */
 @Document(collection = "products")
+@CompoundIndexes({
+        @CompoundIndex(name = "name_id_idx", def = "{'name': 1, '_id': 1}"),
+        @CompoundIndex(name = "price_id_idx", def = "{'price': 1, '_id': 1}")
+})
 public class Product {
 
     @Id
@@ -18,6 +24,7 @@ public class Product {
     private String name;
     private String description;
     private double price;
+    private String region;
     private Set<String> allowedRoles = new HashSet<>();
 
     public Product() {
@@ -61,6 +68,19 @@ public class Product {
         this.price = price;
     }
 
+    /**
+     * Gets the sales region of the product, e.g. {@code EU}, used by attribute-based policies.
+     *
+     * @return the region, or null if not set
+     */
+    public String getRegion() {
+        return region;
+    }
+
+    public void setRegion(String region) {
+        this.region = region;
+    }
+
     public Set<String> getAllowedRoles() {
         return allowedRoles;
     }
@@ -77,8 +97,15 @@ public class Product {
         this.allowedRoles.remove(role);
     }
 
+    /**
+     * Checks if the role is listed in the allowed roles of this product.
+     * Roles inherited through the role hierarchy must already be expanded by the caller.
+     *
+     * @param role the role to check
+     * @return true if the role is allowed
+     */
     public boolean isAccessibleByRole(String role) {
-        return this.allowedRoles.contains(role) || this.allowedRoles.contains("ADMIN");
+        return this.allowedRoles.contains(role);
     }
 
     @Override
@@ -89,12 +116,13 @@ public class Product {
         return Double.compare(product.price, price) == 0 &&
                 Objects.equals(id, product.id) &&
                 Objects.equals(name, product.name) &&
-                Objects.equals(description, product.description);
+                Objects.equals(description, product.description) &&
+                Objects.equals(region, product.region);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(id, name, description, price);
+        return Objects.hash(id, name, description, price, region);
     }
 
     @Override
@@ -104,6 +132,7 @@ public class Product {
                 ", name='" + name + '\'' +
                 ", description='" + description + '\'' +
                 ", price=" + price +
+                ", region='" + region + '\'' +
                 ", allowedRoles=" + allowedRoles +
                 '}';
     }
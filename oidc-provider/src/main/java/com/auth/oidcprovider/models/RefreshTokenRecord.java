@@ -0,0 +1,119 @@
+package com.auth.oidcprovider.models;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.util.Objects;
+
+/**
+ * Record of a locally issued refresh token, keyed by the SHA-256 fingerprint of the token so the token itself
+ * is never stored. Every token descending from one exchange shares a family id. A token is marked used when it
+ * is rotated; presenting it again revokes its family. Mongo removes the record once the token expires.
+ */
+@Document(collection = "refresh_tokens")
+public class RefreshTokenRecord {
+
+    @Id
+    private String id;
+    @Indexed
+    private String familyId;
+    private String subject;
+    private boolean used;
+    private boolean revoked;
+    @Indexed(name = "expires_at_ttl_idx", expireAfterSeconds = 0)
+    private Instant expiresAt;
+
+    public RefreshTokenRecord() {
+        // Default constructor
+    }
+
+    public RefreshTokenRecord(String id, String familyId, String subject, boolean used, boolean revoked,
+                              Instant expiresAt) {
+        this.id = id;
+        this.familyId = familyId;
+        this.subject = subject;
+        this.used = used;
+        this.revoked = revoked;
+        this.expiresAt = expiresAt;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getFamilyId() {
+        return familyId;
+    }
+
+    public void setFamilyId(String familyId) {
+        this.familyId = familyId;
+    }
+
+    public String getSubject() {
+        return subject;
+    }
+
+    public void setSubject(String subject) {
+        this.subject = subject;
+    }
+
+    public boolean isUsed() {
+        return used;
+    }
+
+    public void setUsed(boolean used) {
+        this.used = used;
+    }
+
+    public boolean isRevoked() {
+        return revoked;
+    }
+
+    public void setRevoked(boolean revoked) {
+        this.revoked = revoked;
+    }
+
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(Instant expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        RefreshTokenRecord that = (RefreshTokenRecord) o;
+        return used == that.used &&
+                revoked == that.revoked &&
+                Objects.equals(id, that.id) &&
+                Objects.equals(familyId, that.familyId) &&
+                Objects.equals(subject, that.subject) &&
+                Objects.equals(expiresAt, that.expiresAt);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, familyId, subject, used, revoked, expiresAt);
+    }
+
+    @Override
+    public String toString() {
+        return "RefreshTokenRecord{" +
+                "id='" + id + '\'' +
+                ", familyId='" + familyId + '\'' +
+                ", subject='" + subject + '\'' +
+                ", used=" + used +
+                ", revoked=" + revoked +
+                ", expiresAt=" + expiresAt +
+                '}';
+    }
+}
@@ -0,0 +1,93 @@
+package com.auth.oidcprovider.models;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.Objects;
+
+/**
+ * Relationship tuple {@code object#relation@subject} granting a user, group or role a relation on an object,
+ * e.g. {@code product:42#viewer@user:alice} or {@code product:42#viewer@group:sales#member}.
+ */
+@Document(collection = "relationships")
+@CompoundIndexes({
+        @CompoundIndex(name = "object_relation_subject_idx", def = "{'object': 1, 'relation': 1, 'subject': 1}", unique = true),
+        @CompoundIndex(name = "subject_idx", def = "{'subject': 1}")
+})
+public class Relationship {
+
+    @Id
+    private String id;
+    private String object;
+    private String relation;
+    private String subject;
+
+    public Relationship() {
+    }
+
+    public Relationship(String object, String relation, String subject) {
+        this.object = object;
+        this.relation = relation;
+        this.subject = subject;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getObject() {
+        return object;
+    }
+
+    public void setObject(String object) {
+        this.object = object;
+    }
+
+    public String getRelation() {
+        return relation;
+    }
+
+    public void setRelation(String relation) {
+        this.relation = relation;
+    }
+
+    public String getSubject() {
+        return subject;
+    }
+
+    public void setSubject(String subject) {
+        this.subject = subject;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        Relationship that = (Relationship) o;
+        return Objects.equals(id, that.id) &&
+                Objects.equals(object, that.object) &&
+                Objects.equals(relation, that.relation) &&
+                Objects.equals(subject, that.subject);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, object, relation, subject);
+    }
+
+    @Override
+    public String toString() {
+        return "Relationship{" +
+                "id='" + id + '\'' +
+                ", object='" + object + '\'' +
+                ", relation='" + relation + '\'' +
+                ", subject='" + subject + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,67 @@
+package com.auth.oidcprovider.models;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Role definition forming one node of the role hierarchy.
+ * A role implicitly holds every role it includes, directly or transitively
+ * (e.g. ADMIN includes SALES_MANAGER, which includes CRM_REP).
+ */
+@Document(collection = "roles")
+public class RoleDefinition {
+
+    @Id
+    private String name;
+    private Set<String> includedRoles = new HashSet<>();
+
+    public RoleDefinition() {
+    }
+
+    public RoleDefinition(String name, Set<String> includedRoles) {
+        this.name = name;
+        this.includedRoles = includedRoles;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public Set<String> getIncludedRoles() {
+        return includedRoles;
+    }
+
+    public void setIncludedRoles(Set<String> includedRoles) {
+        this.includedRoles = includedRoles;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        RoleDefinition that = (RoleDefinition) o;
+        return Objects.equals(name, that.name) &&
+                Objects.equals(includedRoles, that.includedRoles);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(name, includedRoles);
+    }
+
+    @Override
+    public String toString() {
+        return "RoleDefinition{" +
+                "name='" + name + '\'' +
+                ", includedRoles=" + includedRoles +
+                '}';
+    }
+}
@@ -0,0 +1,117 @@
+package com.auth.oidcprovider.models;
+
+import java.time.Instant;
+import java.util.Objects;
+
+/**
+ * Time-bound grant of a role to a user, embedded in the user document.
+ * The role is held from {@code notBefore} (inclusive, immediately if null) until {@code notAfter} (exclusive).
+ */
+public class RoleGrant {
+
+    private String role;
+    private Instant notBefore;
+    private Instant notAfter;
+    private String reason;
+
+    public RoleGrant() {
+    }
+
+    public RoleGrant(String role, Instant notBefore, Instant notAfter, String reason) {
+        this.role = role;
+        this.notBefore = notBefore;
+        this.notAfter = notAfter;
+        this.reason = reason;
+    }
+
+    public String getRole() {
+        return role;
+    }
+
+    public void setRole(String role) {
+        this.role = role;
+    }
+
+    public Instant getNotBefore() {
+        return notBefore;
+    }
+
+    public void setNotBefore(Instant notBefore) {
+        this.notBefore = notBefore;
+    }
+
+    public Instant getNotAfter() {
+        return notAfter;
+    }
+
+    public void setNotAfter(Instant notAfter) {
+        this.notAfter = notAfter;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+
+    public void setReason(String reason) {
+        this.reason = reason;
+    }
+
+    /**
+     * Checks if the grant is in effect at a point in time.
+     *
+     * @param now the point in time
+     * @return true if the role is held
+     */
+    public boolean isActiveAt(Instant now) {
+        return (notBefore == null || !now.isBefore(notBefore)) && now.isBefore(notAfter);
+    }
+
+    /**
+     * Checks if the grant has ended at a point in time.
+     *
+     * @param now the point in time
+     * @return true if the grant can be discarded
+     */
+    public boolean isExpiredAt(Instant now) {
+        return !now.isBefore(notAfter);
+    }
+
+    /**
+     * Gets the next time after a point in time at which the grant starts or ends.
+     *
+     * @param now the point in time
+     * @return the next transition, or null if the grant has ended
+     */
+    public Instant nextTransitionAfter(Instant now) {
+        if (notBefore != null && notBefore.isAfter(now)) {
+            return notBefore;
+        }
+        return notAfter.isAfter(now) ? notAfter : null;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        RoleGrant that = (RoleGrant) o;
+        return Objects.equals(role, that.role) &&
+                Objects.equals(notBefore, that.notBefore) &&
+                Objects.equals(notAfter, that.notAfter) &&
+                Objects.equals(reason, that.reason);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(role, notBefore, notAfter, reason);
+    }
+
+    @Override
+    public String toString() {
+        return "RoleGrant{" +
+                "role='" + role + '\'' +
+                ", notBefore=" + notBefore +
+                ", notAfter=" + notAfter +
+                ", reason='" + reason + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,92 @@
+package com.auth.oidcprovider.models;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.util.Objects;
+
+/**
+ * Public half of a key that some node uses to sign locally issued tokens, shared so every node publishes and
+ * accepts the keys of all nodes. Nodes refresh their records while they hold the key; Mongo removes a record
+ * once no token signed with the key can still be valid.
+ */
+@Document(collection = "signing_keys")
+public class SigningKeyRecord {
+
+    @Id
+    private String id;
+    private String algorithm;
+    private String jwk;
+    @Indexed(name = "expires_at_ttl_idx", expireAfterSeconds = 0)
+    private Instant expiresAt;
+
+    public SigningKeyRecord() {
+        // Default constructor
+    }
+
+    public SigningKeyRecord(String id, String algorithm, String jwk, Instant expiresAt) {
+        this.id = id;
+        this.algorithm = algorithm;
+        this.jwk = jwk;
+        this.expiresAt = expiresAt;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getAlgorithm() {
+        return algorithm;
+    }
+
+    public void setAlgorithm(String algorithm) {
+        this.algorithm = algorithm;
+    }
+
+    public String getJwk() {
+        return jwk;
+    }
+
+    public void setJwk(String jwk) {
+        this.jwk = jwk;
+    }
+
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(Instant expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        SigningKeyRecord that = (SigningKeyRecord) o;
+        return Objects.equals(id, that.id) &&
+                Objects.equals(algorithm, that.algorithm) &&
+                Objects.equals(jwk, that.jwk) &&
+                Objects.equals(expiresAt, that.expiresAt);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, algorithm, jwk, expiresAt);
+    }
+
+    @Override
+    public String toString() {
+        return "SigningKeyRecord{" +
+                "id='" + id + '\'' +
+                ", algorithm='" + algorithm + '\'' +
+                ", expiresAt=" + expiresAt +
+                '}';
+    }
+}
@@ -0,0 +1,69 @@
+package com.auth.oidcprovider.models;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.util.Objects;
+
+/**
+ * Record that a token id ({@code jti}) was used for a replay-protected operation, shared so that a token
+ * used on one node is refused on every other node. The id is the issuer and the jti; inserting a second
+ * record with the same id fails. Mongo removes the record once the token can no longer be used.
+ */
+@Document(collection = "used_token_ids")
+public class UsedTokenId {
+
+    @Id
+    private String id;
+    @Indexed(name = "expires_at_ttl_idx", expireAfterSeconds = 0)
+    private Instant expiresAt;
+
+    public UsedTokenId() {
+        // Default constructor
+    }
+
+    public UsedTokenId(String id, Instant expiresAt) {
+        this.id = id;
+        this.expiresAt = expiresAt;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(Instant expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        UsedTokenId that = (UsedTokenId) o;
+        return Objects.equals(id, that.id) &&
+                Objects.equals(expiresAt, that.expiresAt);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, expiresAt);
+    }
+
+    @Override
+    public String toString() {
+        return "UsedTokenId{" +
+                "id='" + id + '\'' +
+                ", expiresAt=" + expiresAt +
+                '}';
+    }
+}
@@ -3,8 +3,12 @@ package com.auth.oidcprovider.models;
 import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Objects;
+import java.util.Set;
 
 @Document(collection = "users")
 public class User extends BaseEntity {
@@ -19,6 +23,22 @@ public class User extends BaseEntity {
     private String keycloakId;
     
     private List<String> roles;
+    
+    @Indexed
+    private List<String> groupIds = new ArrayList<>();
+    
+    // Own roles plus the roles of all groups reached through groupIds, maintained on every group change
+    private List<String> effectiveRoles;
+    
+    private List<RoleGrant> roleGrants = new ArrayList<>();
+    
+    // Earliest pending start or end of a role grant; indexed so expiry never scans all users
+    @Indexed(sparse = true)
+    private Instant nextRoleTransition;
+    
+    // Incremented on every change to the role grants, for compare-and-set updates
+    private long roleGrantsVersion;
+    
     private boolean active;
     
     public User() {
@@ -65,6 +85,91 @@ public class User extends BaseEntity {
         this.roles = roles;
     }
     
+    public List<RoleGrant> getRoleGrants() {
+        return roleGrants;
+    }
+    
+    public void setRoleGrants(List<RoleGrant> roleGrants) {
+        this.roleGrants = roleGrants;
+    }
+    
+    public Instant getNextRoleTransition() {
+        return nextRoleTransition;
+    }
+    
+    public void setNextRoleTransition(Instant nextRoleTransition) {
+        this.nextRoleTransition = nextRoleTransition;
+    }
+    
+    public long getRoleGrantsVersion() {
+        return roleGrantsVersion;
+    }
+    
+    public void setRoleGrantsVersion(long roleGrantsVersion) {
+        this.roleGrantsVersion = roleGrantsVersion;
+    }
+    
+    public List<String> getGroupIds() {
+        return groupIds;
+    }
+    
+    public void setGroupIds(List<String> groupIds) {
+        this.groupIds = groupIds;
+    }
+    
+    /**
+     * Gets the materialized roles of the user: its own roles plus the roles of every group it belongs to,
+     * directly or through nested groups. Falls back to the own roles for users not yet materialized.
+     * 
+     * @return the effective roles
+     */
+    public List<String> getEffectiveRoles() {
+        return effectiveRoles != null ? effectiveRoles : roles;
+    }
+    
+    public void setEffectiveRoles(List<String> effectiveRoles) {
+        this.effectiveRoles = effectiveRoles;
+    }
+    
+    /**
+     * Computes the roles held at a point in time: the materialized roles plus every role grant in effect.
+     * 
+     * @param now the point in time
+     * @return the effective roles
+     */
+    public List<String> getEffectiveRoles(Instant now) {
+        List<String> materializedRoles = getEffectiveRoles();
+        if (roleGrants == null || roleGrants.isEmpty()) {
+            return materializedRoles;
+        }
+        Set<String> effectiveRoles = materializedRoles != null ? new LinkedHashSet<>(materializedRoles) : new LinkedHashSet<>();
+        for (RoleGrant grant : roleGrants) {
+            if (grant.isActiveAt(now)) {
+                effectiveRoles.add(grant.getRole());
+            }
+        }
+        return new ArrayList<>(effectiveRoles);
+    }
+    
+    /**
+     * Drops ended role grants and recomputes {@link #getNextRoleTransition()}.
+     * 
+     * @param now the point in time
+     */
+    public void refreshRoleTransitions(Instant now) {
+        Instant next = null;
+        if (roleGrants != null) {
+            roleGrants.removeIf(grant -> grant.isExpiredAt(now));
+            for (RoleGrant grant : roleGrants) {
+                Instant transition = grant.nextTransitionAfter(now);
+                if (transition != null && (next == null || transition.isBefore(next))) {
+                    next = transition;
+                }
+            }
+        }
+        nextRoleTransition = next;
+    }
+    
     public boolean isActive() {
         return active;
     }
@@ -83,12 +188,14 @@ public class User extends BaseEntity {
                 Objects.equals(username, user.username) &&
                 Objects.equals(email, user.email) &&
                 Objects.equals(keycloakId, user.keycloakId) &&
-                Objects.equals(roles, user.roles);
+                Objects.equals(roles, user.roles) &&
+                Objects.equals(groupIds, user.groupIds) &&
+                Objects.equals(roleGrants, user.roleGrants);
     }
     
     @Override
     public int hashCode() {
-        return Objects.hash(super.hashCode(), username, email, keycloakId, roles, active);
+        return Objects.hash(super.hashCode(), username, email, keycloakId, roles, groupIds, roleGrants, active);
     }
     
     @Override
@@ -99,6 +206,9 @@ public class User extends BaseEntity {
                 ", email='" + email + '\'' +
                 ", keycloakId='" + keycloakId + '\'' +
                 ", roles=" + roles +
+                ", groupIds=" + groupIds +
+                ", effectiveRoles=" + effectiveRoles +
+                ", roleGrants=" + roleGrants +
                 ", active=" + active +
                 ", createdAt=" + getCreatedAt() +
                 ", updatedAt=" + getUpdatedAt() +
@@ -0,0 +1,104 @@
+package com.auth.oidcprovider.models;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.util.Objects;
+
+/**
+ * Record that a token passed signature verification on some node, shared so other nodes can skip it.
+ * Keyed by the SHA-256 fingerprint of the token; Mongo removes the record once the token expires.
+ * The MAC covers every field, so records written without the shared secret are ignored.
+ */
+@Document(collection = "verified_tokens")
+public class VerifiedToken {
+
+    @Id
+    private String id;
+    private String issuer;
+    private String subject;
+    @Indexed(name = "expires_at_ttl_idx", expireAfterSeconds = 0)
+    private Instant expiresAt;
+    private String mac;
+
+    public VerifiedToken() {
+        // Default constructor
+    }
+
+    public VerifiedToken(String id, String issuer, String subject, Instant expiresAt, String mac) {
+        this.id = id;
+        this.issuer = issuer;
+        this.subject = subject;
+        this.expiresAt = expiresAt;
+        this.mac = mac;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getIssuer() {
+        return issuer;
+    }
+
+    public void setIssuer(String issuer) {
+        this.issuer = issuer;
+    }
+
+    public String getSubject() {
+        return subject;
+    }
+
+    public void setSubject(String subject) {
+        this.subject = subject;
+    }
+
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(Instant expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+
+    public String getMac() {
+        return mac;
+    }
+
+    public void setMac(String mac) {
+        this.mac = mac;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        VerifiedToken that = (VerifiedToken) o;
+        return Objects.equals(id, that.id) &&
+                Objects.equals(issuer, that.issuer) &&
+                Objects.equals(subject, that.subject) &&
+                Objects.equals(expiresAt, that.expiresAt) &&
+                Objects.equals(mac, that.mac);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, issuer, subject, expiresAt, mac);
+    }
+
+    @Override
+    public String toString() {
+        return "VerifiedToken{" +
+                "id='" + id + '\'' +
+                ", issuer='" + issuer + '\'' +
+                ", subject='" + subject + '\'' +
+                ", expiresAt=" + expiresAt +
+                '}';
+    }
+}
@@ -0,0 +1,12 @@
+package com.auth.oidcprovider.repositories;
+
+import com.auth.oidcprovider.models.AccessPolicy;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repository interface for AccessPolicy entities.
+ */
+@Repository
+public interface AccessPolicyRepository extends MongoRepository<AccessPolicy, String> {
+}
@@ -0,0 +1,14 @@
+package com.auth.oidcprovider.repositories;
+
+import com.auth.oidcprovider.models.Group;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repository interface for Group entities.
+ */
+@Repository
+public interface GroupRepository extends MongoRepository<Group, String> {
+    
+    boolean existsByName(String name);
+}
@@ -2,8 +2,10 @@ package com.auth.oidcprovider.repositories;
 
 import com.auth.oidcprovider.models.Product;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -28,4 +30,33 @@ public interface ProductRepository extends MongoRepository<Product, String> {
      * @return list of products accessible by the role
      */
     List<Product> findByAllowedRolesContaining(String role);
-} 
\ No newline at end of file
+    
+    /**
+     * Checks if a product exists whose allowed roles contain any of the given roles.
+     * Runs as a limit-1 count, so the matching document is only read on the server and never returned.
+     *
+     * @param id the product ID
+     * @param roles the roles to match against the allowed roles
+     * @return true if a matching product exists
+     */
+    boolean existsByIdAndAllowedRolesIn(String id, Collection<String> roles);
+    
+    /**
+     * Finds the allowed roles of the given products in a single query.
+     * Only {@code _id} and {@code allowedRoles} are projected; all other fields are left unset.
+     *
+     * @param ids the product IDs
+     * @return the matching products with only their ID and allowed roles populated
+     */
+    @Query(value = "{ '_id': { $in: ?0 } }", fields = "{ 'allowedRoles': 1 }")
+    List<Product> findAllowedRolesByIdIn(Collection<String> ids);
+    
+    /**
+     * Finds the allowed roles of every product.
+     * Only {@code _id} and {@code allowedRoles} are projected; all other fields are left unset.
+     *
+     * @return all products with only their ID and allowed roles populated
+     */
+    @Query(value = "{}", fields = "{ 'allowedRoles': 1 }")
+    List<Product> findAllAllowedRoles();
+}
@@ -0,0 +1,12 @@
+package com.auth.oidcprovider.repositories;
+
+import com.auth.oidcprovider.models.RefreshTokenRecord;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repository interface for RefreshTokenRecord entities, the fingerprints of locally issued refresh tokens.
+ */
+@Repository
+public interface RefreshTokenRecordRepository extends MongoRepository<RefreshTokenRecord, String> {
+}
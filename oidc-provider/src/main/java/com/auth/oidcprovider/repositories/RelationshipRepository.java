@@ -0,0 +1,51 @@
+package com.auth.oidcprovider.repositories;
+
+import com.auth.oidcprovider.models.Relationship;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Repository interface for Relationship entities.
+ */
+@Repository
+public interface RelationshipRepository extends MongoRepository<Relationship, String> {
+    
+    /**
+     * Finds all relationships on an object.
+     *
+     * @param object the object, {@code type:id}
+     * @return the relationships
+     */
+    List<Relationship> findByObject(String object);
+    
+    /**
+     * Checks if a relationship exists.
+     *
+     * @param object the object
+     * @param relation the relation
+     * @param subject the subject
+     * @return true if the relationship exists
+     */
+    boolean existsByObjectAndRelationAndSubject(String object, String relation, String subject);
+    
+    /**
+     * Deletes a relationship.
+     *
+     * @param object the object
+     * @param relation the relation
+     * @param subject the subject
+     * @return the number of deleted relationships
+     */
+    long deleteByObjectAndRelationAndSubject(String object, String relation, String subject);
+    
+    /**
+     * Streams all relationships with a cursor, so large graphs are not materialized as one list.
+     * The stream must be closed.
+     *
+     * @return the relationships
+     */
+    Stream<Relationship> streamAllBy();
+}
@@ -0,0 +1,12 @@
+package com.auth.oidcprovider.repositories;
+
+import com.auth.oidcprovider.models.RoleDefinition;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repository interface for RoleDefinition entities.
+ */
+@Repository
+public interface RoleDefinitionRepository extends MongoRepository<RoleDefinition, String> {
+}
@@ -0,0 +1,12 @@
+package com.auth.oidcprovider.repositories;
+
+import com.auth.oidcprovider.models.SigningKeyRecord;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repository interface for SigningKeyRecord entities, the public keys of locally issued tokens.
+ */
+@Repository
+public interface SigningKeyRecordRepository extends MongoRepository<SigningKeyRecord, String> {
+}
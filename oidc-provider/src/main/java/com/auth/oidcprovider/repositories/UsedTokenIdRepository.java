@@ -0,0 +1,12 @@
+package com.auth.oidcprovider.repositories;
+
+import com.auth.oidcprovider.models.UsedTokenId;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repository interface for UsedTokenId records, the shared token replay store.
+ */
+@Repository
+public interface UsedTokenIdRepository extends MongoRepository<UsedTokenId, String> {
+}
@@ -5,8 +5,11 @@ import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface UserRepository extends MongoRepository<User, String> {
@@ -14,6 +17,15 @@ public interface UserRepository extends MongoRepository<User, String> {
     Optional<User> findByEmail(String email);
     Optional<User> findByKeycloakId(String keycloakId);
     
+    /**
+     * Finds a user by Keycloak ID with only the fields needed to compute its roles, using the Keycloak ID index.
+     *
+     * @param keycloakId the Keycloak ID
+     * @return the user, or empty if there is none
+     */
+    @Query(value = "{ 'keycloakId': ?0 }", fields = "{ 'roles': 1, 'effectiveRoles': 1, 'roleGrants': 1, 'active': 1 }")
+    Optional<User> findRolesByKeycloakId(String keycloakId);
+    
     boolean existsByUsername(String username);
     boolean existsByEmail(String email);
     boolean existsByKeycloakId(String keycloakId);
@@ -23,4 +35,38 @@ public interface UserRepository extends MongoRepository<User, String> {
     
     @Query("{ 'active': true }")
     List<User> findAllActiveUsers();
-}
\ No newline at end of file
+    
+    /**
+     * Finds the user with the earliest pending role grant transition, using the transition index.
+     *
+     * @return the user, or empty if no grant is pending
+     */
+    Optional<User> findFirstByNextRoleTransitionNotNullOrderByNextRoleTransitionAsc();
+    
+    /**
+     * Finds the users with a role grant transition due, using the transition index.
+     *
+     * @param now the current time
+     * @return the users whose next transition is at or before {@code now}
+     */
+    List<User> findByNextRoleTransitionLessThanEqual(Instant now);
+    
+    /**
+     * Streams the members of any of the given groups with only the fields needed to recompute their
+     * effective roles. The stream must be closed.
+     *
+     * @param groupIds the group IDs
+     * @return the members
+     */
+    @Query(value = "{ 'groupIds': { $in: ?0 } }", fields = "{ 'roles': 1, 'groupIds': 1, 'effectiveRoles': 1 }")
+    Stream<User> streamByGroupIdsIn(Collection<String> groupIds);
+    
+    /**
+     * Finds the given users with only the fields needed to recompute their effective roles.
+     *
+     * @param ids the user IDs
+     * @return the users
+     */
+    @Query(value = "{ '_id': { $in: ?0 } }", fields = "{ 'roles': 1, 'groupIds': 1, 'effectiveRoles': 1 }")
+    List<User> findMembershipByIdIn(Collection<String> ids);
+}
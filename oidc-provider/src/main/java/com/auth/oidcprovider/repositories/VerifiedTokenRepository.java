@@ -0,0 +1,12 @@
+package com.auth.oidcprovider.repositories;
+
+import com.auth.oidcprovider.models.VerifiedToken;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repository interface for VerifiedToken records, the shared verified-token cache.
+ */
+@Repository
+public interface VerifiedTokenRepository extends MongoRepository<VerifiedToken, String> {
+}
@@ -0,0 +1,83 @@
+package com.auth.oidcprovider.services;
+
+import com.auth.authz.AttributePolicyEngine;
+import com.auth.oidcprovider.dto.AccessPolicyRequest;
+import com.auth.oidcprovider.models.AccessPolicy;
+import com.auth.oidcprovider.models.Product;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Service for attribute-based access policies. Rules are stored in Mongo, compiled once when loaded
+ * or written, and evaluated in memory against token claims and resource attributes.
+ */
+public interface AccessPolicyService {
+
+    /**
+     * Resource type of products.
+     */
+    String PRODUCT_RESOURCE = "product";
+
+    /**
+     * Subject attribute holding the caller's roles, expanded through the role hierarchy.
+     * All other subject attributes are token claims.
+     */
+    String ROLES_ATTRIBUTE = "roles";
+
+    /**
+     * Gets all policies.
+     *
+     * @return the policies
+     */
+    List<AccessPolicy> getPolicies();
+
+    /**
+     * Creates a policy.
+     *
+     * @param request the policy
+     * @return the stored policy
+     */
+    AccessPolicy createPolicy(AccessPolicyRequest request);
+
+    /**
+     * Replaces a policy.
+     *
+     * @param id the policy ID
+     * @param request the policy
+     * @return the stored policy
+     */
+    AccessPolicy updatePolicy(String id, AccessPolicyRequest request);
+
+    /**
+     * Deletes a policy.
+     *
+     * @param id the policy ID
+     */
+    void deletePolicy(String id);
+
+    /**
+     * Gets the engine holding the compiled policies.
+     *
+     * @return the engine
+     */
+    AttributePolicyEngine getEngine();
+
+    /**
+     * Evaluates the policies for an action on a product.
+     *
+     * @param action the action
+     * @param product the product
+     * @param claims the claims of the caller's token
+     * @param roles the expanded roles of the caller
+     * @return the decision, {@code NOT_APPLICABLE} when no rule matched
+     */
+    AttributePolicyEngine.Decision evaluateProduct(String action, Product product, Map<String, Object> claims,
+                                                   Collection<String> roles);
+
+    /**
+     * Reloads and recompiles all policies from the database.
+     */
+    void reload();
+}
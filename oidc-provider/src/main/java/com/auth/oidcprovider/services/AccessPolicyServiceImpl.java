@@ -0,0 +1,266 @@
+package com.auth.oidcprovider.services;
+
+import com.auth.authz.AttributePolicyEngine;
+import com.auth.authz.AttributeSource;
+import com.auth.authz.PolicyRule;
+import com.auth.oidcprovider.dto.AccessPolicyRequest;
+import com.auth.oidcprovider.events.PermissionChangedEvent;
+import com.auth.oidcprovider.exceptions.BadRequestException;
+import com.auth.oidcprovider.exceptions.ResourceNotFoundException;
+import com.auth.oidcprovider.models.AccessPolicy;
+import com.auth.oidcprovider.models.Product;
+import com.auth.oidcprovider.repositories.AccessPolicyRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Implementation of the AccessPolicyService interface.
+ * Policies are compiled when loaded or written and kept by ID; every change builds a new immutable
+ * {@link AttributePolicyEngine} from the compiled rules, so decisions never parse expressions and
+ * never see a half-applied change.
+ * <p>
+ * Writes through other instances do not reach this one, so every {@code authz.policies.sync-seconds} the
+ * policies are read from the store and compared with the ones loaded. Changed, added and removed policies are
+ * applied and each is announced with a {@link PermissionChangedEvent.Type#POLICY_CHANGED} event.
+ */
+@Service
+public class AccessPolicyServiceImpl implements AccessPolicyService {
+
+    private static final Logger log = LoggerFactory.getLogger(AccessPolicyServiceImpl.class);
+
+    private final AccessPolicyRepository accessPolicyRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final long syncSeconds;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "access-policy-sync");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Guarded by this; the stored policies, including those that do not compile, to detect changes
+    private final Map<String, AccessPolicy> policies = new LinkedHashMap<>();
+    private final Map<String, PolicyRule> rules = new LinkedHashMap<>();
+    private volatile AttributePolicyEngine engine = AttributePolicyEngine.EMPTY;
+    private volatile boolean loaded;
+
+    public AccessPolicyServiceImpl(AccessPolicyRepository accessPolicyRepository,
+                                   ApplicationEventPublisher eventPublisher,
+                                   @Value("${authz.policies.sync-seconds:30}") long syncSeconds) {
+        this.accessPolicyRepository = accessPolicyRepository;
+        this.eventPublisher = eventPublisher;
+        this.syncSeconds = syncSeconds;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (syncSeconds > 0) {
+            scheduler.scheduleWithFixedDelay(this::sync, syncSeconds, syncSeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    @Override
+    public List<AccessPolicy> getPolicies() {
+        return accessPolicyRepository.findAll();
+    }
+
+    @Override
+    public synchronized AccessPolicy createPolicy(AccessPolicyRequest request) {
+        ensureLoaded();
+        AccessPolicy policy = new AccessPolicy();
+        return save(policy, request);
+    }
+
+    @Override
+    public synchronized AccessPolicy updatePolicy(String id, AccessPolicyRequest request) {
+        ensureLoaded();
+        AccessPolicy policy = accessPolicyRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("AccessPolicy", "id", id));
+        return save(policy, request);
+    }
+
+    @Override
+    public synchronized void deletePolicy(String id) {
+        ensureLoaded();
+        if (!accessPolicyRepository.existsById(id)) {
+            throw new ResourceNotFoundException("AccessPolicy", "id", id);
+        }
+        accessPolicyRepository.deleteById(id);
+        policies.remove(id);
+        rules.remove(id);
+        engine = new AttributePolicyEngine(rules.values());
+        log.info("Deleted access policy {}", id);
+        publishChange(id);
+    }
+
+    @Override
+    public AttributePolicyEngine getEngine() {
+        ensureLoaded();
+        return engine;
+    }
+
+    @Override
+    public AttributePolicyEngine.Decision evaluateProduct(String action, Product product, Map<String, Object> claims,
+                                                          Collection<String> roles) {
+        AttributePolicyEngine current = getEngine();
+        if (!current.hasRules(action, PRODUCT_RESOURCE)) {
+            return AttributePolicyEngine.Decision.NOT_APPLICABLE;
+        }
+        AttributeSource subject = name -> ROLES_ATTRIBUTE.equals(name) ? roles : claims.get(name);
+        return current.evaluate(action, PRODUCT_RESOURCE, subject, productAttributes(product));
+    }
+
+    @Override
+    public synchronized void reload() {
+        policies.clear();
+        rules.clear();
+        for (AccessPolicy policy : accessPolicyRepository.findAll()) {
+            apply(policy);
+        }
+        engine = new AttributePolicyEngine(rules.values());
+        loaded = true;
+        log.info("Loaded {} access policies", rules.size());
+    }
+
+    /**
+     * Applies the policy changes made through other instances and announces them.
+     */
+    void sync() {
+        List<String> changedIds;
+        try {
+            changedIds = pullChanges();
+        } catch (DataAccessException e) {
+            // The next sync tries again; until then decisions use the policies already loaded
+            log.warn("Could not synchronize access policies: {}", e.getMessage());
+            return;
+        } catch (RuntimeException e) {
+            // An exception would cancel the schedule
+            log.error("Could not synchronize access policies", e);
+            return;
+        }
+        changedIds.forEach(this::publishChange);
+    }
+
+    private synchronized List<String> pullChanges() {
+        if (!loaded) {
+            return List.of();
+        }
+        List<String> changedIds = new ArrayList<>();
+        Set<String> storedIds = new HashSet<>();
+        for (AccessPolicy policy : accessPolicyRepository.findAll()) {
+            storedIds.add(policy.getId());
+            if (!policy.equals(policies.get(policy.getId()))) {
+                rules.remove(policy.getId());
+                apply(policy);
+                changedIds.add(policy.getId());
+            }
+        }
+        for (String id : List.copyOf(policies.keySet())) {
+            if (!storedIds.contains(id)) {
+                policies.remove(id);
+                rules.remove(id);
+                changedIds.add(id);
+            }
+        }
+        if (!changedIds.isEmpty()) {
+            engine = new AttributePolicyEngine(rules.values());
+            log.info("Synchronized {} access policy changes from the store", changedIds.size());
+        }
+        return changedIds;
+    }
+
+    private void apply(AccessPolicy policy) {
+        policies.put(policy.getId(), policy);
+        try {
+            rules.put(policy.getId(), compile(policy));
+        } catch (IllegalArgumentException e) {
+            // A rule that no longer compiles must not take the others down with it
+            log.warn("Skipping access policy {}: {}", policy.getId(), e.getMessage());
+        }
+    }
+
+    private AccessPolicy save(AccessPolicy policy, AccessPolicyRequest request) {
+        policy.setName(request.getName());
+        policy.setDescription(request.getDescription());
+        policy.setAction(request.getAction());
+        policy.setResourceType(request.getResourceType());
+        policy.setEffect(request.getEffect());
+        policy.setCondition(request.getCondition());
+
+        // Reject rules that do not compile before they reach the database
+        try {
+            compile(policy);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("condition", e.getMessage());
+        }
+
+        AccessPolicy savedPolicy = accessPolicyRepository.save(policy);
+        policies.put(savedPolicy.getId(), savedPolicy);
+        rules.put(savedPolicy.getId(), compile(savedPolicy));
+        engine = new AttributePolicyEngine(rules.values());
+        log.info("Saved access policy {}", savedPolicy);
+        publishChange(savedPolicy.getId());
+        return savedPolicy;
+    }
+
+    private void ensureLoaded() {
+        if (!loaded) {
+            synchronized (this) {
+                if (!loaded) {
+                    reload();
+                }
+            }
+        }
+    }
+
+    private void publishChange(String policyId) {
+        eventPublisher.publishEvent(new PermissionChangedEvent(this, PermissionChangedEvent.Type.POLICY_CHANGED,
+                policyId, null));
+    }
+
+    private static PolicyRule compile(AccessPolicy policy) {
+        return PolicyRule.compile(policy.getId(), policy.getAction(), policy.getResourceType(), policy.getEffect(),
+                policy.getCondition());
+    }
+
+    private static AttributeSource productAttributes(Product product) {
+        return name -> {
+            switch (name) {
+                case "id":
+                    return product.getId();
+                case "name":
+                    return product.getName();
+                case "price":
+                    return product.getPrice();
+                case "region":
+                    return product.getRegion();
+                case "allowedRoles":
+                    return product.getAllowedRoles();
+                default:
+                    return null;
+            }
+        };
+    }
+}
@@ -0,0 +1,91 @@
+package com.auth.oidcprovider.services;
+
+import com.auth.oidcprovider.dto.AuthorizationCheckTuple;
+import com.auth.oidcprovider.models.Product;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Service for product authorization decisions, answered from the decision cache when possible.
+ */
+public interface AuthorizationService {
+    
+    /**
+     * Action of reading a product.
+     */
+    String ACTION_READ = "read";
+    
+    /**
+     * Checks if the given roles may read a product.
+     *
+     * @param product the product
+     * @param roles the roles of the caller
+     * @return true if access is granted
+     */
+    boolean canReadProduct(Product product, Collection<String> roles);
+    
+    /**
+     * Checks if a caller may read a product. Attribute-based policies for reading products are
+     * evaluated first against the caller's token claims and the product's attributes: a matching deny
+     * rule refuses and a matching permit rule grants access. Otherwise, when relationships are enabled,
+     * the product's role grants and the relationship tuples naming the caller's user or roles are both
+     * evaluated in memory; if not, this is {@link #canReadProduct(Product, Collection)}.
+     *
+     * @param claims the claims of the caller's token, empty if not authenticated with a token
+     * @param product the product
+     * @param roles the roles of the caller
+     * @return true if access is granted
+     */
+    boolean canReadProduct(Map<String, Object> claims, Product product, Collection<String> roles);
+    
+    /**
+     * Checks read access to many products at once for the given roles.
+     * Only products without a cached decision are loaded from the database.
+     *
+     * @param productIds the product IDs to check
+     * @param roles the roles of the caller
+     * @return map of product ID to access decision, in request order
+     */
+    Map<String, Boolean> checkProductAccess(Collection<String> productIds, Collection<String> roles);
+    
+    /**
+     * Checks read access to many products at once for a caller, deciding each product as
+     * {@link #canReadProduct(Map, Product, Collection)} does. The products are loaded in a single
+     * query; when neither attribute-based policies nor relationships apply, this is
+     * {@link #checkProductAccess(Collection, Collection)}.
+     *
+     * @param claims the claims of the caller's token, empty if not authenticated with a token
+     * @param productIds the product IDs to check
+     * @param roles the roles of the caller
+     * @return map of product ID to access decision, in request order
+     */
+    Map<String, Boolean> checkProductAccess(Map<String, Object> claims, Collection<String> productIds,
+                                            Collection<String> roles);
+    
+    /**
+     * Lists the products a caller may read, deciding each product as
+     * {@link #canReadProduct(Map, Product, Collection)} does.
+     *
+     * @param claims the claims of the caller's token, empty if not authenticated with a token
+     * @param roles the roles of the caller
+     * @return the readable products
+     */
+    List<Product> getReadableProducts(Map<String, Object> claims, Collection<String> roles);
+    
+    /**
+     * Answers many (subject, action, resource) questions against the in-memory access model.
+     * Each distinct subject is resolved once, by a single user lookup or token decode, and every
+     * tuple is then a bitset check. Users hold their permanent roles plus the time-bound grants in
+     * effect at the time of the call. When attribute-based policies or relationships apply, the
+     * products are loaded in a single query and each tuple is decided as
+     * {@link #canReadProduct(Map, Product, Collection)} does, with the token's claims or, for a user,
+     * its Keycloak ID as subject. Only {@link #ACTION_READ} on product IDs is supported; other
+     * actions, unknown subjects and invalid tokens are denied.
+     *
+     * @param checks the questions
+     * @return the decisions, in request order
+     */
+    List<Boolean> checkAll(List<AuthorizationCheckTuple> checks);
+}
@@ -0,0 +1,300 @@
+package com.auth.oidcprovider.services;
+
+import com.auth.authz.AccessDecisionEngine;
+import com.auth.authz.AttributePolicyEngine;
+import com.auth.authz.RelationTuple;
+import com.auth.authz.SubjectRoles;
+import com.auth.oidcprovider.dto.AuthorizationCheckTuple;
+import com.auth.oidcprovider.exceptions.BadRequestException;
+import com.auth.oidcprovider.exceptions.InvalidTokenException;
+import com.auth.oidcprovider.models.Product;
+import com.auth.oidcprovider.models.User;
+import com.auth.oidcprovider.util.AuthorizationDecisionCache;
+import com.auth.oidcprovider.util.JwtUtil;
+import com.auth.oidcprovider.util.TokenPrincipalConverter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtClaimNames;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Implementation of the AuthorizationService interface.
+ */
+@Service
+public class AuthorizationServiceImpl implements AuthorizationService {
+    
+    private static final Logger log = LoggerFactory.getLogger(AuthorizationServiceImpl.class);
+    
+    private final ProductService productService;
+    private final AuthorizationDecisionCache decisionCache;
+    private final PolicySnapshotService policySnapshotService;
+    private final UserService userService;
+    private final JwtUtil jwtUtil;
+    private final TokenPrincipalConverter tokenPrincipalConverter;
+    private final RelationshipService relationshipService;
+    private final AccessPolicyService accessPolicyService;
+    
+    public AuthorizationServiceImpl(ProductService productService, AuthorizationDecisionCache decisionCache,
+                                    PolicySnapshotService policySnapshotService, UserService userService,
+                                    JwtUtil jwtUtil, TokenPrincipalConverter tokenPrincipalConverter,
+                                    RelationshipService relationshipService, AccessPolicyService accessPolicyService) {
+        this.productService = productService;
+        this.decisionCache = decisionCache;
+        this.policySnapshotService = policySnapshotService;
+        this.userService = userService;
+        this.jwtUtil = jwtUtil;
+        this.tokenPrincipalConverter = tokenPrincipalConverter;
+        this.relationshipService = relationshipService;
+        this.accessPolicyService = accessPolicyService;
+    }
+    
+    @Override
+    public boolean canReadProduct(Product product, Collection<String> roles) {
+        return decisionCache.getOrEvaluate(decisionCache.roleSetKey(roles), product.getId(), ACTION_READ,
+                () -> productService.isProductAccessibleByAnyRole(product, roles));
+    }
+    
+    @Override
+    public boolean canReadProduct(Map<String, Object> claims, Product product, Collection<String> roles) {
+        if (isRoleOnly()) {
+            return canReadProduct(product, roles);
+        }
+        return new Caller(policySnapshotService.getEngine(), claims, roles).canRead(product);
+    }
+    
+    @Override
+    public Map<String, Boolean> checkProductAccess(Collection<String> productIds, Collection<String> roles) {
+        String roleSetKey = decisionCache.roleSetKey(roles);
+        Map<String, Boolean> decisions = new LinkedHashMap<>();
+        List<String> uncachedIds = new ArrayList<>();
+        
+        for (String productId : new LinkedHashSet<>(productIds)) {
+            Boolean cached = decisionCache.get(roleSetKey, productId, ACTION_READ);
+            decisions.put(productId, cached);
+            if (cached == null) {
+                uncachedIds.add(productId);
+            }
+        }
+        
+        if (!uncachedIds.isEmpty()) {
+            long generation = decisionCache.getGeneration();
+            productService.checkProductAccess(uncachedIds, roles).forEach((productId, allowed) -> {
+                decisions.put(productId, allowed);
+                decisionCache.put(roleSetKey, productId, ACTION_READ, allowed, generation);
+            });
+        }
+        return decisions;
+    }
+    
+    @Override
+    public Map<String, Boolean> checkProductAccess(Map<String, Object> claims, Collection<String> productIds,
+                                                   Collection<String> roles) {
+        if (isRoleOnly()) {
+            return checkProductAccess(productIds, roles);
+        }
+        
+        Set<String> uniqueIds = new LinkedHashSet<>(productIds);
+        Map<String, Product> productsById = findProducts(uniqueIds);
+        Caller caller = new Caller(policySnapshotService.getEngine(), claims, roles);
+        Map<String, Boolean> decisions = new LinkedHashMap<>();
+        for (String productId : uniqueIds) {
+            Product product = productsById.get(productId);
+            decisions.put(productId, product != null && caller.canRead(product));
+        }
+        return decisions;
+    }
+    
+    @Override
+    public List<Product> getReadableProducts(Map<String, Object> claims, Collection<String> roles) {
+        if (isRoleOnly()) {
+            if (roles.contains(RoleHierarchyService.SUPERUSER_ROLE)) {
+                return productService.getAllProducts();
+            }
+            return roles.stream()
+                    .flatMap(role -> productService.getProductsByRole(role).stream())
+                    .distinct()
+                    .collect(Collectors.toList());
+        }
+        
+        Caller caller = new Caller(policySnapshotService.getEngine(), claims, roles);
+        List<Product> candidates;
+        if (hasAttributeRules()) {
+            // A permit rule may grant any product, so every product is a candidate
+            candidates = productService.getAllProducts();
+        } else {
+            Map<String, Product> productsById = new LinkedHashMap<>();
+            for (String role : caller.subject.names()) {
+                productService.getProductsByRole(role).forEach(product -> productsById.put(product.getId(), product));
+            }
+            Set<String> sharedIds = new LinkedHashSet<>(relationshipService.listObjects(RelationshipService.PRODUCT_TYPE,
+                    RelationshipService.VIEWER_RELATION, caller.relationshipSubjects()));
+            sharedIds.removeAll(productsById.keySet());
+            if (!sharedIds.isEmpty()) {
+                productService.getProductsByIds(sharedIds).forEach(product -> productsById.put(product.getId(), product));
+            }
+            candidates = new ArrayList<>(productsById.values());
+        }
+        return candidates.stream().filter(caller::canRead).collect(Collectors.toList());
+    }
+    
+    @Override
+    public List<Boolean> checkAll(List<AuthorizationCheckTuple> checks) {
+        AccessDecisionEngine engine = policySnapshotService.getEngine();
+        
+        // Resolve every distinct subject once: one user query for all IDs, one decode per token
+        Set<String> userIds = new LinkedHashSet<>();
+        Set<String> tokens = new LinkedHashSet<>();
+        for (AuthorizationCheckTuple check : checks) {
+            if (StringUtils.hasText(check.getToken())) {
+                tokens.add(check.getToken());
+            } else if (StringUtils.hasText(check.getSubject())) {
+                userIds.add(check.getSubject());
+            } else {
+                throw new BadRequestException("subject", "Each check needs a subject or a token");
+            }
+        }
+        
+        Map<String, Caller> callersByUserId = new HashMap<>();
+        if (!userIds.isEmpty()) {
+            Instant now = Instant.now();
+            for (User user : userService.findUsersByIds(userIds)) {
+                List<String> roles = user.getEffectiveRoles(now);
+                if (user.isActive() && roles != null) {
+                    Map<String, Object> claims = user.getKeycloakId() != null
+                            ? Map.of(JwtClaimNames.SUB, user.getKeycloakId())
+                            : Map.of();
+                    callersByUserId.put(user.getId(), new Caller(engine, claims, roles));
+                }
+            }
+        }
+        
+        Map<String, Caller> callersByToken = new HashMap<>();
+        for (String token : tokens) {
+            try {
+                // The same roles a request with this token is authorized with; resolved again against
+                // this engine, since the snapshot may have been swapped since the principal was built
+                Jwt jwt = jwtUtil.decodeToken(token);
+                Set<String> roles = tokenPrincipalConverter.toPrincipal(jwt).roles().names();
+                callersByToken.put(token, new Caller(engine, jwt.getClaims(), roles));
+            } catch (InvalidTokenException e) {
+                log.debug("Denying checks for an invalid token");
+            }
+        }
+        
+        List<Boolean> decisions = new ArrayList<>(checks.size());
+        if (isRoleOnly()) {
+            for (AuthorizationCheckTuple check : checks) {
+                Caller caller = StringUtils.hasText(check.getToken())
+                        ? callersByToken.get(check.getToken())
+                        : callersByUserId.get(check.getSubject());
+                decisions.add(caller != null
+                        && ACTION_READ.equals(check.getAction())
+                        && engine.canAccessProduct(caller.subject, check.getResource()));
+            }
+            return decisions;
+        }
+        
+        // Attribute rules and relationships are decided as for a request: one query loads every product checked
+        Set<String> productIds = new LinkedHashSet<>();
+        for (AuthorizationCheckTuple check : checks) {
+            if (StringUtils.hasText(check.getResource())) {
+                productIds.add(check.getResource());
+            }
+        }
+        Map<String, Product> productsById = findProducts(productIds);
+        for (AuthorizationCheckTuple check : checks) {
+            Caller caller = StringUtils.hasText(check.getToken())
+                    ? callersByToken.get(check.getToken())
+                    : callersByUserId.get(check.getSubject());
+            Product product = productsById.get(check.getResource());
+            decisions.add(caller != null
+                    && product != null
+                    && ACTION_READ.equals(check.getAction())
+                    && caller.canRead(product));
+        }
+        return decisions;
+    }
+    
+    /**
+     * Checks if only roles decide product access: no attribute rule for reading products exists and
+     * relationships are disabled.
+     */
+    private boolean isRoleOnly() {
+        return !hasAttributeRules() && !relationshipService.isEnabled();
+    }
+    
+    private boolean hasAttributeRules() {
+        return accessPolicyService.getEngine().hasRules(ACTION_READ, AccessPolicyService.PRODUCT_RESOURCE);
+    }
+    
+    private Map<String, Product> findProducts(Collection<String> productIds) {
+        if (productIds.isEmpty()) {
+            return Map.of();
+        }
+        return productService.getProductsByIds(productIds).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+    }
+    
+    /**
+     * A caller resolved once for any number of product decisions. Attribute-based policies are
+     * evaluated first against the caller's claims and the product's attributes; if none applies, the
+     * product's role grants decide, and, when relationships are enabled, the tuples naming the
+     * caller's user or roles.
+     */
+    private final class Caller {
+        
+        private final AccessDecisionEngine engine;
+        private final Map<String, Object> claims;
+        private final Collection<String> roles;
+        private final SubjectRoles subject;
+        private Set<String> relationshipSubjects;
+        
+        Caller(AccessDecisionEngine engine, Map<String, Object> claims, Collection<String> roles) {
+            this.engine = engine;
+            this.claims = claims;
+            this.roles = roles;
+            this.subject = engine.resolveSubject(roles);
+        }
+        
+        boolean canRead(Product product) {
+            // Attribute rules depend on claims, not just roles, so their decisions bypass the role-set cache
+            AttributePolicyEngine.Decision decision =
+                    accessPolicyService.evaluateProduct(ACTION_READ, product, claims, subject.names());
+            if (decision != AttributePolicyEngine.Decision.NOT_APPLICABLE) {
+                return decision == AttributePolicyEngine.Decision.PERMIT;
+            }
+            
+            if (!relationshipService.isEnabled()) {
+                return canReadProduct(product, roles);
+            }
+            if (engine.canAccessProduct(subject, product.getId())) {
+                return true;
+            }
+            return relationshipService.check(
+                    RelationshipService.PRODUCT_TYPE + RelationTuple.TYPE_SEPARATOR + product.getId(),
+                    RelationshipService.VIEWER_RELATION, relationshipSubjects());
+        }
+        
+        Set<String> relationshipSubjects() {
+            if (relationshipSubjects == null) {
+                relationshipSubjects = relationshipService.callerSubjects(
+                        (String) claims.get(JwtClaimNames.SUB), subject.names());
+            }
+            return relationshipSubjects;
+        }
+    }
+}
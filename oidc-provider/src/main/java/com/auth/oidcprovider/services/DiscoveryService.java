@@ -0,0 +1,31 @@
+package com.auth.oidcprovider.services;
+
+import com.auth.oidcprovider.util.PublishedDocument;
+
+/**
+ * Service publishing the OpenID Provider metadata and the JWK set of locally issued tokens, so resource servers
+ * can discover the issuer and verify its tokens.
+ */
+public interface DiscoveryService {
+
+    /**
+     * Checks if the documents are published, which they are when local tokens are enabled.
+     *
+     * @return true if the documents are published
+     */
+    boolean isEnabled();
+
+    /**
+     * Gets the rendered {@code openid-configuration} document.
+     *
+     * @return the document
+     */
+    PublishedDocument getConfiguration();
+
+    /**
+     * Gets the rendered JWK set, current as of the last key change.
+     *
+     * @return the document
+     */
+    PublishedDocument getJwks();
+}
@@ -0,0 +1,88 @@
+package com.auth.oidcprovider.services;
+
+import com.auth.oidcprovider.util.PublishedDocument;
+import com.nimbusds.jose.util.JSONObjectUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Implementation of the DiscoveryService interface.
+ * <p>
+ * Both documents are serialized once with the Nimbus JSON writer and kept as {@link PublishedDocument}s, so a
+ * request only copies bytes. The metadata never changes at runtime and is rendered at startup. The JWK set is
+ * rendered again whenever the signing keys change: on rotation and when the keys of other nodes are loaded. It is
+ * rendered from the keys current at that moment rather than those passed to the listener, so concurrent changes
+ * cannot leave an older set published.
+ */
+@Service
+public class DiscoveryServiceImpl implements DiscoveryService {
+
+    private static final Logger log = LoggerFactory.getLogger(DiscoveryServiceImpl.class);
+    private static final String JWKS_PATH = "/.well-known/jwks.json";
+
+    private final LocalTokenService localTokenService;
+    private final Duration jwksMaxAge;
+    private final PublishedDocument configuration;
+    private volatile PublishedDocument jwks;
+
+    public DiscoveryServiceImpl(LocalTokenService localTokenService,
+                                @Value("${authz.well-known.configuration-max-age-seconds:86400}") long configurationMaxAgeSeconds,
+                                @Value("${authz.well-known.jwks-max-age-seconds:3600}") long jwksMaxAgeSeconds) {
+        this.localTokenService = localTokenService;
+        this.jwksMaxAge = Duration.ofSeconds(jwksMaxAgeSeconds);
+        if (localTokenService.isEnabled()) {
+            this.configuration = PublishedDocument.of(JSONObjectUtils.toJSONString(metadata(localTokenService.getIssuer(),
+                    localTokenService.getAlgorithm())),
+                    Duration.ofSeconds(configurationMaxAgeSeconds));
+            localTokenService.addPublicKeysListener(keys -> renderJwks());
+            renderJwks();
+        } else {
+            this.configuration = null;
+        }
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return configuration != null;
+    }
+
+    @Override
+    public PublishedDocument getConfiguration() {
+        return configuration;
+    }
+
+    @Override
+    public PublishedDocument getJwks() {
+        return jwks;
+    }
+
+    private synchronized void renderJwks() {
+        // JWKSet.toString() only includes public key parameters
+        jwks = PublishedDocument.of(localTokenService.getPublicKeys().toString(), jwksMaxAge);
+        log.debug("Rendered JWK set, ETag {}", jwks.getEtag());
+    }
+
+    /**
+     * Lists what resource servers need to verify locally issued tokens, plus the fields OpenID Connect Discovery
+     * requires of every provider, so standard metadata parsers accept the document. The required fields describe
+     * the tokens issued here: access tokens only, with the issuer's subject and signing algorithm. The refresh and
+     * userinfo endpoints are not OAuth endpoints (they take and return JSON wrapped in {@code ApiResponse}), so
+     * advertising them would send standard clients to endpoints they cannot use.
+     */
+    static Map<String, Object> metadata(String issuer, String algorithm) {
+        Map<String, Object> metadata = new LinkedHashMap<>();
+        metadata.put("issuer", issuer);
+        metadata.put("jwks_uri", issuer + JWKS_PATH);
+        metadata.put("response_types_supported", List.of("token"));
+        metadata.put("subject_types_supported", List.of("public"));
+        metadata.put("id_token_signing_alg_values_supported", List.of(algorithm));
+        return metadata;
+    }
+}
@@ -0,0 +1,100 @@
+package com.auth.oidcprovider.services;
+
+import com.auth.oidcprovider.dto.GroupRequest;
+import com.auth.oidcprovider.models.Group;
+import com.auth.oidcprovider.models.User;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Service for nested groups. Every change to a group's roles or to the nesting recomputes the
+ * materialized {@link User#getEffectiveRoles()} of the affected members only, so reading a user's roles
+ * never walks the group graph.
+ */
+public interface GroupService {
+
+    /**
+     * Gets all groups.
+     *
+     * @return the groups
+     */
+    List<Group> getGroups();
+
+    /**
+     * Gets a group.
+     *
+     * @param id the group ID
+     * @return the group
+     */
+    Group getGroup(String id);
+
+    /**
+     * Creates a group.
+     *
+     * @param request the group
+     * @return the stored group
+     */
+    Group createGroup(GroupRequest request);
+
+    /**
+     * Updates the name, description and roles of a group.
+     *
+     * @param id the group ID
+     * @param request the group
+     * @return the stored group
+     */
+    Group updateGroup(String id, GroupRequest request);
+
+    /**
+     * Deletes a group, removing it from its members and subgroups.
+     *
+     * @param id the group ID
+     */
+    void deleteGroup(String id);
+
+    /**
+     * Nests a group in another group. Cycles are rejected.
+     *
+     * @param parentId the containing group ID
+     * @param childId the nested group ID
+     * @return the nested group
+     */
+    Group addSubgroup(String parentId, String childId);
+
+    /**
+     * Removes a group from another group.
+     *
+     * @param parentId the containing group ID
+     * @param childId the nested group ID
+     * @return the nested group
+     */
+    Group removeSubgroup(String parentId, String childId);
+
+    /**
+     * Adds a user to a group.
+     *
+     * @param groupId the group ID
+     * @param userId the user ID
+     * @return the user with its recomputed effective roles
+     */
+    User addMember(String groupId, String userId);
+
+    /**
+     * Removes a user from a group.
+     *
+     * @param groupId the group ID
+     * @param userId the user ID
+     * @return the user with its recomputed effective roles
+     */
+    User removeMember(String groupId, String userId);
+
+    /**
+     * Computes the effective roles for own roles and group memberships, following nested groups.
+     *
+     * @param roles the own roles
+     * @param groupIds the IDs of the groups the user belongs to directly
+     * @return the effective roles
+     */
+    List<String> resolveEffectiveRoles(Collection<String> roles, Collection<String> groupIds);
+}
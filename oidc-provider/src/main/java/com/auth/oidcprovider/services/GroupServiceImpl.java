@@ -0,0 +1,391 @@
+package com.auth.oidcprovider.services;
+
+import com.auth.oidcprovider.dto.GroupRequest;
+import com.auth.oidcprovider.events.PermissionChangedEvent;
+import com.auth.oidcprovider.exceptions.BadRequestException;
+import com.auth.oidcprovider.exceptions.ResourceNotFoundException;
+import com.auth.oidcprovider.models.Group;
+import com.auth.oidcprovider.models.User;
+import com.auth.oidcprovider.repositories.GroupRepository;
+import com.auth.oidcprovider.repositories.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * Implementation of the GroupService interface.
+ * <p>
+ * A change to a group affects the members of that group and of every group nested in it. Those
+ * members are streamed through the {@code groupIds} index, their effective roles are recomputed
+ * against an in-memory copy of the group graph (groups are few compared to users) in which each
+ * group's inherited roles are computed once, and only users whose roles actually changed are written,
+ * in unordered bulk batches.
+ * <p>
+ * Group changes are serialized within an instance only. Every member write is therefore conditional on
+ * the roles and groups the effective roles were computed from, and members changed in between, here or on
+ * another instance, are re-read and recomputed against a reloaded group graph instead of being overwritten.
+ */
+@Service
+public class GroupServiceImpl implements GroupService {
+
+    private static final Logger log = LoggerFactory.getLogger(GroupServiceImpl.class);
+    private static final int BULK_BATCH_SIZE = 1000;
+    private static final int MAX_WRITE_ATTEMPTS = 5;
+
+    private final GroupRepository groupRepository;
+    private final UserRepository userRepository;
+    private final MongoTemplate mongoTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public GroupServiceImpl(GroupRepository groupRepository, UserRepository userRepository,
+                            MongoTemplate mongoTemplate, ApplicationEventPublisher eventPublisher) {
+        this.groupRepository = groupRepository;
+        this.userRepository = userRepository;
+        this.mongoTemplate = mongoTemplate;
+        this.eventPublisher = eventPublisher;
+    }
+
+    @Override
+    public List<Group> getGroups() {
+        return groupRepository.findAll();
+    }
+
+    @Override
+    public Group getGroup(String id) {
+        return groupRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Group", "id", id));
+    }
+
+    @Override
+    public synchronized Group createGroup(GroupRequest request) {
+        if (groupRepository.existsByName(request.getName())) {
+            throw new BadRequestException("name", "Group name already exists: " + request.getName());
+        }
+        Group group = groupRepository.save(new Group(request.getName(), request.getDescription(),
+                new HashSet<>(request.getRoles())));
+        log.info("Created group {}", group);
+        return group;
+    }
+
+    @Override
+    public synchronized Group updateGroup(String id, GroupRequest request) {
+        Group group = getGroup(id);
+        if (!group.getName().equals(request.getName()) && groupRepository.existsByName(request.getName())) {
+            throw new BadRequestException("name", "Group name already exists: " + request.getName());
+        }
+        boolean rolesChanged = !Objects.equals(group.getRoles(), request.getRoles());
+        group.setName(request.getName());
+        group.setDescription(request.getDescription());
+        group.setRoles(new HashSet<>(request.getRoles()));
+        Group savedGroup = groupRepository.save(group);
+
+        if (rolesChanged) {
+            GroupGraph graph = loadGraph();
+            recomputeMembers(graph, graph.descendantsOf(id));
+            publishGroupChange(savedGroup);
+        }
+        return savedGroup;
+    }
+
+    @Override
+    public synchronized void deleteGroup(String id) {
+        Group group = getGroup(id);
+        Set<String> affectedGroups = loadGraph().descendantsOf(id);
+
+        mongoTemplate.updateMulti(Query.query(Criteria.where("parentGroupIds").is(id)),
+                new Update().pull("parentGroupIds", id), Group.class);
+        groupRepository.deleteById(id);
+
+        // Members still list the deleted group, which the new graph no longer knows, so it adds no roles
+        recomputeMembers(loadGraph(), affectedGroups);
+        mongoTemplate.updateMulti(Query.query(Criteria.where("groupIds").is(id)),
+                new Update().pull("groupIds", id), User.class);
+        log.info("Deleted group {}", id);
+        publishGroupChange(group);
+    }
+
+    @Override
+    public synchronized Group addSubgroup(String parentId, String childId) {
+        getGroup(parentId);
+        Group child = getGroup(childId);
+        GroupGraph graph = loadGraph();
+        if (parentId.equals(childId) || graph.ancestorsOf(parentId).contains(childId)) {
+            throw new BadRequestException("group", "Nesting group " + childId + " in " + parentId + " would create a cycle");
+        }
+        if (!child.getParentGroupIds().add(parentId)) {
+            return child;
+        }
+        return saveNesting(child);
+    }
+
+    @Override
+    public synchronized Group removeSubgroup(String parentId, String childId) {
+        Group child = getGroup(childId);
+        if (!child.getParentGroupIds().remove(parentId)) {
+            throw new ResourceNotFoundException("Group " + childId + " is not nested in group " + parentId);
+        }
+        return saveNesting(child);
+    }
+
+    @Override
+    public synchronized User addMember(String groupId, String userId) {
+        getGroup(groupId);
+        User user = findUser(userId);
+        List<String> groupIds = user.getGroupIds() != null ? new ArrayList<>(user.getGroupIds()) : new ArrayList<>();
+        if (!groupIds.contains(groupId)) {
+            groupIds.add(groupId);
+        }
+        return writeMembership(user, groupIds);
+    }
+
+    @Override
+    public synchronized User removeMember(String groupId, String userId) {
+        User user = findUser(userId);
+        List<String> groupIds = user.getGroupIds() != null ? new ArrayList<>(user.getGroupIds()) : new ArrayList<>();
+        if (!groupIds.remove(groupId)) {
+            throw new ResourceNotFoundException("User " + userId + " is not a member of group " + groupId);
+        }
+        return writeMembership(user, groupIds);
+    }
+
+    @Override
+    public List<String> resolveEffectiveRoles(Collection<String> roles, Collection<String> groupIds) {
+        Set<String> effectiveRoles = roles != null ? new LinkedHashSet<>(roles) : new LinkedHashSet<>();
+        if (groupIds == null || groupIds.isEmpty()) {
+            return new ArrayList<>(effectiveRoles);
+        }
+
+        // One query per nesting level, reading only the groups the user can reach
+        Set<String> visited = new HashSet<>(groupIds);
+        Collection<String> frontier = new ArrayList<>(groupIds);
+        while (!frontier.isEmpty()) {
+            List<String> next = new ArrayList<>();
+            for (Group group : groupRepository.findAllById(frontier)) {
+                if (group.getRoles() != null) {
+                    effectiveRoles.addAll(group.getRoles());
+                }
+                for (String parentId : group.getParentGroupIds()) {
+                    if (visited.add(parentId)) {
+                        next.add(parentId);
+                    }
+                }
+            }
+            frontier = next;
+        }
+        return new ArrayList<>(effectiveRoles);
+    }
+
+    private Group saveNesting(Group child) {
+        Group savedChild = groupRepository.save(child);
+        GroupGraph graph = loadGraph();
+        recomputeMembers(graph, graph.descendantsOf(child.getId()));
+        publishGroupChange(savedChild);
+        return savedChild;
+    }
+
+    private User writeMembership(User user, List<String> groupIds) {
+        List<String> rolesBefore = user.getEffectiveRoles();
+        List<String> effectiveRoles = resolveEffectiveRoles(user.getRoles(), groupIds);
+        // Only applies if the roles the effective roles were computed from are unchanged
+        Query query = Query.query(Criteria.where("_id").is(user.getId()).and("roles").is(user.getRoles()));
+        if (mongoTemplate.updateFirst(query, new Update().set("groupIds", groupIds).set("effectiveRoles", effectiveRoles),
+                User.class).getMatchedCount() == 0) {
+            throw new OptimisticLockingFailureException("User " + user.getId() + " is being changed concurrently");
+        }
+        user.setGroupIds(groupIds);
+        user.setEffectiveRoles(effectiveRoles);
+
+        if (!sameRoles(rolesBefore, effectiveRoles)) {
+            eventPublisher.publishEvent(new PermissionChangedEvent(this, PermissionChangedEvent.Type.USER_ROLES_CHANGED,
+                    user.getId(), new HashSet<>(effectiveRoles)));
+        }
+        return user;
+    }
+
+    private int recomputeMembers(GroupGraph graph, Set<String> groupIds) {
+        int scanned = 0;
+        int changed = 0;
+        List<User> batch = new ArrayList<>();
+        try (Stream<User> members = userRepository.streamByGroupIdsIn(groupIds)) {
+            Iterator<User> iterator = members.iterator();
+            while (iterator.hasNext()) {
+                User member = iterator.next();
+                scanned++;
+                if (!isStale(graph, member)) {
+                    continue;
+                }
+                batch.add(member);
+                if (batch.size() == BULK_BATCH_SIZE) {
+                    changed += writeMembers(graph, batch);
+                    batch = new ArrayList<>();
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            changed += writeMembers(graph, batch);
+        }
+        log.info("Recomputed effective roles of {} members of {} groups, {} changed", scanned, groupIds.size(), changed);
+        return changed;
+    }
+
+    /**
+     * Writes the recomputed effective roles of a batch of members in one unordered bulk. Each update only
+     * applies if the member's roles and groups are unchanged; the members it missed are re-read and retried.
+     */
+    private int writeMembers(GroupGraph graph, List<User> members) {
+        int written = 0;
+        int missed = 0;
+        for (int attempt = 0; attempt < MAX_WRITE_ATTEMPTS; attempt++) {
+            if (attempt > 0) {
+                // Which updates missed is not reported, so re-read the batch and keep the members still stale
+                graph = loadGraph();
+                GroupGraph current = graph;
+                members = userRepository.findMembershipByIdIn(members.stream().map(User::getId).toList()).stream()
+                        .filter(member -> isStale(current, member))
+                        .toList();
+                if (members.isEmpty()) {
+                    return written;
+                }
+            }
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, User.class);
+            for (User member : members) {
+                Query query = Query.query(Criteria.where("_id").is(member.getId())
+                        .and("roles").is(member.getRoles())
+                        .and("groupIds").is(member.getGroupIds()));
+                bulk.updateOne(query, Update.update("effectiveRoles",
+                        graph.effectiveRoles(member.getRoles(), member.getGroupIds())));
+            }
+            int matched = bulk.execute().getMatchedCount();
+            written += matched;
+            missed = members.size() - matched;
+            if (missed == 0) {
+                return written;
+            }
+        }
+        // Whoever keeps changing these members writes effective roles computed from the groups it reads
+        log.warn("Gave up recomputing effective roles of {} members changed concurrently", missed);
+        return written;
+    }
+
+    private static boolean isStale(GroupGraph graph, User member) {
+        return !sameRoles(member.getEffectiveRoles(), graph.effectiveRoles(member.getRoles(), member.getGroupIds()));
+    }
+
+    private GroupGraph loadGraph() {
+        return new GroupGraph(groupRepository.findAll());
+    }
+
+    private User findUser(String userId) {
+        return userRepository.findById(userId)
+                .orElseThrow(() -> new ResourceNotFoundException("User", "id", userId));
+    }
+
+    private void publishGroupChange(Group group) {
+        eventPublisher.publishEvent(new PermissionChangedEvent(this, PermissionChangedEvent.Type.GROUP_CHANGED,
+                group.getId(), group.getRoles()));
+    }
+
+    private static boolean sameRoles(Collection<String> a, Collection<String> b) {
+        Set<String> left = a != null ? new HashSet<>(a) : Collections.emptySet();
+        Set<String> right = b != null ? new HashSet<>(b) : Collections.emptySet();
+        return left.equals(right);
+    }
+
+    /**
+     * In-memory copy of the group graph with memoized inherited roles.
+     */
+    private static final class GroupGraph {
+
+        private final Map<String, Group> groupsById = new HashMap<>();
+        private final Map<String, List<String>> childrenById = new HashMap<>();
+        private final Map<String, Set<String>> inheritedRoles = new HashMap<>();
+
+        GroupGraph(List<Group> groups) {
+            for (Group group : groups) {
+                groupsById.put(group.getId(), group);
+                for (String parentId : group.getParentGroupIds()) {
+                    childrenById.computeIfAbsent(parentId, id -> new ArrayList<>()).add(group.getId());
+                }
+            }
+        }
+
+        List<String> effectiveRoles(Collection<String> roles, Collection<String> groupIds) {
+            Set<String> effectiveRoles = roles != null ? new LinkedHashSet<>(roles) : new LinkedHashSet<>();
+            if (groupIds != null) {
+                for (String groupId : groupIds) {
+                    effectiveRoles.addAll(rolesOf(groupId));
+                }
+            }
+            return new ArrayList<>(effectiveRoles);
+        }
+
+        /**
+         * Roles of a group and of every group it is nested in.
+         */
+        Set<String> rolesOf(String groupId) {
+            Set<String> cached = inheritedRoles.get(groupId);
+            if (cached != null) {
+                return cached;
+            }
+            Set<String> roles = new HashSet<>();
+            for (String id : ancestorsOf(groupId)) {
+                Group group = groupsById.get(id);
+                if (group != null && group.getRoles() != null) {
+                    roles.addAll(group.getRoles());
+                }
+            }
+            inheritedRoles.put(groupId, roles);
+            return roles;
+        }
+
+        /**
+         * The group and every group it is nested in, directly or transitively.
+         */
+        Set<String> ancestorsOf(String groupId) {
+            Set<String> visited = new LinkedHashSet<>();
+            Deque<String> pending = new ArrayDeque<>();
+            visited.add(groupId);
+            pending.add(groupId);
+            while (!pending.isEmpty()) {
+                Group group = groupsById.get(pending.poll());
+                if (group == null) {
+                    continue;
+                }
+                for (String parentId : group.getParentGroupIds()) {
+                    if (visited.add(parentId)) {
+                        pending.add(parentId);
+                    }
+                }
+            }
+            return visited;
+        }
+
+        /**
+         * The group and every group nested in it, directly or transitively.
+         */
+        Set<String> descendantsOf(String groupId) {
+            Set<String> visited = new LinkedHashSet<>();
+            Deque<String> pending = new ArrayDeque<>();
+            visited.add(groupId);
+            pending.add(groupId);
+            while (!pending.isEmpty()) {
+                for (String childId : childrenById.getOrDefault(pending.poll(), Collections.emptyList())) {
+                    if (visited.add(childId)) {
+                        pending.add(childId);
+                    }
+                }
+            }
+            return visited;
+        }
+    }
+}
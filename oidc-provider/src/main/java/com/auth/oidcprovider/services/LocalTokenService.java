@@ -0,0 +1,84 @@
+package com.auth.oidcprovider.services;
+
+import com.auth.oidcprovider.dto.TokenResponse;
+import com.auth.oidcprovider.util.TokenPrincipal;
+import com.nimbusds.jose.jwk.JWKSet;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+
+import java.util.function.Consumer;
+
+/**
+ * Service issuing access and refresh tokens locally, so refreshes by internal clients do not go through
+ * the Keycloak token endpoint. Tokens are signed with keys from a rotating pool whose public keys are published.
+ */
+public interface LocalTokenService {
+
+    /**
+     * Checks if local token issuance is enabled.
+     *
+     * @return true if tokens are issued and accepted
+     */
+    boolean isEnabled();
+
+    /**
+     * Gets the issuer of locally issued tokens.
+     *
+     * @return the issuer
+     */
+    String getIssuer();
+
+    /**
+     * Gets the algorithm locally issued tokens are signed with.
+     *
+     * @return the JWS algorithm name, e.g. {@code RS256}
+     */
+    String getAlgorithm();
+
+    /**
+     * Issues an access and a refresh token for the principal of a verified identity provider token.
+     *
+     * @param accessToken the verified access token
+     * @param principal the principal read from the token
+     * @return the tokens
+     */
+    TokenResponse issueTokens(Jwt accessToken, TokenPrincipal principal);
+
+    /**
+     * Checks if a token claims to be issued locally. The token is not verified.
+     *
+     * @param token the serialized token
+     * @return true if the token should be handled locally
+     */
+    boolean isLocalToken(String token);
+
+    /**
+     * Verifies a locally issued refresh token and issues a new access and refresh token.
+     *
+     * @param refreshToken the refresh token
+     * @return the tokens
+     */
+    TokenResponse refresh(String refreshToken);
+
+    /**
+     * Gets the decoder for locally issued access tokens.
+     *
+     * @return the decoder
+     */
+    JwtDecoder getAccessTokenDecoder();
+
+    /**
+     * Gets the published public keys of all nodes.
+     *
+     * @return the JWK set
+     */
+    JWKSet getPublicKeys();
+
+    /**
+     * Registers a listener called with the published public keys whenever they change, e.g. on key rotation or
+     * when another node's keys are loaded.
+     *
+     * @param listener the listener
+     */
+    void addPublicKeysListener(Consumer<JWKSet> listener);
+}
@@ -0,0 +1,363 @@
+package com.auth.oidcprovider.services;
+
+import com.auth.authz.ClaimPath;
+import com.auth.oidcprovider.dto.TokenResponse;
+import com.auth.oidcprovider.exceptions.BadRequestException;
+import com.auth.oidcprovider.models.SigningKeyRecord;
+import com.auth.oidcprovider.repositories.SigningKeyRecordRepository;
+import com.auth.oidcprovider.util.LazyClaimsJwtDecoder;
+import com.auth.oidcprovider.util.SigningKeyPool;
+import com.auth.oidcprovider.util.TokenPrincipal;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.proc.JWSVerificationKeySelector;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jose.util.Base64URL;
+import com.nimbusds.jose.util.JSONObjectUtils;
+import com.nimbusds.jwt.proc.DefaultJWTProcessor;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.security.oauth2.core.DelegatingOAuth2TokenValidator;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtClaimValidator;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+import org.springframework.security.oauth2.jwt.JwtValidators;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+import org.springframework.stereotype.Service;
+
+import java.text.ParseException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Implementation of the LocalTokenService interface.
+ * <p>
+ * A client exchanges a verified Keycloak token once for a local access and refresh token. The refresh token
+ * carries the identity and roles of the original token and is verified locally, so each refresh costs one
+ * signature check and one signature, without a call to Keycloak. A refresh token keeps the expiry of the first
+ * one in its chain, so a session still ends {@code authz.local-tokens.refresh-ttl-seconds} after the exchange;
+ * role changes in Keycloak apply at the next exchange. Refresh tokens carry the family id of their exchange in
+ * the {@code fid} claim and, with rotation enforced, can be redeemed once; see {@link RefreshTokenRotationService}.
+ * A token bound to a DPoP key through {@code cnf.jkt} passes the binding on to both tokens, and refreshes keep it,
+ * so the local access tokens need proofs with the same key.
+ * <p>
+ * Keys are generated at startup and rotated on a schedule by a {@link SigningKeyPool}. Each node publishes the
+ * public halves of its keys in the {@code signing_keys} collection and periodically loads those of the other
+ * nodes, so a token issued by any node is accepted and published by every node.
+ */
+@Service
+public class LocalTokenServiceImpl implements LocalTokenService {
+
+    private static final Logger log = LoggerFactory.getLogger(LocalTokenServiceImpl.class);
+    private static final String ACCESS_TOKEN_TYPE = "Bearer";
+    private static final String REFRESH_TOKEN_TYPE = "Refresh";
+    private static final String DPOP_TOKEN_TYPE = "DPoP";
+    private static final List<String> IDENTITY_CLAIMS = List.of(
+            "sub", "preferred_username", "email", "email_verified", "realm_access", "resource_access", "cnf");
+    private static final ClaimPath CONFIRMATION_THUMBPRINT = ClaimPath.of("cnf.jkt");
+    private static final String FAMILY_CLAIM = "fid";
+    private static final Duration CLOCK_SKEW = Duration.ofSeconds(60);
+
+    private final SigningKeyRecordRepository signingKeyRecordRepository;
+    private final RefreshTokenRotationService refreshTokenRotationService;
+    private final String issuer;
+    private final JWSAlgorithm algorithm;
+    private final Duration accessTokenTtl;
+    private final Duration refreshTokenTtl;
+    private final Duration rotation;
+    private final Duration keySyncInterval;
+    private final Duration keyRetention;
+    private final boolean lazyClaims;
+    private final SigningKeyPool keyPool;
+    private final JwtDecoder accessTokenDecoder;
+    private final JwtDecoder refreshTokenDecoder;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "signing-key-rotation");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public LocalTokenServiceImpl(SigningKeyRecordRepository signingKeyRecordRepository,
+                                 RefreshTokenRotationService refreshTokenRotationService,
+                                 @Value("${authz.local-tokens.enabled:false}") boolean enabled,
+                                 @Value("${authz.local-tokens.issuer:http://localhost:8081}") String issuer,
+                                 @Value("${authz.local-tokens.algorithm:RS256}") String algorithm,
+                                 @Value("${authz.local-tokens.access-ttl-seconds:300}") long accessTtlSeconds,
+                                 @Value("${authz.local-tokens.refresh-ttl-seconds:28800}") long refreshTtlSeconds,
+                                 @Value("${authz.local-tokens.rotation-seconds:86400}") long rotationSeconds,
+                                 @Value("${authz.local-tokens.key-sync-seconds:60}") long keySyncSeconds,
+                                 @Value("${authz.tokens.lazy-claims:false}") boolean lazyClaims) {
+        this.signingKeyRecordRepository = signingKeyRecordRepository;
+        this.refreshTokenRotationService = refreshTokenRotationService;
+        this.issuer = issuer;
+        this.algorithm = JWSAlgorithm.parse(algorithm);
+        this.accessTokenTtl = Duration.ofSeconds(accessTtlSeconds);
+        this.refreshTokenTtl = Duration.ofSeconds(refreshTtlSeconds);
+        this.rotation = Duration.ofSeconds(rotationSeconds);
+        this.keySyncInterval = Duration.ofSeconds(keySyncSeconds);
+        // A retired key must outlive every token it signed
+        this.keyRetention = (refreshTokenTtl.compareTo(accessTokenTtl) > 0 ? refreshTokenTtl : accessTokenTtl)
+                .plus(CLOCK_SKEW);
+        this.lazyClaims = lazyClaims;
+
+        if (enabled) {
+            this.keyPool = new SigningKeyPool(List.of(JWSAlgorithm.RS256, JWSAlgorithm.ES256), keyRetention,
+                    Clock.systemUTC());
+            this.accessTokenDecoder = newDecoder(ACCESS_TOKEN_TYPE);
+            this.refreshTokenDecoder = newDecoder(REFRESH_TOKEN_TYPE);
+        } else {
+            this.keyPool = null;
+            this.accessTokenDecoder = null;
+            this.refreshTokenDecoder = null;
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (keyPool == null) {
+            return;
+        }
+        scheduler.execute(this::syncKeys);
+        scheduler.scheduleAtFixedRate(this::rotateKeys, rotation.getSeconds(), rotation.getSeconds(), TimeUnit.SECONDS);
+        scheduler.scheduleWithFixedDelay(this::syncKeys, keySyncInterval.getSeconds(), keySyncInterval.getSeconds(),
+                TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return keyPool != null;
+    }
+
+    @Override
+    public String getIssuer() {
+        return issuer;
+    }
+
+    @Override
+    public String getAlgorithm() {
+        return algorithm.getName();
+    }
+
+    @Override
+    public TokenResponse issueTokens(Jwt accessToken, TokenPrincipal principal) {
+        requireEnabled();
+        if (accessToken.getIssuer() != null && issuer.equals(accessToken.getIssuer().toString())) {
+            // Exchanging a local token for a new pair would extend the session indefinitely
+            throw new BadRequestException("token", "A locally issued token cannot be exchanged; use the refresh token");
+        }
+        Map<String, Object> identity = new LinkedHashMap<>();
+        identity.put("sub", principal.sub());
+        putIfPresent(identity, "preferred_username", principal.username());
+        putIfPresent(identity, "email", principal.email());
+        identity.put("email_verified", principal.emailVerified());
+        identity.put("realm_access", Map.of("roles", principal.realmRoles()));
+        Map<String, Object> resourceAccess = new LinkedHashMap<>();
+        principal.clientRoles().forEach((clientId, roles) -> resourceAccess.put(clientId, Map.of("roles", roles)));
+        identity.put("resource_access", resourceAccess);
+        String thumbprint = CONFIRMATION_THUMBPRINT.getString(accessToken.getClaims());
+        if (thumbprint != null) {
+            // Unbound local tokens would let anyone holding them act without the key
+            identity.put("cnf", Map.of("jkt", thumbprint));
+        }
+
+        Instant now = Instant.now();
+        log.debug("Issuing local tokens for subject {}", principal.sub());
+        // Every refresh token descending from this exchange shares its family
+        String familyId = UUID.randomUUID().toString();
+        Instant refreshExpiresAt = now.plus(refreshTokenTtl);
+        TokenResponse tokens = issue(identity, familyId, now, refreshExpiresAt);
+        refreshTokenRotationService.register(tokens.getRefreshToken(), familyId, principal.sub(), refreshExpiresAt);
+        return tokens;
+    }
+
+    @Override
+    public boolean isLocalToken(String token) {
+        if (keyPool == null || token == null) {
+            return false;
+        }
+        int first = token.indexOf('.');
+        int second = first < 0 ? -1 : token.indexOf('.', first + 1);
+        if (second < 0) {
+            return false;
+        }
+        try {
+            Object tokenIssuer = LazyClaimsJwtDecoder.parseClaims(
+                    new Base64URL(token.substring(first + 1, second)).decodeToString(), lazyClaims).get("iss");
+            return issuer.equals(tokenIssuer);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public TokenResponse refresh(String refreshToken) {
+        requireEnabled();
+        Jwt jwt;
+        try {
+            jwt = refreshTokenDecoder.decode(refreshToken);
+        } catch (JwtException e) {
+            throw new BadRequestException("refreshToken", "Invalid refresh token: " + e.getMessage());
+        }
+
+        Map<String, Object> identity = new LinkedHashMap<>();
+        for (String claim : IDENTITY_CLAIMS) {
+            putIfPresent(identity, claim, jwt.getClaims().get(claim));
+        }
+        log.debug("Refreshing local tokens for subject {}", jwt.getSubject());
+        TokenResponse tokens = issue(identity, jwt.getClaimAsString(FAMILY_CLAIM), Instant.now(), jwt.getExpiresAt());
+        // Only handed out once the presented token is marked used
+        refreshTokenRotationService.rotate(jwt, tokens.getRefreshToken());
+        return tokens;
+    }
+
+    @Override
+    public JwtDecoder getAccessTokenDecoder() {
+        requireEnabled();
+        return accessTokenDecoder;
+    }
+
+    @Override
+    public JWKSet getPublicKeys() {
+        requireEnabled();
+        return keyPool.getPublicKeys();
+    }
+
+    @Override
+    public void addPublicKeysListener(Consumer<JWKSet> listener) {
+        requireEnabled();
+        keyPool.addListener(listener);
+    }
+
+    /**
+     * Rotates the signing keys and publishes the new ones.
+     */
+    void rotateKeys() {
+        try {
+            keyPool.rotate();
+            log.info("Rotated local token signing keys");
+            syncKeys();
+        } catch (RuntimeException e) {
+            // An exception would cancel the schedule
+            log.error("Could not rotate local token signing keys", e);
+        }
+    }
+
+    /**
+     * Publishes the public keys of this node and loads those of the other nodes.
+     */
+    void syncKeys() {
+        Instant expiresAt = Instant.now().plus(keyRetention).plus(keySyncInterval);
+        try {
+            List<SigningKeyRecord> own = new ArrayList<>();
+            for (JWK key : keyPool.getOwnPublicKeys()) {
+                own.add(new SigningKeyRecord(key.getKeyID(), key.getAlgorithm().getName(), key.toJSONString(),
+                        expiresAt));
+            }
+            signingKeyRecordRepository.saveAll(own);
+
+            List<JWK> keys = new ArrayList<>();
+            for (SigningKeyRecord record : signingKeyRecordRepository.findAll()) {
+                try {
+                    keys.add(JWK.parse(record.getJwk()));
+                } catch (ParseException e) {
+                    log.warn("Ignoring malformed signing key {}", record.getId());
+                }
+            }
+            keyPool.setRemoteKeys(keys);
+        } catch (DataAccessException e) {
+            // Until the store is back, tokens of other nodes verify only with the keys already loaded
+            log.warn("Could not synchronize signing keys: {}", e.getMessage());
+        } catch (RuntimeException e) {
+            log.error("Could not synchronize signing keys", e);
+        }
+    }
+
+    private TokenResponse issue(Map<String, Object> identity, String familyId, Instant now, Instant refreshExpiresAt) {
+        Instant accessExpiresAt = now.plus(accessTokenTtl);
+        if (!refreshExpiresAt.isAfter(now)) {
+            throw new BadRequestException("refreshToken", "Refresh token has expired");
+        }
+        if (refreshExpiresAt.isBefore(accessExpiresAt)) {
+            accessExpiresAt = refreshExpiresAt;
+        }
+
+        String accessToken = keyPool.sign(algorithm, JSONObjectUtils.toJSONString(
+                claims(identity, ACCESS_TOKEN_TYPE, now, accessExpiresAt)));
+        Map<String, Object> refreshClaims = claims(identity, REFRESH_TOKEN_TYPE, now, refreshExpiresAt);
+        putIfPresent(refreshClaims, FAMILY_CLAIM, familyId);
+        String refreshToken = keyPool.sign(algorithm, JSONObjectUtils.toJSONString(refreshClaims));
+        return TokenResponse.builder()
+                .accessToken(accessToken)
+                .refreshToken(refreshToken)
+                .tokenType(identity.containsKey("cnf") ? DPOP_TOKEN_TYPE : ACCESS_TOKEN_TYPE)
+                .expiresIn((int) Duration.between(now, accessExpiresAt).getSeconds())
+                .refreshExpiresIn((int) Duration.between(now, refreshExpiresAt).getSeconds())
+                .build();
+    }
+
+    private Map<String, Object> claims(Map<String, Object> identity, String type, Instant now, Instant expiresAt) {
+        Map<String, Object> claims = new LinkedHashMap<>();
+        claims.put("iss", issuer);
+        claims.put("iat", now.getEpochSecond());
+        claims.put("exp", expiresAt.getEpochSecond());
+        claims.put("jti", UUID.randomUUID().toString());
+        claims.put("typ", type);
+        claims.putAll(identity);
+        return claims;
+    }
+
+    private JwtDecoder newDecoder(String type) {
+        JWSVerificationKeySelector<SecurityContext> keySelector =
+                new JWSVerificationKeySelector<>(Set.of(JWSAlgorithm.RS256, JWSAlgorithm.ES256), keyPool);
+        // An access token must not pass as a refresh token, nor the other way round
+        DelegatingOAuth2TokenValidator<Jwt> validator = new DelegatingOAuth2TokenValidator<>(
+                JwtValidators.createDefaultWithIssuer(issuer), new JwtClaimValidator<String>("typ", type::equals));
+        if (lazyClaims) {
+            LazyClaimsJwtDecoder decoder = new LazyClaimsJwtDecoder(keySelector);
+            decoder.setJwtValidator(validator);
+            return decoder;
+        }
+        DefaultJWTProcessor<SecurityContext> processor = new DefaultJWTProcessor<>();
+        processor.setJWSKeySelector(keySelector);
+        // Claims are validated by the validator, as with the decoders of the other issuers
+        processor.setJWTClaimsSetVerifier((claims, context) -> { });
+        NimbusJwtDecoder decoder = new NimbusJwtDecoder(processor);
+        decoder.setJwtValidator(validator);
+        return decoder;
+    }
+
+    private void requireEnabled() {
+        if (keyPool == null) {
+            throw new BadRequestException("Local token issuance is not enabled");
+        }
+    }
+
+    private static void putIfPresent(Map<String, Object> claims, String name, Object value) {
+        if (value != null) {
+            claims.put(name, value);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.auth.oidcprovider.services;
+
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Service pushing permission changes to Server-Sent Events subscribers.
+ */
+public interface PermissionEventStreamService {
+
+    /**
+     * Name of the SSE event carrying a permission change.
+     */
+    String CHANGE_EVENT = "permission-changed";
+
+    /**
+     * Name of the SSE event telling a subscriber that missed events can no longer be replayed,
+     * so any state derived from earlier events must be reloaded.
+     */
+    String RESET_EVENT = "reset";
+
+    /**
+     * Opens a subscription. Events after {@code lastEventId} are replayed first when still retained,
+     * otherwise a {@link #RESET_EVENT} is sent.
+     *
+     * @param lastEventId the ID of the last event the subscriber received, may be null
+     * @return the emitter streaming the events
+     */
+    SseEmitter subscribe(String lastEventId);
+
+    /**
+     * Gets the number of open subscriptions.
+     *
+     * @return the subscriber count
+     */
+    int getSubscriberCount();
+}
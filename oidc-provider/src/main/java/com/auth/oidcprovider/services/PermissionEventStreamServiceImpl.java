@@ -0,0 +1,297 @@
+package com.auth.oidcprovider.services;
+
+import com.auth.oidcprovider.dto.PermissionChangeMessage;
+import com.auth.oidcprovider.events.PermissionChangedEvent;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Implementation of the PermissionEventStreamService interface.
+ * <p>
+ * Subscriptions are async {@link SseEmitter}s, so an idle connection holds no thread. Numbering,
+ * buffering, replay, fan-out and heartbeats run on one dispatcher thread, which keeps event IDs strictly
+ * ordered and means a replaying subscriber cannot miss or duplicate a live event. Each event is serialized
+ * once and the same frame is queued for every subscriber.
+ * <p>
+ * The dispatcher never writes to a socket. Each subscriber has a queue of at most
+ * {@code authz.events.queue-size} frames, drained by a pool of {@code authz.events.writer-threads} writers,
+ * one drain at a time per subscriber so its frames stay in order. A client that stops reading holds one writer
+ * until its write fails, and is dropped once its queue overflows; its emitter is completed when the blocked
+ * write returns, so it can reconnect with {@code Last-Event-ID}.
+ * <p>
+ * Event IDs start at the startup time in microseconds, so they keep increasing across restarts and a
+ * subscriber resuming with an ID from before a restart receives a reset instead of a wrong replay.
+ */
+@Service
+public class PermissionEventStreamServiceImpl implements PermissionEventStreamService {
+
+    private static final Logger log = LoggerFactory.getLogger(PermissionEventStreamServiceImpl.class);
+
+    private final ObjectMapper objectMapper;
+    private final long timeoutMillis;
+    private final int replaySize;
+    private final int queueSize;
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService dispatcher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "permission-event-dispatcher");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final ExecutorService writers;
+
+    // Confined to the dispatcher thread
+    private final Deque<StreamEvent> recentEvents = new ArrayDeque<>();
+    private long lastEventId = System.currentTimeMillis() * 1000;
+
+    public PermissionEventStreamServiceImpl(ObjectMapper objectMapper,
+                                            @Value("${authz.events.timeout-ms:1800000}") long timeoutMillis,
+                                            @Value("${authz.events.replay-size:1000}") int replaySize,
+                                            @Value("${authz.events.heartbeat-seconds:30}") long heartbeatSeconds,
+                                            @Value("${authz.events.queue-size:1000}") int queueSize,
+                                            @Value("${authz.events.writer-threads:8}") int writerThreads) {
+        this.objectMapper = objectMapper;
+        this.timeoutMillis = timeoutMillis;
+        this.replaySize = replaySize;
+        this.queueSize = queueSize;
+        AtomicInteger writerCount = new AtomicInteger();
+        this.writers = Executors.newFixedThreadPool(writerThreads, runnable -> {
+            Thread thread = new Thread(runnable, "permission-event-writer-" + writerCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        dispatcher.scheduleAtFixedRate(this::sendHeartbeat, heartbeatSeconds, heartbeatSeconds, TimeUnit.SECONDS);
+    }
+
+    @Override
+    public SseEmitter subscribe(String lastEventId) {
+        return subscribe(new SseEmitter(timeoutMillis), lastEventId);
+    }
+
+    SseEmitter subscribe(SseEmitter emitter, String lastEventId) {
+        Subscriber subscriber = new Subscriber(emitter);
+        emitter.onCompletion(subscriber::closed);
+        emitter.onTimeout(subscriber::closed);
+        emitter.onError(error -> subscriber.closed());
+        dispatcher.execute(() -> open(subscriber, lastEventId));
+        return emitter;
+    }
+
+    @Override
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    // Subscribers act on what they receive, so changes are only streamed once their transaction has committed
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onPermissionChanged(PermissionChangedEvent event) {
+        if (event.getType() == PermissionChangedEvent.Type.USER_SAVED) {
+            // Saves that leave the user's roles untouched do not affect any decision
+            return;
+        }
+        PermissionChangeMessage message = new PermissionChangeMessage(
+                event.getType().name(), event.getResourceId(), event.getRoles());
+        dispatcher.execute(() -> broadcast(message));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        dispatcher.shutdownNow();
+        writers.shutdownNow();
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+        subscribers.clear();
+    }
+
+    private void open(Subscriber subscriber, String resumeFrom) {
+        Long resumeId = parseEventId(resumeFrom);
+        List<Set<ResponseBodyEmitter.DataWithMediaType>> frames = new ArrayList<>();
+        if (resumeFrom != null) {
+            long oldestReplayable = recentEvents.isEmpty() ? lastEventId : recentEvents.peekFirst().id - 1;
+            boolean replayable = resumeId != null && resumeId >= oldestReplayable && resumeId <= lastEventId;
+            if (replayable) {
+                for (StreamEvent event : recentEvents) {
+                    if (event.id > resumeId) {
+                        frames.add(event.frame);
+                    }
+                }
+            }
+            // A replay that does not fit the queue is no better than one that is gone
+            if (!replayable || frames.size() > queueSize) {
+                log.debug("Cannot replay events after {}, resetting subscriber", resumeFrom);
+                frames.clear();
+                frames.add(SseEmitter.event().id(String.valueOf(lastEventId)).name(RESET_EVENT).data("").build());
+            }
+        } else {
+            frames.add(SseEmitter.event().comment("connected").build());
+        }
+
+        for (Set<ResponseBodyEmitter.DataWithMediaType> frame : frames) {
+            if (!subscriber.enqueue(frame)) {
+                return;
+            }
+        }
+        subscribers.add(subscriber);
+        if (subscriber.closed) {
+            // Closed while opening, after its callback found nothing to remove
+            subscribers.remove(subscriber);
+        }
+    }
+
+    private void broadcast(PermissionChangeMessage message) {
+        String data;
+        try {
+            data = objectMapper.writeValueAsString(message);
+        } catch (JsonProcessingException e) {
+            log.error("Failed to serialize permission change {}", message, e);
+            return;
+        }
+
+        StreamEvent event = new StreamEvent(++lastEventId,
+                SseEmitter.event().id(String.valueOf(lastEventId)).name(CHANGE_EVENT).data(data).build());
+        recentEvents.addLast(event);
+        while (recentEvents.size() > replaySize) {
+            recentEvents.removeFirst();
+        }
+
+        fanOut(event.frame);
+        log.debug("Queued permission change {} for {} subscribers", event.id, subscribers.size());
+    }
+
+    private void sendHeartbeat() {
+        fanOut(SseEmitter.event().comment("heartbeat").build());
+    }
+
+    private void fanOut(Set<ResponseBodyEmitter.DataWithMediaType> frame) {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.enqueue(frame);
+        }
+    }
+
+    private static Long parseEventId(String eventId) {
+        if (eventId == null) {
+            return null;
+        }
+        try {
+            return Long.parseLong(eventId.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * An open subscription with its queue of frames not yet written.
+     */
+    private final class Subscriber {
+
+        private final SseEmitter emitter;
+        private final BlockingQueue<Set<ResponseBodyEmitter.DataWithMediaType>> queue;
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private volatile boolean closed;
+        private volatile boolean overflowed;
+
+        private Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+            this.queue = new ArrayBlockingQueue<>(queueSize);
+        }
+
+        /**
+         * Queues a frame and makes sure a writer drains the queue. Never blocks.
+         *
+         * @return false if the subscriber is closed, or was dropped because its queue is full
+         */
+        boolean enqueue(Set<ResponseBodyEmitter.DataWithMediaType> frame) {
+            if (closed) {
+                return false;
+            }
+            if (!queue.offer(frame)) {
+                // The drain is stuck on this client's socket; it completes the emitter once the write returns
+                log.debug("Dropping permission event subscriber that fell {} frames behind", queueSize);
+                overflowed = true;
+                closed();
+                return false;
+            }
+            if (draining.compareAndSet(false, true)) {
+                writers.execute(this::drain);
+            }
+            return true;
+        }
+
+        void closed() {
+            closed = true;
+            subscribers.remove(this);
+        }
+
+        private void drain() {
+            do {
+                Set<ResponseBodyEmitter.DataWithMediaType> frame;
+                while (!closed && (frame = queue.poll()) != null) {
+                    write(frame);
+                }
+                draining.set(false);
+                // A frame queued after the last poll found draining still set, so look again
+            } while (!closed && !queue.isEmpty() && draining.compareAndSet(false, true));
+            if (closed) {
+                queue.clear();
+                if (overflowed) {
+                    complete();
+                }
+            }
+        }
+
+        private void write(Set<ResponseBodyEmitter.DataWithMediaType> frame) {
+            try {
+                emitter.send(frame);
+            } catch (IOException e) {
+                // The client went away
+                closed();
+                emitter.completeWithError(e);
+            } catch (IllegalStateException e) {
+                // The emitter already completed or timed out
+                closed();
+            }
+        }
+
+        private void complete() {
+            try {
+                emitter.complete();
+            } catch (IllegalStateException e) {
+                // Already completed
+            }
+        }
+    }
+
+    private static final class StreamEvent {
+
+        private final long id;
+        private final Set<ResponseBodyEmitter.DataWithMediaType> frame;
+
+        private StreamEvent(long id, Set<ResponseBodyEmitter.DataWithMediaType> frame) {
+            this.id = id;
+            this.frame = frame;
+        }
+    }
+}
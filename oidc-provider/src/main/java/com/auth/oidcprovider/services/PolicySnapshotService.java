@@ -0,0 +1,50 @@
+package com.auth.oidcprovider.services;
+
+import com.auth.authz.AccessDecisionEngine;
+import com.auth.authz.PolicySnapshot;
+
+/**
+ * Service maintaining a versioned in-memory copy of the access model (role dictionary, role hierarchy
+ * and product role bitsets) that downstream services replicate through full snapshots and deltas.
+ */
+public interface PolicySnapshotService {
+
+    /**
+     * Gets the epoch of this instance. Versions from another epoch cannot be used as a delta base.
+     *
+     * @return the epoch
+     */
+    long getEpoch();
+
+    /**
+     * Gets the current version of the access model.
+     *
+     * @return the version
+     */
+    long getVersion();
+
+    /**
+     * Gets the changes since the given version, or a full snapshot if no delta can be built from it.
+     * A full snapshot is returned when the epoch or version is missing, belongs to another epoch,
+     * is ahead of the current version or is older than the retained change log.
+     *
+     * @param epoch the epoch the client's version belongs to, may be null
+     * @param sinceVersion the version the client holds, may be null
+     * @return the full or delta snapshot
+     */
+    PolicySnapshot getSnapshot(Long epoch, Long sinceVersion);
+
+    /**
+     * Gets the decision engine over the current access model, for in-process checks.
+     * The engine is updated in place as permissions change.
+     *
+     * @return the decision engine
+     */
+    AccessDecisionEngine getEngine();
+
+    /**
+     * Reloads the access model from the database, e.g. after products were written directly.
+     * The version advances and the change log is dropped, so every client receives a full snapshot next.
+     */
+    void reload();
+}
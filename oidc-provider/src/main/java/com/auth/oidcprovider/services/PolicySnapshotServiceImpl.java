@@ -0,0 +1,280 @@
+package com.auth.oidcprovider.services;
+
+import com.auth.authz.AccessDecisionEngine;
+import com.auth.authz.PolicySnapshot;
+import com.auth.authz.ProductAccessIndex;
+import com.auth.authz.RoleDictionary;
+import com.auth.authz.RoleHierarchy;
+import com.auth.oidcprovider.events.PermissionChangedEvent;
+import com.auth.oidcprovider.models.Product;
+import com.auth.oidcprovider.repositories.ProductRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Implementation of the PolicySnapshotService interface.
+ * The product index is loaded from Mongo on first use and then kept current from
+ * {@link PermissionChangedEvent}s. Every change bumps the version and is recorded in a bounded
+ * change log, from which deltas are assembled; clients further behind than the log get a full snapshot.
+ * <p>
+ * Events only reach the instance that made the change, so every {@code authz.snapshot.sync-seconds} the product
+ * roles and role hierarchy are read from the store and compared with the index. Only the differences are applied
+ * and recorded, so clients still receive deltas, and each is published as a {@link PermissionChangedEvent} for
+ * the decision cache and event subscribers of this instance. The listener ignores these events, since they are
+ * applied already.
+ */
+@Service
+public class PolicySnapshotServiceImpl implements PolicySnapshotService {
+
+    private static final Logger log = LoggerFactory.getLogger(PolicySnapshotServiceImpl.class);
+
+    private final ProductRepository productRepository;
+    private final RoleHierarchyService roleHierarchyService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int changeLogSize;
+    private final long syncSeconds;
+    private final long epoch = System.currentTimeMillis();
+    private final ProductAccessIndex index = new ProductAccessIndex(new RoleDictionary());
+    private final AccessDecisionEngine engine = new AccessDecisionEngine(index, RoleHierarchy.empty());
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "policy-snapshot-sync");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Guarded by this
+    private final NavigableMap<Long, Change> changeLog = new TreeMap<>();
+    private long version;
+    private long oldestDeltaBase;
+    private volatile boolean loaded;
+
+    public PolicySnapshotServiceImpl(ProductRepository productRepository,
+                                     RoleHierarchyService roleHierarchyService,
+                                     ApplicationEventPublisher eventPublisher,
+                                     @Value("${authz.snapshot.change-log-size:10000}") int changeLogSize,
+                                     @Value("${authz.snapshot.sync-seconds:30}") long syncSeconds) {
+        this.productRepository = productRepository;
+        this.roleHierarchyService = roleHierarchyService;
+        this.eventPublisher = eventPublisher;
+        this.changeLogSize = changeLogSize;
+        this.syncSeconds = syncSeconds;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (syncSeconds > 0) {
+            scheduler.scheduleWithFixedDelay(this::sync, syncSeconds, syncSeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    @Override
+    public long getEpoch() {
+        return epoch;
+    }
+
+    @Override
+    public synchronized long getVersion() {
+        ensureLoaded();
+        return version;
+    }
+
+    @Override
+    public synchronized PolicySnapshot getSnapshot(Long clientEpoch, Long sinceVersion) {
+        ensureLoaded();
+        if (clientEpoch == null || sinceVersion == null || clientEpoch != epoch
+                || sinceVersion < oldestDeltaBase || sinceVersion > version) {
+            return fullSnapshot();
+        }
+
+        RoleDictionary dictionary = index.getDictionary();
+        SortedMap<Long, Change> changes = changeLog.tailMap(sinceVersion, false);
+        int dictionaryOffset = changes.isEmpty() ? dictionary.size() : changes.get(changes.firstKey()).dictionarySizeBefore;
+
+        boolean hierarchyChanged = false;
+        Map<String, BitSet> products = new LinkedHashMap<>();
+        Set<String> removedProducts = new LinkedHashSet<>();
+        for (Change change : changes.values()) {
+            if (change.productId == null) {
+                hierarchyChanged = true;
+                continue;
+            }
+            BitSet allowedRoles = index.allowedRoles(change.productId);
+            if (allowedRoles != null) {
+                products.put(change.productId, allowedRoles);
+            } else {
+                removedProducts.add(change.productId);
+            }
+        }
+
+        List<String> roleNames = dictionary.names();
+        return PolicySnapshot.delta(epoch, version, sinceVersion, dictionaryOffset,
+                roleNames.subList(dictionaryOffset, roleNames.size()),
+                hierarchyChanged ? roleHierarchyService.getHierarchy().includedRoles() : null,
+                products, removedProducts);
+    }
+
+    @Override
+    public AccessDecisionEngine getEngine() {
+        if (!loaded) {
+            synchronized (this) {
+                ensureLoaded();
+            }
+        }
+        return engine;
+    }
+
+    @EventListener
+    public synchronized void onPermissionChanged(PermissionChangedEvent event) {
+        if (!loaded || event.getSource() == this) {
+            // The initial load reads the current state from the database, and synced changes are applied already
+            return;
+        }
+
+        switch (event.getType()) {
+            case PRODUCT_CREATED, PRODUCT_ROLES_CHANGED -> {
+                int dictionarySizeBefore = index.getDictionary().size();
+                index.put(event.getResourceId(), event.getRoles());
+                record(new Change(event.getResourceId(), dictionarySizeBefore));
+            }
+            case ROLE_HIERARCHY_CHANGED -> {
+                engine.setHierarchy(roleHierarchyService.getHierarchy());
+                record(new Change(null, index.getDictionary().size()));
+            }
+            default -> {
+                // User, group, relationship and access policy changes are not part of the replicated model
+            }
+        }
+    }
+
+    /**
+     * Applies the changes made through other instances and announces them.
+     */
+    void sync() {
+        List<PermissionChangedEvent> changes;
+        try {
+            changes = pullChanges();
+        } catch (DataAccessException e) {
+            // The next sync tries again; until then checks use the model already loaded
+            log.warn("Could not synchronize access model: {}", e.getMessage());
+            return;
+        } catch (RuntimeException e) {
+            // An exception would cancel the schedule
+            log.error("Could not synchronize access model", e);
+            return;
+        }
+        changes.forEach(eventPublisher::publishEvent);
+    }
+
+    private synchronized List<PermissionChangedEvent> pullChanges() {
+        if (!loaded) {
+            return List.of();
+        }
+        List<PermissionChangedEvent> changes = new ArrayList<>();
+        Set<String> storedIds = new HashSet<>();
+        for (Product product : productRepository.findAllAllowedRoles()) {
+            storedIds.add(product.getId());
+            BitSet before = index.allowedRoles(product.getId());
+            int dictionarySizeBefore = index.getDictionary().size();
+            index.put(product.getId(), product.getAllowedRoles());
+            if (!index.allowedRoles(product.getId()).equals(before)) {
+                record(new Change(product.getId(), dictionarySizeBefore));
+                changes.add(new PermissionChangedEvent(this, PermissionChangedEvent.Type.PRODUCT_ROLES_CHANGED,
+                        product.getId(), product.getAllowedRoles()));
+            }
+        }
+        for (String productId : List.copyOf(index.productIds())) {
+            if (!storedIds.contains(productId)) {
+                index.remove(productId);
+                record(new Change(productId, index.getDictionary().size()));
+                changes.add(new PermissionChangedEvent(this, PermissionChangedEvent.Type.PRODUCT_ROLES_CHANGED,
+                        productId, null));
+            }
+        }
+
+        roleHierarchyService.reload();
+        RoleHierarchy hierarchy = roleHierarchyService.getHierarchy();
+        if (!hierarchy.includedRoles().equals(engine.getHierarchy().includedRoles())) {
+            engine.setHierarchy(hierarchy);
+            record(new Change(null, index.getDictionary().size()));
+            changes.add(new PermissionChangedEvent(this, PermissionChangedEvent.Type.ROLE_HIERARCHY_CHANGED,
+                    null, null));
+        }
+        if (!changes.isEmpty()) {
+            log.info("Synchronized {} access model changes from the store", changes.size());
+        }
+        return changes;
+    }
+
+    private void record(Change change) {
+        version++;
+        changeLog.put(version, change);
+        while (changeLog.size() > changeLogSize) {
+            oldestDeltaBase = changeLog.pollFirstEntry().getKey();
+        }
+        log.debug("Access model advanced to version {}", version);
+    }
+
+    private PolicySnapshot fullSnapshot() {
+        return PolicySnapshot.full(epoch, version, index.getDictionary().names(),
+                roleHierarchyService.getHierarchy().includedRoles(), index.copyEntries());
+    }
+
+    @Override
+    public synchronized void reload() {
+        List<Product> products = productRepository.findAllAllowedRoles();
+        // Overwrite in place rather than clearing, so concurrent checks never see an empty index
+        Set<String> loadedIds = new HashSet<>();
+        for (Product product : products) {
+            index.put(product.getId(), product.getAllowedRoles());
+            loadedIds.add(product.getId());
+        }
+        index.productIds().stream()
+                .filter(productId -> !loadedIds.contains(productId))
+                .toList()
+                .forEach(index::remove);
+        engine.setHierarchy(roleHierarchyService.getHierarchy());
+        changeLog.clear();
+        version++;
+        oldestDeltaBase = version;
+        loaded = true;
+        log.info("Loaded access model version {} with {} products and {} roles",
+                version, products.size(), index.getDictionary().size());
+    }
+
+    private void ensureLoaded() {
+        if (!loaded) {
+            reload();
+        }
+    }
+
+    /**
+     * A recorded change: a product whose roles changed, or a hierarchy change when the product ID is null.
+     */
+    private static final class Change {
+
+        private final String productId;
+        private final int dictionarySizeBefore;
+
+        private Change(String productId, int dictionarySizeBefore) {
+            this.productId = productId;
+            this.dictionarySizeBefore = dictionarySizeBefore;
+        }
+    }
+}
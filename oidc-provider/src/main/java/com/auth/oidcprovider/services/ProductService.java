@@ -1,8 +1,12 @@
 package com.auth.oidcprovider.services;
 
+import com.auth.oidcprovider.dto.ProductPage;
+import com.auth.oidcprovider.dto.ProductRolePair;
 import com.auth.oidcprovider.models.Product;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -41,6 +45,28 @@ public interface ProductService {
      */
     List<Product> getAllProducts();
     
+    /**
+     * Gets the products with the given IDs in a single query; unknown IDs are skipped.
+     *
+     * @param ids the product IDs
+     * @return list of the products found
+     */
+    List<Product> getProductsByIds(Collection<String> ids);
+    
+    /**
+     * Gets one page of the product catalog.
+     * Pages can be addressed by number or, for deep pages, by the keyset cursor returned
+     * with the previous page. Only the requested fields are loaded from the database.
+     *
+     * @param page the zero-based page number, ignored when a cursor is given
+     * @param size the page size
+     * @param sort the sort order as {@code field} or {@code field,asc|desc}, may be null
+     * @param cursor the cursor returned with the previous page, may be null
+     * @param fields the product fields to include, or empty for all fields
+     * @return the requested page
+     */
+    ProductPage getProductPage(int page, int size, String sort, String cursor, Collection<String> fields);
+    
     /**
      * Gets products accessible by the specified role.
      *
@@ -75,4 +101,33 @@ public interface ProductService {
      * @return true if the product is accessible by the role
      */
     boolean isProductAccessibleByRole(String productId, String role);
-} 
\ No newline at end of file
+    
+    /**
+     * Checks many (product, role) pairs at once.
+     * The allowed roles of all referenced products are resolved in a single projected query;
+     * pairs referencing unknown products are denied.
+     *
+     * @param pairs the (product ID, role) pairs to check
+     * @return map of pair to access decision, in request order
+     */
+    Map<ProductRolePair, Boolean> areProductsAccessibleByRoles(Collection<ProductRolePair> pairs);
+    
+    /**
+     * Checks if a product is accessible by any of the given roles.
+     *
+     * @param product the product to check
+     * @param roles the roles of the caller
+     * @return true if any of the roles grants access to the product
+     */
+    boolean isProductAccessibleByAnyRole(Product product, Collection<String> roles);
+    
+    /**
+     * Checks access to many products at once for the given roles.
+     * All products are fetched in a single query; unknown product IDs are denied.
+     *
+     * @param productIds the product IDs to check
+     * @param roles the roles of the caller
+     * @return map of product ID to access decision, in request order
+     */
+    Map<String, Boolean> checkProductAccess(Collection<String> productIds, Collection<String> roles);
+}
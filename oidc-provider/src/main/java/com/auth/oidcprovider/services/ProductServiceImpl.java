@@ -1,12 +1,35 @@
 package com.auth.oidcprovider.services;
 
+import com.auth.authz.AccessDecisionEngine;
+import com.auth.oidcprovider.dto.ProductPage;
+import com.auth.oidcprovider.dto.ProductRolePair;
+import com.auth.oidcprovider.exceptions.BadRequestException;
+import com.auth.oidcprovider.events.PermissionChangedEvent;
 import com.auth.oidcprovider.exceptions.ResourceNotFoundException;
 import com.auth.oidcprovider.models.Product;
 import com.auth.oidcprovider.repositories.ProductRepository;
+import org.bson.Document;
+import org.bson.json.JsonParseException;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * Implementation of the ProductService interface.
@@ -14,15 +37,28 @@ import java.util.Optional;
 @Service
 public class ProductServiceImpl implements ProductService {
     
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final Set<String> SORTABLE_FIELDS = Set.of("id", "name", "price");
+    private static final List<String> PROJECTABLE_FIELDS = List.of("name", "description", "price", "region", "allowedRoles");
+    
     private final ProductRepository productRepository;
+    private final MongoTemplate mongoTemplate;
+    private final RoleHierarchyService roleHierarchyService;
+    private final ApplicationEventPublisher eventPublisher;
     
-    public ProductServiceImpl(ProductRepository productRepository) {
+    public ProductServiceImpl(ProductRepository productRepository, MongoTemplate mongoTemplate,
+                              RoleHierarchyService roleHierarchyService, ApplicationEventPublisher eventPublisher) {
         this.productRepository = productRepository;
+        this.mongoTemplate = mongoTemplate;
+        this.roleHierarchyService = roleHierarchyService;
+        this.eventPublisher = eventPublisher;
     }
     
     @Override
     public Product createProduct(Product product) {
-        return productRepository.save(product);
+        Product savedProduct = productRepository.save(product);
+        publishProductChange(PermissionChangedEvent.Type.PRODUCT_CREATED, savedProduct);
+        return savedProduct;
     }
     
     @Override
@@ -40,6 +76,85 @@ public class ProductServiceImpl implements ProductService {
         return productRepository.findAll();
     }
     
+    @Override
+    public List<Product> getProductsByIds(Collection<String> ids) {
+        return productRepository.findAllById(ids);
+    }
+    
+    @Override
+    public ProductPage getProductPage(int page, int size, String sort, String cursor, Collection<String> fields) {
+        if (page < 0) {
+            throw new BadRequestException("page", "Page number cannot be negative");
+        }
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new BadRequestException("size", "Page size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        
+        Document cursorDocument = StringUtils.hasText(cursor) ? decodeCursor(cursor) : null;
+        String sortField = "id";
+        Sort.Direction direction = Sort.Direction.ASC;
+        
+        if (StringUtils.hasText(sort)) {
+            String[] sortParts = sort.split(",");
+            sortField = sortParts[0].trim();
+            if (sortParts.length > 1) {
+                direction = Sort.Direction.fromOptionalString(sortParts[1].trim())
+                        .orElseThrow(() -> new BadRequestException("sort", "Sort direction must be asc or desc"));
+            }
+        } else if (cursorDocument != null) {
+            sortField = cursorDocument.getString("s");
+            direction = Sort.Direction.fromString(cursorDocument.getString("d"));
+        }
+        
+        if (!SORTABLE_FIELDS.contains(sortField)) {
+            throw new BadRequestException("sort", "Products can only be sorted by " + SORTABLE_FIELDS);
+        }
+        if (cursorDocument != null && (!sortField.equals(cursorDocument.getString("s"))
+                || !direction.name().equals(cursorDocument.getString("d")))) {
+            throw new BadRequestException("cursor", "Cursor was issued for a different sort order");
+        }
+        
+        Query query = new Query();
+        if (cursorDocument != null) {
+            query.addCriteria(keysetCriteria(sortField, direction, cursorDocument.get("v"), cursorDocument.getString("id")));
+        } else {
+            query.skip((long) page * size);
+        }
+        
+        // The id tiebreaker keeps the order total so keyset cursors never skip or repeat products
+        query.with(sortField.equals("id") ? Sort.by(direction, "id") : Sort.by(direction, sortField, "id"));
+        // Fetch one extra product to find out whether another page follows
+        query.limit(size + 1);
+        
+        Collection<String> projectedFields = fields != null && !fields.isEmpty() ? fields : PROJECTABLE_FIELDS;
+        if (fields != null && !fields.isEmpty()) {
+            for (String field : fields) {
+                if (!PROJECTABLE_FIELDS.contains(field)) {
+                    throw new BadRequestException("fields", "Unknown product field: " + field);
+                }
+                query.fields().include(field);
+            }
+            if (!sortField.equals("id")) {
+                query.fields().include(sortField);
+            }
+        }
+        
+        List<Product> products = mongoTemplate.find(query, Product.class);
+        boolean hasNext = products.size() > size;
+        if (hasNext) {
+            products = products.subList(0, size);
+        }
+        
+        String nextCursor = hasNext
+                ? encodeCursor(sortField, direction, products.get(products.size() - 1))
+                : null;
+        
+        List<Map<String, Object>> content = products.stream()
+                .map(product -> toCatalogEntry(product, projectedFields))
+                .collect(Collectors.toList());
+        return new ProductPage(content, cursorDocument == null ? page : null, size, hasNext, nextCursor);
+    }
+    
     @Override
     public List<Product> getProductsByRole(String role) {
         return productRepository.findByAllowedRolesContaining(role);
@@ -51,7 +166,9 @@ public class ProductServiceImpl implements ProductService {
                 .orElseThrow(() -> new ResourceNotFoundException("Product", "id", productId));
         
         product.addAllowedRole(role);
-        return productRepository.save(product);
+        Product savedProduct = productRepository.save(product);
+        publishProductChange(PermissionChangedEvent.Type.PRODUCT_ROLES_CHANGED, savedProduct);
+        return savedProduct;
     }
     
     @Override
@@ -60,14 +177,150 @@ public class ProductServiceImpl implements ProductService {
                 .orElseThrow(() -> new ResourceNotFoundException("Product", "id", productId));
         
         product.getAllowedRoles().remove(role);
-        return productRepository.save(product);
+        Product savedProduct = productRepository.save(product);
+        publishProductChange(PermissionChangedEvent.Type.PRODUCT_ROLES_CHANGED, savedProduct);
+        return savedProduct;
     }
     
     @Override
     public boolean isProductAccessibleByRole(String productId, String role) {
-        Product product = productRepository.findById(productId)
-                .orElseThrow(() -> new ResourceNotFoundException("Product", "id", productId));
+        Set<String> reachableRoles = roleHierarchyService.getReachableRoles(role);
+        boolean superuser = reachableRoles.contains(RoleHierarchyService.SUPERUSER_ROLE);
+        
+        // Existence query: the _id index finds the one candidate and the server matches its allowedRoles, so the
+        // document is read on the server but never sent or mapped. A multikey index cannot cover this query.
+        if (!superuser && productRepository.existsByIdAndAllowedRolesIn(productId, reachableRoles)) {
+            return true;
+        }
+        
+        if (!productRepository.existsById(productId)) {
+            throw new ResourceNotFoundException("Product", "id", productId);
+        }
+        
+        return superuser;
+    }
+    
+    @Override
+    public Map<ProductRolePair, Boolean> areProductsAccessibleByRoles(Collection<ProductRolePair> pairs) {
+        Set<String> productIds = pairs.stream()
+                .map(ProductRolePair::getProductId)
+                .collect(Collectors.toSet());
+        
+        // One $in query for all referenced products; the hierarchy is expanded once per distinct role
+        Map<String, Product> productsById = findAllowedRolesById(productIds);
+        Map<String, Set<String>> reachableByRole = new HashMap<>();
+        
+        Map<ProductRolePair, Boolean> decisions = new LinkedHashMap<>();
+        for (ProductRolePair pair : pairs) {
+            Product product = productsById.get(pair.getProductId());
+            decisions.put(pair, product != null && isProductAccessibleByAnyRole(product,
+                    reachableByRole.computeIfAbsent(pair.getRole(), roleHierarchyService::getReachableRoles)));
+        }
+        return decisions;
+    }
+    
+    @Override
+    public boolean isProductAccessibleByAnyRole(Product product, Collection<String> roles) {
+        return AccessDecisionEngine.isAccessible(product.getAllowedRoles(), roles, RoleHierarchyService.SUPERUSER_ROLE);
+    }
+    
+    @Override
+    public Map<String, Boolean> checkProductAccess(Collection<String> productIds, Collection<String> roles) {
+        Set<String> uniqueIds = new LinkedHashSet<>(productIds);
         
-        return product.isAccessibleByRole(role) || role.equals("ADMIN");
+        // One $in query for the whole batch instead of a lookup per product
+        Map<String, Product> productsById = findAllowedRolesById(uniqueIds);
+        
+        Map<String, Boolean> decisions = new LinkedHashMap<>();
+        for (String productId : uniqueIds) {
+            Product product = productsById.get(productId);
+            decisions.put(productId, product != null && isProductAccessibleByAnyRole(product, roles));
+        }
+        return decisions;
+    }
+    
+    /**
+     * Loads the allowed roles of the given products with a single projected $in query.
+     *
+     * @param productIds the product IDs
+     * @return map of product ID to product with only ID and allowed roles populated
+     */
+    private Map<String, Product> findAllowedRolesById(Collection<String> productIds) {
+        return productRepository.findAllowedRolesByIdIn(productIds).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+    }
+    
+    /**
+     * Copies the ID and the given fields of a product. Fields left out of a projection are not loaded, so they
+     * are left out of the entry rather than returned with the defaults of an unset {@link Product}.
+     */
+    private static Map<String, Object> toCatalogEntry(Product product, Collection<String> fields) {
+        Map<String, Object> entry = new LinkedHashMap<>();
+        entry.put("id", product.getId());
+        for (String field : PROJECTABLE_FIELDS) {
+            if (fields.contains(field)) {
+                entry.put(field, switch (field) {
+                    case "name" -> product.getName();
+                    case "description" -> product.getDescription();
+                    case "price" -> product.getPrice();
+                    case "region" -> product.getRegion();
+                    default -> product.getAllowedRoles();
+                });
+            }
+        }
+        return entry;
+    }
+    
+    /**
+     * Builds the criteria selecting all products after the cursor position for the given sort order.
+     */
+    private Criteria keysetCriteria(String sortField, Sort.Direction direction, Object lastValue, String lastId) {
+        boolean ascending = direction.isAscending();
+        if (sortField.equals("id")) {
+            return ascending ? Criteria.where("id").gt(lastId) : Criteria.where("id").lt(lastId);
+        }
+        
+        Criteria afterValue = ascending ? Criteria.where(sortField).gt(lastValue) : Criteria.where(sortField).lt(lastValue);
+        Criteria sameValueAfterId = new Criteria().andOperator(
+                Criteria.where(sortField).is(lastValue),
+                ascending ? Criteria.where("id").gt(lastId) : Criteria.where("id").lt(lastId));
+        return new Criteria().orOperator(afterValue, sameValueAfterId);
+    }
+    
+    /**
+     * Encodes the position of the last product of a page as an opaque cursor.
+     */
+    private String encodeCursor(String sortField, Sort.Direction direction, Product last) {
+        Document cursor = new Document("s", sortField)
+                .append("d", direction.name())
+                .append("id", last.getId());
+        if (sortField.equals("name")) {
+            cursor.append("v", last.getName());
+        } else if (sortField.equals("price")) {
+            cursor.append("v", last.getPrice());
+        }
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(cursor.toJson().getBytes(StandardCharsets.UTF_8));
+    }
+    
+    /**
+     * Decodes a cursor produced by {@link #encodeCursor}.
+     */
+    private Document decodeCursor(String cursor) {
+        try {
+            String json = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            Document document = Document.parse(json);
+            if (document.getString("s") == null || document.getString("id") == null
+                    || Sort.Direction.fromOptionalString(document.getString("d")).isEmpty()) {
+                throw new BadRequestException("cursor", "Malformed cursor");
+            }
+            return document;
+        } catch (IllegalArgumentException | JsonParseException e) {
+            throw new BadRequestException("cursor", "Malformed cursor");
+        }
+    }
+    
+    private void publishProductChange(PermissionChangedEvent.Type type, Product product) {
+        eventPublisher.publishEvent(new PermissionChangedEvent(this, type, product.getId(), product.getAllowedRoles()));
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,47 @@
+package com.auth.oidcprovider.services;
+
+import com.auth.oidcprovider.dto.RefreshTokenStats;
+import org.springframework.security.oauth2.jwt.Jwt;
+
+import java.time.Instant;
+
+/**
+ * Service enforcing single use of locally issued refresh tokens. Each refresh token belongs to a family started
+ * by one token exchange; rotating a token marks it used, and presenting a used token again revokes its family.
+ */
+public interface RefreshTokenRotationService {
+
+    /**
+     * Checks if refresh token rotation is enforced.
+     *
+     * @return true if refresh tokens are recorded and single-use
+     */
+    boolean isEnabled();
+
+    /**
+     * Records the first refresh token of a new family.
+     *
+     * @param refreshToken the serialized refresh token
+     * @param familyId the family id
+     * @param subject the subject of the token
+     * @param expiresAt the expiry of the token
+     */
+    void register(String refreshToken, String familyId, String subject, Instant expiresAt);
+
+    /**
+     * Marks a refresh token used and records its replacement in the same family.
+     *
+     * @param presented the verified refresh token being redeemed
+     * @param replacement the serialized refresh token replacing it
+     * @throws com.auth.oidcprovider.exceptions.BadRequestException if the token was used before, its family is
+     *         revoked or it is not known
+     */
+    void rotate(Jwt presented, String replacement);
+
+    /**
+     * Gets the statistics of refresh token rotation.
+     *
+     * @return the statistics
+     */
+    RefreshTokenStats getStats();
+}
@@ -0,0 +1,195 @@
+package com.auth.oidcprovider.services;
+
+import com.auth.oidcprovider.dto.RefreshTokenStats;
+import com.auth.oidcprovider.exceptions.BadRequestException;
+import com.auth.oidcprovider.models.RefreshTokenRecord;
+import com.auth.oidcprovider.repositories.RefreshTokenRecordRepository;
+import com.auth.oidcprovider.util.RefreshTokenReuseCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Implementation of the RefreshTokenRotationService interface.
+ * <p>
+ * Refresh tokens are recorded in the {@code refresh_tokens} collection under their SHA-256 fingerprint, with the
+ * family id from their {@code fid} claim; a TTL index drops them when they expire. Rotation first inserts the
+ * replacement, then marks the presented token used with a single conditional update that only matches an unused
+ * token of a live family. Exactly one of two concurrent rotations wins, without a transaction. Because the
+ * replacement exists before the presented token is marked used, a reuse detected right after a rotation also
+ * revokes the replacement. A losing rotation reads the record to tell a reuse, which revokes the family, from a
+ * revoked family or an unknown token.
+ * <p>
+ * A {@link RefreshTokenReuseCache} remembers the tokens this node rotated and the families it revoked, so a reused
+ * token is usually refused without reading the store. Store errors fail the refresh with 503, since a token whose
+ * use cannot be recorded could be redeemed twice.
+ */
+@Service
+public class RefreshTokenRotationServiceImpl implements RefreshTokenRotationService {
+
+    private static final Logger log = LoggerFactory.getLogger(RefreshTokenRotationServiceImpl.class);
+    private static final String FAMILY_CLAIM = "fid";
+
+    private final RefreshTokenRecordRepository refreshTokenRecordRepository;
+    private final MongoTemplate mongoTemplate;
+    private final boolean enabled;
+    private final RefreshTokenReuseCache cache;
+    private final LongAdder rotations = new LongAdder();
+    private final LongAdder reuses = new LongAdder();
+    private final LongAdder revokedRejections = new LongAdder();
+    private final LongAdder storeErrors = new LongAdder();
+
+    public RefreshTokenRotationServiceImpl(RefreshTokenRecordRepository refreshTokenRecordRepository,
+                                           MongoTemplate mongoTemplate,
+                                           @Value("${authz.local-tokens.rotation.enabled:true}") boolean enabled,
+                                           @Value("${authz.local-tokens.rotation.cache.max-size:10000}") int cacheMaxSize) {
+        this.refreshTokenRecordRepository = refreshTokenRecordRepository;
+        this.mongoTemplate = mongoTemplate;
+        this.enabled = enabled;
+        this.cache = new RefreshTokenReuseCache(cacheMaxSize, Clock.systemUTC());
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public void register(String refreshToken, String familyId, String subject, Instant expiresAt) {
+        if (!enabled) {
+            return;
+        }
+        try {
+            refreshTokenRecordRepository.insert(
+                    new RefreshTokenRecord(fingerprint(refreshToken), familyId, subject, false, false, expiresAt));
+        } catch (DataAccessException e) {
+            throw storeUnavailable(e);
+        }
+    }
+
+    @Override
+    public void rotate(Jwt presented, String replacement) {
+        if (!enabled) {
+            return;
+        }
+        String familyId = presented.getClaimAsString(FAMILY_CLAIM);
+        if (familyId == null) {
+            throw new BadRequestException("refreshToken", "Refresh token has no family, please sign in again");
+        }
+        String fingerprint = fingerprint(presented.getTokenValue());
+        Instant expiresAt = presented.getExpiresAt();
+
+        if (cache.isRevoked(familyId)) {
+            throw revoked();
+        }
+        if (cache.getUsedFamily(fingerprint) != null) {
+            throw reuse(presented, familyId, expiresAt);
+        }
+
+        String replacementId = fingerprint(replacement);
+        boolean rotated;
+        try {
+            refreshTokenRecordRepository.insert(
+                    new RefreshTokenRecord(replacementId, familyId, presented.getSubject(), false, false, expiresAt));
+            Query unusedToken = Query.query(Criteria.where("_id").is(fingerprint)
+                    .and("familyId").is(familyId)
+                    .and("used").is(false)
+                    .and("revoked").is(false));
+            rotated = mongoTemplate.updateFirst(unusedToken, Update.update("used", true), RefreshTokenRecord.class)
+                    .getMatchedCount() == 1;
+        } catch (DataAccessException e) {
+            discard(replacementId);
+            throw storeUnavailable(e);
+        }
+        if (rotated) {
+            rotations.increment();
+            cache.recordUsed(fingerprint, familyId, expiresAt);
+            return;
+        }
+
+        // The replacement was never handed out, so it must not stay redeemable
+        discard(replacementId);
+        RefreshTokenRecord record;
+        try {
+            record = refreshTokenRecordRepository.findById(fingerprint).orElse(null);
+        } catch (DataAccessException e) {
+            throw storeUnavailable(e);
+        }
+        if (record == null || !familyId.equals(record.getFamilyId())) {
+            throw new BadRequestException("refreshToken", "Refresh token is not known, please sign in again");
+        }
+        if (record.isRevoked()) {
+            cache.recordRevoked(familyId, expiresAt);
+            throw revoked();
+        }
+        cache.recordUsed(fingerprint, familyId, expiresAt);
+        throw reuse(presented, familyId, expiresAt);
+    }
+
+    @Override
+    public RefreshTokenStats getStats() {
+        return new RefreshTokenStats(enabled, rotations.sum(), reuses.sum(), revokedRejections.sum(),
+                cache.getHitCount(), cache.getEvictionCount(), storeErrors.sum(), cache.size());
+    }
+
+    private BadRequestException reuse(Jwt presented, String familyId, Instant expiresAt) {
+        reuses.increment();
+        log.warn("Refresh token of subject {} was reused, revoking token family {}", presented.getSubject(), familyId);
+        try {
+            mongoTemplate.updateMulti(Query.query(Criteria.where("familyId").is(familyId)),
+                    Update.update("revoked", true), RefreshTokenRecord.class);
+        } catch (DataAccessException e) {
+            // Not remembered locally, so the next attempt tries the revocation again
+            throw storeUnavailable(e);
+        }
+        cache.recordRevoked(familyId, expiresAt);
+        return new BadRequestException("refreshToken", "Refresh token has already been used, please sign in again");
+    }
+
+    private BadRequestException revoked() {
+        revokedRejections.increment();
+        return new BadRequestException("refreshToken", "Refresh token has been revoked, please sign in again");
+    }
+
+    private void discard(String id) {
+        try {
+            refreshTokenRecordRepository.deleteById(id);
+        } catch (DataAccessException e) {
+            // The token was never handed out; its record expires with it
+            log.debug("Could not discard refresh token record: {}", e.getMessage());
+        }
+    }
+
+    private ResponseStatusException storeUnavailable(DataAccessException e) {
+        storeErrors.increment();
+        log.error("Refresh token store unavailable: {}", e.getMessage());
+        return new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                "Refresh tokens are temporarily unavailable");
+    }
+
+    private static String fingerprint(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
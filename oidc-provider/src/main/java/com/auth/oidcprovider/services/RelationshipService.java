@@ -0,0 +1,102 @@
+package com.auth.oidcprovider.services;
+
+import com.auth.oidcprovider.models.Relationship;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Service for relationship tuples ({@code object#relation@subject}) used for user- and group-level
+ * sharing of individual products. Tuples are stored in Mongo and answered from an in-memory index.
+ */
+public interface RelationshipService {
+
+    /**
+     * Object type of products.
+     */
+    String PRODUCT_TYPE = "product";
+
+    /**
+     * Relation granting read access to a product.
+     */
+    String VIEWER_RELATION = "viewer";
+
+    /**
+     * Subject type of users, identified by their token subject.
+     */
+    String USER_TYPE = "user";
+
+    /**
+     * Subject type of roles, so tuples can grant to everyone holding a role.
+     */
+    String ROLE_TYPE = "role";
+
+    /**
+     * Checks if relationship-based product access is enabled.
+     *
+     * @return true if product access checks use relationships
+     */
+    boolean isEnabled();
+
+    /**
+     * Writes a relationship. Writing an existing relationship has no effect.
+     *
+     * @param object the object, {@code type:id}
+     * @param relation the relation
+     * @param subject the subject, {@code type:id} or a userset {@code type:id#relation}
+     * @return the stored relationship
+     */
+    Relationship writeRelationship(String object, String relation, String subject);
+
+    /**
+     * Deletes a relationship.
+     *
+     * @param object the object
+     * @param relation the relation
+     * @param subject the subject
+     */
+    void deleteRelationship(String object, String relation, String subject);
+
+    /**
+     * Gets all relationships on an object.
+     *
+     * @param object the object
+     * @return the relationships
+     */
+    List<Relationship> getRelationships(String object);
+
+    /**
+     * Checks if any of the subjects holds a relation on an object, directly or through usersets.
+     *
+     * @param object the object
+     * @param relation the relation
+     * @param subjects the subjects acting together, e.g. a user and its roles
+     * @return true if the relation holds
+     */
+    boolean check(String object, String relation, Collection<String> subjects);
+
+    /**
+     * Lists the IDs of objects of a type on which any of the subjects holds a relation.
+     *
+     * @param objectType the object type
+     * @param relation the relation
+     * @param subjects the subjects acting together
+     * @return the object IDs
+     */
+    Set<String> listObjects(String objectType, String relation, Collection<String> subjects);
+
+    /**
+     * Builds the subjects a caller acts as: its user and each of its roles.
+     *
+     * @param userSubject the token subject of the caller, may be null
+     * @param roles the expanded roles of the caller
+     * @return the subject identifiers
+     */
+    Set<String> callerSubjects(String userSubject, Collection<String> roles);
+
+    /**
+     * Reloads the in-memory index from the database.
+     */
+    void reload();
+}
@@ -0,0 +1,221 @@
+package com.auth.oidcprovider.services;
+
+import com.auth.authz.RelationTuple;
+import com.auth.authz.RelationshipIndex;
+import com.auth.oidcprovider.events.PermissionChangedEvent;
+import com.auth.oidcprovider.exceptions.BadRequestException;
+import com.auth.oidcprovider.exceptions.ResourceNotFoundException;
+import com.auth.oidcprovider.models.Relationship;
+import com.auth.oidcprovider.repositories.RelationshipRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Implementation of the RelationshipService interface.
+ * Mongo is the source of truth; the {@link RelationshipIndex} is loaded on first use and updated on
+ * every write, so checks and listings never touch the database. Writes and reloads are serialized,
+ * and a reload builds a new index before swapping it in, so checks never see a half-loaded graph.
+ * <p>
+ * Writes through other instances do not reach this one, so every {@code authz.relationships.sync-seconds} the
+ * tuples are loaded into a new index and compared with the current one. If they differ, the new index is swapped
+ * in and each added or removed tuple is announced with a {@link PermissionChangedEvent.Type#RELATIONSHIP_CHANGED}
+ * event.
+ */
+@Service
+public class RelationshipServiceImpl implements RelationshipService {
+
+    private static final Logger log = LoggerFactory.getLogger(RelationshipServiceImpl.class);
+
+    private final RelationshipRepository relationshipRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final boolean enabled;
+    private final long syncSeconds;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "relationship-sync");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile RelationshipIndex index = new RelationshipIndex();
+    private volatile boolean loaded;
+
+    public RelationshipServiceImpl(RelationshipRepository relationshipRepository,
+                                   ApplicationEventPublisher eventPublisher,
+                                   @Value("${authz.relationships.enabled:false}") boolean enabled,
+                                   @Value("${authz.relationships.sync-seconds:30}") long syncSeconds) {
+        this.relationshipRepository = relationshipRepository;
+        this.eventPublisher = eventPublisher;
+        this.enabled = enabled;
+        this.syncSeconds = syncSeconds;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (syncSeconds > 0) {
+            scheduler.scheduleWithFixedDelay(this::sync, syncSeconds, syncSeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public synchronized Relationship writeRelationship(String object, String relation, String subject) {
+        RelationTuple tuple = toTuple(object, relation, subject);
+        ensureLoaded();
+
+        Relationship relationship = new Relationship(tuple.getObject(), tuple.getRelation(), tuple.getSubject());
+        if (!relationshipRepository.existsByObjectAndRelationAndSubject(object, relation, subject)) {
+            relationship = relationshipRepository.save(relationship);
+            log.info("Wrote relationship {}", tuple);
+        }
+        if (index.add(tuple)) {
+            publishChange(tuple);
+        }
+        return relationship;
+    }
+
+    @Override
+    public synchronized void deleteRelationship(String object, String relation, String subject) {
+        RelationTuple tuple = toTuple(object, relation, subject);
+        ensureLoaded();
+
+        if (relationshipRepository.deleteByObjectAndRelationAndSubject(object, relation, subject) == 0) {
+            throw new ResourceNotFoundException("Relationship", "tuple", tuple.toString());
+        }
+        log.info("Deleted relationship {}", tuple);
+        index.remove(tuple);
+        publishChange(tuple);
+    }
+
+    @Override
+    public List<Relationship> getRelationships(String object) {
+        return relationshipRepository.findByObject(object);
+    }
+
+    @Override
+    public boolean check(String object, String relation, Collection<String> subjects) {
+        ensureLoaded();
+        return index.check(object, relation, subjects);
+    }
+
+    @Override
+    public Set<String> listObjects(String objectType, String relation, Collection<String> subjects) {
+        ensureLoaded();
+        return index.listObjects(objectType, relation, subjects);
+    }
+
+    @Override
+    public Set<String> callerSubjects(String userSubject, Collection<String> roles) {
+        Set<String> subjects = new HashSet<>();
+        if (userSubject != null) {
+            subjects.add(USER_TYPE + RelationTuple.TYPE_SEPARATOR + userSubject);
+        }
+        for (String role : roles) {
+            subjects.add(ROLE_TYPE + RelationTuple.TYPE_SEPARATOR + role);
+        }
+        return subjects;
+    }
+
+    @Override
+    public synchronized void reload() {
+        RelationshipIndex loadedIndex = load();
+        index = loadedIndex;
+        loaded = true;
+        log.info("Loaded {} relationships", loadedIndex.size());
+    }
+
+    /**
+     * Applies the relationship changes made through other instances and announces them.
+     */
+    void sync() {
+        List<RelationTuple> changes;
+        try {
+            changes = pullChanges();
+        } catch (DataAccessException e) {
+            // The next sync tries again; until then checks use the index already loaded
+            log.warn("Could not synchronize relationships: {}", e.getMessage());
+            return;
+        } catch (RuntimeException e) {
+            // An exception would cancel the schedule
+            log.error("Could not synchronize relationships", e);
+            return;
+        }
+        changes.forEach(this::publishChange);
+    }
+
+    private synchronized List<RelationTuple> pullChanges() {
+        if (!loaded) {
+            return List.of();
+        }
+        RelationshipIndex stored = load();
+        RelationshipIndex current = index;
+        List<RelationTuple> changes = new ArrayList<>();
+        stored.forEach(tuple -> {
+            if (!current.contains(tuple)) {
+                changes.add(tuple);
+            }
+        });
+        current.forEach(tuple -> {
+            if (!stored.contains(tuple)) {
+                changes.add(tuple);
+            }
+        });
+        if (!changes.isEmpty()) {
+            index = stored;
+            log.info("Synchronized {} relationship changes from the store", changes.size());
+        }
+        return changes;
+    }
+
+    private RelationshipIndex load() {
+        RelationshipIndex loadedIndex = new RelationshipIndex();
+        try (Stream<Relationship> relationships = relationshipRepository.streamAllBy()) {
+            relationships.forEach(relationship -> loadedIndex.add(RelationTuple.of(
+                    relationship.getObject(), relationship.getRelation(), relationship.getSubject())));
+        }
+        return loadedIndex;
+    }
+
+    private void ensureLoaded() {
+        if (!loaded) {
+            synchronized (this) {
+                if (!loaded) {
+                    reload();
+                }
+            }
+        }
+    }
+
+    private void publishChange(RelationTuple tuple) {
+        eventPublisher.publishEvent(new PermissionChangedEvent(this, PermissionChangedEvent.Type.RELATIONSHIP_CHANGED,
+                tuple.toString(), null));
+    }
+
+    private static RelationTuple toTuple(String object, String relation, String subject) {
+        try {
+            return RelationTuple.of(object, relation, subject);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("relationship", e.getMessage());
+        }
+    }
+}
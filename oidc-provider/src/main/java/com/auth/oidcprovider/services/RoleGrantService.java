@@ -0,0 +1,48 @@
+package com.auth.oidcprovider.services;
+
+import com.auth.oidcprovider.dto.RoleGrantRequest;
+import com.auth.oidcprovider.models.RoleGrant;
+
+import java.util.List;
+
+/**
+ * Service for time-bound role grants. A grant adds a role to a user between {@code notBefore} and
+ * {@code notAfter}. Effective roles are computed at lookup, so grants take effect and expire on time
+ * without any job running; a scheduler additionally prunes ended grants and announces each transition.
+ */
+public interface RoleGrantService {
+
+    /**
+     * Gets the pending and active role grants of a user.
+     *
+     * @param userId the user ID
+     * @return the grants
+     */
+    List<RoleGrant> getRoleGrants(String userId);
+
+    /**
+     * Grants a role to a user for a time window.
+     *
+     * @param userId the user ID
+     * @param request the grant
+     * @return the grants of the user after the change
+     */
+    List<RoleGrant> grantRole(String userId, RoleGrantRequest request);
+
+    /**
+     * Revokes all grants of a role from a user. Permanent roles are not affected.
+     *
+     * @param userId the user ID
+     * @param role the role
+     * @return the grants of the user after the change
+     */
+    List<RoleGrant> revokeRole(String userId, String role);
+
+    /**
+     * Applies every transition that is due: drops ended grants, advances the transition index and
+     * publishes the new effective roles of each affected user.
+     *
+     * @return the number of users updated
+     */
+    int applyDueTransitions();
+}
@@ -0,0 +1,213 @@
+package com.auth.oidcprovider.services;
+
+import com.auth.oidcprovider.dto.RoleGrantRequest;
+import com.auth.oidcprovider.events.PermissionChangedEvent;
+import com.auth.oidcprovider.exceptions.BadRequestException;
+import com.auth.oidcprovider.exceptions.ResourceNotFoundException;
+import com.auth.oidcprovider.models.RoleGrant;
+import com.auth.oidcprovider.models.User;
+import com.auth.oidcprovider.repositories.UserRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Implementation of the RoleGrantService interface.
+ * <p>
+ * Each user stores its grants together with {@code nextRoleTransition}, the earliest pending start or
+ * end of any of them, which is indexed. One scheduler thread sleeps until the earliest transition of
+ * all users, a single index lookup, applies the transitions that are due (an index range query) and
+ * goes back to sleep; writing a grant only wakes it earlier if needed. The sleep is capped so that
+ * grants written by other instances are picked up, and every update is a compare-and-set on a version
+ * so several instances can run the scheduler against the same database and each transition is applied
+ * and announced once.
+ */
+@Service
+public class RoleGrantServiceImpl implements RoleGrantService {
+
+    private static final Logger log = LoggerFactory.getLogger(RoleGrantServiceImpl.class);
+    private static final int MAX_WRITE_ATTEMPTS = 5;
+
+    private final UserRepository userRepository;
+    private final MongoTemplate mongoTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Duration maxIdle;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "role-grant-scheduler");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Guarded by this
+    private ScheduledFuture<?> wakeUp;
+    private Instant wakeUpAt;
+
+    public RoleGrantServiceImpl(UserRepository userRepository, MongoTemplate mongoTemplate,
+                                ApplicationEventPublisher eventPublisher,
+                                @Value("${authz.role-grants.max-idle-seconds:60}") long maxIdleSeconds) {
+        this.userRepository = userRepository;
+        this.mongoTemplate = mongoTemplate;
+        this.eventPublisher = eventPublisher;
+        this.maxIdle = Duration.ofSeconds(maxIdleSeconds);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        scheduler.execute(this::runDueTransitions);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    @Override
+    public List<RoleGrant> getRoleGrants(String userId) {
+        return findUser(userId).getRoleGrants();
+    }
+
+    @Override
+    public List<RoleGrant> grantRole(String userId, RoleGrantRequest request) {
+        if (request.getNotBefore() != null && !request.getNotBefore().isBefore(request.getNotAfter())) {
+            throw new BadRequestException("notBefore", "Grant must start before it ends");
+        }
+        User user = update(userId, grants -> grants.add(new RoleGrant(request.getRole(), request.getNotBefore(),
+                request.getNotAfter(), request.getReason())));
+        log.info("Granted role {} to user {} from {} until {}", request.getRole(), userId,
+                request.getNotBefore(), request.getNotAfter());
+        return user.getRoleGrants();
+    }
+
+    @Override
+    public List<RoleGrant> revokeRole(String userId, String role) {
+        User user = update(userId, grants -> grants.removeIf(grant -> role.equals(grant.getRole())));
+        log.info("Revoked role grants of {} from user {}", role, userId);
+        return user.getRoleGrants();
+    }
+
+    @Override
+    public int applyDueTransitions() {
+        Instant now = Instant.now();
+        int updated = 0;
+        for (User user : userRepository.findByNextRoleTransitionLessThanEqual(now)) {
+            long version = user.getRoleGrantsVersion();
+            user.refreshRoleTransitions(now);
+            // Losing the race means another instance or a concurrent write already moved this user on
+            if (writeGrants(user, version)) {
+                publishRoles(user, now);
+                updated++;
+            }
+        }
+        return updated;
+    }
+
+    private User update(String userId, Consumer<List<RoleGrant>> change) {
+        for (int attempt = 0; attempt < MAX_WRITE_ATTEMPTS; attempt++) {
+            User user = findUser(userId);
+            long version = user.getRoleGrantsVersion();
+            Instant now = Instant.now();
+            List<RoleGrant> grants = user.getRoleGrants() != null ? user.getRoleGrants() : new ArrayList<>();
+            change.accept(grants);
+            user.setRoleGrants(grants);
+            user.refreshRoleTransitions(now);
+            if (writeGrants(user, version)) {
+                publishRoles(user, now);
+                scheduleAt(user.getNextRoleTransition());
+                return user;
+            }
+        }
+        throw new OptimisticLockingFailureException("Role grants of user " + userId + " are being changed concurrently");
+    }
+
+    private boolean writeGrants(User user, long expectedVersion) {
+        // Users written before grants existed have no version field yet
+        Criteria version = expectedVersion == 0
+                ? Criteria.where("roleGrantsVersion").in(0L, null)
+                : Criteria.where("roleGrantsVersion").is(expectedVersion);
+        Query query = Query.query(Criteria.where("_id").is(user.getId()).andOperator(version));
+        Update update = new Update()
+                .set("roleGrants", user.getRoleGrants())
+                .set("roleGrantsVersion", expectedVersion + 1);
+        if (user.getNextRoleTransition() != null) {
+            update.set("nextRoleTransition", user.getNextRoleTransition());
+        } else {
+            // Unset rather than null, so the user leaves the sparse transition index
+            update.unset("nextRoleTransition");
+        }
+        if (mongoTemplate.updateFirst(query, update, User.class).getMatchedCount() == 0) {
+            return false;
+        }
+        user.setRoleGrantsVersion(expectedVersion + 1);
+        return true;
+    }
+
+    private User findUser(String userId) {
+        return userRepository.findById(userId)
+                .orElseThrow(() -> new ResourceNotFoundException("User", "id", userId));
+    }
+
+    private void publishRoles(User user, Instant now) {
+        List<String> effectiveRoles = user.getEffectiveRoles(now);
+        eventPublisher.publishEvent(new PermissionChangedEvent(this, PermissionChangedEvent.Type.USER_ROLES_CHANGED,
+                user.getId(), effectiveRoles != null ? new HashSet<>(effectiveRoles) : null));
+    }
+
+    private void runDueTransitions() {
+        synchronized (this) {
+            wakeUp = null;
+            wakeUpAt = null;
+        }
+        Instant next = null;
+        try {
+            int updated = applyDueTransitions();
+            if (updated > 0) {
+                log.info("Applied role grant transitions for {} users", updated);
+            }
+            next = userRepository.findFirstByNextRoleTransitionNotNullOrderByNextRoleTransitionAsc()
+                    .map(User::getNextRoleTransition)
+                    .orElse(null);
+        } catch (RuntimeException e) {
+            log.error("Failed to apply role grant transitions: {}", e.getMessage());
+        }
+        scheduleAt(next);
+    }
+
+    private synchronized void scheduleAt(Instant transition) {
+        if (scheduler.isShutdown()) {
+            return;
+        }
+        Instant now = Instant.now();
+        Instant latest = now.plus(maxIdle);
+        Instant at = transition == null || transition.isAfter(latest) ? latest : transition;
+        if (wakeUp != null && !wakeUp.isDone() && !wakeUpAt.isAfter(at)) {
+            return;
+        }
+        if (wakeUp != null) {
+            wakeUp.cancel(false);
+        }
+        wakeUpAt = at;
+        wakeUp = scheduler.schedule(this::runDueTransitions,
+                Math.max(0, Duration.between(now, at).toMillis()), TimeUnit.MILLISECONDS);
+    }
+}
@@ -0,0 +1,73 @@
+package com.auth.oidcprovider.services;
+
+import com.auth.authz.AccessDecisionEngine;
+import com.auth.authz.RoleHierarchy;
+import com.auth.oidcprovider.models.RoleDefinition;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Service for the configurable role hierarchy.
+ * The transitive closure of the hierarchy is computed once per change, so expanding
+ * a role set is a map lookup per role rather than a graph walk.
+ */
+public interface RoleHierarchyService {
+    
+    /**
+     * Role that is granted access to every product regardless of the hierarchy.
+     */
+    String SUPERUSER_ROLE = AccessDecisionEngine.DEFAULT_SUPERUSER_ROLE;
+    
+    /**
+     * Gets the given role and every role it includes, directly or transitively.
+     *
+     * @param role the role
+     * @return the reachable roles, including the role itself
+     */
+    Set<String> getReachableRoles(String role);
+    
+    /**
+     * Expands a set of roles with every role they include.
+     *
+     * @param roles the roles to expand
+     * @return the expanded role set
+     */
+    Set<String> expandRoles(Collection<String> roles);
+    
+    /**
+     * Gets all role definitions.
+     *
+     * @return list of role definitions
+     */
+    List<RoleDefinition> getRoleDefinitions();
+    
+    /**
+     * Creates or replaces a role definition and recomputes the hierarchy.
+     *
+     * @param role the role name
+     * @param includedRoles the roles directly included by the role
+     * @return the saved role definition
+     */
+    RoleDefinition saveRoleDefinition(String role, Set<String> includedRoles);
+    
+    /**
+     * Deletes a role definition and recomputes the hierarchy.
+     *
+     * @param role the role name
+     */
+    void deleteRoleDefinition(String role);
+    
+    /**
+     * Reloads the role definitions and recomputes the transitive closure.
+     */
+    void reload();
+    
+    /**
+     * Gets the current role hierarchy, loading it on first use.
+     *
+     * @return the role hierarchy with its closure
+     */
+    RoleHierarchy getHierarchy();
+}
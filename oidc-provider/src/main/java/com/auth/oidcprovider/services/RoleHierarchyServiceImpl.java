@@ -0,0 +1,110 @@
+package com.auth.oidcprovider.services;
+
+import com.auth.authz.RoleHierarchy;
+import com.auth.oidcprovider.events.PermissionChangedEvent;
+import com.auth.oidcprovider.exceptions.BadRequestException;
+import com.auth.oidcprovider.exceptions.ResourceNotFoundException;
+import com.auth.oidcprovider.models.RoleDefinition;
+import com.auth.oidcprovider.repositories.RoleDefinitionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Implementation of the RoleHierarchyService interface.
+ * Role definitions are stored in Mongo; the hierarchy with its transitive closure is kept as an
+ * immutable {@link RoleHierarchy} that is swapped atomically whenever the definitions change.
+ */
+@Service
+public class RoleHierarchyServiceImpl implements RoleHierarchyService {
+    
+    private static final Logger log = LoggerFactory.getLogger(RoleHierarchyServiceImpl.class);
+    
+    private final RoleDefinitionRepository roleDefinitionRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    
+    private volatile RoleHierarchy hierarchy;
+    
+    public RoleHierarchyServiceImpl(RoleDefinitionRepository roleDefinitionRepository,
+                                    ApplicationEventPublisher eventPublisher) {
+        this.roleDefinitionRepository = roleDefinitionRepository;
+        this.eventPublisher = eventPublisher;
+    }
+    
+    @Override
+    public Set<String> getReachableRoles(String role) {
+        return getHierarchy().reachableRoles(role);
+    }
+    
+    @Override
+    public Set<String> expandRoles(Collection<String> roles) {
+        return getHierarchy().expand(roles);
+    }
+    
+    @Override
+    public List<RoleDefinition> getRoleDefinitions() {
+        return roleDefinitionRepository.findAll();
+    }
+    
+    @Override
+    public RoleDefinition saveRoleDefinition(String role, Set<String> includedRoles) {
+        if (!StringUtils.hasText(role)) {
+            throw new BadRequestException("role", "Role name cannot be empty");
+        }
+        
+        String name = role.toUpperCase();
+        Set<String> normalizedIncludedRoles = includedRoles.stream()
+                .filter(StringUtils::hasText)
+                .map(String::toUpperCase)
+                .filter(includedRole -> !includedRole.equals(name))
+                .collect(Collectors.toCollection(HashSet::new));
+        
+        RoleDefinition saved = roleDefinitionRepository.save(new RoleDefinition(name, normalizedIncludedRoles));
+        log.info("Saved role definition {} including {}", name, normalizedIncludedRoles);
+        reload();
+        eventPublisher.publishEvent(new PermissionChangedEvent(
+                this, PermissionChangedEvent.Type.ROLE_HIERARCHY_CHANGED, name, getReachableRoles(name)));
+        return saved;
+    }
+    
+    @Override
+    public void deleteRoleDefinition(String role) {
+        String name = role.toUpperCase();
+        if (!roleDefinitionRepository.existsById(name)) {
+            throw new ResourceNotFoundException("Role", "name", name);
+        }
+        
+        roleDefinitionRepository.deleteById(name);
+        log.info("Deleted role definition {}", name);
+        reload();
+        eventPublisher.publishEvent(new PermissionChangedEvent(
+                this, PermissionChangedEvent.Type.ROLE_HIERARCHY_CHANGED, name, null));
+    }
+    
+    @Override
+    public synchronized void reload() {
+        Map<String, Set<String>> includedRolesByRole = roleDefinitionRepository.findAll().stream()
+                .collect(Collectors.toMap(RoleDefinition::getName, RoleDefinition::getIncludedRoles));
+        hierarchy = RoleHierarchy.of(includedRolesByRole);
+        log.debug("Recomputed role hierarchy closure for {} roles", includedRolesByRole.size());
+    }
+    
+    @Override
+    public RoleHierarchy getHierarchy() {
+        RoleHierarchy currentHierarchy = hierarchy;
+        if (currentHierarchy == null) {
+            synchronized (this) {
+                if (hierarchy == null) {
+                    reload();
+                }
+                currentHierarchy = hierarchy;
+            }
+        }
+        return currentHierarchy;
+    }
+}
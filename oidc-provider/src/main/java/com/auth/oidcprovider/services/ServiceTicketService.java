@@ -0,0 +1,47 @@
+package com.auth.oidcprovider.services;
+
+import com.auth.oidcprovider.dto.ServiceTicketResponse;
+import com.auth.oidcprovider.util.TokenPrincipal;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtException;
+
+/**
+ * Service for service tickets: short-lived HMAC-signed tokens that internal services present instead of the
+ * caller's access token, so each hop verifies an HMAC rather than an RSA or EC signature.
+ */
+public interface ServiceTicketService {
+
+    /**
+     * Checks if service tickets are enabled.
+     *
+     * @return true if tickets are issued and accepted
+     */
+    boolean isEnabled();
+
+    /**
+     * Exchanges a verified access token for a ticket carrying the same identity and roles. The ticket does not
+     * outlive the access token.
+     *
+     * @param accessToken the verified access token
+     * @param principal the principal extracted from the access token
+     * @return the ticket
+     */
+    ServiceTicketResponse issueTicket(Jwt accessToken, TokenPrincipal principal);
+
+    /**
+     * Checks if a token is a ticket signed with a currently accepted key.
+     *
+     * @param token the serialized token
+     * @return true if the token should be decoded as a ticket
+     */
+    boolean isTicket(String token);
+
+    /**
+     * Verifies and validates a ticket.
+     *
+     * @param token the serialized ticket
+     * @return the JWT
+     * @throws JwtException if the token is not a valid ticket
+     */
+    Jwt decodeTicket(String token) throws JwtException;
+}
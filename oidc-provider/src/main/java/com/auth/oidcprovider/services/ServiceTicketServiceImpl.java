@@ -0,0 +1,91 @@
+package com.auth.oidcprovider.services;
+
+import com.auth.authz.ClaimPath;
+import com.auth.oidcprovider.dto.ServiceTicketResponse;
+import com.auth.oidcprovider.exceptions.BadRequestException;
+import com.auth.oidcprovider.util.ServiceTicketCodec;
+import com.auth.oidcprovider.util.TokenPrincipal;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtException;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Implementation of the ServiceTicketService interface.
+ * Tickets are signed and verified by a {@link ServiceTicketCodec} whose keys are derived from
+ * {@code authz.tickets.secret}, so every node sharing the secret accepts the tickets of every other node.
+ * Tickets are forwarded by services that do not hold the caller's key, so they cannot carry a DPoP binding, and a
+ * bound token is not exchanged for one.
+ */
+@Service
+public class ServiceTicketServiceImpl implements ServiceTicketService {
+
+    private static final Logger log = LoggerFactory.getLogger(ServiceTicketServiceImpl.class);
+    private static final ClaimPath CONFIRMATION_THUMBPRINT = ClaimPath.of("cnf.jkt");
+
+    private final ServiceTicketCodec codec;
+
+    public ServiceTicketServiceImpl(@Value("${authz.tickets.enabled:false}") boolean enabled,
+                                    @Value("${authz.tickets.secret:}") String secret,
+                                    @Value("${authz.tickets.issuer:urn:oidc-provider:service-ticket}") String issuer,
+                                    @Value("${authz.tickets.ttl-seconds:60}") long ttlSeconds,
+                                    @Value("${authz.tickets.rotation-seconds:3600}") long rotationSeconds,
+                                    @Value("${authz.tokens.lazy-claims:false}") boolean lazyClaims) {
+        this.codec = enabled
+                ? new ServiceTicketCodec(secret.getBytes(StandardCharsets.UTF_8), issuer,
+                        Duration.ofSeconds(ttlSeconds), Duration.ofSeconds(rotationSeconds), Clock.systemUTC(),
+                        lazyClaims)
+                : null;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return codec != null;
+    }
+
+    @Override
+    public ServiceTicketResponse issueTicket(Jwt accessToken, TokenPrincipal principal) {
+        if (codec == null) {
+            throw new BadRequestException("Service tickets are not enabled");
+        }
+        if (accessToken.getIssuer() != null && codec.getIssuer().equals(accessToken.getIssuer().toString())) {
+            // Exchanging a ticket for a ticket would extend it indefinitely
+            throw new BadRequestException("token", "A service ticket cannot be exchanged for another ticket");
+        }
+        if (CONFIRMATION_THUMBPRINT.getString(accessToken.getClaims()) != null) {
+            // An unbound ticket would let anyone holding it act without the key
+            throw new BadRequestException("token", "A DPoP-bound token cannot be exchanged for a service ticket");
+        }
+
+        Jwt ticket;
+        try {
+            ticket = codec.issue(principal, accessToken.getExpiresAt());
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("token", e.getMessage());
+        }
+        log.debug("Issued service ticket {} for subject {}", ticket.getId(), principal.sub());
+        long expiresIn = Duration.between(Instant.now(), ticket.getExpiresAt()).getSeconds();
+        return new ServiceTicketResponse(ticket.getTokenValue(), "Bearer", Math.max(expiresIn, 0));
+    }
+
+    @Override
+    public boolean isTicket(String token) {
+        return codec != null && codec.isTicket(token);
+    }
+
+    @Override
+    public Jwt decodeTicket(String token) throws JwtException {
+        if (codec == null) {
+            throw new BadJwtException("Service tickets are not enabled");
+        }
+        return codec.decode(token);
+    }
+}
@@ -0,0 +1,42 @@
+package com.auth.oidcprovider.services;
+
+import com.auth.oidcprovider.dto.ReplayCacheStats;
+import org.springframework.security.oauth2.jwt.Jwt;
+
+/**
+ * Service rejecting replayed tokens for high-value operations. Each token, identified by its issuer and
+ * {@code jti}, can be used for at most one such operation during its lifetime.
+ */
+public interface TokenReplayService {
+
+    /**
+     * Checks if replay protection is enabled.
+     *
+     * @return true if tokens are checked for replays
+     */
+    boolean isEnabled();
+
+    /**
+     * Records the use of a token, rejecting it if it was used before.
+     *
+     * @param token the verified token of the current request
+     * @throws com.auth.oidcprovider.exceptions.UnauthorizedException if the token was used before or has no
+     *         {@code jti} or {@code exp}
+     */
+    void checkFirstUse(Jwt token);
+
+    /**
+     * Forgets the use of a token recorded by {@link #checkFirstUse(Jwt)}, so that it can be used again when the
+     * operation it was recorded for did not take place.
+     *
+     * @param token the verified token of the current request
+     */
+    void forget(Jwt token);
+
+    /**
+     * Gets the statistics of the replay cache.
+     *
+     * @return the statistics
+     */
+    ReplayCacheStats getStats();
+}
@@ -0,0 +1,131 @@
+package com.auth.oidcprovider.services;
+
+import com.auth.oidcprovider.dto.ReplayCacheStats;
+import com.auth.oidcprovider.exceptions.UnauthorizedException;
+import com.auth.oidcprovider.models.UsedTokenId;
+import com.auth.oidcprovider.repositories.UsedTokenIdRepository;
+import com.auth.oidcprovider.util.JtiReplayCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Implementation of the TokenReplayService interface.
+ * Used token ids are answered from a {@link JtiReplayCache}, so a replay on the same node costs no database
+ * round trip. With the shared store enabled, a first use on this node is also inserted into the
+ * {@code used_token_ids} collection, whose unique id catches a token already used on another node.
+ * Ids are kept until the token expires plus the clock skew the token validator allows.
+ */
+@Service
+public class TokenReplayServiceImpl implements TokenReplayService {
+
+    private static final Logger log = LoggerFactory.getLogger(TokenReplayServiceImpl.class);
+    // Matches the default clock skew of the JWT timestamp validator
+    private static final Duration CLOCK_SKEW = Duration.ofSeconds(60);
+
+    private final UsedTokenIdRepository usedTokenIdRepository;
+    private final boolean enabled;
+    private final boolean sharedEnabled;
+    private final JtiReplayCache cache;
+    private final LongAdder sharedReplays = new LongAdder();
+    private final LongAdder sharedErrors = new LongAdder();
+
+    public TokenReplayServiceImpl(UsedTokenIdRepository usedTokenIdRepository,
+                                  @Value("${authz.replay.enabled:false}") boolean enabled,
+                                  @Value("${authz.replay.max-entries:100000}") int maxEntries,
+                                  @Value("${authz.replay.shards:16}") int shards,
+                                  @Value("${authz.replay.shared.enabled:false}") boolean sharedEnabled) {
+        this.usedTokenIdRepository = usedTokenIdRepository;
+        this.enabled = enabled;
+        this.sharedEnabled = sharedEnabled;
+        this.cache = new JtiReplayCache(maxEntries, shards, Clock.systemUTC());
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public void checkFirstUse(Jwt token) {
+        if (!enabled) {
+            return;
+        }
+        if (token.getId() == null || token.getExpiresAt() == null) {
+            throw new UnauthorizedException("This operation requires a token with a jti and an expiry");
+        }
+        String id = usedTokenId(token);
+        Instant retainUntil = token.getExpiresAt().plus(CLOCK_SKEW);
+
+        switch (cache.markUsed(id, retainUntil)) {
+            case REPLAY:
+                log.warn("Rejected replayed token {} of subject {}", token.getId(), token.getSubject());
+                throw new UnauthorizedException("Token has already been used for this kind of operation");
+            case FULL:
+                // Forgetting ids early would allow replays, so new tokens are refused until ids expire
+                log.warn("Replay cache is full, refusing token {}", token.getId());
+                throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                        "Too many recent operations, please retry shortly");
+            default:
+                break;
+        }
+        if (!sharedEnabled) {
+            return;
+        }
+
+        try {
+            usedTokenIdRepository.insert(new UsedTokenId(id, retainUntil));
+        } catch (DuplicateKeyException e) {
+            sharedReplays.increment();
+            log.warn("Rejected token {} of subject {} already used on another node", token.getId(), token.getSubject());
+            throw new UnauthorizedException("Token has already been used for this kind of operation");
+        } catch (DataAccessException e) {
+            // Without the shared store a replay on another node cannot be ruled out, so fail closed
+            sharedErrors.increment();
+            cache.forget(id);
+            log.error("Shared replay store unavailable: {}", e.getMessage());
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                    "Replay protection is temporarily unavailable");
+        }
+    }
+
+    @Override
+    public void forget(Jwt token) {
+        if (!enabled || token.getId() == null) {
+            return;
+        }
+        String id = usedTokenId(token);
+        cache.forget(id);
+        if (!sharedEnabled) {
+            return;
+        }
+        try {
+            usedTokenIdRepository.deleteById(id);
+        } catch (DataAccessException e) {
+            // Failing safe: the token stays used until it expires
+            log.warn("Could not forget token {} in the shared replay store: {}", token.getId(), e.getMessage());
+        }
+    }
+
+    @Override
+    public ReplayCacheStats getStats() {
+        return new ReplayCacheStats(enabled, sharedEnabled, cache.getFirstUseCount(), cache.getReplayCount(),
+                sharedReplays.sum(), cache.getOverflowCount(), sharedErrors.sum(), cache.size());
+    }
+
+    private static String usedTokenId(Jwt token) {
+        // Token ids are only unique per issuer
+        return token.getIssuer() + " " + token.getId();
+    }
+}
@@ -2,6 +2,7 @@ package com.auth.oidcprovider.services;
 
 import com.auth.oidcprovider.models.User;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -19,6 +20,13 @@ public interface UserService {
      */
     Optional<User> findUserById(String id);
     
+    /**
+     * Find many users by their IDs in a single query
+     * @param ids User IDs
+     * @return The users found; unknown IDs are skipped
+     */
+    List<User> findUsersByIds(Collection<String> ids);
+    
     /**
      * Find a user by their Keycloak ID
      * @param keycloakId Keycloak ID
@@ -26,6 +34,14 @@ public interface UserService {
      */
     Optional<User> findByKeycloakId(String keycloakId);
     
+    /**
+     * Find the effective roles of an active user at this moment: its stored roles, including those inherited
+     * through groups, plus every role grant in effect
+     * @param keycloakId Keycloak ID
+     * @return the roles, or an empty list if there is no active user with this ID
+     */
+    List<String> findEffectiveRolesByKeycloakId(String keycloakId);
+    
     /**
      * Find a user by their username
      * @param username Username
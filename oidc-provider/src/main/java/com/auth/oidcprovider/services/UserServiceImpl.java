@@ -1,13 +1,26 @@
 package com.auth.oidcprovider.services;
 
+import com.auth.oidcprovider.events.PermissionChangedEvent;
 import com.auth.oidcprovider.models.User;
 import com.auth.oidcprovider.repositories.UserRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
 
@@ -15,10 +28,18 @@ import java.util.Optional;
 public class UserServiceImpl implements UserService {
     
     private static final Logger log = LoggerFactory.getLogger(UserServiceImpl.class);
+    private static final int MAX_WRITE_ATTEMPTS = 5;
     private final UserRepository userRepository;
+    private final MongoTemplate mongoTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final GroupService groupService;
     
-    public UserServiceImpl(UserRepository userRepository) {
+    public UserServiceImpl(UserRepository userRepository, MongoTemplate mongoTemplate,
+                           ApplicationEventPublisher eventPublisher, GroupService groupService) {
         this.userRepository = userRepository;
+        this.mongoTemplate = mongoTemplate;
+        this.eventPublisher = eventPublisher;
+        this.groupService = groupService;
     }
     
     @Override
@@ -50,6 +71,13 @@ public class UserServiceImpl implements UserService {
         return userRepository.findByUsername(username);
     }
     
+    @Override
+    @Transactional(readOnly = true)
+    public List<User> findUsersByIds(Collection<String> ids) {
+        log.debug("Finding {} users by ID", ids.size());
+        return userRepository.findAllById(ids);
+    }
+    
     @Override
     @Transactional(readOnly = true)
     public Optional<User> findByKeycloakId(String keycloakId) {
@@ -61,6 +89,27 @@ public class UserServiceImpl implements UserService {
         return userRepository.findByKeycloakId(keycloakId);
     }
     
+    @Override
+    public List<String> findEffectiveRolesByKeycloakId(String keycloakId) {
+        if (!StringUtils.hasText(keycloakId)) {
+            return List.of();
+        }
+        try {
+            // Runs for every authenticated request: one indexed read of the role fields only
+            Optional<User> user = userRepository.findRolesByKeycloakId(keycloakId);
+            if (user.isEmpty() || !user.get().isActive()) {
+                return List.of();
+            }
+            // Grants are evaluated against the clock, so they start and end on time without a write
+            List<String> roles = user.get().getEffectiveRoles(Instant.now());
+            return roles != null ? roles : List.of();
+        } catch (DataAccessException e) {
+            // The token's own roles still apply; stored roles only ever add to them
+            log.warn("Could not read stored roles of user {}: {}", keycloakId, e.getMessage());
+            return List.of();
+        }
+    }
+    
     @Override
     @Transactional
     public User saveUser(User user) {
@@ -85,6 +134,7 @@ public class UserServiceImpl implements UserService {
             }
             
             log.info("Creating new user: {}", user.getUsername());
+            user.setEffectiveRoles(groupService.resolveEffectiveRoles(user.getRoles(), user.getGroupIds()));
         } else {
             // This is an update operation
             // Check if user exists
@@ -117,9 +167,60 @@ public class UserServiceImpl implements UserService {
             }
             
             log.info("Updating user: {}", user.getUsername());
+            return updateUser(user, existingUser);
         }
         
-        return userRepository.save(user);
+        User savedUser = userRepository.save(user);
+        publishSaved(savedUser, true);
+        return savedUser;
+    }
+    
+    /**
+     * Writes the editable fields of a user without touching fields maintained elsewhere: group membership,
+     * role grants and their version. The effective roles are recomputed in the same update, which only
+     * applies if the group membership they were computed from is unchanged; otherwise it is retried.
+     */
+    private User updateUser(User user, User existingUser) {
+        for (int attempt = 0; attempt < MAX_WRITE_ATTEMPTS; attempt++) {
+            if (attempt > 0) {
+                existingUser = userRepository.findById(user.getId())
+                        .orElseThrow(() -> new IllegalArgumentException("User not found with ID: " + user.getId()));
+            }
+            List<String> groupIds = existingUser.getGroupIds();
+            List<String> effectiveRoles = groupService.resolveEffectiveRoles(user.getRoles(), groupIds);
+            // Users written before groups existed have no membership field yet
+            Criteria membership = groupIds == null || groupIds.isEmpty()
+                    ? Criteria.where("groupIds").in(List.of(), null)
+                    : Criteria.where("groupIds").is(groupIds);
+            Query query = Query.query(Criteria.where("_id").is(user.getId()).andOperator(membership));
+            Update update = new Update()
+                    .set("username", user.getUsername())
+                    .set("email", user.getEmail())
+                    .set("roles", user.getRoles())
+                    .set("active", user.isActive())
+                    .set("effectiveRoles", effectiveRoles)
+                    .set("updatedAt", new Date());
+            if (user.getKeycloakId() != null) {
+                update.set("keycloakId", user.getKeycloakId());
+            }
+            User savedUser = mongoTemplate.findAndModify(query, update,
+                    FindAndModifyOptions.options().returnNew(true), User.class);
+            if (savedUser != null) {
+                publishSaved(savedUser, !sameRoles(existingUser.getEffectiveRoles(), savedUser.getEffectiveRoles()));
+                return savedUser;
+            }
+        }
+        throw new OptimisticLockingFailureException("Group membership of user " + user.getId() + " is being changed concurrently");
+    }
+    
+    private void publishSaved(User user, boolean rolesChanged) {
+        eventPublisher.publishEvent(new PermissionChangedEvent(this,
+                rolesChanged ? PermissionChangedEvent.Type.USER_ROLES_CHANGED : PermissionChangedEvent.Type.USER_SAVED,
+                user.getId(), new HashSet<>(user.getEffectiveRoles())));
+    }
+    
+    private static boolean sameRoles(List<String> before, List<String> after) {
+        return before != null && after != null && new HashSet<>(before).equals(new HashSet<>(after));
     }
 
     @Override
@@ -138,6 +239,7 @@ public class UserServiceImpl implements UserService {
         
         userRepository.deleteById(id);
         log.info("User deleted with ID: {}", id);
+        eventPublisher.publishEvent(new PermissionChangedEvent(this, PermissionChangedEvent.Type.USER_DELETED, id, null));
     }
     
     /**
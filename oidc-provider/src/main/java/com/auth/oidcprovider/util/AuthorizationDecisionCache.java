@@ -0,0 +1,38 @@
+package com.auth.oidcprovider.util;
+
+import com.auth.authz.DecisionCache;
+import com.auth.oidcprovider.dto.DecisionCacheStats;
+import com.auth.oidcprovider.events.PermissionChangedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Application-wide authorization decision cache.
+ * Any {@link PermissionChangedEvent} bumps the policy generation, so a role grant flushes
+ * stale decisions instantly. Changes made in a transaction flush once it commits; until then
+ * readers still see the old state, so a decision cached in between would otherwise outlive it.
+ */
+@Component
+public class AuthorizationDecisionCache extends DecisionCache {
+
+    private static final Logger log = LoggerFactory.getLogger(AuthorizationDecisionCache.class);
+
+    public AuthorizationDecisionCache(@Value("${authz.decision-cache.max-size:10000}") int maxSize) {
+        super(maxSize);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onPermissionChanged(PermissionChangedEvent event) {
+        log.debug("Invalidating authorization decisions after {}", event);
+        invalidateAll();
+    }
+
+    public DecisionCacheStats getStats() {
+        return new DecisionCacheStats(getHitCount(), getMissCount(), getEvictionCount(), getInvalidationCount(),
+                size(), getGeneration());
+    }
+}
@@ -0,0 +1,31 @@
+package com.auth.oidcprovider.util;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.oauth2.server.resource.web.BearerTokenResolver;
+import org.springframework.security.oauth2.server.resource.web.DefaultBearerTokenResolver;
+
+/**
+ * Resolves access tokens sent with the {@code DPoP} authorization scheme as well as with {@code Bearer}.
+ * The proof itself is checked by {@link DPoPProofFilter} once the token is authenticated.
+ */
+public class DPoPBearerTokenResolver implements BearerTokenResolver {
+
+    static final String DPOP_SCHEME = "DPoP ";
+
+    private final BearerTokenResolver bearerTokenResolver = new DefaultBearerTokenResolver();
+
+    @Override
+    public String resolve(HttpServletRequest request) {
+        String authorization = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (isDPoP(authorization)) {
+            String token = authorization.substring(DPOP_SCHEME.length()).trim();
+            return token.isEmpty() ? null : token;
+        }
+        return bearerTokenResolver.resolve(request);
+    }
+
+    static boolean isDPoP(String authorization) {
+        return authorization != null && authorization.regionMatches(true, 0, DPOP_SCHEME, 0, DPOP_SCHEME.length());
+    }
+}
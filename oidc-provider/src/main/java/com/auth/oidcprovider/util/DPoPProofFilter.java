@@ -0,0 +1,107 @@
+package com.auth.oidcprovider.util;
+
+import com.auth.authz.ClaimPath;
+import com.auth.oidcprovider.exceptions.InvalidTokenException;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Enumeration;
+
+/**
+ * Enforces DPoP proof of possession after the access token was authenticated.
+ * <p>
+ * A token bound to a key through {@code cnf.jkt} must be sent with the {@code DPoP} scheme and exactly one
+ * {@code DPoP} proof header signed with that key; a token without a binding must not be sent with the
+ * {@code DPoP} scheme. Unbound bearer tokens pass through untouched. Failures answer 401 with a {@code DPoP}
+ * challenge and leave the request unauthenticated.
+ */
+public class DPoPProofFilter extends OncePerRequestFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(DPoPProofFilter.class);
+    private static final String DPOP_HEADER = "DPoP";
+    private static final ClaimPath CONFIRMATION_THUMBPRINT = ClaimPath.of("cnf.jkt");
+    private static final String DEFAULT_DESCRIPTION = "Invalid DPoP proof";
+    private static final int MAX_DESCRIPTION_LENGTH = 200;
+
+    private final DPoPProofVerifier verifier;
+
+    public DPoPProofFilter(DPoPProofVerifier verifier) {
+        this.verifier = verifier;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (!(authentication instanceof JwtAuthenticationToken)) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        JwtAuthenticationToken token = (JwtAuthenticationToken) authentication;
+        String thumbprint = CONFIRMATION_THUMBPRINT.getString(token.getToken().getClaims());
+        boolean dpopScheme = DPoPBearerTokenResolver.isDPoP(request.getHeader(HttpHeaders.AUTHORIZATION));
+        try {
+            if (thumbprint == null) {
+                if (dpopScheme) {
+                    throw new InvalidTokenException("Token is not bound to a DPoP key");
+                }
+            } else {
+                if (!dpopScheme) {
+                    throw new InvalidTokenException("DPoP-bound token must be sent with the DPoP scheme");
+                }
+                verifier.verify(singleProof(request), request.getMethod(), request.getRequestURL().toString(),
+                        token.getToken().getTokenValue(), thumbprint);
+            }
+        } catch (InvalidTokenException e) {
+            log.debug("Rejected DPoP request: {}", e.getMessage());
+            String description = errorDescription(e.getMessage());
+            SecurityContextHolder.clearContext();
+            response.setHeader(HttpHeaders.WWW_AUTHENTICATE,
+                    "DPoP error=\"invalid_dpop_proof\", error_description=\"" + description + "\"");
+            response.sendError(HttpServletResponse.SC_UNAUTHORIZED, description);
+            return;
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    /**
+     * Reduces a message to the characters RFC 6750 allows in {@code error_description}: printable ASCII without
+     * {@code "} and {@code \}, so no message can break out of the quoted header value or split the header.
+     */
+    static String errorDescription(String message) {
+        if (message == null) {
+            return DEFAULT_DESCRIPTION;
+        }
+        StringBuilder description = new StringBuilder(Math.min(message.length(), MAX_DESCRIPTION_LENGTH));
+        for (int i = 0; i < message.length() && description.length() < MAX_DESCRIPTION_LENGTH; i++) {
+            char c = message.charAt(i);
+            if (c >= 0x20 && c <= 0x7E && c != '"' && c != '\\') {
+                description.append(c);
+            }
+        }
+        return description.length() == 0 ? DEFAULT_DESCRIPTION : description.toString();
+    }
+
+    private static String singleProof(HttpServletRequest request) {
+        Enumeration<String> proofs = request.getHeaders(DPOP_HEADER);
+        if (proofs == null || !proofs.hasMoreElements()) {
+            throw new InvalidTokenException("Missing DPoP proof");
+        }
+        String proof = proofs.nextElement();
+        if (proofs.hasMoreElements()) {
+            throw new InvalidTokenException("More than one DPoP proof");
+        }
+        return proof;
+    }
+}
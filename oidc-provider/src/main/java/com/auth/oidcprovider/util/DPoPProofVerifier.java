@@ -0,0 +1,248 @@
+package com.auth.oidcprovider.util;
+
+import com.auth.oidcprovider.dto.DPoPStats;
+import com.auth.oidcprovider.exceptions.InvalidTokenException;
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JOSEObjectType;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.JWSVerifier;
+import com.nimbusds.jose.crypto.factories.DefaultJWSVerifierFactory;
+import com.nimbusds.jose.jwk.AsymmetricJWK;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.util.Base64URL;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.text.ParseException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Verifies DPoP proofs (RFC 9449) presented with sender-constrained access tokens.
+ * <p>
+ * A client signs every proof with the same key pair, so the encoded header of its proofs, carrying {@code typ},
+ * {@code alg} and the public {@code jwk}, is the same for every request. Parsed headers are cached under that
+ * encoded segment together with the verifier for the public key and the key's SHA-256 thumbprint. Steady-state
+ * requests from one client therefore only check the proof signature and its small payload; the JWK is not parsed
+ * and the thumbprint is not recomputed. A full cache is emptied, which only costs parsing the keys again.
+ * <p>
+ * The payload must name the request method ({@code htm}) and URI ({@code htu}), be issued within the maximum age
+ * ({@code iat}), carry an unused {@code jti}, and bind the access token ({@code ath}). The key must match the
+ * {@code cnf.jkt} thumbprint of the access token.
+ */
+public class DPoPProofVerifier {
+
+    private static final JOSEObjectType DPOP_TYPE = new JOSEObjectType("dpop+jwt");
+    private static final Set<JWSAlgorithm> ALGORITHMS = Set.of(
+            JWSAlgorithm.RS256, JWSAlgorithm.RS384, JWSAlgorithm.RS512,
+            JWSAlgorithm.PS256, JWSAlgorithm.PS384, JWSAlgorithm.PS512,
+            JWSAlgorithm.ES256, JWSAlgorithm.ES384, JWSAlgorithm.ES512);
+    private static final Duration CLOCK_SKEW = Duration.ofSeconds(60);
+
+    private final int keyCacheMaxSize;
+    private final Duration maxAge;
+    private final JtiReplayCache replayCache;
+    private final Clock clock;
+    private final boolean lazyClaims;
+    private final DefaultJWSVerifierFactory verifierFactory = new DefaultJWSVerifierFactory();
+    private final Map<String, ProofKey> proofKeys = new ConcurrentHashMap<>();
+
+    private final LongAdder verified = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder keyCacheHits = new LongAdder();
+    private final LongAdder keyCacheMisses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Creates a verifier.
+     *
+     * @param keyCacheMaxSize the maximum number of cached proof keys
+     * @param maxAge the longest time after its {@code iat} a proof is accepted
+     * @param replayCache the cache recording the {@code jti} of accepted proofs
+     * @param clock the clock
+     * @param lazyClaims whether proof payloads are parsed with lazy claims
+     */
+    public DPoPProofVerifier(int keyCacheMaxSize, Duration maxAge, JtiReplayCache replayCache, Clock clock,
+                             boolean lazyClaims) {
+        this.keyCacheMaxSize = keyCacheMaxSize;
+        this.maxAge = maxAge;
+        this.replayCache = replayCache;
+        this.clock = clock;
+        this.lazyClaims = lazyClaims;
+    }
+
+    /**
+     * Verifies a proof for a request.
+     *
+     * @param proof the serialized proof from the {@code DPoP} header
+     * @param method the HTTP method of the request
+     * @param uri the URI of the request, without query
+     * @param accessToken the serialized access token the proof is presented with
+     * @param boundThumbprint the {@code cnf.jkt} claim of the access token
+     * @throws InvalidTokenException if the proof is invalid
+     */
+    public void verify(String proof, String method, String uri, String accessToken, String boundThumbprint) {
+        try {
+            doVerify(proof, method, uri, accessToken, boundThumbprint);
+            verified.increment();
+        } catch (InvalidTokenException e) {
+            rejected.increment();
+            throw e;
+        }
+    }
+
+    public DPoPStats getStats() {
+        return new DPoPStats(verified.sum(), rejected.sum(), keyCacheHits.sum(), keyCacheMisses.sum(),
+                evictions.sum(), proofKeys.size());
+    }
+
+    private void doVerify(String proof, String method, String uri, String accessToken, String boundThumbprint) {
+        int first = proof.indexOf('.');
+        int second = first < 0 ? -1 : proof.indexOf('.', first + 1);
+        if (second < 0 || proof.indexOf('.', second + 1) >= 0) {
+            throw new InvalidTokenException("Malformed DPoP proof");
+        }
+
+        ProofKey key = proofKey(proof.substring(0, first));
+        if (!key.thumbprint().equals(boundThumbprint)) {
+            throw new InvalidTokenException("DPoP proof key does not match the token binding");
+        }
+        try {
+            if (!key.verifier().verify(key.header(), proof.substring(0, second).getBytes(StandardCharsets.US_ASCII),
+                    new Base64URL(proof.substring(second + 1)))) {
+                throw new InvalidTokenException("Invalid DPoP proof signature");
+            }
+        } catch (JOSEException e) {
+            throw new InvalidTokenException("Invalid DPoP proof signature", e);
+        }
+
+        Map<String, Object> claims;
+        try {
+            claims = LazyClaimsJwtDecoder.parseClaims(
+                    new Base64URL(proof.substring(first + 1, second)).decodeToString(), lazyClaims);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidTokenException("Malformed DPoP proof payload", e);
+        }
+        if (!method.equals(claims.get("htm"))) {
+            throw new InvalidTokenException("DPoP proof is for another HTTP method");
+        }
+        Object htu = claims.get("htu");
+        if (!(htu instanceof String) || !normalizeUri((String) htu).equals(normalizeUri(uri))) {
+            throw new InvalidTokenException("DPoP proof is for another URI");
+        }
+        if (!accessTokenHash(accessToken).equals(claims.get("ath"))) {
+            throw new InvalidTokenException("DPoP proof is for another access token");
+        }
+
+        Object iat = claims.get("iat");
+        if (!(iat instanceof Number)) {
+            throw new InvalidTokenException("DPoP proof has no iat");
+        }
+        Instant issuedAt = Instant.ofEpochSecond(((Number) iat).longValue());
+        Instant now = clock.instant();
+        if (issuedAt.isAfter(now.plus(CLOCK_SKEW)) || issuedAt.plus(maxAge).plus(CLOCK_SKEW).isBefore(now)) {
+            throw new InvalidTokenException("DPoP proof is not fresh");
+        }
+
+        // Checked last, so a proof rejected for another reason does not use up its jti
+        Object jti = claims.get("jti");
+        if (!(jti instanceof String) || ((String) jti).isEmpty()) {
+            throw new InvalidTokenException("DPoP proof has no jti");
+        }
+        JtiReplayCache.Result result = replayCache.markUsed(key.thumbprint() + ' ' + jti,
+                issuedAt.plus(maxAge).plus(CLOCK_SKEW));
+        if (result == JtiReplayCache.Result.REPLAY) {
+            throw new InvalidTokenException("DPoP proof has already been used");
+        }
+        if (result == JtiReplayCache.Result.FULL) {
+            // Accepting a proof whose jti cannot be recorded would allow replaying it
+            throw new InvalidTokenException("DPoP proof cannot be checked for replay, please retry");
+        }
+    }
+
+    private ProofKey proofKey(String encodedHeader) {
+        ProofKey key = proofKeys.get(encodedHeader);
+        if (key != null) {
+            keyCacheHits.increment();
+            return key;
+        }
+        keyCacheMisses.increment();
+        key = parseProofKey(encodedHeader);
+        if (proofKeys.size() >= keyCacheMaxSize) {
+            evictions.add(proofKeys.size());
+            proofKeys.clear();
+        }
+        if (keyCacheMaxSize > 0) {
+            proofKeys.put(encodedHeader, key);
+        }
+        return key;
+    }
+
+    private ProofKey parseProofKey(String encodedHeader) {
+        JWSHeader header;
+        try {
+            header = JWSHeader.parse(new Base64URL(encodedHeader));
+        } catch (ParseException e) {
+            throw new InvalidTokenException("Malformed DPoP proof header", e);
+        }
+        if (!DPOP_TYPE.equals(header.getType())) {
+            throw new InvalidTokenException("DPoP proof must have typ dpop+jwt");
+        }
+        if (!ALGORITHMS.contains(header.getAlgorithm())) {
+            throw new InvalidTokenException("DPoP proof must be signed with an asymmetric algorithm");
+        }
+        JWK jwk = header.getJWK();
+        if (!(jwk instanceof AsymmetricJWK) || jwk.isPrivate()) {
+            throw new InvalidTokenException("DPoP proof must carry a public key");
+        }
+        try {
+            JWSVerifier verifier = verifierFactory.createJWSVerifier(header, ((AsymmetricJWK) jwk).toPublicKey());
+            return new ProofKey(header, verifier, jwk.computeThumbprint().toString());
+        } catch (JOSEException e) {
+            throw new InvalidTokenException("Unsupported DPoP proof key", e);
+        }
+    }
+
+    private static String accessTokenHash(String accessToken) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(accessToken.getBytes(StandardCharsets.US_ASCII));
+            return Base64URL.encode(digest).toString();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Normalizes a URI for comparison: scheme and host in lower case, no default port, no query or fragment.
+     */
+    static String normalizeUri(String uri) {
+        try {
+            URI parsed = new URI(uri);
+            if (parsed.getScheme() == null || parsed.getHost() == null) {
+                throw new InvalidTokenException("DPoP proof htu is not an absolute URI");
+            }
+            String scheme = parsed.getScheme().toLowerCase(Locale.ROOT);
+            int port = parsed.getPort();
+            if (("https".equals(scheme) && port == 443) || ("http".equals(scheme) && port == 80)) {
+                port = -1;
+            }
+            String path = parsed.getRawPath() == null || parsed.getRawPath().isEmpty() ? "/" : parsed.getRawPath();
+            return scheme + "://" + parsed.getHost().toLowerCase(Locale.ROOT) + (port < 0 ? "" : ":" + port) + path;
+        } catch (URISyntaxException e) {
+            throw new InvalidTokenException("DPoP proof htu is not a valid URI", e);
+        }
+    }
+
+    private record ProofKey(JWSHeader header, JWSVerifier verifier, String thumbprint) {
+    }
+}
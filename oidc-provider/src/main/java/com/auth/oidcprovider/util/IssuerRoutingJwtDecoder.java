@@ -0,0 +1,316 @@
+package com.auth.oidcprovider.util;
+
+import com.auth.oidcprovider.dto.IssuerRoutingStats;
+import com.auth.oidcprovider.dto.IssuerStats;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.util.Base64URL;
+import com.nimbusds.jwt.JWT;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.JWTParser;
+import com.nimbusds.jwt.SignedJWT;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtClaimNames;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+import org.springframework.security.oauth2.jwt.JwtValidators;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+import org.springframework.web.client.RestTemplate;
+
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * JWT decoder for several trusted issuers, e.g. one per Keycloak realm.
+ * <p>
+ * The {@code iss} claim is read from the unverified token and looked up among the trusted issuers, so
+ * tokens from unknown issuers are rejected before any key is fetched or signature checked. Each trusted
+ * issuer gets its own decoder, created on first use, with its own JWKS cache and an issuer validator, so
+ * a token signed by one realm can never pass as another. Decode counts, latency and JWKS fetches are
+ * recorded per issuer.
+ * <p>
+ * Before routing, cheap structural checks (three segments, an allowed {@code alg}, a {@code kid}, an
+ * {@code exp} that has not passed) turn away obviously bad tokens, and tokens that failed recently are
+ * answered from a {@link RejectedTokenCache} without being parsed again. Failures are logged at most
+ * once per interval with a count of those suppressed, so a flood of bad tokens cannot flood the log.
+ * <p>
+ * Tokens that pass verification are kept in a {@link VerifiedTokenCache}, so a client presenting the
+ * same token again, on this node or with the shared level enabled on another, skips verification.
+ */
+public class IssuerRoutingJwtDecoder implements JwtDecoder {
+
+    private static final Logger log = LoggerFactory.getLogger(IssuerRoutingJwtDecoder.class);
+    private static final Duration CLOCK_SKEW = Duration.ofSeconds(60);
+    private static final int MAX_KID_LENGTH = 256;
+    private static final long FAILURE_LOG_INTERVAL_NANOS = Duration.ofSeconds(10).toNanos();
+
+    private final Map<String, IssuerMetrics> metricsByIssuer;
+    private final Function<String, JwtDecoder> decoderFactory;
+    private final Set<String> allowedAlgorithms;
+    private final RejectedTokenCache rejectedTokens;
+    private final VerifiedTokenCache verifiedTokens;
+    private final boolean lazyClaims;
+    private final Map<String, JwtDecoder> decoders = new ConcurrentHashMap<>();
+    private final LongAdder unknownIssuers = new LongAdder();
+    private final LongAdder malformed = new LongAdder();
+    private final LongAdder precheckFailures = new LongAdder();
+    private final AtomicLong nextFailureLog = new AtomicLong(System.nanoTime());
+    private final LongAdder suppressedFailures = new LongAdder();
+
+    /**
+     * Creates a decoder that verifies each issuer's tokens against that issuer's JWK set.
+     *
+     * @param jwkSetUris the JWK set URI of each trusted issuer, keyed by issuer
+     * @param allowedAlgorithms the accepted JWS algorithms
+     * @param rejectedTokens the cache of recently rejected tokens
+     * @param verifiedTokens the cache of tokens that passed verification
+     * @param lazyClaims whether to parse claims lazily, in the routing checks and with {@link LazyClaimsJwtDecoder},
+     *                   instead of with Nimbus
+     */
+    public IssuerRoutingJwtDecoder(Map<String, String> jwkSetUris, Set<String> allowedAlgorithms,
+                                   RejectedTokenCache rejectedTokens, VerifiedTokenCache verifiedTokens,
+                                   boolean lazyClaims) {
+        this(jwkSetUris, Map.of(), allowedAlgorithms, rejectedTokens, verifiedTokens, lazyClaims);
+    }
+
+    /**
+     * Creates a decoder that verifies each issuer's tokens against that issuer's JWK set, and the tokens of
+     * local issuers with their own decoders.
+     *
+     * @param jwkSetUris the JWK set URI of each trusted issuer, keyed by issuer
+     * @param localDecoders the decoder of each local issuer, keyed by issuer
+     * @param allowedAlgorithms the accepted JWS algorithms
+     * @param rejectedTokens the cache of recently rejected tokens
+     * @param verifiedTokens the cache of tokens that passed verification
+     * @param lazyClaims whether to parse claims lazily, in the routing checks and with {@link LazyClaimsJwtDecoder},
+     *                   instead of with Nimbus
+     */
+    public IssuerRoutingJwtDecoder(Map<String, String> jwkSetUris, Map<String, JwtDecoder> localDecoders,
+                                   Set<String> allowedAlgorithms, RejectedTokenCache rejectedTokens,
+                                   VerifiedTokenCache verifiedTokens, boolean lazyClaims) {
+        Set<String> issuers = new LinkedHashSet<>(jwkSetUris.keySet());
+        issuers.addAll(localDecoders.keySet());
+        this.metricsByIssuer = metricsFor(issuers);
+        this.decoderFactory = issuer -> localDecoders.containsKey(issuer)
+                ? localDecoders.get(issuer)
+                : createDecoder(issuer, jwkSetUris.get(issuer));
+        this.allowedAlgorithms = allowedAlgorithms;
+        this.rejectedTokens = rejectedTokens;
+        this.verifiedTokens = verifiedTokens;
+        this.lazyClaims = lazyClaims;
+    }
+
+    IssuerRoutingJwtDecoder(Iterable<String> trustedIssuers, Function<String, JwtDecoder> decoderFactory,
+                            Set<String> allowedAlgorithms, RejectedTokenCache rejectedTokens) {
+        this(trustedIssuers, decoderFactory, allowedAlgorithms, rejectedTokens, new VerifiedTokenCache(0, Duration.ZERO),
+                false);
+    }
+
+    IssuerRoutingJwtDecoder(Iterable<String> trustedIssuers, Function<String, JwtDecoder> decoderFactory,
+                            Set<String> allowedAlgorithms, RejectedTokenCache rejectedTokens,
+                            VerifiedTokenCache verifiedTokens, boolean lazyClaims) {
+        this.metricsByIssuer = metricsFor(trustedIssuers);
+        this.decoderFactory = decoderFactory;
+        this.allowedAlgorithms = allowedAlgorithms;
+        this.rejectedTokens = rejectedTokens;
+        this.verifiedTokens = verifiedTokens;
+        this.lazyClaims = lazyClaims;
+    }
+
+    @Override
+    public Jwt decode(String token) throws JwtException {
+        if (!hasThreeSegments(token)) {
+            malformed.increment();
+            throw logFailure(new BadJwtException("Malformed token: expected three segments"));
+        }
+        if (rejectedTokens.isRejected(token)) {
+            throw new BadJwtException("Token was rejected recently");
+        }
+        try {
+            return verify(token);
+        } catch (BadJwtException e) {
+            // Only failures inherent to the token are remembered, not e.g. an unreachable JWK set
+            rejectedTokens.reject(token);
+            throw logFailure(e);
+        } catch (JwtException e) {
+            throw logFailure(e);
+        }
+    }
+
+    private Jwt verify(String token) {
+        Jwt cached = verifiedTokens.get(token);
+        if (cached != null) {
+            return cached;
+        }
+        String issuer = precheck(token);
+        IssuerMetrics metrics = issuer != null ? metricsByIssuer.get(issuer) : null;
+        if (metrics == null) {
+            unknownIssuers.increment();
+            throw new BadJwtException("Untrusted issuer: " + issuer);
+        }
+        cached = verifiedTokens.getShared(token, issuer);
+        if (cached != null) {
+            return cached;
+        }
+
+        JwtDecoder decoder = decoders.computeIfAbsent(issuer, this::newDecoder);
+        long start = System.nanoTime();
+        try {
+            Jwt jwt = decoder.decode(token);
+            metrics.recordDecode(System.nanoTime() - start, true);
+            verifiedTokens.put(token, issuer, jwt);
+            return jwt;
+        } catch (JwtException e) {
+            metrics.recordDecode(System.nanoTime() - start, false);
+            throw e;
+        }
+    }
+
+    /**
+     * Gets decode and JWKS statistics for every trusted issuer.
+     *
+     * @return the statistics
+     */
+    public IssuerRoutingStats getStats() {
+        List<IssuerStats> issuers = new ArrayList<>(metricsByIssuer.size());
+        metricsByIssuer.forEach((issuer, metrics) -> issuers.add(metrics.toStats(issuer, decoders.containsKey(issuer))));
+        return new IssuerRoutingStats(unknownIssuers.sum(), malformed.sum(), precheckFailures.sum(),
+                rejectedTokens.getHitCount(), rejectedTokens.size(), verifiedTokens.getStats(), issuers);
+    }
+
+    /**
+     * Checks the unverified header and claims and returns the issuer.
+     */
+    private String precheck(String token) {
+        JWSHeader header;
+        Instant expiresAt;
+        String issuer;
+        try {
+            if (lazyClaims) {
+                // Only the header and the top level of the claims are decoded; nothing is verified yet
+                int first = token.indexOf('.');
+                int second = token.indexOf('.', first + 1);
+                header = JWSHeader.parse(new Base64URL(token.substring(0, first)));
+                Map<String, Object> claims = LazyJson.parseObject(
+                        new Base64URL(token.substring(first + 1, second)).decodeToString());
+                Object exp = claims.get(JwtClaimNames.EXP);
+                expiresAt = exp instanceof Number ? Instant.ofEpochSecond(((Number) exp).longValue()) : null;
+                Object iss = claims.get(JwtClaimNames.ISS);
+                issuer = iss instanceof String ? (String) iss : null;
+            } else {
+                // Parsing only decodes the header and claims; nothing is verified yet
+                JWT jwt = JWTParser.parse(token);
+                if (!(jwt instanceof SignedJWT)) {
+                    precheckFailures.increment();
+                    throw new BadJwtException("Token is not signed");
+                }
+                header = ((SignedJWT) jwt).getHeader();
+                JWTClaimsSet claims = jwt.getJWTClaimsSet();
+                expiresAt = claims.getExpirationTime() != null ? claims.getExpirationTime().toInstant() : null;
+                issuer = claims.getIssuer();
+            }
+        } catch (ParseException | IllegalArgumentException e) {
+            malformed.increment();
+            throw new BadJwtException("Malformed token: " + e.getMessage(), e);
+        }
+        if (!allowedAlgorithms.contains(header.getAlgorithm().getName())) {
+            precheckFailures.increment();
+            throw new BadJwtException("Unsupported algorithm: " + header.getAlgorithm());
+        }
+        if (header.getKeyID() == null || header.getKeyID().isEmpty() || header.getKeyID().length() > MAX_KID_LENGTH) {
+            precheckFailures.increment();
+            throw new BadJwtException("Missing or invalid key ID");
+        }
+        if (expiresAt != null && expiresAt.plus(CLOCK_SKEW).isBefore(Instant.now())) {
+            precheckFailures.increment();
+            throw new BadJwtException("Token expired at " + expiresAt);
+        }
+        return issuer;
+    }
+
+    private JwtException logFailure(JwtException e) {
+        long now = System.nanoTime();
+        long next = nextFailureLog.get();
+        if (now - next >= 0 && nextFailureLog.compareAndSet(next, now + FAILURE_LOG_INTERVAL_NANOS)) {
+            long suppressed = suppressedFailures.sumThenReset();
+            log.warn("Rejected token: {} ({} more rejections not logged)", e.getMessage(), suppressed);
+        } else {
+            suppressedFailures.increment();
+        }
+        return e;
+    }
+
+    private static boolean hasThreeSegments(String token) {
+        int first = token.indexOf('.');
+        int second = first < 0 ? -1 : token.indexOf('.', first + 1);
+        return second > 0 && token.indexOf('.', second + 1) < 0;
+    }
+
+    private JwtDecoder newDecoder(String issuer) {
+        log.info("Creating JWT decoder for issuer {}", issuer);
+        return decoderFactory.apply(issuer);
+    }
+
+    private JwtDecoder createDecoder(String issuer, String jwkSetUri) {
+        IssuerMetrics metrics = metricsByIssuer.get(issuer);
+        RestTemplate restTemplate = new RestTemplate();
+        restTemplate.getInterceptors().add((request, body, execution) -> {
+            metrics.jwksFetches.increment();
+            return execution.execute(request, body);
+        });
+        if (lazyClaims) {
+            LazyClaimsJwtDecoder decoder = LazyClaimsJwtDecoder.withJwkSetUri(jwkSetUri, restTemplate, allowedAlgorithms);
+            decoder.setJwtValidator(JwtValidators.createDefaultWithIssuer(issuer));
+            return decoder;
+        }
+        NimbusJwtDecoder decoder = NimbusJwtDecoder.withJwkSetUri(jwkSetUri)
+                .restOperations(restTemplate)
+                .build();
+        decoder.setJwtValidator(JwtValidators.createDefaultWithIssuer(issuer));
+        return decoder;
+    }
+
+    private static Map<String, IssuerMetrics> metricsFor(Iterable<String> issuers) {
+        Map<String, IssuerMetrics> metrics = new LinkedHashMap<>();
+        for (String issuer : issuers) {
+            metrics.put(issuer, new IssuerMetrics());
+        }
+        return Collections.unmodifiableMap(metrics);
+    }
+
+    private static final class IssuerMetrics {
+
+        private final LongAdder decoded = new LongAdder();
+        private final LongAdder failed = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+        private final LongAdder jwksFetches = new LongAdder();
+
+        void recordDecode(long nanos, boolean success) {
+            (success ? decoded : failed).increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulateAndGet(nanos, Math::max);
+        }
+
+        IssuerStats toStats(String issuer, boolean decoderCreated) {
+            long decodes = decoded.sum() + failed.sum();
+            double averageMicros = decodes == 0 ? 0.0 : totalNanos.sum() / 1000.0 / decodes;
+            return new IssuerStats(issuer, decoderCreated, decoded.sum(), failed.sum(), jwksFetches.sum(),
+                    averageMicros, maxNanos.get() / 1000.0);
+        }
+    }
+}
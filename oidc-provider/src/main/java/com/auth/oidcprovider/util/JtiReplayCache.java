@@ -0,0 +1,279 @@
+package com.auth.oidcprovider.util;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded in-memory set of token ids ({@code jti}) that were already used, each kept until its token expires.
+ * <p>
+ * Ids are spread over independent shards by hash. Recording an id is a {@code putIfAbsent} on the shard map and
+ * an append to a lock-free queue, so concurrent requests never wait on each other. Expiry runs on a hierarchical
+ * timing wheel per shard with three levels of 64 slots: one-second slots for ids expiring within a minute,
+ * 64-second slots for ids expiring within about an hour, and 4096-second slots beyond that, with anything further
+ * out parked in the farthest slot. When the wheel passes a slot of an outer level, its ids move down to the level
+ * below, so each id is touched a few times in total instead of on every sweep. The wheels are advanced by whichever
+ * request first sees that a second has passed; others skip the work rather than wait for it.
+ * <p>
+ * Each shard holds at most its share of the maximum size. A full shard does not forget ids early, since that
+ * would let a token be replayed; new ids are refused instead and the caller decides how to fail.
+ */
+public class JtiReplayCache {
+
+    /**
+     * Result of recording a token id.
+     */
+    public enum Result {
+        /** The id was not seen before and is now recorded. */
+        FIRST_USE,
+        /** The id was already recorded. */
+        REPLAY,
+        /** The id was not seen before, but the cache has no room to record it. */
+        FULL
+    }
+
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+    private static final int LEVELS = 3;
+    private static final long SPAN_SECONDS = 1L << (SLOT_BITS * LEVELS);
+
+    private final Shard[] shards;
+    private final int maxEntriesPerShard;
+    private final Clock clock;
+    private final LongAdder firstUses = new LongAdder();
+    private final LongAdder replays = new LongAdder();
+    private final LongAdder overflows = new LongAdder();
+    private volatile long advancedTo;
+
+    /**
+     * Creates a cache.
+     *
+     * @param maxEntries the maximum number of recorded ids over all shards
+     * @param shardCount the number of shards, rounded up to a power of two
+     * @param clock the clock
+     */
+    public JtiReplayCache(int maxEntries, int shardCount, Clock clock) {
+        if (maxEntries <= 0 || shardCount <= 0) {
+            throw new IllegalArgumentException("The replay cache needs a positive size and shard count");
+        }
+        int count = Integer.highestOneBit(shardCount);
+        if (count < shardCount) {
+            count <<= 1;
+        }
+        long now = clock.millis() / 1000;
+        this.shards = new Shard[count];
+        for (int i = 0; i < count; i++) {
+            shards[i] = new Shard(now);
+        }
+        this.maxEntriesPerShard = Math.max(1, (maxEntries + count - 1) / count);
+        this.clock = clock;
+        this.advancedTo = now;
+    }
+
+    /**
+     * Records a token id unless it was recorded before.
+     *
+     * @param id the token id, unique per issuer
+     * @param expiresAt the instant after which the token can no longer be used
+     * @return the result
+     */
+    public Result markUsed(String id, Instant expiresAt) {
+        long now = clock.millis() / 1000;
+        long expiry = expiresAt.getEpochSecond();
+        advance(now);
+        Shard shard = shardOf(id);
+
+        if (expiry <= now) {
+            // The token is rejected as expired anyway; only a live token needs remembering
+            return shard.contains(id) ? replay() : firstUse();
+        }
+        if (shard.size.incrementAndGet() > maxEntriesPerShard) {
+            shard.size.decrementAndGet();
+            if (shard.contains(id)) {
+                return replay();
+            }
+            overflows.increment();
+            return Result.FULL;
+        }
+        if (shard.expiries.putIfAbsent(id, expiry) != null) {
+            shard.size.decrementAndGet();
+            return replay();
+        }
+        shard.schedule(new Entry(id, expiry), shard.wheelTime);
+        return firstUse();
+    }
+
+    /**
+     * Forgets a token id, e.g. when the operation it was recorded for could not go ahead.
+     *
+     * @param id the token id
+     */
+    public void forget(String id) {
+        Shard shard = shardOf(id);
+        if (shard.expiries.remove(id) != null) {
+            shard.size.decrementAndGet();
+        }
+        // The wheel entry is dropped when its slot is reached
+    }
+
+    public int size() {
+        int size = 0;
+        for (Shard shard : shards) {
+            size += shard.size.get();
+        }
+        return size;
+    }
+
+    public long getFirstUseCount() {
+        return firstUses.sum();
+    }
+
+    public long getReplayCount() {
+        return replays.sum();
+    }
+
+    public long getOverflowCount() {
+        return overflows.sum();
+    }
+
+    private void advance(long now) {
+        if (now <= advancedTo) {
+            return;
+        }
+        // All shards move together, so ids in shards without traffic still expire
+        for (Shard shard : shards) {
+            shard.advance(now);
+        }
+        advancedTo = now;
+    }
+
+    private Result firstUse() {
+        firstUses.increment();
+        return Result.FIRST_USE;
+    }
+
+    private Result replay() {
+        replays.increment();
+        return Result.REPLAY;
+    }
+
+    private Shard shardOf(String id) {
+        int hash = id.hashCode();
+        return shards[(hash ^ (hash >>> 16)) & (shards.length - 1)];
+    }
+
+    private record Entry(String id, long expiry) {
+    }
+
+    private static final class Shard {
+
+        private final Map<String, Long> expiries = new ConcurrentHashMap<>();
+        private final AtomicInteger size = new AtomicInteger();
+        private final Queue<Entry>[][] wheel;
+        private final AtomicBoolean advancing = new AtomicBoolean();
+        // Every second up to and including this one has been processed
+        private volatile long wheelTime;
+
+        @SuppressWarnings("unchecked")
+        Shard(long now) {
+            this.wheelTime = now;
+            this.wheel = new Queue[LEVELS][SLOTS];
+            for (Queue<Entry>[] level : wheel) {
+                for (int slot = 0; slot < SLOTS; slot++) {
+                    level[slot] = new ConcurrentLinkedQueue<>();
+                }
+            }
+        }
+
+        boolean contains(String id) {
+            return expiries.containsKey(id);
+        }
+
+        /**
+         * Puts an entry in the slot that is processed when it expires, relative to the given wheel time.
+         * An entry that races with the wheel and lands in a slot just passed is found one revolution later.
+         */
+        void schedule(Entry entry, long base) {
+            long expiry = entry.expiry();
+            if (expiry <= base) {
+                expire(entry);
+                return;
+            }
+            for (int level = 0; level < LEVELS; level++) {
+                int shift = SLOT_BITS * level;
+                if ((expiry >>> shift) - (base >>> shift) < SLOTS) {
+                    wheel[level][(int) (expiry >>> shift) & SLOT_MASK].offer(entry);
+                    return;
+                }
+            }
+            // Beyond the wheel: park in the farthest slot and reschedule when it is reached
+            int topShift = SLOT_BITS * (LEVELS - 1);
+            wheel[LEVELS - 1][(int) ((base >>> topShift) + SLOTS - 1) & SLOT_MASK].offer(entry);
+        }
+
+        void advance(long now) {
+            if (now <= wheelTime || !advancing.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                long time = wheelTime;
+                if (now - time >= SPAN_SECONDS) {
+                    // Idle for longer than the wheel covers: every slot is due
+                    for (Queue<Entry>[] level : wheel) {
+                        for (Queue<Entry> slot : level) {
+                            drain(slot, now);
+                        }
+                    }
+                    wheelTime = now;
+                    return;
+                }
+                while (time < now) {
+                    time++;
+                    // Outer levels move down before the one-second slot of this tick is processed
+                    for (int level = LEVELS - 1; level > 0; level--) {
+                        int shift = SLOT_BITS * level;
+                        if ((time & ((1L << shift) - 1)) == 0) {
+                            drain(wheel[level][(int) (time >>> shift) & SLOT_MASK], time);
+                        }
+                    }
+                    drain(wheel[0][(int) time & SLOT_MASK], time);
+                    wheelTime = time;
+                }
+            } finally {
+                advancing.set(false);
+            }
+        }
+
+        private void drain(Queue<Entry> slot, long time) {
+            if (slot.isEmpty()) {
+                return;
+            }
+            // Take the entries out first: rescheduling can put an entry back into this very slot, e.g. after an
+            // idle period, and draining it again would never end
+            List<Entry> entries = new ArrayList<>();
+            Entry entry;
+            while ((entry = slot.poll()) != null) {
+                entries.add(entry);
+            }
+            for (Entry due : entries) {
+                schedule(due, time);
+            }
+        }
+
+        private void expire(Entry entry) {
+            // A forgotten or re-recorded id no longer maps to this entry's expiry
+            if (expiries.remove(entry.id(), entry.expiry())) {
+                size.decrementAndGet();
+            }
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.auth.oidcprovider.util;
 
+import com.auth.authz.ClaimPath;
 import com.auth.oidcprovider.exceptions.InvalidTokenException;
 import com.auth.oidcprovider.dto.UserInfoResponse;
 import org.slf4j.Logger;
@@ -22,17 +23,20 @@ import java.util.stream.Collectors;
 public class JwtUtil {
     
     private static final Logger log = LoggerFactory.getLogger(JwtUtil.class);
-    private static final String ROLES_CLAIM = "realm_access.roles";
     private static final String RESOURCE_ACCESS = "resource_access";
     private static final String PREFERRED_USERNAME = "preferred_username";
     private static final String EMAIL = "email";
     private static final String EMAIL_VERIFIED = "email_verified";
+    private static final List<String> TOKEN_CLAIMS = Arrays.asList("exp", "iat", "nbf", "auth_time", "jti", "iss",
+            "aud", "typ", "azp", "session_state", "sid", "acr", "cnf", "realm_access", RESOURCE_ACCESS);
     
     private final JwtDecoder jwtDecoder;
+    private final TokenPrincipalConverter tokenPrincipalConverter;
     
     @Autowired
-    public JwtUtil(JwtDecoder jwtDecoder) {
+    public JwtUtil(JwtDecoder jwtDecoder, TokenPrincipalConverter tokenPrincipalConverter) {
         this.jwtDecoder = jwtDecoder;
+        this.tokenPrincipalConverter = tokenPrincipalConverter;
     }
     
     /**
@@ -92,6 +96,27 @@ public class JwtUtil {
         return jwt.getSubject();
     }
     
+    /**
+     * Decodes and verifies a JWT token.
+     *
+     * @param token the JWT token
+     * @return the verified JWT
+     * @throws InvalidTokenException if the token is invalid
+     */
+    public Jwt decodeToken(String token) {
+        try {
+            // Remove "Bearer " prefix if present
+            if (token != null && token.startsWith("Bearer ")) {
+                token = token.substring(7);
+            }
+            
+            return jwtDecoder.decode(token);
+        } catch (JwtException e) {
+            log.error("Invalid JWT token: {}", e.getMessage());
+            throw new InvalidTokenException("Invalid token");
+        }
+    }
+    
     /**
      * Extracts a specific claim from a JWT token.
      *
@@ -117,14 +142,14 @@ public class JwtUtil {
     
     /**
      * Extracts a nested claim from a JWT token using dot notation.
-     * For example, "realm_access.roles" would extract the roles array from the realm_access object.
+     * For example, "realm_access.roles" would extract the roles array from the realm_access object,
+     * and "aud[0]" the first audience. Paths are compiled once, see {@link ClaimPath}.
      *
      * @param token the JWT token
      * @param claimPath the path to the claim using dot notation
      * @return the value of the nested claim, or null if not present
      * @throws InvalidTokenException if the token is invalid
      */
-    @SuppressWarnings("unchecked")
     public Object getNestedClaimFromToken(String token, String claimPath) {
         try {
             // Remove "Bearer " prefix if present
@@ -133,21 +158,7 @@ public class JwtUtil {
             }
             
             Jwt jwt = jwtDecoder.decode(token);
-            String[] pathParts = claimPath.split("\\.");
-            
-            Object currentObject = jwt.getClaims();
-            for (String part : pathParts) {
-                if (currentObject instanceof Map) {
-                    currentObject = ((Map<String, Object>) currentObject).get(part);
-                    if (currentObject == null) {
-                        return null;
-                    }
-                } else {
-                    return null;
-                }
-            }
-            
-            return currentObject;
+            return ClaimPath.of(claimPath).resolve(jwt.getClaims());
         } catch (JwtException e) {
             log.error("Invalid JWT token: {}", e.getMessage());
             throw new InvalidTokenException("Invalid token");
@@ -161,7 +172,6 @@ public class JwtUtil {
      * @return a list of roles from the token
      * @throws InvalidTokenException if the token is invalid
      */
-    @SuppressWarnings("unchecked")
     public List<String> getRolesFromToken(String token) {
         try {
             // Remove "Bearer " prefix if present
@@ -169,31 +179,8 @@ public class JwtUtil {
                 token = token.substring(7);
             }
             
-            Jwt jwt = jwtDecoder.decode(token);
-            List<String> roles = new ArrayList<>();
-            
-            // Extract realm roles
-            Map<String, Object> realmAccess = jwt.getClaim("realm_access");
-            if (realmAccess != null && realmAccess.containsKey("roles")) {
-                roles.addAll((List<String>) realmAccess.get("roles"));
-            }
-            
-            // Extract client roles
-            Map<String, Object> resourceAccess = jwt.getClaim(RESOURCE_ACCESS);
-            if (resourceAccess != null) {
-                resourceAccess.forEach((clientId, clientAccess) -> {
-                    if (clientAccess instanceof Map) {
-                        Map<String, Object> clientAccessMap = (Map<String, Object>) clientAccess;
-                        if (clientAccessMap.containsKey("roles")) {
-                            roles.addAll(((List<String>) clientAccessMap.get("roles")).stream()
-                                    .map(role -> clientId + ":" + role)
-                                    .collect(Collectors.toList()));
-                        }
-                    }
-                });
-            }
-            
-            return roles;
+            // Realm roles followed by client roles as "client:role"
+            return tokenPrincipalConverter.toPrincipal(jwtDecoder.decode(token)).roleNames();
         } catch (JwtException e) {
             log.error("Invalid JWT token: {}", e.getMessage());
             throw new InvalidTokenException("Invalid token");
@@ -221,7 +208,6 @@ public class JwtUtil {
      * @return a UserInfoResponse object containing user information
      * @throws InvalidTokenException if the token is invalid
      */
-    @SuppressWarnings("unchecked")
     public UserInfoResponse getUserInfoFromToken(String token) {
         try {
             // Remove "Bearer " prefix if present
@@ -230,13 +216,6 @@ public class JwtUtil {
             }
             
             Jwt jwt = jwtDecoder.decode(token);
-            List<String> roles = getRolesFromToken(token);
-            
-            // Extract basic user info
-            String sub = jwt.getSubject();
-            String username = jwt.getClaimAsString(PREFERRED_USERNAME);
-            String email = jwt.getClaimAsString(EMAIL);
-            Boolean emailVerified = jwt.getClaim(EMAIL_VERIFIED);
             
             // Extract all remaining claims
             Map<String, Object> additionalClaims = new HashMap<>(jwt.getClaims());
@@ -245,17 +224,49 @@ public class JwtUtil {
                     "jti", "iss", "aud", "typ", "azp", "session_state", "acr", "realm_access", RESOURCE_ACCESS)
                     .forEach(additionalClaims::remove);
             
-            return UserInfoResponse.builder()
-                    .sub(sub)
-                    .username(username)
-                    .email(email)
-                    .emailVerified(emailVerified != null && emailVerified)
-                    .roles(roles)
-                    .additionalClaims(additionalClaims)
-                    .build();
+            UserInfoResponse userInfo = getUserInfo(tokenPrincipalConverter.toPrincipal(jwt));
+            userInfo.setAdditionalClaims(additionalClaims);
+            return userInfo;
         } catch (JwtException e) {
             log.error("Invalid JWT token: {}", e.getMessage());
             throw new InvalidTokenException("Invalid token");
         }
     }
-} 
\ No newline at end of file
+    
+    /**
+     * Builds user information from an already extracted principal, without additional claims.
+     *
+     * @param principal the token principal
+     * @return a UserInfoResponse object containing user information
+     */
+    public UserInfoResponse getUserInfo(TokenPrincipal principal) {
+        return UserInfoResponse.builder()
+                .sub(principal.sub())
+                .username(principal.username())
+                .email(principal.email())
+                .emailVerified(principal.emailVerified())
+                .roles(principal.roleNames())
+                .build();
+    }
+    
+    /**
+     * Builds the userinfo claim map of an authenticated request: the claims read into the principal, followed by
+     * the token's remaining claims about the user. Claims that only describe the token itself, such as its expiry,
+     * issuer and audience, and the raw role claims are left out.
+     *
+     * @param principal the token principal
+     * @param jwt the token the principal was read from
+     * @return the userinfo claims keyed by claim name
+     */
+    public Map<String, Object> getUserInfoClaims(TokenPrincipal principal, Jwt jwt) {
+        Map<String, Object> claims = new LinkedHashMap<>();
+        claims.put("sub", principal.sub());
+        claims.put(PREFERRED_USERNAME, principal.username());
+        claims.put(EMAIL, principal.email());
+        claims.put(EMAIL_VERIFIED, principal.emailVerified());
+        jwt.getClaims().forEach(claims::putIfAbsent);
+        TOKEN_CLAIMS.forEach(claims::remove);
+        claims.values().removeIf(Objects::isNull);
+        return claims;
+    }
+}
@@ -9,55 +9,46 @@ import org.springframework.stereotype.Component;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
-import java.util.Map;
-import java.util.stream.Collectors;
 
 /**
  * Converts Keycloak roles found in JWT tokens to Spring Security GrantedAuthority objects.
  * Handles both realm roles and client-specific roles from the Keycloak token.
+ * Realm roles are expanded with every role they include in the role hierarchy.
  */
 @Component
 public class KeycloakRoleConverter implements Converter<Jwt, Collection<GrantedAuthority>> {
 
-    private static final String REALM_ACCESS = "realm_access";
-    private static final String ROLES = "roles";
-    private static final String RESOURCE_ACCESS = "resource_access";
     private static final String ROLE_PREFIX = "ROLE_";
 
+    private final TokenPrincipalConverter tokenPrincipalConverter;
+
+    public KeycloakRoleConverter(TokenPrincipalConverter tokenPrincipalConverter) {
+        this.tokenPrincipalConverter = tokenPrincipalConverter;
+    }
+
     @Override
     public Collection<GrantedAuthority> convert(Jwt jwt) {
+        return convert(tokenPrincipalConverter.toPrincipal(jwt));
+    }
+
+    /**
+     * Converts the roles of an already extracted principal.
+     *
+     * @param principal the token principal
+     * @return the realm and client role authorities
+     */
+    public Collection<GrantedAuthority> convert(TokenPrincipal principal) {
         List<GrantedAuthority> authorities = new ArrayList<>();
-        
-        // Extract realm roles
-        Map<String, Object> realmAccess = jwt.getClaimAsMap(REALM_ACCESS);
-        if (realmAccess != null && realmAccess.containsKey(ROLES)) {
-            @SuppressWarnings("unchecked")
-            List<String> roles = (List<String>) realmAccess.get(ROLES);
-            authorities.addAll(roles.stream()
-                    .map(roleName -> ROLE_PREFIX + roleName.toUpperCase())
-                    .map(SimpleGrantedAuthority::new)
-                    .collect(Collectors.toList()));
-        }
-
-        // Extract client roles
-        Map<String, Object> resourceAccess = jwt.getClaimAsMap(RESOURCE_ACCESS);
-        if (resourceAccess != null) {
-            resourceAccess.forEach((clientId, clientAccess) -> {
-                if (clientAccess instanceof Map) {
-                    @SuppressWarnings("unchecked")
-                    Map<String, Object> clientAccessMap = (Map<String, Object>) clientAccess;
-                    if (clientAccessMap.containsKey(ROLES)) {
-                        @SuppressWarnings("unchecked")
-                        List<String> clientRoles = (List<String>) clientAccessMap.get(ROLES);
-                        authorities.addAll(clientRoles.stream()
-                                .map(roleName -> ROLE_PREFIX + clientId.toUpperCase() + "_" + roleName.toUpperCase())
-                                .map(SimpleGrantedAuthority::new)
-                                .collect(Collectors.toList()));
-                    }
-                }
-            });
-        }
+
+        // Realm roles, already expanded through the role hierarchy
+        principal.roles().names().forEach(roleName ->
+                authorities.add(new SimpleGrantedAuthority(ROLE_PREFIX + roleName)));
+
+        // Client roles
+        principal.clientRoles().forEach((clientId, clientRoles) ->
+                clientRoles.forEach(roleName -> authorities.add(new SimpleGrantedAuthority(
+                        ROLE_PREFIX + clientId.toUpperCase() + "_" + roleName.toUpperCase()))));
 
         return authorities;
     }
-} 
\ No newline at end of file
+}
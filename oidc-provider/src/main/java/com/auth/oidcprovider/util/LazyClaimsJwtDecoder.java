@@ -0,0 +1,245 @@
+package com.auth.oidcprovider.util;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.JWSVerifier;
+import com.nimbusds.jose.KeySourceException;
+import com.nimbusds.jose.crypto.factories.DefaultJWSVerifierFactory;
+import com.nimbusds.jose.jwk.source.RemoteJWKSet;
+import com.nimbusds.jose.proc.JWSKeySelector;
+import com.nimbusds.jose.proc.JWSVerificationKeySelector;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jose.util.Base64URL;
+import com.nimbusds.jose.util.JSONObjectUtils;
+import com.nimbusds.jose.util.Resource;
+import com.nimbusds.jwt.JWT;
+import com.nimbusds.jwt.JWTParser;
+import org.springframework.http.MediaType;
+import org.springframework.http.RequestEntity;
+import org.springframework.security.oauth2.core.OAuth2Error;
+import org.springframework.security.oauth2.core.OAuth2TokenValidator;
+import org.springframework.security.oauth2.core.OAuth2TokenValidatorResult;
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtClaimNames;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+import org.springframework.security.oauth2.jwt.JwtValidationException;
+import org.springframework.security.oauth2.jwt.JwtValidators;
+import org.springframework.security.oauth2.jwt.MappedJwtClaimSetConverter;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+import org.springframework.web.client.RestOperations;
+
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.text.ParseException;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * JWT decoder that verifies the signature over the raw token and parses claims lazily.
+ * <p>
+ * {@link org.springframework.security.oauth2.jwt.NimbusJwtDecoder} builds the full claim graph and runs every
+ * claim through a converter, although most requests only read {@code sub} and {@code realm_access.roles}.
+ * Here the signature is checked over the encoded header and payload bytes, the temporal claims
+ * ({@code exp}, {@code iat}, {@code nbf}) are converted and validated eagerly, and all nested claims are
+ * {@link LazyJson} views parsed on first access. Keys are selected from the JWK set the same way, so key
+ * rotation and JWKS caching behave as with the Nimbus decoder.
+ */
+public class LazyClaimsJwtDecoder implements JwtDecoder {
+
+    private static final Set<String> TEMPORAL_CLAIMS = Set.of(JwtClaimNames.EXP, JwtClaimNames.IAT, JwtClaimNames.NBF);
+    private static final MappedJwtClaimSetConverter CLAIM_SET_CONVERTER =
+            MappedJwtClaimSetConverter.withDefaults(Collections.emptyMap());
+
+    private final JWSKeySelector<SecurityContext> keySelector;
+    private final DefaultJWSVerifierFactory verifierFactory = new DefaultJWSVerifierFactory();
+    private OAuth2TokenValidator<Jwt> jwtValidator = JwtValidators.createDefault();
+
+    public LazyClaimsJwtDecoder(JWSKeySelector<SecurityContext> keySelector) {
+        this.keySelector = keySelector;
+    }
+
+    /**
+     * Creates a decoder that selects keys from a remote JWK set.
+     *
+     * @param jwkSetUri the JWK set URI
+     * @param restOperations the client used to fetch the JWK set
+     * @param algorithms the accepted JWS algorithms
+     * @return the decoder
+     */
+    public static LazyClaimsJwtDecoder withJwkSetUri(String jwkSetUri, RestOperations restOperations,
+                                                     Set<String> algorithms) {
+        URL url;
+        try {
+            url = new URL(jwkSetUri);
+        } catch (MalformedURLException e) {
+            throw new IllegalArgumentException("Invalid JWK set URI: " + jwkSetUri, e);
+        }
+        RemoteJWKSet<SecurityContext> jwkSet = new RemoteJWKSet<>(url, resourceUrl -> {
+            RequestEntity<Void> request = RequestEntity.get(URI.create(resourceUrl.toString()))
+                    .accept(MediaType.APPLICATION_JSON, MediaType.valueOf("application/jwk-set+json"))
+                    .build();
+            return new Resource(restOperations.exchange(request, String.class).getBody(), "UTF-8");
+        });
+        Set<JWSAlgorithm> jwsAlgorithms = algorithms.stream().map(JWSAlgorithm::parse).collect(Collectors.toSet());
+        return new LazyClaimsJwtDecoder(new JWSVerificationKeySelector<>(jwsAlgorithms, jwkSet));
+    }
+
+    public void setJwtValidator(OAuth2TokenValidator<Jwt> jwtValidator) {
+        this.jwtValidator = jwtValidator;
+    }
+
+    @Override
+    public Jwt decode(String token) throws JwtException {
+        int first = token.indexOf('.');
+        int second = first < 0 ? -1 : token.indexOf('.', first + 1);
+        if (second < 0 || token.indexOf('.', second + 1) >= 0) {
+            throw new BadJwtException("Malformed token: expected three segments");
+        }
+
+        JWSHeader header = parseHeader(token, first);
+        verifySignature(header, token.substring(0, second).getBytes(StandardCharsets.US_ASCII),
+                new Base64URL(token.substring(second + 1)));
+        Jwt jwt = toJwt(token, header, first, second);
+        validate(jwt, jwtValidator);
+        return jwt;
+    }
+
+    /**
+     * Parses a token without verifying its signature, for tokens known to have been verified before.
+     * Temporal claims are converted but not validated.
+     * <p>
+     * With lazy claims the claims are {@link LazyJson} views as produced by this decoder; otherwise the token is
+     * parsed with {@link JWTParser} and its claims converted as {@link NimbusJwtDecoder} converts them.
+     *
+     * @param token the serialized token
+     * @param lazyClaims whether to parse the claims lazily
+     * @return the unvalidated JWT
+     * @throws BadJwtException if the token is malformed
+     */
+    static Jwt parseVerified(String token, boolean lazyClaims) {
+        int first = token.indexOf('.');
+        int second = first < 0 ? -1 : token.indexOf('.', first + 1);
+        if (second < 0 || token.indexOf('.', second + 1) >= 0) {
+            throw new BadJwtException("Malformed token: expected three segments");
+        }
+        if (lazyClaims) {
+            return toJwt(token, parseHeader(token, first), first, second);
+        }
+        try {
+            JWT jwt = JWTParser.parse(token);
+            Map<String, Object> claims = CLAIM_SET_CONVERTER.convert(jwt.getJWTClaimsSet().getClaims());
+            return Jwt.withTokenValue(token)
+                    .headers(headers -> headers.putAll(jwt.getHeader().toJSONObject()))
+                    .claims(tokenClaims -> tokenClaims.putAll(claims))
+                    .build();
+        } catch (ParseException | IllegalArgumentException e) {
+            throw new BadJwtException("Malformed token: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Parses a JSON object such as a token payload, as a {@link LazyJson} view with lazy claims and eagerly with
+     * {@link JSONObjectUtils} otherwise.
+     *
+     * @param json the JSON object
+     * @param lazyClaims whether to parse the object lazily
+     * @return the members of the object
+     * @throws IllegalArgumentException if the JSON is malformed or not an object
+     */
+    public static Map<String, Object> parseClaims(String json, boolean lazyClaims) {
+        if (lazyClaims) {
+            return LazyJson.parseObject(json);
+        }
+        try {
+            return JSONObjectUtils.parse(json);
+        } catch (ParseException e) {
+            throw new IllegalArgumentException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Runs a validator, turning errors into a {@link JwtValidationException}.
+     *
+     * @param jwt the JWT
+     * @param validator the validator
+     * @throws JwtValidationException if the validator reports errors
+     */
+    static void validate(Jwt jwt, OAuth2TokenValidator<Jwt> validator) {
+        OAuth2TokenValidatorResult result = validator.validate(jwt);
+        if (result.hasErrors()) {
+            String description = result.getErrors().stream()
+                    .map(OAuth2Error::getDescription)
+                    .collect(Collectors.joining("; "));
+            throw new JwtValidationException("Token validation failed: " + description, result.getErrors());
+        }
+    }
+
+    private static JWSHeader parseHeader(String token, int first) {
+        try {
+            return JWSHeader.parse(new Base64URL(token.substring(0, first)));
+        } catch (ParseException e) {
+            throw new BadJwtException("Malformed token header: " + e.getMessage(), e);
+        }
+    }
+
+    private static Jwt toJwt(String token, JWSHeader header, int first, int second) {
+        Map<String, Object> claims;
+        try {
+            claims = LazyJson.parseObject(new Base64URL(token.substring(first + 1, second)).decodeToString());
+        } catch (IllegalArgumentException e) {
+            throw new BadJwtException("Malformed token payload: " + e.getMessage(), e);
+        }
+        if (claims.isEmpty()) {
+            throw new BadJwtException("Token has no claims");
+        }
+        for (String name : TEMPORAL_CLAIMS) {
+            Object value = claims.get(name);
+            if (value instanceof Number) {
+                claims.put(name, Instant.ofEpochSecond(((Number) value).longValue()));
+            } else if (value != null) {
+                throw new BadJwtException("Claim " + name + " is not a number");
+            }
+        }
+
+        try {
+            return new Jwt(token, (Instant) claims.get(JwtClaimNames.IAT), (Instant) claims.get(JwtClaimNames.EXP),
+                    header.toJSONObject(), claims);
+        } catch (IllegalArgumentException e) {
+            // e.g. a token that expires before it was issued
+            throw new BadJwtException("Invalid token: " + e.getMessage(), e);
+        }
+    }
+
+    private void verifySignature(JWSHeader header, byte[] signingInput, Base64URL signature) {
+        List<? extends Key> keys;
+        try {
+            keys = keySelector.selectJWSKeys(header, null);
+        } catch (KeySourceException e) {
+            throw new JwtException("Couldn't retrieve JWK set: " + e.getMessage(), e);
+        }
+        if (keys.isEmpty()) {
+            throw new BadJwtException("No key matches the token header");
+        }
+        for (Key key : keys) {
+            try {
+                JWSVerifier verifier = verifierFactory.createJWSVerifier(header, key);
+                if (verifier.verify(header, signingInput, signature)) {
+                    return;
+                }
+            } catch (JOSEException e) {
+                throw new BadJwtException("Signature verification failed: " + e.getMessage(), e);
+            }
+        }
+        throw new BadJwtException("Invalid signature");
+    }
+}
@@ -0,0 +1,372 @@
+package com.auth.oidcprovider.util;
+
+import java.math.BigInteger;
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Minimal JSON reader that parses one nesting level at a time.
+ * <p>
+ * {@link #parseObject} decodes the members of the top-level object; nested objects and arrays are only
+ * scanned for their extent and returned as {@link Map} and {@link List} views that parse their own level on
+ * first access. A token payload carrying large {@code resource_access} maps or custom attributes therefore
+ * costs a linear scan, not an object graph, until a claim is actually read. Scanning checks that brackets and
+ * strings are balanced; syntax errors inside an untouched nested value surface on first access.
+ */
+public final class LazyJson {
+
+    private LazyJson() {
+    }
+
+    /**
+     * Parses the members of a JSON object, leaving nested values unparsed.
+     *
+     * @param json the JSON text
+     * @return a mutable map of the members
+     * @throws IllegalArgumentException if the text is not a JSON object
+     */
+    public static Map<String, Object> parseObject(String json) {
+        Reader reader = new Reader(json, 0);
+        reader.skipWhitespace();
+        if (!reader.hasNext() || reader.peek() != '{') {
+            throw reader.error("Expected an object");
+        }
+        Map<String, Object> members = reader.readObjectMembers();
+        reader.skipWhitespace();
+        if (reader.hasNext()) {
+            throw reader.error("Unexpected trailing content");
+        }
+        return members;
+    }
+
+    /**
+     * Object whose members are parsed on first access.
+     */
+    private static final class LazyObject extends AbstractMap<String, Object> {
+
+        private final String json;
+        private final int start;
+        private volatile Map<String, Object> members;
+
+        LazyObject(String json, int start) {
+            this.json = json;
+            this.start = start;
+        }
+
+        @Override
+        public Object get(Object key) {
+            return members().get(key);
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return members().containsKey(key);
+        }
+
+        @Override
+        public int size() {
+            return members().size();
+        }
+
+        @Override
+        public Set<Entry<String, Object>> entrySet() {
+            return members().entrySet();
+        }
+
+        private Map<String, Object> members() {
+            Map<String, Object> parsed = members;
+            if (parsed == null) {
+                // Concurrent first reads parse the same text to equal maps, so no lock is needed
+                parsed = Collections.unmodifiableMap(new Reader(json, start).readObjectMembers());
+                members = parsed;
+            }
+            return parsed;
+        }
+    }
+
+    /**
+     * Array whose elements are parsed on first access.
+     */
+    private static final class LazyArray extends AbstractList<Object> {
+
+        private final String json;
+        private final int start;
+        private volatile List<Object> elements;
+
+        LazyArray(String json, int start) {
+            this.json = json;
+            this.start = start;
+        }
+
+        @Override
+        public Object get(int index) {
+            return elements().get(index);
+        }
+
+        @Override
+        public int size() {
+            return elements().size();
+        }
+
+        private List<Object> elements() {
+            List<Object> parsed = elements;
+            if (parsed == null) {
+                parsed = Collections.unmodifiableList(new Reader(json, start).readArrayElements());
+                elements = parsed;
+            }
+            return parsed;
+        }
+    }
+
+    private static final class Reader {
+
+        private final String json;
+        private int pos;
+
+        Reader(String json, int pos) {
+            this.json = json;
+            this.pos = pos;
+        }
+
+        Map<String, Object> readObjectMembers() {
+            expect('{');
+            Map<String, Object> members = new LinkedHashMap<>();
+            skipWhitespace();
+            if (consume('}')) {
+                return members;
+            }
+            do {
+                skipWhitespace();
+                String key = readString();
+                skipWhitespace();
+                expect(':');
+                members.put(key, readValue());
+                skipWhitespace();
+            } while (consume(','));
+            expect('}');
+            return members;
+        }
+
+        List<Object> readArrayElements() {
+            expect('[');
+            List<Object> elements = new ArrayList<>();
+            skipWhitespace();
+            if (consume(']')) {
+                return elements;
+            }
+            do {
+                elements.add(readValue());
+                skipWhitespace();
+            } while (consume(','));
+            expect(']');
+            return elements;
+        }
+
+        private Object readValue() {
+            skipWhitespace();
+            if (!hasNext()) {
+                throw error("Expected a value");
+            }
+            char c = peek();
+            switch (c) {
+                case '{': {
+                    LazyObject object = new LazyObject(json, pos);
+                    skipContainer();
+                    return object;
+                }
+                case '[': {
+                    LazyArray array = new LazyArray(json, pos);
+                    skipContainer();
+                    return array;
+                }
+                case '"':
+                    return readString();
+                case 't':
+                    return readLiteral("true", Boolean.TRUE);
+                case 'f':
+                    return readLiteral("false", Boolean.FALSE);
+                case 'n':
+                    return readLiteral("null", null);
+                default:
+                    return readNumber();
+            }
+        }
+
+        /**
+         * Moves past an object or array without building it.
+         */
+        private void skipContainer() {
+            int depth = 0;
+            do {
+                if (!hasNext()) {
+                    throw error("Unterminated container");
+                }
+                char c = json.charAt(pos);
+                if (c == '"') {
+                    skipString();
+                    continue;
+                }
+                if (c == '{' || c == '[') {
+                    depth++;
+                } else if (c == '}' || c == ']') {
+                    depth--;
+                }
+                pos++;
+            } while (depth > 0);
+        }
+
+        private void skipString() {
+            pos++;
+            while (hasNext()) {
+                char c = json.charAt(pos++);
+                if (c == '"') {
+                    return;
+                }
+                if (c == '\\') {
+                    pos++;
+                }
+            }
+            throw error("Unterminated string");
+        }
+
+        private String readString() {
+            expect('"');
+            int begin = pos;
+            // Fast path: no escapes, so the string is a plain substring
+            while (hasNext()) {
+                char c = json.charAt(pos);
+                if (c == '"') {
+                    return json.substring(begin, pos++);
+                }
+                if (c == '\\') {
+                    break;
+                }
+                pos++;
+            }
+            StringBuilder value = new StringBuilder(json.substring(begin, pos));
+            while (hasNext()) {
+                char c = json.charAt(pos++);
+                if (c == '"') {
+                    return value.toString();
+                }
+                if (c != '\\') {
+                    value.append(c);
+                    continue;
+                }
+                if (!hasNext()) {
+                    break;
+                }
+                char escaped = json.charAt(pos++);
+                switch (escaped) {
+                    case 'b':
+                        value.append('\b');
+                        break;
+                    case 'f':
+                        value.append('\f');
+                        break;
+                    case 'n':
+                        value.append('\n');
+                        break;
+                    case 'r':
+                        value.append('\r');
+                        break;
+                    case 't':
+                        value.append('\t');
+                        break;
+                    case 'u':
+                        if (pos + 4 > json.length()) {
+                            throw error("Truncated unicode escape");
+                        }
+                        try {
+                            value.append((char) Integer.parseInt(json.substring(pos, pos + 4), 16));
+                        } catch (NumberFormatException e) {
+                            throw error("Invalid unicode escape");
+                        }
+                        pos += 4;
+                        break;
+                    default:
+                        value.append(escaped);
+                }
+            }
+            throw error("Unterminated string");
+        }
+
+        private Object readLiteral(String literal, Object value) {
+            if (!json.startsWith(literal, pos)) {
+                throw error("Unexpected token");
+            }
+            pos += literal.length();
+            return value;
+        }
+
+        private Object readNumber() {
+            int begin = pos;
+            boolean integral = true;
+            while (hasNext()) {
+                char c = json.charAt(pos);
+                if (c == '.' || c == 'e' || c == 'E') {
+                    integral = false;
+                } else if (!(c == '-' || c == '+' || (c >= '0' && c <= '9'))) {
+                    break;
+                }
+                pos++;
+            }
+            String number = json.substring(begin, pos);
+            try {
+                if (integral && number.length() < 19) {
+                    return Long.parseLong(number);
+                }
+                if (integral) {
+                    // May not fit in a long
+                    BigInteger value = new BigInteger(number);
+                    return value.bitLength() < 64 ? (Object) value.longValue() : value;
+                }
+                return Double.parseDouble(number);
+            } catch (NumberFormatException e) {
+                throw error("Invalid number");
+            }
+        }
+
+        void skipWhitespace() {
+            while (hasNext()) {
+                char c = json.charAt(pos);
+                if (c != ' ' && c != '\t' && c != '\n' && c != '\r') {
+                    return;
+                }
+                pos++;
+            }
+        }
+
+        boolean hasNext() {
+            return pos < json.length();
+        }
+
+        char peek() {
+            return json.charAt(pos);
+        }
+
+        private boolean consume(char c) {
+            if (hasNext() && json.charAt(pos) == c) {
+                pos++;
+                return true;
+            }
+            return false;
+        }
+
+        private void expect(char c) {
+            if (!consume(c)) {
+                throw error("Expected '" + c + "'");
+            }
+        }
+
+        IllegalArgumentException error(String message) {
+            return new IllegalArgumentException(message + " at position " + pos);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.auth.oidcprovider.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * A JSON document rendered once and served many times: the UTF-8 body, its gzip encoding, a strong ETag for
+ * each and the {@code Cache-Control} header. The ETag is derived from the content, so every node publishing the
+ * same document sends the same one.
+ * <p>
+ * The arrays are handed out without copying, so the request path allocates nothing; callers must not modify them.
+ */
+public final class PublishedDocument {
+
+    private final byte[] body;
+    private final byte[] gzipBody;
+    private final String etag;
+    private final String gzipEtag;
+    private final String cacheControl;
+
+    private PublishedDocument(byte[] body, byte[] gzipBody, String etag, String gzipEtag, String cacheControl) {
+        this.body = body;
+        this.gzipBody = gzipBody;
+        this.etag = etag;
+        this.gzipEtag = gzipEtag;
+        this.cacheControl = cacheControl;
+    }
+
+    /**
+     * Renders a document.
+     *
+     * @param json the serialized JSON
+     * @param maxAge how long clients and shared caches may reuse the document
+     * @return the document
+     */
+    public static PublishedDocument of(String json, Duration maxAge) {
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        String hash = hash(body);
+        // A strong ETag identifies one representation, so the gzip encoding gets its own
+        return new PublishedDocument(body, gzip(body), '"' + hash + '"', "\"" + hash + "-gzip\"",
+                "public, max-age=" + maxAge.getSeconds());
+    }
+
+    public byte[] getBody() {
+        return body;
+    }
+
+    public byte[] getGzipBody() {
+        return gzipBody;
+    }
+
+    public String getEtag() {
+        return etag;
+    }
+
+    public String getGzipEtag() {
+        return gzipEtag;
+    }
+
+    public String getCacheControl() {
+        return cacheControl;
+    }
+
+    private static String hash(byte[] body) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(body);
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static byte[] gzip(byte[] body) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(body.length / 2 + 32);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+}
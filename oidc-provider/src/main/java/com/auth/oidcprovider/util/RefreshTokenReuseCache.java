@@ -0,0 +1,125 @@
+package com.auth.oidcprovider.util;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-memory front of the refresh token store, remembering the refresh tokens this node rotated recently and
+ * the token families it knows to be revoked.
+ * <p>
+ * A rotated token presented again is answered from here without a database round trip; only the first reuse
+ * of a family writes the revocation, later attempts find the family in the revoked set. Absence proves nothing:
+ * a token rotated on another node, or evicted here, is caught by the store. Entries are kept until the token
+ * expires, and a full map is emptied, which only costs database lookups.
+ */
+public class RefreshTokenReuseCache {
+
+    private final int maxSize;
+    private final Clock clock;
+    private final Map<String, UsedToken> usedTokens = new ConcurrentHashMap<>();
+    private final Map<String, Instant> revokedFamilies = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Creates a cache.
+     *
+     * @param maxSize the maximum number of used tokens and of revoked families
+     * @param clock the clock
+     */
+    public RefreshTokenReuseCache(int maxSize, Clock clock) {
+        this.maxSize = maxSize;
+        this.clock = clock;
+    }
+
+    /**
+     * Remembers that a token was rotated.
+     *
+     * @param fingerprint the fingerprint of the token
+     * @param familyId the family of the token
+     * @param expiresAt the expiry of the token
+     */
+    public void recordUsed(String fingerprint, String familyId, Instant expiresAt) {
+        if (maxSize <= 0) {
+            return;
+        }
+        if (usedTokens.size() >= maxSize) {
+            evictions.add(usedTokens.size());
+            usedTokens.clear();
+        }
+        usedTokens.put(fingerprint, new UsedToken(familyId, expiresAt));
+    }
+
+    /**
+     * Gets the family of a token this node rotated, if it has not expired.
+     *
+     * @param fingerprint the fingerprint of the token
+     * @return the family id, or null if the token is not known to be used
+     */
+    public String getUsedFamily(String fingerprint) {
+        UsedToken used = usedTokens.get(fingerprint);
+        if (used == null) {
+            return null;
+        }
+        if (!used.expiresAt().isAfter(clock.instant())) {
+            usedTokens.remove(fingerprint, used);
+            return null;
+        }
+        hits.increment();
+        return used.familyId();
+    }
+
+    /**
+     * Remembers that a family was revoked.
+     *
+     * @param familyId the family id
+     * @param expiresAt the expiry of the family's tokens
+     */
+    public void recordRevoked(String familyId, Instant expiresAt) {
+        if (maxSize <= 0) {
+            return;
+        }
+        if (revokedFamilies.size() >= maxSize) {
+            evictions.add(revokedFamilies.size());
+            revokedFamilies.clear();
+        }
+        revokedFamilies.put(familyId, expiresAt);
+    }
+
+    /**
+     * Checks if a family is known to be revoked.
+     *
+     * @param familyId the family id
+     * @return true if the family was revoked and its tokens have not expired
+     */
+    public boolean isRevoked(String familyId) {
+        Instant expiresAt = revokedFamilies.get(familyId);
+        if (expiresAt == null) {
+            return false;
+        }
+        if (!expiresAt.isAfter(clock.instant())) {
+            revokedFamilies.remove(familyId, expiresAt);
+            return false;
+        }
+        hits.increment();
+        return true;
+    }
+
+    public int size() {
+        return usedTokens.size() + revokedFamilies.size();
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    private record UsedToken(String familyId, Instant expiresAt) {
+    }
+}
@@ -0,0 +1,101 @@
+package com.auth.oidcprovider.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Short-lived, bounded cache of tokens that recently failed verification, so a client replaying the same
+ * expired or forged token is turned away before any signature work.
+ * <p>
+ * Tokens are keyed by a SHA-256 fingerprint of the whole token. A weaker hash, or only the signature
+ * segment, would let an attacker craft a bad token that collides with a victim's valid one and lock it out.
+ */
+public class RejectedTokenCache {
+
+    private final int maxSize;
+    private final long ttlNanos;
+    private final Map<Fingerprint, Long> rejectedUntil = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public RejectedTokenCache(int maxSize, Duration ttl) {
+        this.maxSize = maxSize;
+        this.ttlNanos = ttl.toNanos();
+    }
+
+    /**
+     * Checks if a token was rejected within the TTL.
+     *
+     * @param token the serialized token
+     * @return true if the token is known to be bad
+     */
+    public boolean isRejected(String token) {
+        if (rejectedUntil.isEmpty()) {
+            return false;
+        }
+        Fingerprint fingerprint = Fingerprint.of(token);
+        Long until = rejectedUntil.get(fingerprint);
+        if (until == null) {
+            return false;
+        }
+        if (System.nanoTime() - until >= 0) {
+            rejectedUntil.remove(fingerprint, until);
+            return false;
+        }
+        hits.increment();
+        return true;
+    }
+
+    /**
+     * Remembers a token as bad for the TTL.
+     *
+     * @param token the serialized token
+     */
+    public void reject(String token) {
+        if (rejectedUntil.size() >= maxSize) {
+            // Entries are cheap to relearn, so a full cache is simply emptied
+            evictions.add(rejectedUntil.size());
+            rejectedUntil.clear();
+        }
+        rejectedUntil.put(Fingerprint.of(token), System.nanoTime() + ttlNanos);
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    public int size() {
+        return rejectedUntil.size();
+    }
+
+    private record Fingerprint(long high, long low) {
+
+        static Fingerprint of(String token) {
+            byte[] digest = sha256().digest(token.getBytes(StandardCharsets.US_ASCII));
+            long high = 0;
+            long low = 0;
+            for (int i = 0; i < 8; i++) {
+                high = (high << 8) | (digest[i] & 0xff);
+                low = (low << 8) | (digest[i + 8] & 0xff);
+            }
+            return new Fingerprint(high, low);
+        }
+
+        private static MessageDigest sha256() {
+            try {
+                return MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("SHA-256 is not available", e);
+            }
+        }
+    }
+}
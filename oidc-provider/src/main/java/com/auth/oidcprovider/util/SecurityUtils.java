@@ -12,6 +12,8 @@ import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
 
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
@@ -23,12 +25,16 @@ public class SecurityUtils {
 
     private static final Logger logger = LoggerFactory.getLogger(SecurityUtils.class);
     
+    private static final String ACTION_OWN = "own";
+    
     private final UserService userService;
     private final JwtUtil jwtUtil;
+    private final AuthorizationDecisionCache decisionCache;
     
-    public SecurityUtils(UserService userService, JwtUtil jwtUtil) {
+    public SecurityUtils(UserService userService, JwtUtil jwtUtil, AuthorizationDecisionCache decisionCache) {
         this.userService = userService;
         this.jwtUtil = jwtUtil;
+        this.decisionCache = decisionCache;
     }
     
     /**
@@ -70,6 +76,19 @@ public class SecurityUtils {
         }
     }
     
+    /**
+     * Gets the claims of the current token without looking up the user.
+     *
+     * @return the token claims, or an empty map if the caller is not authenticated with a JWT
+     */
+    public Map<String, Object> getCurrentClaims() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication instanceof JwtAuthenticationToken jwtToken) {
+            return jwtToken.getToken().getClaims();
+        }
+        return Collections.emptyMap();
+    }
+    
     /**
      * Checks if the current authenticated user has the specified role.
      * 
@@ -99,7 +118,7 @@ public class SecurityUtils {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         
         if (authentication == null) {
-            return java.util.Collections.emptyList();
+            return Collections.emptyList();
         }
         
         return authentication.getAuthorities().stream()
@@ -135,12 +154,21 @@ public class SecurityUtils {
      * @return true if the current user is the owner, false otherwise
      */
     public boolean isResourceOwner(String resourceId) {
-        try {
-            User currentUser = getCurrentUser();
-            return currentUser.getId().equals(resourceId);
-        } catch (Exception e) {
-            logger.debug("Failed to check resource ownership: {}", e.getMessage());
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (!(authentication instanceof JwtAuthenticationToken)) {
             return false;
         }
+        
+        // Ownership only changes when users are saved or deleted, so the user lookup is cached per subject
+        String subject = jwtUtil.getSubjectFromToken(((JwtAuthenticationToken) authentication).getToken());
+        return decisionCache.getOrEvaluate("sub:" + subject, resourceId, ACTION_OWN, () -> {
+            try {
+                User currentUser = getCurrentUser();
+                return currentUser.getId().equals(resourceId);
+            } catch (Exception e) {
+                logger.debug("Failed to check resource ownership: {}", e.getMessage());
+                return false;
+            }
+        });
     }
 } 
\ No newline at end of file
@@ -0,0 +1,246 @@
+package com.auth.oidcprovider.util;
+
+import com.nimbusds.jose.util.Base64URL;
+import com.nimbusds.jose.util.JSONObjectUtils;
+import org.springframework.security.oauth2.core.DelegatingOAuth2TokenValidator;
+import org.springframework.security.oauth2.core.OAuth2TokenValidator;
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtException;
+import org.springframework.security.oauth2.jwt.JwtIssuerValidator;
+import org.springframework.security.oauth2.jwt.JwtTimestampValidator;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Issues and verifies service tickets: short-lived HS256 tokens carrying the identity and roles of a verified
+ * access token, for calls between internal services.
+ * <p>
+ * Tickets are signed with a key that rotates every rotation period. The key of each period is derived from the
+ * master secret and the period number, so all nodes sharing the secret rotate at the same instant without any
+ * coordination, and the {@code kid} header names the period. A key is accepted from one clock skew before its
+ * period starts until the ticket TTL plus one clock skew after it ends, so tickets issued at the end of a period
+ * stay valid for their whole lifetime.
+ * <p>
+ * The encoded header of a ticket is the same for every ticket of a period, so tickets are recognized by
+ * comparing the token prefix with the encoded headers of the accepted periods, without parsing. Verification is
+ * a single HMAC over the signing input, compared in constant time.
+ */
+public class ServiceTicketCodec {
+
+    private static final String MAC_ALGORITHM = "HmacSHA256";
+    private static final int MIN_SECRET_LENGTH = 32;
+    private static final String KEY_ID_PREFIX = "st-";
+    private static final Duration CLOCK_SKEW = Duration.ofSeconds(60);
+
+    // Mac instances are not thread-safe; looking one up per ticket would cost more than the HMAC itself
+    private static final ThreadLocal<Mac> MACS = ThreadLocal.withInitial(() -> {
+        try {
+            return Mac.getInstance(MAC_ALGORITHM);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(MAC_ALGORITHM + " is not available", e);
+        }
+    });
+
+    private final SecretKeySpec masterKey;
+    private final String issuer;
+    private final Duration ttl;
+    private final long rotationSeconds;
+    private final Clock clock;
+    private final boolean lazyClaims;
+    private final OAuth2TokenValidator<Jwt> validator;
+    private final Map<Long, PeriodKey> keys = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a codec.
+     *
+     * @param secret the master secret shared by all nodes, at least 32 bytes
+     * @param issuer the {@code iss} of tickets, distinct from every token issuer
+     * @param ttl the lifetime of a ticket
+     * @param rotation the period after which the signing key changes, longer than the TTL
+     * @param clock the clock
+     * @param lazyClaims whether tickets are parsed with lazy claims
+     */
+    public ServiceTicketCodec(byte[] secret, String issuer, Duration ttl, Duration rotation, Clock clock,
+                              boolean lazyClaims) {
+        if (secret == null || secret.length < MIN_SECRET_LENGTH) {
+            throw new IllegalArgumentException(
+                    "Service tickets need a secret of at least " + MIN_SECRET_LENGTH + " bytes");
+        }
+        if (ttl.isNegative() || ttl.isZero() || rotation.compareTo(ttl) <= 0) {
+            throw new IllegalArgumentException("The ticket key rotation period must be longer than the ticket TTL");
+        }
+        this.masterKey = new SecretKeySpec(secret, MAC_ALGORITHM);
+        this.issuer = issuer;
+        this.ttl = ttl;
+        this.rotationSeconds = rotation.getSeconds();
+        this.clock = clock;
+        this.lazyClaims = lazyClaims;
+
+        JwtTimestampValidator timestampValidator = new JwtTimestampValidator(CLOCK_SKEW);
+        timestampValidator.setClock(clock);
+        this.validator = new DelegatingOAuth2TokenValidator<>(timestampValidator, new JwtIssuerValidator(issuer));
+    }
+
+    public String getIssuer() {
+        return issuer;
+    }
+
+    /**
+     * Issues a ticket for a principal.
+     *
+     * @param principal the principal of the verified access token
+     * @param notAfter the latest expiry of the ticket, normally the expiry of the access token
+     * @return the ticket
+     */
+    public Jwt issue(TokenPrincipal principal, Instant notAfter) {
+        Instant now = clock.instant();
+        Instant expiresAt = now.plus(ttl);
+        if (notAfter != null && notAfter.isBefore(expiresAt)) {
+            expiresAt = notAfter;
+        }
+        if (!expiresAt.isAfter(now)) {
+            throw new IllegalArgumentException("The access token has expired");
+        }
+
+        Map<String, Object> claims = new LinkedHashMap<>();
+        claims.put("iss", issuer);
+        claims.put("sub", principal.sub());
+        claims.put("iat", now.getEpochSecond());
+        claims.put("exp", expiresAt.getEpochSecond());
+        claims.put("jti", UUID.randomUUID().toString());
+        putIfPresent(claims, "preferred_username", principal.username());
+        putIfPresent(claims, "email", principal.email());
+        claims.put("email_verified", principal.emailVerified());
+        claims.put("realm_access", Map.of("roles", principal.realmRoles()));
+        Map<String, Object> resourceAccess = new LinkedHashMap<>();
+        principal.clientRoles().forEach((clientId, roles) -> resourceAccess.put(clientId, Map.of("roles", roles)));
+        claims.put("resource_access", resourceAccess);
+
+        PeriodKey key = key(periodOf(now));
+        String signingInput = key.encodedHeader() + '.'
+                + Base64URL.encode(JSONObjectUtils.toJSONString(claims).getBytes(StandardCharsets.UTF_8));
+        String ticket = signingInput + '.' + Base64URL.encode(sign(key, signingInput));
+        return LazyClaimsJwtDecoder.parseVerified(ticket, lazyClaims);
+    }
+
+    /**
+     * Checks if a token is a ticket signed with a key that is currently accepted.
+     *
+     * @param token the serialized token
+     * @return true if the token should be decoded as a ticket
+     */
+    public boolean isTicket(String token) {
+        return match(token, clock.instant()) != null;
+    }
+
+    /**
+     * Verifies and validates a ticket.
+     *
+     * @param token the serialized ticket
+     * @return the JWT
+     * @throws JwtException if the token is not a valid ticket
+     */
+    public Jwt decode(String token) throws JwtException {
+        PeriodKey key = match(token, clock.instant());
+        if (key == null) {
+            throw new BadJwtException("Not a service ticket, or its key is no longer accepted");
+        }
+        int second = token.indexOf('.', key.encodedHeader().length() + 1);
+        if (second < 0) {
+            throw new BadJwtException("Malformed token: expected three segments");
+        }
+        byte[] signature;
+        try {
+            signature = new Base64URL(token.substring(second + 1)).decode();
+        } catch (IllegalArgumentException e) {
+            throw new BadJwtException("Malformed ticket signature", e);
+        }
+        if (!MessageDigest.isEqual(signature, sign(key, token.substring(0, second)))) {
+            throw new BadJwtException("Invalid ticket signature");
+        }
+
+        Jwt jwt = LazyClaimsJwtDecoder.parseVerified(token, lazyClaims);
+        LazyClaimsJwtDecoder.validate(jwt, validator);
+        return jwt;
+    }
+
+    private PeriodKey match(String token, Instant now) {
+        long current = periodOf(now);
+        for (long period = current - 1; period <= current + 1; period++) {
+            if (!isAccepted(period, now)) {
+                continue;
+            }
+            PeriodKey key = key(period);
+            String header = key.encodedHeader();
+            if (token.length() > header.length() && token.charAt(header.length()) == '.' && token.startsWith(header)) {
+                return key;
+            }
+        }
+        return null;
+    }
+
+    private boolean isAccepted(long period, Instant now) {
+        long start = period * rotationSeconds;
+        long end = start + rotationSeconds;
+        long epochSecond = now.getEpochSecond();
+        return epochSecond >= start - CLOCK_SKEW.getSeconds()
+                && epochSecond < end + ttl.getSeconds() + CLOCK_SKEW.getSeconds();
+    }
+
+    private long periodOf(Instant instant) {
+        return Math.floorDiv(instant.getEpochSecond(), rotationSeconds);
+    }
+
+    private PeriodKey key(long period) {
+        PeriodKey key = keys.get(period);
+        if (key != null) {
+            return key;
+        }
+        // Only the neighbours of the current period are ever accepted
+        keys.keySet().removeIf(cached -> Math.abs(cached - period) > 2);
+        return keys.computeIfAbsent(period, this::deriveKey);
+    }
+
+    private PeriodKey deriveKey(long period) {
+        String keyId = KEY_ID_PREFIX + period;
+        byte[] keyBytes = hmac(masterKey, "service-ticket-key\n" + period);
+        String header = "{\"alg\":\"HS256\",\"typ\":\"JWT\",\"kid\":\"" + keyId + "\"}";
+        return new PeriodKey(new SecretKeySpec(keyBytes, MAC_ALGORITHM),
+                Base64URL.encode(header.getBytes(StandardCharsets.UTF_8)).toString());
+    }
+
+    private static byte[] sign(PeriodKey key, String signingInput) {
+        return hmac(key.key(), signingInput);
+    }
+
+    private static byte[] hmac(SecretKeySpec key, String input) {
+        Mac mac = MACS.get();
+        try {
+            mac.init(key);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot initialize " + MAC_ALGORITHM, e);
+        }
+        return mac.doFinal(input.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static void putIfPresent(Map<String, Object> claims, String name, Object value) {
+        if (value != null) {
+            claims.put(name, value);
+        }
+    }
+
+    private record PeriodKey(SecretKeySpec key, String encodedHeader) {
+    }
+}
@@ -0,0 +1,30 @@
+package com.auth.oidcprovider.util;
+
+import com.auth.oidcprovider.services.ServiceTicketService;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+
+/**
+ * JWT decoder that verifies service tickets with their HMAC key and passes every other token to the
+ * access token decoder. Tickets are recognized by their encoded header, so access tokens pay only a
+ * prefix comparison.
+ */
+public class ServiceTicketJwtDecoder implements JwtDecoder {
+
+    private final ServiceTicketService serviceTicketService;
+    private final JwtDecoder delegate;
+
+    public ServiceTicketJwtDecoder(ServiceTicketService serviceTicketService, JwtDecoder delegate) {
+        this.serviceTicketService = serviceTicketService;
+        this.delegate = delegate;
+    }
+
+    @Override
+    public Jwt decode(String token) throws JwtException {
+        if (serviceTicketService.isTicket(token)) {
+            return serviceTicketService.decodeTicket(token);
+        }
+        return delegate.decode(token);
+    }
+}
@@ -0,0 +1,287 @@
+package com.auth.oidcprovider.util;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JOSEObjectType;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.JWSSigner;
+import com.nimbusds.jose.KeySourceException;
+import com.nimbusds.jose.crypto.ECDSASigner;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.Curve;
+import com.nimbusds.jose.jwk.ECKey;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSelector;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.KeyUse;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.ECKeyGenerator;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jose.jwk.source.JWKSource;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jose.util.Base64URL;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Signing keys for locally issued tokens, one rotating key per algorithm.
+ * <p>
+ * For every algorithm the pool holds the current key, which signs, and the next key, generated ahead of time
+ * and already published, so resource servers caching the JWK set know it before the first token signed with it
+ * appears. Rotating makes the next key current, retires the current one and generates a new next key. Retired
+ * keys stay published for the retention period, long enough for every token they signed to expire.
+ * <p>
+ * Each key keeps a single signer and its pre-encoded JWS header for its whole life. The Nimbus RSA and EC
+ * signers create a fresh {@link java.security.Signature} per call, so one signer is shared by all threads.
+ * The keys in use are an immutable snapshot swapped on rotation, so signing takes no lock. Public keys of other
+ * nodes can be added to the published set, so tokens signed on any node verify on every node.
+ */
+public class SigningKeyPool implements JWKSource<SecurityContext> {
+
+    private final List<JWSAlgorithm> algorithms;
+    private final Duration retention;
+    private final Clock clock;
+    private final List<Consumer<JWKSet>> listeners = new CopyOnWriteArrayList<>();
+    private volatile Snapshot snapshot;
+
+    /**
+     * Creates a pool and generates the current and next key of each algorithm.
+     *
+     * @param algorithms the supported algorithms; RS256 and ES256 are supported
+     * @param retention how long retired keys stay published
+     * @param clock the clock
+     */
+    public SigningKeyPool(List<JWSAlgorithm> algorithms, Duration retention, Clock clock) {
+        this.algorithms = List.copyOf(algorithms);
+        this.retention = retention;
+        this.clock = clock;
+        Map<JWSAlgorithm, SigningKey> current = new LinkedHashMap<>();
+        Map<JWSAlgorithm, SigningKey> next = new LinkedHashMap<>();
+        for (JWSAlgorithm algorithm : this.algorithms) {
+            current.put(algorithm, generate(algorithm));
+            next.put(algorithm, generate(algorithm));
+        }
+        this.snapshot = new Snapshot(current, next, List.of(), List.of());
+    }
+
+    /**
+     * Signs a JWT.
+     *
+     * @param algorithm the algorithm
+     * @param claimsJson the serialized claims
+     * @return the serialized JWT
+     */
+    public String sign(JWSAlgorithm algorithm, String claimsJson) {
+        SigningKey key = snapshot.current().get(algorithm);
+        if (key == null) {
+            throw new IllegalArgumentException("No signing key for " + algorithm);
+        }
+        String signingInput = key.encodedHeader() + '.' + Base64URL.encode(claimsJson.getBytes(StandardCharsets.UTF_8));
+        try {
+            return signingInput + '.' + key.signer().sign(key.header(), signingInput.getBytes(StandardCharsets.US_ASCII));
+        } catch (JOSEException e) {
+            throw new IllegalStateException("Cannot sign with key " + key.keyId(), e);
+        }
+    }
+
+    /**
+     * Makes the next key of each algorithm current and generates new next keys.
+     */
+    public void rotate() {
+        // Keys are generated before taking the lock; RSA key generation takes a while
+        Map<JWSAlgorithm, SigningKey> generated = new LinkedHashMap<>();
+        for (JWSAlgorithm algorithm : algorithms) {
+            generated.put(algorithm, generate(algorithm));
+        }
+        Instant now = clock.instant();
+        synchronized (this) {
+            Snapshot old = snapshot;
+            Map<JWSAlgorithm, SigningKey> current = new LinkedHashMap<>();
+            Map<JWSAlgorithm, SigningKey> next = new LinkedHashMap<>();
+            List<RetiredKey> retired = new ArrayList<>();
+            for (RetiredKey key : old.retired()) {
+                if (key.publishedUntil().isAfter(now)) {
+                    retired.add(key);
+                }
+            }
+            for (JWSAlgorithm algorithm : algorithms) {
+                retired.add(new RetiredKey(old.current().get(algorithm).publicKey(), now.plus(retention)));
+                current.put(algorithm, old.next().get(algorithm));
+                next.put(algorithm, generated.get(algorithm));
+            }
+            snapshot = new Snapshot(current, next, retired, old.remoteKeys());
+        }
+        notifyListeners();
+    }
+
+    /**
+     * Replaces the public keys published on behalf of other nodes.
+     *
+     * @param keys the public keys of other nodes
+     */
+    public void setRemoteKeys(Collection<JWK> keys) {
+        boolean changed;
+        synchronized (this) {
+            Snapshot old = snapshot;
+            List<JWK> remote = new ArrayList<>();
+            for (JWK key : keys) {
+                if (!old.ownKeyIds().contains(key.getKeyID())) {
+                    remote.add(key.toPublicJWK());
+                }
+            }
+            changed = !old.remoteKeys().equals(remote);
+            if (changed) {
+                snapshot = new Snapshot(old.current(), old.next(), old.retired(), remote);
+            }
+        }
+        if (changed) {
+            notifyListeners();
+        }
+    }
+
+    /**
+     * Gets the public keys this node signs or signed with and has not dropped yet: next, current and retired.
+     *
+     * @return the public keys
+     */
+    public List<JWK> getOwnPublicKeys() {
+        return snapshot.ownPublicKeys();
+    }
+
+    /**
+     * Gets every published public key, including those of other nodes.
+     *
+     * @return the JWK set
+     */
+    public JWKSet getPublicKeys() {
+        return snapshot.publicKeys();
+    }
+
+    /**
+     * Registers a listener called with the published keys whenever they change.
+     *
+     * @param listener the listener
+     */
+    public void addListener(Consumer<JWKSet> listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public List<JWK> get(JWKSelector jwkSelector, SecurityContext context) throws KeySourceException {
+        return jwkSelector.select(snapshot.publicKeys());
+    }
+
+    private void notifyListeners() {
+        JWKSet keys = snapshot.publicKeys();
+        for (Consumer<JWKSet> listener : listeners) {
+            listener.accept(keys);
+        }
+    }
+
+    private static SigningKey generate(JWSAlgorithm algorithm) {
+        String keyId = algorithm.getName().toLowerCase() + "-" + UUID.randomUUID();
+        try {
+            JWK key;
+            JWSSigner signer;
+            if (JWSAlgorithm.RS256.equals(algorithm)) {
+                RSAKey rsaKey = new RSAKeyGenerator(2048).keyID(keyId).algorithm(algorithm).keyUse(KeyUse.SIGNATURE)
+                        .generate();
+                key = rsaKey;
+                signer = new RSASSASigner(rsaKey);
+            } else if (JWSAlgorithm.ES256.equals(algorithm)) {
+                ECKey ecKey = new ECKeyGenerator(Curve.P_256).keyID(keyId).algorithm(algorithm).keyUse(KeyUse.SIGNATURE)
+                        .generate();
+                key = ecKey;
+                signer = new ECDSASigner(ecKey);
+            } else {
+                throw new IllegalArgumentException("Unsupported signing algorithm: " + algorithm);
+            }
+            JWSHeader header = new JWSHeader.Builder(algorithm).type(JOSEObjectType.JWT).keyID(keyId).build();
+            return new SigningKey(keyId, header, header.toBase64URL().toString(), signer, key.toPublicJWK());
+        } catch (JOSEException e) {
+            throw new IllegalStateException("Cannot generate a " + algorithm + " key", e);
+        }
+    }
+
+    private record SigningKey(String keyId, JWSHeader header, String encodedHeader, JWSSigner signer, JWK publicKey) {
+    }
+
+    private record RetiredKey(JWK publicKey, Instant publishedUntil) {
+    }
+
+    /**
+     * Immutable view of the keys in use, with the published key set derived once.
+     */
+    private static final class Snapshot {
+
+        private final Map<JWSAlgorithm, SigningKey> current;
+        private final Map<JWSAlgorithm, SigningKey> next;
+        private final List<RetiredKey> retired;
+        private final List<JWK> remoteKeys;
+        private final List<JWK> ownPublicKeys;
+        private final Set<String> ownKeyIds;
+        private final JWKSet publicKeys;
+
+        Snapshot(Map<JWSAlgorithm, SigningKey> current, Map<JWSAlgorithm, SigningKey> next,
+                 List<RetiredKey> retired, List<JWK> remoteKeys) {
+            this.current = Collections.unmodifiableMap(current);
+            this.next = Collections.unmodifiableMap(next);
+            this.retired = List.copyOf(retired);
+            this.remoteKeys = List.copyOf(remoteKeys);
+
+            List<JWK> own = new ArrayList<>();
+            current.values().forEach(key -> own.add(key.publicKey()));
+            next.values().forEach(key -> own.add(key.publicKey()));
+            retired.forEach(key -> own.add(key.publicKey()));
+            this.ownPublicKeys = List.copyOf(own);
+            Set<String> keyIds = new HashSet<>();
+            own.forEach(key -> keyIds.add(key.getKeyID()));
+            this.ownKeyIds = Collections.unmodifiableSet(keyIds);
+            List<JWK> all = new ArrayList<>(own);
+            all.addAll(remoteKeys);
+            this.publicKeys = new JWKSet(all);
+        }
+
+        Map<JWSAlgorithm, SigningKey> current() {
+            return current;
+        }
+
+        Map<JWSAlgorithm, SigningKey> next() {
+            return next;
+        }
+
+        List<RetiredKey> retired() {
+            return retired;
+        }
+
+        List<JWK> remoteKeys() {
+            return remoteKeys;
+        }
+
+        List<JWK> ownPublicKeys() {
+            return ownPublicKeys;
+        }
+
+        Set<String> ownKeyIds() {
+            return ownKeyIds;
+        }
+
+        JWKSet publicKeys() {
+            return publicKeys;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.auth.oidcprovider.util;
+
+import com.auth.authz.SubjectRoles;
+
+import java.security.Principal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Identity and roles of an access token, read from its claims once when the request is authenticated.
+ * <p>
+ * Built by {@link TokenPrincipalConverter} and attached to the {@link TokenPrincipalAuthenticationToken},
+ * so controllers and services use these values instead of walking the claims again. Realm and client
+ * roles are kept as issued; {@code roles} holds the realm roles upper-cased, expanded through the role
+ * hierarchy and encoded as a bitset for the decision engine.
+ *
+ * @param sub the subject (Keycloak user ID)
+ * @param username the preferred username
+ * @param email the email address
+ * @param emailVerified whether the email address is verified
+ * @param realmRoles the realm roles as issued
+ * @param clientRoles map of client ID to its roles as issued
+ * @param roles the expanded realm roles
+ */
+public record TokenPrincipal(String sub, String username, String email, boolean emailVerified,
+                             List<String> realmRoles, Map<String, List<String>> clientRoles,
+                             SubjectRoles roles) implements Principal {
+
+    public TokenPrincipal {
+        realmRoles = Collections.unmodifiableList(realmRoles);
+        clientRoles = Collections.unmodifiableMap(clientRoles);
+    }
+
+    @Override
+    public String getName() {
+        return sub;
+    }
+
+    /**
+     * Gets the realm roles followed by the client roles, the latter as {@code client:role}.
+     *
+     * @return the role names as issued
+     */
+    public List<String> roleNames() {
+        List<String> names = new ArrayList<>(realmRoles);
+        clientRoles.forEach((clientId, roles) -> roles.forEach(role -> names.add(clientId + ":" + role)));
+        return names;
+    }
+}
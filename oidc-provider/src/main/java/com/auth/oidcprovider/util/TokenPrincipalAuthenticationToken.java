@@ -0,0 +1,26 @@
+package com.auth.oidcprovider.util;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+
+import java.util.Collection;
+
+/**
+ * JWT authentication carrying the {@link TokenPrincipal} extracted from the token.
+ * It remains a {@link JwtAuthenticationToken}, so code reading the raw token keeps working.
+ */
+public class TokenPrincipalAuthenticationToken extends JwtAuthenticationToken {
+
+    private final TokenPrincipal tokenPrincipal;
+
+    public TokenPrincipalAuthenticationToken(Jwt jwt, Collection<? extends GrantedAuthority> authorities,
+                                             TokenPrincipal tokenPrincipal) {
+        super(jwt, authorities, tokenPrincipal.sub());
+        this.tokenPrincipal = tokenPrincipal;
+    }
+
+    public TokenPrincipal getTokenPrincipal() {
+        return tokenPrincipal;
+    }
+}
@@ -0,0 +1,91 @@
+package com.auth.oidcprovider.util;
+
+import com.auth.authz.ClaimPath;
+import com.auth.authz.KeycloakRoleExtractor;
+import com.auth.authz.SubjectRoles;
+import com.auth.oidcprovider.services.PolicySnapshotService;
+import com.auth.oidcprovider.services.RoleHierarchyService;
+import com.auth.oidcprovider.services.UserService;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.security.authentication.AbstractAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Converts a verified JWT to an authentication carrying its {@link TokenPrincipal}.
+ * <p>
+ * This is the one place where the claims of a request's token are walked. Realm roles become
+ * {@code ROLE_} authorities, together with the effective roles stored for the user, which include the
+ * roles of its groups and its role grants in effect. Both are expanded with every role they include in the role hierarchy so downstream
+ * checks are plain set lookups.
+ */
+@Component
+public class TokenPrincipalConverter implements Converter<Jwt, AbstractAuthenticationToken> {
+
+    private static final String ROLE_PREFIX = "ROLE_";
+    private static final ClaimPath PREFERRED_USERNAME = ClaimPath.of("preferred_username");
+    private static final ClaimPath EMAIL = ClaimPath.of("email");
+    private static final ClaimPath EMAIL_VERIFIED = ClaimPath.of("email_verified");
+
+    private final RoleHierarchyService roleHierarchyService;
+    private final PolicySnapshotService policySnapshotService;
+    private final UserService userService;
+
+    public TokenPrincipalConverter(RoleHierarchyService roleHierarchyService,
+                                   PolicySnapshotService policySnapshotService,
+                                   UserService userService) {
+        this.roleHierarchyService = roleHierarchyService;
+        this.policySnapshotService = policySnapshotService;
+        this.userService = userService;
+    }
+
+    @Override
+    public AbstractAuthenticationToken convert(Jwt jwt) {
+        TokenPrincipal principal = toPrincipal(jwt);
+        Set<String> roles = principal.roles().names();
+        List<GrantedAuthority> authorities = new ArrayList<>(roles.size());
+        for (String role : roles) {
+            authorities.add(new SimpleGrantedAuthority(ROLE_PREFIX + role));
+        }
+        return new TokenPrincipalAuthenticationToken(jwt, authorities, principal);
+    }
+
+    /**
+     * Reads the principal from a JWT, adding the stored roles of the user it identifies.
+     *
+     * @param jwt the verified JWT
+     * @return the principal
+     */
+    public TokenPrincipal toPrincipal(Jwt jwt) {
+        Map<String, Object> claims = jwt.getClaims();
+        List<String> realmRoles = KeycloakRoleExtractor.realmRoles(claims);
+
+        Set<String> normalizedRoles = new HashSet<>();
+        for (String role : realmRoles) {
+            normalizedRoles.add(role.toUpperCase());
+        }
+        // Roles assigned in this service, directly, through groups or by grants, are not in the token
+        for (String role : userService.findEffectiveRolesByKeycloakId(jwt.getSubject())) {
+            normalizedRoles.add(role.toUpperCase());
+        }
+        SubjectRoles roles = policySnapshotService.getEngine()
+                .resolveSubject(roleHierarchyService.expandRoles(normalizedRoles));
+
+        return new TokenPrincipal(
+                jwt.getSubject(),
+                PREFERRED_USERNAME.getString(claims),
+                EMAIL.getString(claims),
+                Boolean.TRUE.equals(EMAIL_VERIFIED.getBoolean(claims)),
+                realmRoles,
+                KeycloakRoleExtractor.clientRoles(claims),
+                roles);
+    }
+}
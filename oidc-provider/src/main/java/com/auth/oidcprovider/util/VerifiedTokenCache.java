@@ -0,0 +1,253 @@
+package com.auth.oidcprovider.util;
+
+import com.auth.oidcprovider.dto.VerifiedTokenCacheStats;
+import com.auth.oidcprovider.models.VerifiedToken;
+import com.auth.oidcprovider.repositories.VerifiedTokenRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.security.oauth2.core.OAuth2TokenValidator;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtException;
+import org.springframework.security.oauth2.jwt.JwtValidators;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Two-level cache of tokens that passed signature verification.
+ * <p>
+ * The local level maps the serialized token to its decoded {@link Jwt} until the token expires or the
+ * TTL passes, whichever is first. Keying by the whole token means a hit can only ever return the JWT of
+ * that exact token.
+ * <p>
+ * The optional shared level lets a token verified on one node skip verification on every other node. It
+ * stores the SHA-256 fingerprint of the token with its issuer, subject and expiry in a Mongo collection
+ * whose TTL index drops records once the token expires. Each record carries an HMAC over all its fields
+ * under a secret shared by the nodes, so a record that was tampered with or written without the secret
+ * is ignored and the token is verified normally. On a shared hit the claims are parsed from the token
+ * itself, checked against the record and validated like any other token. Store failures never fail a
+ * request; they only cost the verification the cache would have saved.
+ */
+public class VerifiedTokenCache {
+
+    private static final Logger log = LoggerFactory.getLogger(VerifiedTokenCache.class);
+    private static final String MAC_ALGORITHM = "HmacSHA256";
+    private static final int MIN_SECRET_LENGTH = 32;
+
+    private final int maxSize;
+    private final Duration ttl;
+    private final VerifiedTokenRepository sharedStore;
+    private final SecretKeySpec macKey;
+    private final boolean lazyClaims;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<String, OAuth2TokenValidator<Jwt>> validators = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder sharedHits = new LongAdder();
+    private final LongAdder sharedRejections = new LongAdder();
+    private final LongAdder sharedErrors = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Creates a cache with only the local level.
+     *
+     * @param maxSize the maximum number of local entries, 0 to disable the local level
+     * @param ttl the longest time a token stays in the local level
+     */
+    public VerifiedTokenCache(int maxSize, Duration ttl) {
+        this.maxSize = maxSize;
+        this.ttl = ttl;
+        this.sharedStore = null;
+        this.macKey = null;
+        this.lazyClaims = false;
+    }
+
+    /**
+     * Creates a cache with a local and a shared level.
+     *
+     * @param maxSize the maximum number of local entries, 0 to disable the local level
+     * @param ttl the longest time a token stays in the local level
+     * @param sharedStore the store shared by all nodes
+     * @param secret the secret shared by all nodes to authenticate store records, at least 32 bytes
+     * @param lazyClaims whether tokens read from the shared level are parsed with lazy claims
+     */
+    public VerifiedTokenCache(int maxSize, Duration ttl, VerifiedTokenRepository sharedStore, byte[] secret,
+                              boolean lazyClaims) {
+        if (secret == null || secret.length < MIN_SECRET_LENGTH) {
+            throw new IllegalArgumentException(
+                    "The shared verified-token cache needs a secret of at least " + MIN_SECRET_LENGTH + " bytes");
+        }
+        this.maxSize = maxSize;
+        this.ttl = ttl;
+        this.sharedStore = sharedStore;
+        this.macKey = new SecretKeySpec(secret, MAC_ALGORITHM);
+        this.lazyClaims = lazyClaims;
+    }
+
+    /**
+     * Gets a token from the local level.
+     *
+     * @param token the serialized token
+     * @return the verified JWT, or null on a miss
+     */
+    public Jwt get(String token) {
+        if (entries.isEmpty()) {
+            return null;
+        }
+        Entry entry = entries.get(token);
+        if (entry == null) {
+            return null;
+        }
+        if (!entry.cachedUntil().isAfter(Instant.now())) {
+            entries.remove(token, entry);
+            return null;
+        }
+        hits.increment();
+        return entry.jwt();
+    }
+
+    /**
+     * Gets a token from the shared level and, on a hit, keeps it in the local level.
+     *
+     * @param token the serialized token
+     * @param issuer the issuer the token was routed to
+     * @return the validated JWT, or null on a miss or if the shared level is disabled
+     */
+    public Jwt getShared(String token, String issuer) {
+        if (sharedStore == null) {
+            return null;
+        }
+        String id = fingerprint(token);
+        VerifiedToken record;
+        try {
+            record = sharedStore.findById(id).orElse(null);
+        } catch (DataAccessException e) {
+            sharedErrors.increment();
+            log.debug("Shared verified-token cache unavailable: {}", e.getMessage());
+            return null;
+        }
+        if (record == null) {
+            return null;
+        }
+
+        Instant now = Instant.now();
+        if (record.getExpiresAt() == null || !record.getExpiresAt().isAfter(now)) {
+            // Expired but not yet removed by the TTL monitor
+            return null;
+        }
+        if (!hasValidMac(record) || !issuer.equals(record.getIssuer())) {
+            sharedRejections.increment();
+            log.warn("Ignoring shared verified-token record {} that fails authentication", id);
+            return null;
+        }
+
+        Jwt jwt;
+        try {
+            jwt = LazyClaimsJwtDecoder.parseVerified(token, lazyClaims);
+            LazyClaimsJwtDecoder.validate(jwt,
+                    validators.computeIfAbsent(issuer, JwtValidators::createDefaultWithIssuer));
+        } catch (JwtException e) {
+            // Full verification reports the error
+            return null;
+        }
+        if (!Objects.equals(record.getSubject(), jwt.getSubject()) || !record.getExpiresAt().equals(jwt.getExpiresAt())) {
+            sharedRejections.increment();
+            return null;
+        }
+        sharedHits.increment();
+        putLocal(token, jwt, now);
+        return jwt;
+    }
+
+    /**
+     * Remembers a token that passed verification. Tokens without an expiry are not cached.
+     *
+     * @param token the serialized token
+     * @param issuer the issuer whose key verified the token
+     * @param jwt the verified JWT
+     */
+    public void put(String token, String issuer, Jwt jwt) {
+        Instant expiresAt = jwt.getExpiresAt();
+        if (expiresAt == null) {
+            return;
+        }
+        putLocal(token, jwt, Instant.now());
+        if (sharedStore == null) {
+            return;
+        }
+
+        VerifiedToken record = new VerifiedToken(fingerprint(token), issuer, jwt.getSubject(), expiresAt, null);
+        record.setMac(Base64.getEncoder().encodeToString(mac(record)));
+        try {
+            sharedStore.save(record);
+        } catch (DataAccessException e) {
+            sharedErrors.increment();
+            log.debug("Could not share verified token: {}", e.getMessage());
+        }
+    }
+
+    public VerifiedTokenCacheStats getStats() {
+        return new VerifiedTokenCacheStats(sharedStore != null, hits.sum(), sharedHits.sum(),
+                sharedRejections.sum(), sharedErrors.sum(), evictions.sum(), entries.size());
+    }
+
+    private void putLocal(String token, Jwt jwt, Instant now) {
+        if (maxSize <= 0) {
+            return;
+        }
+        if (entries.size() >= maxSize) {
+            // Verifying again is the only cost of a dropped entry, so a full cache is simply emptied
+            evictions.add(entries.size());
+            entries.clear();
+        }
+        Instant ttlEnd = now.plus(ttl);
+        entries.put(token, new Entry(jwt, jwt.getExpiresAt().isBefore(ttlEnd) ? jwt.getExpiresAt() : ttlEnd));
+    }
+
+    private boolean hasValidMac(VerifiedToken record) {
+        if (record.getMac() == null) {
+            return false;
+        }
+        try {
+            return MessageDigest.isEqual(Base64.getDecoder().decode(record.getMac()), mac(record));
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private byte[] mac(VerifiedToken record) {
+        String input = record.getId() + '\n' + record.getIssuer() + '\n'
+                + Objects.toString(record.getSubject(), "") + '\n' + record.getExpiresAt().getEpochSecond();
+        try {
+            // Mac instances are not thread-safe, and creating one is cheap next to a store round trip
+            Mac mac = Mac.getInstance(MAC_ALGORITHM);
+            mac.init(macKey);
+            return mac.doFinal(input.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot compute " + MAC_ALGORITHM, e);
+        }
+    }
+
+    private static String fingerprint(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private record Entry(Jwt jwt, Instant cachedUntil) {
+    }
+}
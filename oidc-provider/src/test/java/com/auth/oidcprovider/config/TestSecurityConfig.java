@@ -1,6 +1,8 @@
 package com.auth.oidcprovider.config;
 
 import com.auth.oidcprovider.util.JwtTestUtil;
+import com.auth.oidcprovider.util.TokenPrincipalConverter;
+import jakarta.servlet.DispatcherType;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.TestConfiguration;
 import org.springframework.context.annotation.Bean;
@@ -22,6 +24,9 @@ public class TestSecurityConfig {
     @Autowired
     private JwtTestUtil jwtTestUtil;
 
+    @Autowired
+    private TokenPrincipalConverter tokenPrincipalConverter;
+
     /**
      * Creates a test security filter chain.
      *
@@ -34,6 +39,7 @@ public class TestSecurityConfig {
         http
             .csrf(csrf -> csrf.disable())
             .authorizeHttpRequests(authorize -> authorize
+                .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                 // Allow registration endpoint without authentication
                 .requestMatchers("/api/auth/register", "/api/auth/login", "/api/auth/refresh").permitAll()
                 
@@ -58,7 +64,9 @@ public class TestSecurityConfig {
             )
             .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
             .oauth2ResourceServer(oauth2 -> oauth2
-                .jwt(jwt -> jwt.decoder(testJwtDecoder()))
+                .jwt(jwt -> jwt
+                    .decoder(testJwtDecoder())
+                    .jwtAuthenticationConverter(tokenPrincipalConverter))
             );
             
         return http.build();
@@ -1,10 +1,24 @@
 package com.auth.oidcprovider.controllers;
 
+import com.auth.authz.AccessDecisionEngine;
+import com.auth.authz.PolicyReplica;
+import com.auth.authz.PolicyRule;
+import com.auth.authz.PolicySnapshot;
+import com.auth.authz.PolicySnapshotCodec;
 import com.auth.oidcprovider.config.TestSecurityConfig;
+import com.auth.oidcprovider.dto.AccessPolicyRequest;
 import com.auth.oidcprovider.dto.ApiResponse;
+import com.auth.oidcprovider.dto.AuthorizationCheckRequest;
+import com.auth.oidcprovider.dto.AuthorizationCheckTuple;
+import com.auth.oidcprovider.dto.GroupRequest;
+import com.auth.oidcprovider.dto.ProductAccessCheckRequest;
+import com.auth.oidcprovider.dto.RoleGrantRequest;
+import com.auth.oidcprovider.models.Group;
 import com.auth.oidcprovider.models.Product;
 import com.auth.oidcprovider.models.User;
 import com.auth.oidcprovider.repositories.ProductRepository;
+import com.auth.oidcprovider.services.PolicySnapshotService;
+import com.auth.oidcprovider.services.RoleGrantService;
 import com.auth.oidcprovider.util.JwtTestUtil;
 import com.auth.oidcprovider.util.TestDataInitializer;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -25,6 +39,13 @@ import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
 import static org.hamcrest.Matchers.*;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -54,6 +75,12 @@ public class ProductAccessControlFlowIntegrationTest {
     @Autowired
     private JwtTestUtil jwtTestUtil;
 
+    @Autowired
+    private PolicySnapshotService policySnapshotService;
+
+    @Autowired
+    private RoleGrantService roleGrantService;
+
     private User adminUser;
     private User salesManagerUser;
     private User crmRepUser;
@@ -68,6 +95,9 @@ public class ProductAccessControlFlowIntegrationTest {
         adminUser = testDataInitializer.createTestUser("admin", "ADMIN");
         salesManagerUser = testDataInitializer.createTestUser("sales_manager", "SALES_MANAGER");
         crmRepUser = testDataInitializer.createTestUser("crm_rep", "CRM_REP");
+
+        // Test data is written straight to the repositories, bypassing change events
+        policySnapshotService.reload();
     }
 
     @AfterEach
@@ -286,4 +316,352 @@ public class ProductAccessControlFlowIntegrationTest {
                 .header("Authorization", "Bearer " + token))
                 .andExpect(status().isForbidden());
     }
-} 
\ No newline at end of file
+
+    /**
+     * Tests that the batch access check returns a per-product decision for the caller's roles.
+     */
+    @Test
+    void batchAccessCheckReturnsPerProductDecisions() throws Exception {
+        // Generate sales manager token
+        String token = jwtTestUtil.generateSalesManagerToken(salesManagerUser.getId(), salesManagerUser.getUsername());
+
+        Product iPhone = productRepository.findByName("iPhone").orElseThrow();
+        Product iPad = productRepository.findByName("iPad").orElseThrow();
+        Product macbookPro = productRepository.findByName("MacBook Pro").orElseThrow();
+
+        ProductAccessCheckRequest request = new ProductAccessCheckRequest(
+                Arrays.asList(iPhone.getId(), iPad.getId(), macbookPro.getId(), "unknown-product"));
+
+        mockMvc.perform(post("/api/products/access-check")
+                .header("Authorization", "Bearer " + token)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.success", is(true)))
+                .andExpect(jsonPath("$.data['" + iPhone.getId() + "']", is(true)))
+                .andExpect(jsonPath("$.data['" + iPad.getId() + "']", is(true)))
+                .andExpect(jsonPath("$.data['" + macbookPro.getId() + "']", is(false)))
+                .andExpect(jsonPath("$.data['unknown-product']", is(false)));
+    }
+
+    /**
+     * Tests that the catalog can be paged with a keyset cursor and projected to selected fields.
+     */
+    @Test
+    void catalogCanBePagedWithCursorAndProjection() throws Exception {
+        // Generate CRM rep token
+        String token = jwtTestUtil.generateCrmRepToken(crmRepUser.getId(), crmRepUser.getUsername());
+
+        MvcResult firstPage = mockMvc.perform(get("/api/products/catalog")
+                .param("size", "2")
+                .param("sort", "price,asc")
+                .param("fields", "name,price")
+                .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.content", hasSize(2)))
+                .andExpect(jsonPath("$.data.content[0].name", is("iPad")))
+                .andExpect(jsonPath("$.data.content[1].name", is("iPhone")))
+                .andExpect(jsonPath("$.data.content[0].price", is(799.99)))
+                .andExpect(jsonPath("$.data.content[0].description").doesNotExist())
+                .andExpect(jsonPath("$.data.content[0].allowedRoles").doesNotExist())
+                .andExpect(jsonPath("$.data.hasNext", is(true)))
+                .andReturn();
+
+        String cursor = objectMapper.readTree(firstPage.getResponse().getContentAsString())
+                .path("data").path("nextCursor").asText();
+
+        mockMvc.perform(get("/api/products/catalog")
+                .param("size", "2")
+                .param("cursor", cursor)
+                .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.content", hasSize(1)))
+                .andExpect(jsonPath("$.data.content[0].name", is("MacBook Pro")))
+                .andExpect(jsonPath("$.data.hasNext", is(false)));
+    }
+
+    /**
+     * Tests that a replica can follow the access model through a full snapshot and a delta.
+     */
+    @Test
+    void replicaFollowsSnapshotAndDelta() throws Exception {
+        // Generate admin token
+        String token = jwtTestUtil.generateAdminToken(adminUser.getId(), adminUser.getUsername());
+        Product macbookPro = productRepository.findByName("MacBook Pro").orElseThrow();
+
+        PolicyReplica replica = new PolicyReplica();
+        MvcResult fullResult = mockMvc.perform(get("/api/authz/snapshot")
+                .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Policy-Snapshot", "full"))
+                .andReturn();
+        replica.apply(PolicySnapshotCodec.decode(fullResult.getResponse().getContentAsByteArray()));
+
+        AccessDecisionEngine engine = replica.getEngine();
+        assertFalse(engine.canAccessProduct(engine.resolveSubject(List.of("CRM_REP")), macbookPro.getId()));
+
+        // Grant CRM_REP on MacBook Pro, then fetch only the change
+        mockMvc.perform(post("/api/products/" + macbookPro.getId() + "/roles/CRM_REP")
+                .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk());
+
+        MvcResult deltaResult = mockMvc.perform(get("/api/authz/snapshot")
+                .param("epoch", String.valueOf(replica.getEpoch()))
+                .param("sinceVersion", String.valueOf(replica.getVersion()))
+                .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Policy-Snapshot", "delta"))
+                .andReturn();
+        PolicySnapshot delta = PolicySnapshotCodec.decode(deltaResult.getResponse().getContentAsByteArray());
+        assertEquals(1, delta.getProducts().size());
+        replica.apply(delta);
+
+        assertTrue(engine.canAccessProduct(engine.resolveSubject(List.of("CRM_REP")), macbookPro.getId()));
+
+        // Nothing changed since, so the replica is up to date
+        mockMvc.perform(get("/api/authz/snapshot")
+                .param("epoch", String.valueOf(replica.getEpoch()))
+                .param("sinceVersion", String.valueOf(replica.getVersion()))
+                .header("Authorization", "Bearer " + token))
+                .andExpect(status().isNotModified());
+    }
+
+    /**
+     * Tests that role changes are pushed to event stream subscribers and can be replayed by ID.
+     */
+    @Test
+    void permissionChangesAreStreamedAndReplayable() throws Exception {
+        // Generate admin token
+        String token = jwtTestUtil.generateAdminToken(adminUser.getId(), adminUser.getUsername());
+        Product macbookPro = productRepository.findByName("MacBook Pro").orElseThrow();
+
+        MvcResult stream = mockMvc.perform(get("/api/authz/events")
+                .header("Authorization", "Bearer " + token))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(post("/api/products/" + macbookPro.getId() + "/roles/CRM_REP")
+                .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk());
+
+        String received = awaitContent(stream, macbookPro.getId());
+        assertTrue(received.contains("event:permission-changed"));
+        long eventId = Long.parseLong(received.replaceAll("(?s).*id:(\\d+).*", "$1"));
+
+        // A subscriber resuming just before the change gets it replayed
+        MvcResult resumed = mockMvc.perform(get("/api/authz/events")
+                .header("Authorization", "Bearer " + token)
+                .header("Last-Event-ID", String.valueOf(eventId - 1)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        assertTrue(awaitContent(resumed, macbookPro.getId()).contains("id:" + eventId));
+    }
+
+    private static String awaitContent(MvcResult result, String expected) throws Exception {
+        long deadline = System.currentTimeMillis() + 5000;
+        String content = result.getResponse().getContentAsString();
+        while (!content.contains(expected) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+            content = result.getResponse().getContentAsString();
+        }
+        return content;
+    }
+
+    /**
+     * Tests bulk authorization checks for user subjects and tokens.
+     */
+    @Test
+    void bulkAuthorizationCheckResolvesSubjectsAndTokens() throws Exception {
+        // Generate admin token for the caller and a CRM rep token to check
+        String token = jwtTestUtil.generateAdminToken(adminUser.getId(), adminUser.getUsername());
+        String crmRepToken = jwtTestUtil.generateCrmRepToken(crmRepUser.getId(), crmRepUser.getUsername());
+
+        Product iPhone = productRepository.findByName("iPhone").orElseThrow();
+        Product iPad = productRepository.findByName("iPad").orElseThrow();
+
+        AuthorizationCheckRequest request = new AuthorizationCheckRequest(Arrays.asList(
+                AuthorizationCheckTuple.forSubject(salesManagerUser.getId(), "read", iPad.getId()),
+                AuthorizationCheckTuple.forSubject(crmRepUser.getId(), "read", iPad.getId()),
+                AuthorizationCheckTuple.forToken(crmRepToken, "read", iPhone.getId()),
+                AuthorizationCheckTuple.forToken(crmRepToken, "delete", iPhone.getId()),
+                AuthorizationCheckTuple.forSubject("unknown-user", "read", iPhone.getId())));
+
+        mockMvc.perform(post("/api/authz/check")
+                .header("Authorization", "Bearer " + token)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.success", is(true)))
+                .andExpect(jsonPath("$.data", contains(true, false, true, false, false)));
+    }
+
+    /**
+     * Tests that attribute-based policies grant and deny product reads on claims and product attributes.
+     */
+    @Test
+    void attributePoliciesGrantAndDenyOnProductAttributes() throws Exception {
+        // Generate admin token
+        String token = jwtTestUtil.generateAdminToken(adminUser.getId(), adminUser.getUsername());
+        String crmRepToken = jwtTestUtil.generateCrmRepToken(crmRepUser.getId(), crmRepUser.getUsername());
+        String salesManagerToken = jwtTestUtil.generateSalesManagerToken(salesManagerUser.getId(), salesManagerUser.getUsername());
+
+        List<AccessPolicyRequest> policies = Arrays.asList(
+                new AccessPolicyRequest("crm-reps-read-affordable-eu", "read", "product", PolicyRule.Effect.PERMIT,
+                        "subject.roles contains 'CRM_REP' and resource.price < 1000 and resource.region == 'EU'"),
+                new AccessPolicyRequest("no-us-for-sales-managers", "read", "product", PolicyRule.Effect.DENY,
+                        "resource.region == 'US' and subject.roles contains 'SALES_MANAGER' and not (subject.roles contains 'ADMIN')"));
+
+        mockMvc.perform(get("/api/products/ipad")
+                .header("Authorization", "Bearer " + crmRepToken))
+                .andExpect(status().isUnauthorized());
+
+        mockMvc.perform(post("/api/authz/policies")
+                .header("Authorization", "Bearer " + token)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new AccessPolicyRequest(
+                        "broken", "read", "product", PolicyRule.Effect.PERMIT, "resource.price < 'cheap'"))))
+                .andExpect(status().isBadRequest());
+
+        List<String> policyIds = new ArrayList<>();
+        try {
+            for (AccessPolicyRequest policy : policies) {
+                MvcResult result = mockMvc.perform(post("/api/authz/policies")
+                        .header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(policy)))
+                        .andExpect(status().isOk())
+                        .andReturn();
+                policyIds.add(objectMapper.readTree(result.getResponse().getContentAsString()).path("data").path("id").asText());
+            }
+
+            mockMvc.perform(get("/api/products/ipad")
+                    .header("Authorization", "Bearer " + crmRepToken))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.data.name", is("iPad")));
+
+            mockMvc.perform(get("/api/products/macbook")
+                    .header("Authorization", "Bearer " + crmRepToken))
+                    .andExpect(status().isUnauthorized());
+
+            mockMvc.perform(get("/api/products/iphone")
+                    .header("Authorization", "Bearer " + salesManagerToken))
+                    .andExpect(status().isUnauthorized());
+
+            mockMvc.perform(get("/api/products/iphone")
+                    .header("Authorization", "Bearer " + token))
+                    .andExpect(status().isOk());
+        } finally {
+            for (String policyId : policyIds) {
+                mockMvc.perform(delete("/api/authz/policies/" + policyId)
+                        .header("Authorization", "Bearer " + token))
+                        .andExpect(status().isOk());
+            }
+        }
+
+        mockMvc.perform(get("/api/products/iphone")
+                .header("Authorization", "Bearer " + salesManagerToken))
+                .andExpect(status().isOk());
+    }
+
+    /**
+     * Tests that a time-bound role grant takes effect immediately and stops at its end without any write.
+     */
+    @Test
+    void timeBoundRoleGrantExpiresOnItsOwn() throws Exception {
+        // Generate admin token
+        String token = jwtTestUtil.generateAdminToken(adminUser.getId(), adminUser.getUsername());
+        Product iPad = productRepository.findByName("iPad").orElseThrow();
+        AuthorizationCheckRequest check = new AuthorizationCheckRequest(List.of(
+                AuthorizationCheckTuple.forSubject(crmRepUser.getId(), "read", iPad.getId())));
+        Instant notAfter = Instant.now().plusSeconds(2);
+
+        mockMvc.perform(post("/api/users/" + crmRepUser.getId() + "/role-grants")
+                .header("Authorization", "Bearer " + token)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(
+                        new RoleGrantRequest("SALES_MANAGER", null, notAfter, "On-call escalation"))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data", hasSize(1)));
+
+        mockMvc.perform(post("/api/authz/check")
+                .header("Authorization", "Bearer " + token)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(check)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data[0]", is(true)));
+
+        Thread.sleep(Math.max(0, Duration.between(Instant.now(), notAfter).toMillis()) + 100);
+
+        mockMvc.perform(post("/api/authz/check")
+                .header("Authorization", "Bearer " + token)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(check)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data[0]", is(false)));
+
+        roleGrantService.applyDueTransitions();
+        mockMvc.perform(get("/api/users/" + crmRepUser.getId() + "/role-grants")
+                .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data", hasSize(0)));
+    }
+
+    /**
+     * Tests that roles of a group reach the members of every group nested in it, and leave them when
+     * the nesting is removed.
+     */
+    @Test
+    void nestedGroupRolesReachMembers() throws Exception {
+        // Generate admin token
+        String token = jwtTestUtil.generateAdminToken(adminUser.getId(), adminUser.getUsername());
+        Product iPad = productRepository.findByName("iPad").orElseThrow();
+        AuthorizationCheckRequest check = new AuthorizationCheckRequest(List.of(
+                AuthorizationCheckTuple.forSubject(crmRepUser.getId(), "read", iPad.getId())));
+
+        Group managers = createGroup(token, new GroupRequest("managers", "Sales management", Set.of("SALES_MANAGER")));
+        Group escalations = createGroup(token, new GroupRequest("escalations", "Escalation desk", Set.of()));
+
+        mockMvc.perform(post("/api/groups/" + managers.getId() + "/groups/" + escalations.getId())
+                .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk());
+
+        // A nesting that closes a cycle is rejected
+        mockMvc.perform(post("/api/groups/" + escalations.getId() + "/groups/" + managers.getId())
+                .header("Authorization", "Bearer " + token))
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(post("/api/groups/" + escalations.getId() + "/users/" + crmRepUser.getId())
+                .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.effectiveRoles", containsInAnyOrder("CRM_REP", "SALES_MANAGER")));
+
+        mockMvc.perform(post("/api/authz/check")
+                .header("Authorization", "Bearer " + token)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(check)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data[0]", is(true)));
+
+        mockMvc.perform(delete("/api/groups/" + managers.getId() + "/groups/" + escalations.getId())
+                .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(post("/api/authz/check")
+                .header("Authorization", "Bearer " + token)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(check)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data[0]", is(false)));
+    }
+
+    private Group createGroup(String token, GroupRequest request) throws Exception {
+        MvcResult result = mockMvc.perform(post("/api/groups")
+                .header("Authorization", "Bearer " + token)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andReturn();
+        return objectMapper.treeToValue(objectMapper.readTree(result.getResponse().getContentAsString()).get("data"),
+                Group.class);
+    }
+}
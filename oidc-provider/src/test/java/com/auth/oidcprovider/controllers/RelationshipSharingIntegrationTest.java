@@ -0,0 +1,191 @@
+package com.auth.oidcprovider.controllers;
+
+import com.auth.oidcprovider.config.TestSecurityConfig;
+import com.auth.oidcprovider.dto.AuthorizationCheckRequest;
+import com.auth.oidcprovider.dto.AuthorizationCheckTuple;
+import com.auth.oidcprovider.dto.ProductAccessCheckRequest;
+import com.auth.oidcprovider.dto.RelationshipRequest;
+import com.auth.oidcprovider.models.Product;
+import com.auth.oidcprovider.models.User;
+import com.auth.oidcprovider.repositories.ProductRepository;
+import com.auth.oidcprovider.services.PolicySnapshotService;
+import com.auth.oidcprovider.util.JwtTestUtil;
+import com.auth.oidcprovider.util.TestDataInitializer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.Matchers.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Integration tests for product sharing through relationship tuples, which are only evaluated
+ * when relationships are enabled.
+ */
+@SpringBootTest(properties = "authz.relationships.enabled=true")
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Import(TestSecurityConfig.class)
+public class RelationshipSharingIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private TestDataInitializer testDataInitializer;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private JwtTestUtil jwtTestUtil;
+
+    @Autowired
+    private PolicySnapshotService policySnapshotService;
+
+    private User adminUser;
+    private User crmRepUser;
+
+    @BeforeEach
+    void setUp() {
+        // Initialize test products and their roles
+        testDataInitializer.initializeProducts();
+        testDataInitializer.setupProductRoles();
+
+        // Create test users with different roles
+        adminUser = testDataInitializer.createTestUser("admin", "ADMIN");
+        crmRepUser = testDataInitializer.createTestUser("crm_rep", "CRM_REP");
+
+        // Test data is written straight to the repositories, bypassing change events
+        policySnapshotService.reload();
+    }
+
+    @AfterEach
+    void tearDown() {
+        testDataInitializer.cleanupTestData();
+    }
+
+    /**
+     * Tests that a product shared with a group becomes readable by its members, and only while shared.
+     */
+    @Test
+    void productSharedThroughGroupIsReadableByMembers() throws Exception {
+        // Generate admin token
+        String token = jwtTestUtil.generateAdminToken(adminUser.getId(), adminUser.getUsername());
+        String crmRepToken = jwtTestUtil.generateCrmRepToken(crmRepUser.getId(), crmRepUser.getUsername());
+        Product macbookPro = productRepository.findByName("MacBook Pro").orElseThrow();
+
+        List<RelationshipRequest> tuples = Arrays.asList(
+                new RelationshipRequest("product:" + macbookPro.getId(), "viewer", "group:designers#member"),
+                new RelationshipRequest("group:designers", "member", "user:" + crmRepUser.getId()));
+
+        mockMvc.perform(get("/api/products/macbook")
+                .header("Authorization", "Bearer " + crmRepToken))
+                .andExpect(status().isUnauthorized());
+
+        for (RelationshipRequest tuple : tuples) {
+            mockMvc.perform(post("/api/authz/relationships")
+                    .header("Authorization", "Bearer " + token)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(tuple)))
+                    .andExpect(status().isOk());
+        }
+
+        try {
+            mockMvc.perform(get("/api/products/macbook")
+                    .header("Authorization", "Bearer " + crmRepToken))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.data.name", is("MacBook Pro")));
+
+            mockMvc.perform(get("/api/authz/relationships/objects")
+                    .param("type", "product")
+                    .param("relation", "viewer")
+                    .param("subject", "user:" + crmRepUser.getId())
+                    .header("Authorization", "Bearer " + token))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.data", contains(macbookPro.getId())));
+        } finally {
+            for (RelationshipRequest tuple : tuples) {
+                mockMvc.perform(delete("/api/authz/relationships")
+                        .param("object", tuple.getObject())
+                        .param("relation", tuple.getRelation())
+                        .param("subject", tuple.getSubject())
+                        .header("Authorization", "Bearer " + token))
+                        .andExpect(status().isOk());
+            }
+        }
+
+        mockMvc.perform(get("/api/products/macbook")
+                .header("Authorization", "Bearer " + crmRepToken))
+                .andExpect(status().isUnauthorized());
+    }
+
+    /**
+     * Tests that a shared product is listed and allowed by batch and bulk checks, as it is on a single read.
+     */
+    @Test
+    void sharedProductIsListedAndAllowedByBatchChecks() throws Exception {
+        // Generate admin token for the caller and a CRM rep token to check
+        String token = jwtTestUtil.generateAdminToken(adminUser.getId(), adminUser.getUsername());
+        String crmRepToken = jwtTestUtil.generateCrmRepToken(crmRepUser.getId(), crmRepUser.getUsername());
+        Product iPhone = productRepository.findByName("iPhone").orElseThrow();
+        Product macbookPro = productRepository.findByName("MacBook Pro").orElseThrow();
+
+        RelationshipRequest tuple =
+                new RelationshipRequest("product:" + macbookPro.getId(), "viewer", "user:" + crmRepUser.getId());
+        mockMvc.perform(post("/api/authz/relationships")
+                .header("Authorization", "Bearer " + token)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(tuple)))
+                .andExpect(status().isOk());
+
+        try {
+            mockMvc.perform(get("/api/products")
+                    .header("Authorization", "Bearer " + crmRepToken))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.data[*].name", containsInAnyOrder("iPhone", "MacBook Pro")));
+
+            ProductAccessCheckRequest accessCheck =
+                    new ProductAccessCheckRequest(Arrays.asList(iPhone.getId(), macbookPro.getId()));
+            mockMvc.perform(post("/api/products/access-check")
+                    .header("Authorization", "Bearer " + crmRepToken)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(accessCheck)))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.data['" + iPhone.getId() + "']", is(true)))
+                    .andExpect(jsonPath("$.data['" + macbookPro.getId() + "']", is(true)));
+
+            AuthorizationCheckRequest bulkCheck = new AuthorizationCheckRequest(Arrays.asList(
+                    AuthorizationCheckTuple.forToken(crmRepToken, "read", iPhone.getId()),
+                    AuthorizationCheckTuple.forToken(crmRepToken, "read", macbookPro.getId())));
+            mockMvc.perform(post("/api/authz/check")
+                    .header("Authorization", "Bearer " + token)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(bulkCheck)))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.data", contains(true, true)));
+        } finally {
+            mockMvc.perform(delete("/api/authz/relationships")
+                    .param("object", tuple.getObject())
+                    .param("relation", tuple.getRelation())
+                    .param("subject", tuple.getSubject())
+                    .header("Authorization", "Bearer " + token))
+                    .andExpect(status().isOk());
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.auth.oidcprovider.controllers;
+
+import com.auth.oidcprovider.services.DiscoveryService;
+import com.auth.oidcprovider.util.PublishedDocument;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for content negotiation of the well-known documents.
+ */
+public class WellKnownControllerTest {
+
+    /**
+     * Tests that gzip is chosen only when the header allows it with a non-zero quality, directly or through
+     * {@code *}.
+     */
+    @Test
+    void readsGzipQuality() {
+        assertTrue(WellKnownController.acceptsGzip("gzip, deflate, br"));
+        assertTrue(WellKnownController.acceptsGzip("br;q=1.0, GZIP;q=0.5"));
+        assertTrue(WellKnownController.acceptsGzip("x-gzip"));
+        assertTrue(WellKnownController.acceptsGzip("identity, *;q=0.1"));
+
+        assertFalse(WellKnownController.acceptsGzip(null));
+        assertFalse(WellKnownController.acceptsGzip("identity"));
+        assertFalse(WellKnownController.acceptsGzip("gzip;q=0"));
+        assertFalse(WellKnownController.acceptsGzip("gzip; q=0.000, deflate"));
+        assertFalse(WellKnownController.acceptsGzip("*;q=0.5, gzip;q=0"));
+        assertFalse(WellKnownController.acceptsGzip("gzip;q=high"));
+    }
+
+    /**
+     * Tests that a client refusing gzip gets the plain body with the plain ETag.
+     */
+    @Test
+    void servesPlainBodyWhenGzipIsRefused() {
+        PublishedDocument document = PublishedDocument.of("{\"keys\":[]}", Duration.ofHours(1));
+        DiscoveryService discoveryService = mock(DiscoveryService.class);
+        when(discoveryService.isEnabled()).thenReturn(true);
+        when(discoveryService.getJwks()).thenReturn(document);
+        WellKnownController controller = new WellKnownController(discoveryService);
+
+        ResponseEntity<byte[]> plain = controller.getJwks("gzip;q=0, identity", null);
+        assertArrayEquals(document.getBody(), plain.getBody());
+        assertEquals(document.getEtag(), plain.getHeaders().getETag());
+        assertNull(plain.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+
+        ResponseEntity<byte[]> gzip = controller.getJwks("gzip;q=0.8", null);
+        assertArrayEquals(document.getGzipBody(), gzip.getBody());
+        assertEquals("gzip", gzip.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+    }
+}
@@ -0,0 +1,106 @@
+package com.auth.oidcprovider.services;
+
+import com.auth.authz.AttributePolicyEngine;
+import com.auth.authz.PolicyRule;
+import com.auth.oidcprovider.events.PermissionChangedEvent;
+import com.auth.oidcprovider.models.AccessPolicy;
+import com.auth.oidcprovider.models.Product;
+import com.auth.oidcprovider.repositories.AccessPolicyRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for pulling access policy changes made through other instances.
+ */
+public class AccessPolicyServiceImplTest {
+
+    private final AccessPolicyRepository accessPolicyRepository = mock(AccessPolicyRepository.class);
+    private final ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+    private final AccessPolicyServiceImpl policyService = new AccessPolicyServiceImpl(accessPolicyRepository,
+            eventPublisher, 0);
+
+    private static AccessPolicy policy(String id, PolicyRule.Effect effect, String condition) {
+        AccessPolicy policy = new AccessPolicy(id, "read", AccessPolicyService.PRODUCT_RESOURCE, effect, condition);
+        policy.setId(id);
+        return policy;
+    }
+
+    private AttributePolicyEngine.Decision read(String region) {
+        Product product = new Product();
+        product.setId("ipad");
+        product.setRegion(region);
+        return policyService.evaluateProduct("read", product, Map.of(), List.of("SALES"));
+    }
+
+    @BeforeEach
+    void setUp() {
+        when(accessPolicyRepository.findAll()).thenReturn(List.of(
+                policy("deny-us", PolicyRule.Effect.DENY, "resource.region == 'US'"),
+                policy("permit-eu", PolicyRule.Effect.PERMIT, "resource.region == 'EU'")));
+        policyService.reload();
+    }
+
+    /**
+     * Tests that policies changed, added and removed in the store are applied and each announced once.
+     */
+    @Test
+    void pullsPolicyChanges() {
+        when(accessPolicyRepository.findAll()).thenReturn(List.of(
+                policy("deny-us", PolicyRule.Effect.DENY, "resource.region == 'US'"),
+                policy("permit-eu", PolicyRule.Effect.DENY, "resource.region == 'EU'"),
+                policy("permit-apac", PolicyRule.Effect.PERMIT, "resource.region == 'APAC'")));
+
+        policyService.sync();
+
+        assertEquals(AttributePolicyEngine.Decision.DENY, read("EU"));
+        assertEquals(AttributePolicyEngine.Decision.PERMIT, read("APAC"));
+        ArgumentCaptor<PermissionChangedEvent> events = ArgumentCaptor.forClass(PermissionChangedEvent.class);
+        verify(eventPublisher, times(2)).publishEvent(events.capture());
+        assertEquals(Set.of("permit-eu", "permit-apac"), events.getAllValues().stream()
+                .map(PermissionChangedEvent::getResourceId).collect(Collectors.toSet()));
+        assertTrue(events.getAllValues().stream()
+                .allMatch(event -> event.getType() == PermissionChangedEvent.Type.POLICY_CHANGED));
+
+        when(accessPolicyRepository.findAll()).thenReturn(List.of(
+                policy("permit-apac", PolicyRule.Effect.PERMIT, "resource.region == 'APAC'")));
+        policyService.sync();
+
+        assertEquals(AttributePolicyEngine.Decision.NOT_APPLICABLE, read("US"));
+        verify(eventPublisher, times(4)).publishEvent(any(PermissionChangedEvent.class));
+    }
+
+    /**
+     * Tests that an unchanged store announces nothing, that a policy that no longer compiles is dropped once,
+     * and that a store failure leaves the loaded policies in place.
+     */
+    @Test
+    void announcesOnlyChanges() {
+        policyService.sync();
+        verify(eventPublisher, never()).publishEvent(any(PermissionChangedEvent.class));
+
+        when(accessPolicyRepository.findAll()).thenReturn(List.of(
+                policy("deny-us", PolicyRule.Effect.DENY, "resource.region =="),
+                policy("permit-eu", PolicyRule.Effect.PERMIT, "resource.region == 'EU'")));
+        policyService.sync();
+        policyService.sync();
+
+        assertEquals(AttributePolicyEngine.Decision.NOT_APPLICABLE, read("US"));
+        verify(eventPublisher, times(1)).publishEvent(any(PermissionChangedEvent.class));
+
+        when(accessPolicyRepository.findAll()).thenThrow(new DataAccessResourceFailureException("Mongo down"));
+        policyService.sync();
+        assertEquals(AttributePolicyEngine.Decision.PERMIT, read("EU"));
+    }
+}
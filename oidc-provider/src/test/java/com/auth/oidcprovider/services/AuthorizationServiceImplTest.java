@@ -0,0 +1,182 @@
+package com.auth.oidcprovider.services;
+
+import com.auth.authz.AccessDecisionEngine;
+import com.auth.authz.AttributePolicyEngine;
+import com.auth.authz.PolicyRule;
+import com.auth.authz.ProductAccessIndex;
+import com.auth.authz.RoleDictionary;
+import com.auth.authz.RoleHierarchy;
+import com.auth.oidcprovider.dto.AuthorizationCheckTuple;
+import com.auth.oidcprovider.exceptions.InvalidTokenException;
+import com.auth.oidcprovider.models.Product;
+import com.auth.oidcprovider.util.AuthorizationDecisionCache;
+import com.auth.oidcprovider.util.JwtUtil;
+import com.auth.oidcprovider.util.TokenPrincipalConverter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.jwt.Jwt;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for product authorization decisions.
+ */
+public class AuthorizationServiceImplTest {
+
+    private final ProductAccessIndex index = new ProductAccessIndex(new RoleDictionary());
+    private final AccessDecisionEngine engine = new AccessDecisionEngine(index, RoleHierarchy.empty());
+
+    private final ProductService productService = mock(ProductService.class);
+    private final PolicySnapshotService policySnapshotService = mock(PolicySnapshotService.class);
+    private final UserService userService = mock(UserService.class);
+    private final JwtUtil jwtUtil = mock(JwtUtil.class);
+    private final RelationshipService relationshipService = mock(RelationshipService.class);
+    private final AccessPolicyService accessPolicyService = mock(AccessPolicyService.class);
+
+    private final Product ipad = product("ipad", "SALES");
+    private final Product macbook = product("macbook", "SALES");
+
+    private AuthorizationServiceImpl authorizationService;
+
+    @BeforeEach
+    void setUp() {
+        index.put("ipad", List.of("SALES"));
+        index.put("macbook", List.of("SALES"));
+        when(policySnapshotService.getEngine()).thenReturn(engine);
+        when(accessPolicyService.getEngine()).thenReturn(AttributePolicyEngine.EMPTY);
+        when(accessPolicyService.evaluateProduct(anyString(), any(), anyMap(), anyCollection()))
+                .thenReturn(AttributePolicyEngine.Decision.NOT_APPLICABLE);
+        when(productService.isProductAccessibleByAnyRole(any(), anyCollection())).thenAnswer(invocation ->
+                AccessDecisionEngine.isAccessible(invocation.<Product>getArgument(0).getAllowedRoles(),
+                        invocation.getArgument(1), AccessDecisionEngine.DEFAULT_SUPERUSER_ROLE));
+        RoleHierarchyService roleHierarchyService = mock(RoleHierarchyService.class);
+        when(roleHierarchyService.expandRoles(anyCollection()))
+                .thenAnswer(invocation -> RoleHierarchy.empty().expand(invocation.getArgument(0)));
+        TokenPrincipalConverter tokenPrincipalConverter =
+                new TokenPrincipalConverter(roleHierarchyService, policySnapshotService, userService);
+        authorizationService = new AuthorizationServiceImpl(productService, new AuthorizationDecisionCache(100),
+                policySnapshotService, userService, jwtUtil, tokenPrincipalConverter, relationshipService,
+                accessPolicyService);
+    }
+
+    private static Product product(String id, String... allowedRoles) {
+        Product product = new Product(id, id, 1.0);
+        product.setId(id);
+        product.setAllowedRoles(Set.of(allowedRoles));
+        return product;
+    }
+
+    /**
+     * Adds a rule denying reads of the iPad.
+     */
+    private void denyIpad() {
+        when(accessPolicyService.getEngine()).thenReturn(new AttributePolicyEngine(List.of(PolicyRule.compile(
+                "deny-ipad", AuthorizationService.ACTION_READ, AccessPolicyService.PRODUCT_RESOURCE,
+                PolicyRule.Effect.DENY, "subject.region == resource.region"))));
+        when(accessPolicyService.evaluateProduct(eq(AuthorizationService.ACTION_READ),
+                argThat(product -> product != null && "ipad".equals(product.getId())), anyMap(), anyCollection()))
+                .thenReturn(AttributePolicyEngine.Decision.DENY);
+    }
+
+    private static Jwt jwt(String subject, String... realmRoles) {
+        return Jwt.withTokenValue("token-" + subject)
+                .header("alg", "RS256")
+                .subject(subject)
+                .issuedAt(Instant.now())
+                .expiresAt(Instant.now().plusSeconds(300))
+                .claim("realm_access", Map.of("roles", List.of(realmRoles)))
+                .build();
+    }
+
+    /**
+     * Tests that token subjects are checked with the upper-cased roles requests with the token are
+     * authorized with, and that invalid tokens are denied.
+     */
+    @Test
+    void checksTokenSubjectsWithNormalizedRoles() {
+        when(jwtUtil.decodeToken("token-1")).thenReturn(jwt("kc-1", "sales"));
+        when(jwtUtil.decodeToken("expired")).thenThrow(new InvalidTokenException("Invalid token"));
+
+        List<Boolean> decisions = authorizationService.checkAll(List.of(
+                AuthorizationCheckTuple.forToken("token-1", AuthorizationService.ACTION_READ, "ipad"),
+                AuthorizationCheckTuple.forToken("token-1", AuthorizationService.ACTION_READ, "iphone"),
+                AuthorizationCheckTuple.forToken("expired", AuthorizationService.ACTION_READ, "ipad")));
+
+        assertEquals(List.of(true, false, false), decisions);
+    }
+
+    /**
+     * Tests that batch checks and product listings apply attribute deny rules, as single product reads do.
+     */
+    @Test
+    void appliesAttributeRulesToBatchChecksAndListings() {
+        denyIpad();
+        Jwt jwt = jwt("kc-1", "sales");
+        when(jwtUtil.decodeToken("token-1")).thenReturn(jwt);
+        when(productService.getProductsByIds(anyCollection())).thenReturn(List.of(ipad, macbook));
+        when(productService.getAllProducts()).thenReturn(List.of(ipad, macbook));
+        List<String> roles = List.of("SALES");
+
+        assertFalse(authorizationService.canReadProduct(jwt.getClaims(), ipad, roles));
+        Map<String, Boolean> expected = new LinkedHashMap<>();
+        expected.put("ipad", false);
+        expected.put("macbook", true);
+        expected.put("iphone", false);
+        assertEquals(expected, authorizationService.checkProductAccess(
+                jwt.getClaims(), List.of("ipad", "macbook", "iphone"), roles));
+        assertEquals(List.of(macbook), authorizationService.getReadableProducts(jwt.getClaims(), roles));
+        assertEquals(List.of(false, true), authorizationService.checkAll(List.of(
+                AuthorizationCheckTuple.forToken("token-1", AuthorizationService.ACTION_READ, "ipad"),
+                AuthorizationCheckTuple.forToken("token-1", AuthorizationService.ACTION_READ, "macbook"))));
+    }
+
+    /**
+     * Tests that batch checks and product listings allow products shared through relationships, as single
+     * product reads do.
+     */
+    @Test
+    void appliesRelationshipsToBatchChecksAndListings() {
+        Product iphone = product("iphone", "CRM_REP");
+        index.put("iphone", List.of("CRM_REP"));
+        Jwt jwt = jwt("kc-1", "crm_rep");
+        when(jwtUtil.decodeToken("token-1")).thenReturn(jwt);
+        when(relationshipService.isEnabled()).thenReturn(true);
+        when(relationshipService.callerSubjects(eq("kc-1"), anyCollection())).thenReturn(Set.of("user:kc-1"));
+        when(relationshipService.check(eq("product:macbook"), eq(RelationshipService.VIEWER_RELATION),
+                eq(Set.of("user:kc-1")))).thenReturn(true);
+        when(relationshipService.listObjects(RelationshipService.PRODUCT_TYPE, RelationshipService.VIEWER_RELATION,
+                Set.of("user:kc-1"))).thenReturn(Set.of("macbook"));
+        when(productService.getProductsByRole("CRM_REP")).thenReturn(List.of(iphone));
+        when(productService.getProductsByIds(anyCollection())).thenReturn(List.of(iphone, ipad, macbook));
+        List<String> roles = List.of("CRM_REP");
+
+        assertTrue(authorizationService.canReadProduct(jwt.getClaims(), macbook, roles));
+        Map<String, Boolean> expected = new LinkedHashMap<>();
+        expected.put("iphone", true);
+        expected.put("ipad", false);
+        expected.put("macbook", true);
+        assertEquals(expected, authorizationService.checkProductAccess(
+                jwt.getClaims(), List.of("iphone", "ipad", "macbook"), roles));
+        assertEquals(List.of(true, false, true), authorizationService.checkAll(List.of(
+                AuthorizationCheckTuple.forToken("token-1", AuthorizationService.ACTION_READ, "iphone"),
+                AuthorizationCheckTuple.forToken("token-1", AuthorizationService.ACTION_READ, "ipad"),
+                AuthorizationCheckTuple.forToken("token-1", AuthorizationService.ACTION_READ, "macbook"))));
+
+        when(productService.getProductsByIds(anyCollection())).thenReturn(List.of(macbook));
+        assertEquals(List.of(iphone, macbook), authorizationService.getReadableProducts(jwt.getClaims(), roles));
+    }
+}
@@ -0,0 +1,41 @@
+package com.auth.oidcprovider.services;
+
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.util.JSONObjectUtils;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for the published OpenID Provider metadata.
+ */
+public class DiscoveryServiceImplTest {
+
+    /**
+     * Tests that the metadata has the issuer, the JWK set location and every field OpenID Connect Discovery
+     * requires.
+     */
+    @Test
+    void publishesRequiredMetadata() throws Exception {
+        LocalTokenService localTokenService = mock(LocalTokenService.class);
+        when(localTokenService.isEnabled()).thenReturn(true);
+        when(localTokenService.getIssuer()).thenReturn("https://local.example.com");
+        when(localTokenService.getAlgorithm()).thenReturn("ES256");
+        when(localTokenService.getPublicKeys()).thenReturn(new JWKSet());
+
+        DiscoveryServiceImpl discoveryService = new DiscoveryServiceImpl(localTokenService, 86400, 3600);
+        Map<String, Object> metadata = JSONObjectUtils.parse(
+                new String(discoveryService.getConfiguration().getBody(), StandardCharsets.UTF_8));
+
+        assertEquals("https://local.example.com", metadata.get("issuer"));
+        assertEquals("https://local.example.com/.well-known/jwks.json", metadata.get("jwks_uri"));
+        assertEquals(List.of("token"), metadata.get("response_types_supported"));
+        assertEquals(List.of("public"), metadata.get("subject_types_supported"));
+        assertEquals(List.of("ES256"), metadata.get("id_token_signing_alg_values_supported"));
+    }
+}
@@ -0,0 +1,154 @@
+package com.auth.oidcprovider.services;
+
+import com.auth.oidcprovider.dto.GroupRequest;
+import com.auth.oidcprovider.models.Group;
+import com.auth.oidcprovider.models.User;
+import com.auth.oidcprovider.repositories.GroupRepository;
+import com.auth.oidcprovider.repositories.UserRepository;
+import com.mongodb.bulk.BulkWriteResult;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for recomputing the effective roles of group members, against an in-memory user store.
+ */
+public class GroupServiceImplTest {
+
+    private final Map<String, User> store = new LinkedHashMap<>();
+    private final List<Document> filters = new ArrayList<>();
+    private final GroupRepository groupRepository = mock(GroupRepository.class);
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private final GroupServiceImpl groupService = new GroupServiceImpl(groupRepository, userRepository,
+            mongoTemplate, mock(ApplicationEventPublisher.class));
+    private final Group sales = new Group("sales", "Sales", new HashSet<>(Set.of("CRM_REP")));
+
+    // Applied to the store by the next bulk before its updates, as if written by another instance
+    private Runnable concurrentChange = () -> { };
+
+    @BeforeEach
+    void setUp() {
+        sales.setId("group-1");
+        when(groupRepository.findById("group-1")).thenReturn(Optional.of(sales));
+        when(groupRepository.findAll()).thenAnswer(invocation -> List.of(sales));
+        when(groupRepository.save(any(Group.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(userRepository.streamByGroupIdsIn(anyCollection()))
+                .thenAnswer(invocation -> store.values().stream().map(GroupServiceImplTest::copy).toList().stream());
+        when(userRepository.findMembershipByIdIn(anyCollection())).thenAnswer(invocation ->
+                invocation.<Collection<String>>getArgument(0).stream().map(id -> copy(store.get(id))).toList());
+        when(mongoTemplate.bulkOps(any(BulkOperations.BulkMode.class), eq(User.class)))
+                .thenAnswer(invocation -> bulk());
+
+        store.put("user-1", member("user-1", "USER"));
+        store.put("user-2", member("user-2", "USER"));
+    }
+
+    private static User member(String id, String... roles) {
+        User user = new User(id, id + "@example.com", "kc-" + id, new ArrayList<>(List.of(roles)), true);
+        user.setId(id);
+        user.setGroupIds(new ArrayList<>(List.of("group-1")));
+        user.setEffectiveRoles(new ArrayList<>(List.of(roles)));
+        user.getEffectiveRoles().add("CRM_REP");
+        return user;
+    }
+
+    private static User copy(User user) {
+        User copy = new User(user.getUsername(), user.getEmail(), user.getKeycloakId(),
+                new ArrayList<>(user.getRoles()), user.isActive());
+        copy.setId(user.getId());
+        copy.setGroupIds(new ArrayList<>(user.getGroupIds()));
+        copy.setEffectiveRoles(new ArrayList<>(user.getEffectiveRoles()));
+        return copy;
+    }
+
+    /**
+     * A bulk that applies each update only if the stored user matches every field of its filter.
+     */
+    private BulkOperations bulk() {
+        BulkOperations bulk = mock(BulkOperations.class);
+        List<Query> queries = new ArrayList<>();
+        List<Update> updates = new ArrayList<>();
+        when(bulk.updateOne(any(Query.class), any(Update.class))).thenAnswer(invocation -> {
+            queries.add(invocation.getArgument(0));
+            updates.add(invocation.getArgument(1));
+            return bulk;
+        });
+        when(bulk.execute()).thenAnswer(invocation -> {
+            concurrentChange.run();
+            concurrentChange = () -> { };
+            int matched = 0;
+            for (int i = 0; i < queries.size(); i++) {
+                Document filter = queries.get(i).getQueryObject();
+                filters.add(filter);
+                User user = store.get(filter.getString("_id"));
+                if (user != null && Objects.equals(user.getRoles(), filter.get("roles"))
+                        && Objects.equals(user.getGroupIds(), filter.get("groupIds"))) {
+                    @SuppressWarnings("unchecked")
+                    List<String> effectiveRoles = (List<String>) ((Document) updates.get(i).getUpdateObject()
+                            .get("$set")).get("effectiveRoles");
+                    user.setEffectiveRoles(effectiveRoles);
+                    matched++;
+                }
+            }
+            return BulkWriteResult.acknowledged(0, matched, 0, matched, List.of(), List.of());
+        });
+        return bulk;
+    }
+
+    /**
+     * Tests that member updates are conditional on the roles and groups they were computed from, and that a
+     * member whose roles changed in between is re-read and recomputed instead of being overwritten.
+     */
+    @Test
+    void recomputesMembersChangedConcurrently() {
+        concurrentChange = () -> {
+            User user = store.get("user-2");
+            user.setRoles(new ArrayList<>(List.of("USER", "AUDITOR")));
+            user.setEffectiveRoles(new ArrayList<>(List.of("USER", "AUDITOR", "CRM_REP")));
+        };
+
+        groupService.updateGroup("group-1", new GroupRequest("sales", "Sales", Set.of("SALES")));
+
+        assertEquals(Set.of("USER", "SALES"), Set.copyOf(store.get("user-1").getEffectiveRoles()));
+        assertEquals(Set.of("USER", "AUDITOR", "SALES"), Set.copyOf(store.get("user-2").getEffectiveRoles()));
+        assertTrue(filters.stream().allMatch(filter -> filter.containsKey("roles") && filter.containsKey("groupIds")));
+        verify(mongoTemplate, times(2)).bulkOps(any(BulkOperations.BulkMode.class), eq(User.class));
+        verify(userRepository).findMembershipByIdIn(List.of("user-1", "user-2"));
+    }
+
+    /**
+     * Tests that members whose effective roles are already current are not written.
+     */
+    @Test
+    void skipsMembersAlreadyCurrent() {
+        store.get("user-2").getEffectiveRoles().add("SALES");
+
+        groupService.updateGroup("group-1", new GroupRequest("sales", "Sales", Set.of("CRM_REP", "SALES")));
+
+        assertEquals(Set.of("USER", "CRM_REP", "SALES"), Set.copyOf(store.get("user-1").getEffectiveRoles()));
+        assertEquals(List.of("user-1"), filters.stream().map(filter -> filter.getString("_id")).toList());
+        verify(userRepository, never()).findMembershipByIdIn(anyCollection());
+    }
+}
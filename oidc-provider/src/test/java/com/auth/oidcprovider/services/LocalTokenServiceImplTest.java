@@ -0,0 +1,148 @@
+package com.auth.oidcprovider.services;
+
+import com.auth.authz.SubjectRoles;
+import com.auth.oidcprovider.dto.TokenResponse;
+import com.auth.oidcprovider.exceptions.BadRequestException;
+import com.auth.oidcprovider.repositories.SigningKeyRecordRepository;
+import com.auth.oidcprovider.util.TokenPrincipal;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtException;
+
+import java.time.Instant;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for exchanging, refreshing and verifying locally issued tokens.
+ */
+public class LocalTokenServiceImplTest {
+
+    private static final String ISSUER = "https://local.example.com";
+
+    private final RefreshTokenRotationService refreshTokenRotationService = mock(RefreshTokenRotationService.class);
+
+    private LocalTokenServiceImpl service(long accessTtlSeconds, long refreshTtlSeconds) {
+        return new LocalTokenServiceImpl(mock(SigningKeyRecordRepository.class), refreshTokenRotationService, true,
+                ISSUER, "RS256", accessTtlSeconds, refreshTtlSeconds, 86400, 60, false);
+    }
+
+    private static Jwt keycloakToken() {
+        return keycloakToken(Map.of());
+    }
+
+    private static Jwt keycloakToken(Map<String, Object> claims) {
+        return Jwt.withTokenValue("keycloak-token")
+                .header("alg", "RS256")
+                .issuer("https://keycloak.example.com/realms/bhai")
+                .subject("kc-1")
+                .issuedAt(Instant.now())
+                .expiresAt(Instant.now().plusSeconds(300))
+                .claims(tokenClaims -> tokenClaims.putAll(claims))
+                .build();
+    }
+
+    private static TokenPrincipal principal() {
+        return new TokenPrincipal("kc-1", "jane.doe", "jane.doe@example.com", true, List.of("sales_manager"),
+                Map.of("account", List.of("view-profile")), new SubjectRoles(Set.of(), new BitSet(), false));
+    }
+
+    /**
+     * Tests that exchanged tokens refresh into tokens with the same identity, that every access token verifies
+     * with the access token decoder, and that the refresh token is registered and then rotated.
+     */
+    @Test
+    void exchangesRefreshesAndVerifiesTokens() {
+        LocalTokenServiceImpl tokenService = service(300, 3600);
+
+        TokenResponse exchanged = tokenService.issueTokens(keycloakToken(), principal());
+        Jwt access = tokenService.getAccessTokenDecoder().decode(exchanged.getAccessToken());
+        assertEquals(ISSUER, access.getIssuer().toString());
+        assertEquals("kc-1", access.getSubject());
+        assertEquals("Bearer", access.getClaimAsString("typ"));
+        assertEquals(Map.of("roles", List.of("sales_manager")), access.getClaimAsMap("realm_access"));
+        assertTrue(tokenService.isLocalToken(exchanged.getAccessToken()));
+        verify(refreshTokenRotationService).register(eq(exchanged.getRefreshToken()), anyString(), eq("kc-1"),
+                any(Instant.class));
+
+        TokenResponse refreshed = tokenService.refresh(exchanged.getRefreshToken());
+        Jwt refreshedAccess = tokenService.getAccessTokenDecoder().decode(refreshed.getAccessToken());
+        assertEquals("kc-1", refreshedAccess.getSubject());
+        assertEquals("jane.doe", refreshedAccess.getClaimAsString("preferred_username"));
+        assertEquals(access.getClaimAsMap("resource_access"), refreshedAccess.getClaimAsMap("resource_access"));
+        assertNotEquals(access.getId(), refreshedAccess.getId());
+        verify(refreshTokenRotationService).rotate(
+                argThat(jwt -> exchanged.getRefreshToken().equals(jwt.getTokenValue())),
+                eq(refreshed.getRefreshToken()));
+    }
+
+    /**
+     * Tests that an access token is refused as a refresh token and a refresh token as an access token, and that
+     * a locally issued token cannot be exchanged for a new pair.
+     */
+    @Test
+    void rejectsTokensUsedAsTheOtherType() {
+        LocalTokenServiceImpl tokenService = service(300, 3600);
+        TokenResponse exchanged = tokenService.issueTokens(keycloakToken(), principal());
+
+        assertThrows(BadRequestException.class, () -> tokenService.refresh(exchanged.getAccessToken()));
+        assertThrows(JwtException.class,
+                () -> tokenService.getAccessTokenDecoder().decode(exchanged.getRefreshToken()));
+        Jwt local = tokenService.getAccessTokenDecoder().decode(exchanged.getAccessToken());
+        assertThrows(BadRequestException.class, () -> tokenService.issueTokens(local, principal()));
+        verify(refreshTokenRotationService, never()).rotate(any(), anyString());
+    }
+
+    /**
+     * Tests that a refreshed token keeps the expiry of the first refresh token of its chain, and that access
+     * tokens do not outlive it.
+     */
+    @Test
+    void keepsRefreshExpiryOfTheChain() {
+        LocalTokenServiceImpl tokenService = service(300, 120);
+        TokenResponse exchanged = tokenService.issueTokens(keycloakToken(), principal());
+        Instant sessionEnd = tokenService.getAccessTokenDecoder().decode(exchanged.getAccessToken()).getExpiresAt();
+
+        TokenResponse refreshed = tokenService.refresh(exchanged.getRefreshToken());
+        TokenResponse refreshedAgain = tokenService.refresh(refreshed.getRefreshToken());
+
+        for (TokenResponse tokens : List.of(exchanged, refreshed, refreshedAgain)) {
+            assertEquals(sessionEnd, tokenService.getAccessTokenDecoder().decode(tokens.getAccessToken()).getExpiresAt());
+            assertTrue(tokens.getExpiresIn() <= 120);
+            assertEquals(tokens.getExpiresIn(), tokens.getRefreshExpiresIn());
+        }
+    }
+
+    /**
+     * Tests that a DPoP-bound token is exchanged for local tokens bound to the same key, and that refreshed
+     * access tokens stay bound.
+     */
+    @Test
+    void bindsLocalTokensToTheExchangedTokensKey() {
+        LocalTokenServiceImpl tokenService = service(300, 3600);
+        Map<String, Object> confirmation = Map.of("jkt", "0ZcOCORZNYy-DWpqq30jZyJGHTN0d2HglBV3uiguA4I");
+
+        TokenResponse exchanged = tokenService.issueTokens(keycloakToken(Map.of("cnf", confirmation)), principal());
+        assertEquals("DPoP", exchanged.getTokenType());
+        assertEquals(confirmation,
+                tokenService.getAccessTokenDecoder().decode(exchanged.getAccessToken()).getClaimAsMap("cnf"));
+
+        TokenResponse refreshed = tokenService.refresh(exchanged.getRefreshToken());
+        assertEquals("DPoP", refreshed.getTokenType());
+        assertEquals(confirmation,
+                tokenService.getAccessTokenDecoder().decode(refreshed.getAccessToken()).getClaimAsMap("cnf"));
+
+        TokenResponse unbound = tokenService.issueTokens(keycloakToken(), principal());
+        assertEquals("Bearer", unbound.getTokenType());
+        assertNull(tokenService.getAccessTokenDecoder().decode(unbound.getAccessToken()).getClaimAsMap("cnf"));
+    }
+}
@@ -0,0 +1,110 @@
+package com.auth.oidcprovider.services;
+
+import com.auth.oidcprovider.events.PermissionChangedEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for fanning permission changes out to event stream subscribers.
+ */
+public class PermissionEventStreamServiceImplTest {
+
+    private static final int QUEUE_SIZE = 10;
+    private static final int EVENTS = 50;
+
+    private final PermissionEventStreamServiceImpl eventStreamService =
+            new PermissionEventStreamServiceImpl(new ObjectMapper(), 60000, 100, 3600, QUEUE_SIZE, 2);
+
+    @AfterEach
+    void tearDown() {
+        eventStreamService.shutdown();
+    }
+
+    /**
+     * Emitter counting the change events written to it.
+     */
+    private static class CountingEmitter extends SseEmitter {
+
+        private final AtomicInteger changes = new AtomicInteger();
+
+        @Override
+        public synchronized void send(Set<ResponseBodyEmitter.DataWithMediaType> items) throws IOException {
+            if (items.stream().anyMatch(item ->
+                    item.getData().toString().contains(PermissionEventStreamService.CHANGE_EVENT))) {
+                changes.incrementAndGet();
+            }
+        }
+
+        private void awaitChanges(int count) throws InterruptedException {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (changes.get() < count && System.nanoTime() < deadline) {
+                Thread.sleep(1);
+            }
+            assertEquals(count, changes.get());
+        }
+    }
+
+    /**
+     * Emitter of a client that stopped reading: every write blocks until the socket is released.
+     */
+    private static class StalledEmitter extends SseEmitter {
+
+        private final CountDownLatch released = new CountDownLatch(1);
+        private final CountDownLatch completed = new CountDownLatch(1);
+
+        @Override
+        public void send(Set<ResponseBodyEmitter.DataWithMediaType> items) throws IOException {
+            try {
+                released.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException(e);
+            }
+        }
+
+        @Override
+        public synchronized void complete() {
+            completed.countDown();
+        }
+    }
+
+    private static PermissionChangedEvent change(int i) {
+        return new PermissionChangedEvent(PermissionEventStreamServiceImplTest.class,
+                PermissionChangedEvent.Type.PRODUCT_ROLES_CHANGED, "product-" + i, Set.of("SALES"));
+    }
+
+    /**
+     * Tests that a subscriber whose writes block neither delays the others nor the dispatcher, and is dropped
+     * and completed once its queue overflows.
+     */
+    @Test
+    void stalledSubscriberDoesNotDelayOthers() throws Exception {
+        StalledEmitter stalled = new StalledEmitter();
+        CountingEmitter healthy = new CountingEmitter();
+        eventStreamService.subscribe(stalled, null);
+        eventStreamService.subscribe(healthy, null);
+
+        // A reading client keeps up with the stream, while the stalled one falls further behind with each event
+        for (int i = 0; i < EVENTS; i++) {
+            eventStreamService.onPermissionChanged(change(i));
+            healthy.awaitChanges(i + 1);
+        }
+
+        assertEquals(1, eventStreamService.getSubscriberCount());
+
+        // The blocked write returns, and only then is the dropped emitter completed
+        stalled.released.countDown();
+        assertTrue(stalled.completed.await(10, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,113 @@
+package com.auth.oidcprovider.services;
+
+import com.auth.authz.AccessDecisionEngine;
+import com.auth.authz.PolicySnapshot;
+import com.auth.authz.RoleHierarchy;
+import com.auth.oidcprovider.events.PermissionChangedEvent;
+import com.auth.oidcprovider.models.Product;
+import com.auth.oidcprovider.repositories.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for pulling access model changes made through other instances.
+ */
+public class PolicySnapshotServiceImplTest {
+
+    private final ProductRepository productRepository = mock(ProductRepository.class);
+    private final RoleHierarchyService roleHierarchyService = mock(RoleHierarchyService.class);
+    private final ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+    private final PolicySnapshotServiceImpl snapshotService = new PolicySnapshotServiceImpl(productRepository,
+            roleHierarchyService, eventPublisher, 100, 0);
+
+    private static Product product(String id, String... allowedRoles) {
+        Product product = new Product();
+        product.setId(id);
+        product.setAllowedRoles(Set.of(allowedRoles));
+        return product;
+    }
+
+    private boolean canAccess(String role, String productId) {
+        AccessDecisionEngine engine = snapshotService.getEngine();
+        return engine.canAccessProduct(engine.resolveSubject(List.of(role)), productId);
+    }
+
+    @BeforeEach
+    void setUp() {
+        when(roleHierarchyService.getHierarchy()).thenReturn(RoleHierarchy.empty());
+        when(productRepository.findAllAllowedRoles()).thenReturn(List.of(
+                product("ipad", "SALES"), product("macbook", "SALES"), product("iphone", "CRM_REP")));
+    }
+
+    /**
+     * Tests that products changed, added and removed in the store are applied as a delta, announced as
+     * events, and ignored when the announcements come back to the listener.
+     */
+    @Test
+    void pullsProductChangesAsDelta() {
+        long version = snapshotService.getVersion();
+        when(productRepository.findAllAllowedRoles()).thenReturn(List.of(
+                product("ipad", "SALES", "CRM_REP"), product("macbook", "SALES"), product("watch", "SALES")));
+
+        snapshotService.sync();
+
+        PolicySnapshot delta = snapshotService.getSnapshot(snapshotService.getEpoch(), version);
+        assertFalse(delta.isFull());
+        assertEquals(Set.of("ipad", "watch"), delta.getProducts().keySet());
+        assertEquals(Set.of("iphone"), delta.getRemovedProducts());
+        assertTrue(canAccess("CRM_REP", "ipad"));
+        assertFalse(canAccess("CRM_REP", "iphone"));
+
+        ArgumentCaptor<PermissionChangedEvent> events = ArgumentCaptor.forClass(PermissionChangedEvent.class);
+        verify(eventPublisher, times(3)).publishEvent(events.capture());
+        long versionAfterSync = snapshotService.getVersion();
+        events.getAllValues().forEach(snapshotService::onPermissionChanged);
+        assertEquals(versionAfterSync, snapshotService.getVersion());
+    }
+
+    /**
+     * Tests that a role hierarchy changed in the store is applied and announced.
+     */
+    @Test
+    void pullsHierarchyChanges() {
+        long version = snapshotService.getVersion();
+        RoleHierarchy hierarchy = RoleHierarchy.of(Map.of("SALES_MANAGER", Set.of("CRM_REP")));
+        when(roleHierarchyService.getHierarchy()).thenReturn(hierarchy);
+
+        snapshotService.sync();
+
+        verify(roleHierarchyService).reload();
+        assertEquals(hierarchy.includedRoles(),
+                snapshotService.getSnapshot(snapshotService.getEpoch(), version).getIncludedRoles());
+        assertTrue(canAccess("SALES_MANAGER", "iphone"));
+        verify(eventPublisher).publishEvent(any(PermissionChangedEvent.class));
+    }
+
+    /**
+     * Tests that an unchanged store neither advances the version nor announces anything, and that a store
+     * failure leaves the loaded model in place.
+     */
+    @Test
+    void keepsVersionWhenNothingChanged() {
+        long version = snapshotService.getVersion();
+
+        snapshotService.sync();
+        when(productRepository.findAllAllowedRoles()).thenThrow(new DataAccessResourceFailureException("Mongo down"));
+        snapshotService.sync();
+
+        assertEquals(version, snapshotService.getVersion());
+        assertTrue(canAccess("SALES", "ipad"));
+        verify(eventPublisher, never()).publishEvent(any(PermissionChangedEvent.class));
+    }
+}
@@ -0,0 +1,132 @@
+package com.auth.oidcprovider.services;
+
+import com.auth.oidcprovider.dto.ProductPage;
+import com.auth.oidcprovider.dto.ProductRolePair;
+import com.auth.oidcprovider.exceptions.ResourceNotFoundException;
+import com.auth.oidcprovider.models.Product;
+import com.auth.oidcprovider.repositories.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for product role checks and catalog pages.
+ */
+public class ProductServiceImplTest {
+
+    private final ProductRepository productRepository = mock(ProductRepository.class);
+    private final RoleHierarchyService roleHierarchyService = mock(RoleHierarchyService.class);
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private final ProductServiceImpl productService = new ProductServiceImpl(productRepository,
+            mongoTemplate, roleHierarchyService, mock(ApplicationEventPublisher.class));
+
+    @BeforeEach
+    void setUp() {
+        when(roleHierarchyService.getReachableRoles("SALES_MANAGER")).thenReturn(Set.of("SALES_MANAGER", "CRM_REP"));
+        when(roleHierarchyService.getReachableRoles("CRM_REP")).thenReturn(Set.of("CRM_REP"));
+        when(roleHierarchyService.getReachableRoles("ADMIN")).thenReturn(Set.of("ADMIN"));
+    }
+
+    /**
+     * Tests that a role reaching one of the allowed roles is answered by the existence query alone, with the
+     * roles it inherits through the hierarchy.
+     */
+    @Test
+    void grantsAccessFromExistenceQuery() {
+        when(productRepository.existsByIdAndAllowedRolesIn("iphone", Set.of("SALES_MANAGER", "CRM_REP")))
+                .thenReturn(true);
+
+        assertTrue(productService.isProductAccessibleByRole("iphone", "SALES_MANAGER"));
+        verify(productRepository, never()).existsById(anyString());
+        verify(productRepository, never()).findById(anyString());
+    }
+
+    /**
+     * Tests that a role without access is denied for a known product, and that an unknown product is reported
+     * as not found rather than denied.
+     */
+    @Test
+    void deniesKnownProductsAndReportsUnknownOnes() {
+        when(productRepository.existsById("macbook")).thenReturn(true);
+
+        assertFalse(productService.isProductAccessibleByRole("macbook", "CRM_REP"));
+        assertThrows(ResourceNotFoundException.class,
+                () -> productService.isProductAccessibleByRole("unknown", "CRM_REP"));
+        verify(productRepository, never()).findById(anyString());
+    }
+
+    /**
+     * Tests that the superuser skips the role query and only needs the product to exist.
+     */
+    @Test
+    void grantsSuperuserAnyExistingProduct() {
+        when(productRepository.existsById("macbook")).thenReturn(true);
+
+        assertTrue(productService.isProductAccessibleByRole("macbook", "ADMIN"));
+        assertThrows(ResourceNotFoundException.class,
+                () -> productService.isProductAccessibleByRole("unknown", "ADMIN"));
+        verify(productRepository, never()).existsByIdAndAllowedRolesIn(anyString(), anyCollection());
+    }
+
+    /**
+     * Tests that a batch of pairs is decided from one projected query over the distinct products, expanding each
+     * role through the hierarchy once, and that pairs for unknown products are denied.
+     */
+    @Test
+    void decidesPairsFromOneProjectedQuery() {
+        Product iphone = new Product();
+        iphone.setId("iphone");
+        iphone.setAllowedRoles(Set.of("CRM_REP"));
+        Product macbook = new Product();
+        macbook.setId("macbook");
+        macbook.setAllowedRoles(Set.of("SALES"));
+        when(productRepository.findAllowedRolesByIdIn(anyCollection())).thenReturn(List.of(iphone, macbook));
+        List<ProductRolePair> pairs = List.of(
+                ProductRolePair.of("iphone", "SALES_MANAGER"),
+                ProductRolePair.of("macbook", "SALES_MANAGER"),
+                ProductRolePair.of("iphone", "CRM_REP"),
+                ProductRolePair.of("unknown", "CRM_REP"),
+                ProductRolePair.of("macbook", "ADMIN"));
+
+        Map<ProductRolePair, Boolean> decisions = productService.areProductsAccessibleByRoles(pairs);
+
+        assertEquals(pairs, new ArrayList<>(decisions.keySet()));
+        assertEquals(List.of(true, false, true, false, true), new ArrayList<>(decisions.values()));
+        verify(productRepository).findAllowedRolesByIdIn(Set.of("iphone", "macbook", "unknown"));
+        verify(roleHierarchyService, times(1)).getReachableRoles("SALES_MANAGER");
+        verify(roleHierarchyService, times(1)).getReachableRoles("CRM_REP");
+        verify(productRepository, never()).findById(anyString());
+        verify(productRepository, never()).existsByIdAndAllowedRolesIn(anyString(), anyCollection());
+    }
+
+    /**
+     * Tests that a projected catalog page holds only the ID and the requested fields, not the defaults of the
+     * fields that were not loaded.
+     */
+    @Test
+    void returnsOnlyProjectedCatalogFields() {
+        Product iPad = new Product();
+        iPad.setId("ipad");
+        iPad.setName("iPad");
+        when(mongoTemplate.find(any(Query.class), eq(Product.class))).thenReturn(new ArrayList<>(List.of(iPad)));
+
+        ProductPage page = productService.getProductPage(0, 20, null, null, List.of("name"));
+
+        assertEquals(List.of("id", "name"), new ArrayList<>(page.getContent().get(0).keySet()));
+        assertEquals("iPad", page.getContent().get(0).get("name"));
+    }
+}
@@ -0,0 +1,210 @@
+package com.auth.oidcprovider.services;
+
+import com.auth.oidcprovider.exceptions.BadRequestException;
+import com.auth.oidcprovider.models.RefreshTokenRecord;
+import com.auth.oidcprovider.repositories.RefreshTokenRecordRepository;
+import com.mongodb.client.result.UpdateResult;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for single use of refresh tokens, against an in-memory store shared by all nodes.
+ */
+public class RefreshTokenRotationServiceImplTest {
+
+    private static final Instant EXPIRES_AT = Instant.now().plusSeconds(3600);
+
+    private final Map<String, RefreshTokenRecord> store = new ConcurrentHashMap<>();
+    private final RefreshTokenRecordRepository refreshTokenRecordRepository = mock(RefreshTokenRecordRepository.class);
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+
+    @BeforeEach
+    void setUp() {
+        when(refreshTokenRecordRepository.insert(any(RefreshTokenRecord.class))).thenAnswer(invocation -> {
+            RefreshTokenRecord record = invocation.getArgument(0);
+            store.put(record.getId(), record);
+            return record;
+        });
+        when(refreshTokenRecordRepository.findById(anyString()))
+                .thenAnswer(invocation -> Optional.ofNullable(store.get(invocation.<String>getArgument(0))));
+        doAnswer(invocation -> store.remove(invocation.<String>getArgument(0)))
+                .when(refreshTokenRecordRepository).deleteById(anyString());
+        // Conditional update of one unused token of a live family, matched and applied atomically
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(RefreshTokenRecord.class)))
+                .thenAnswer(invocation -> {
+                    Document query = invocation.<Query>getArgument(0).getQueryObject();
+                    synchronized (store) {
+                        RefreshTokenRecord record = store.get(query.getString("_id"));
+                        boolean matched = record != null && record.getFamilyId().equals(query.getString("familyId"))
+                                && !record.isUsed() && !record.isRevoked();
+                        if (matched) {
+                            record.setUsed(true);
+                        }
+                        return UpdateResult.acknowledged(matched ? 1 : 0, matched ? 1L : 0L, null);
+                    }
+                });
+        when(mongoTemplate.updateMulti(any(Query.class), any(Update.class), eq(RefreshTokenRecord.class)))
+                .thenAnswer(invocation -> {
+                    String familyId = invocation.<Query>getArgument(0).getQueryObject().getString("familyId");
+                    long matched = 0;
+                    synchronized (store) {
+                        for (RefreshTokenRecord record : store.values()) {
+                            if (record.getFamilyId().equals(familyId)) {
+                                record.setRevoked(true);
+                                matched++;
+                            }
+                        }
+                    }
+                    return UpdateResult.acknowledged(matched, matched, null);
+                });
+    }
+
+    private RefreshTokenRotationServiceImpl node() {
+        return new RefreshTokenRotationServiceImpl(refreshTokenRecordRepository, mongoTemplate, true, 100);
+    }
+
+    private static Jwt refreshToken(String value) {
+        return Jwt.withTokenValue(value)
+                .header("alg", "RS256")
+                .subject("kc-1")
+                .claim("fid", "family-1")
+                .issuedAt(Instant.now())
+                .expiresAt(EXPIRES_AT)
+                .build();
+    }
+
+    private List<RefreshTokenRecord> records(boolean used, boolean revoked) {
+        List<RefreshTokenRecord> records = new ArrayList<>();
+        for (RefreshTokenRecord record : store.values()) {
+            if (record.isUsed() == used && record.isRevoked() == revoked) {
+                records.add(record);
+            }
+        }
+        return records;
+    }
+
+    /**
+     * Tests that a token is rotated once: it is marked used and its replacement is recorded unused in the same
+     * family.
+     */
+    @Test
+    void rotatesTokenOnce() {
+        RefreshTokenRotationServiceImpl rotationService = node();
+        rotationService.register("token-1", "family-1", "kc-1", EXPIRES_AT);
+
+        rotationService.rotate(refreshToken("token-1"), "token-2");
+
+        assertEquals(2, store.size());
+        assertEquals(1, records(true, false).size());
+        assertEquals(1, records(false, false).size());
+        assertEquals("family-1", records(false, false).get(0).getFamilyId());
+        assertEquals(1, rotationService.getStats().getRotations());
+    }
+
+    /**
+     * Tests that of two concurrent rotations of the same token on different nodes exactly one wins, and that the
+     * losing one is treated as a reuse: it revokes the family and does not leave its replacement redeemable.
+     */
+    @Test
+    void letsOneOfTwoConcurrentRotationsWin() throws Exception {
+        RefreshTokenRotationServiceImpl first = node();
+        RefreshTokenRotationServiceImpl second = node();
+        first.register("token-1", "family-1", "kc-1", EXPIRES_AT);
+        CyclicBarrier start = new CyclicBarrier(2);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Boolean> a = executor.submit(() -> rotate(first, start, "token-2a"));
+            Future<Boolean> b = executor.submit(() -> rotate(second, start, "token-2b"));
+
+            assertNotEquals(a.get(10, TimeUnit.SECONDS), b.get(10, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // The presented token and the winner's replacement remain, both revoked; the loser's was discarded
+        assertEquals(2, store.size());
+        assertEquals(1, records(true, true).size());
+        assertEquals(1, records(false, true).size());
+        assertEquals(1, first.getStats().getReuses() + second.getStats().getReuses());
+    }
+
+    private static boolean rotate(RefreshTokenRotationServiceImpl node, CyclicBarrier start, String replacement)
+            throws Exception {
+        start.await(10, TimeUnit.SECONDS);
+        try {
+            node.rotate(refreshToken("token-1"), replacement);
+            return true;
+        } catch (BadRequestException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Tests that presenting a used token again revokes its family, so the replacement handed out for it is
+     * refused as well, on this node from memory and on another node from the store.
+     */
+    @Test
+    void revokesFamilyOnReuse() {
+        RefreshTokenRotationServiceImpl rotationService = node();
+        rotationService.register("token-1", "family-1", "kc-1", EXPIRES_AT);
+        rotationService.rotate(refreshToken("token-1"), "token-2");
+
+        BadRequestException reuse = assertThrows(BadRequestException.class,
+                () -> rotationService.rotate(refreshToken("token-1"), "token-3"));
+        assertTrue(reuse.getErrors().get("refreshToken").contains("already been used"));
+        assertTrue(store.values().stream().allMatch(RefreshTokenRecord::isRevoked));
+
+        BadRequestException revoked = assertThrows(BadRequestException.class,
+                () -> rotationService.rotate(refreshToken("token-2"), "token-3"));
+        assertTrue(revoked.getErrors().get("refreshToken").contains("revoked"));
+        BadRequestException revokedElsewhere = assertThrows(BadRequestException.class,
+                () -> node().rotate(refreshToken("token-2"), "token-3"));
+        assertTrue(revokedElsewhere.getErrors().get("refreshToken").contains("revoked"));
+        assertEquals(2, store.size());
+        assertEquals(1, rotationService.getStats().getReuses());
+    }
+
+    /**
+     * Tests that the replacement is discarded when the presented token could not be marked used, so a failed
+     * refresh does not leave a second redeemable token behind.
+     */
+    @Test
+    void discardsReplacementWhenRotationFails() {
+        RefreshTokenRotationServiceImpl rotationService = node();
+        rotationService.register("token-1", "family-1", "kc-1", EXPIRES_AT);
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(RefreshTokenRecord.class)))
+                .thenThrow(new DataAccessResourceFailureException("Mongo unavailable"));
+
+        assertThrows(ResponseStatusException.class,
+                () -> rotationService.rotate(refreshToken("token-1"), "token-2"));
+
+        assertEquals(1, store.size());
+        assertEquals(1, records(false, false).size());
+        assertEquals(1, rotationService.getStats().getStoreErrors());
+    }
+}
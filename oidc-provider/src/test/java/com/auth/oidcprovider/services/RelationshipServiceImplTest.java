@@ -0,0 +1,80 @@
+package com.auth.oidcprovider.services;
+
+import com.auth.oidcprovider.events.PermissionChangedEvent;
+import com.auth.oidcprovider.models.Relationship;
+import com.auth.oidcprovider.repositories.RelationshipRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for pulling relationship changes made through other instances.
+ */
+public class RelationshipServiceImplTest {
+
+    private final RelationshipRepository relationshipRepository = mock(RelationshipRepository.class);
+    private final ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+    private final RelationshipServiceImpl relationshipService = new RelationshipServiceImpl(relationshipRepository,
+            eventPublisher, true, 0);
+
+    private void store(Relationship... relationships) {
+        when(relationshipRepository.streamAllBy()).thenAnswer(invocation -> List.of(relationships).stream());
+    }
+
+    private boolean canView(String productId, String subject) {
+        return relationshipService.check("product:" + productId, "viewer", List.of(subject));
+    }
+
+    @BeforeEach
+    void setUp() {
+        store(new Relationship("product:ipad", "viewer", "group:sales#member"),
+                new Relationship("group:sales", "member", "user:alice"));
+        relationshipService.reload();
+    }
+
+    /**
+     * Tests that relationships added and removed in the store are applied and each announced once.
+     */
+    @Test
+    void pullsRelationshipChanges() {
+        store(new Relationship("product:ipad", "viewer", "group:sales#member"),
+                new Relationship("group:sales", "member", "user:bob"));
+
+        relationshipService.sync();
+
+        assertTrue(canView("ipad", "user:bob"));
+        assertFalse(canView("ipad", "user:alice"));
+        ArgumentCaptor<PermissionChangedEvent> events = ArgumentCaptor.forClass(PermissionChangedEvent.class);
+        verify(eventPublisher, times(2)).publishEvent(events.capture());
+        assertEquals(Set.of("group:sales#member@user:bob", "group:sales#member@user:alice"), events.getAllValues()
+                .stream().map(PermissionChangedEvent::getResourceId).collect(Collectors.toSet()));
+        assertTrue(events.getAllValues().stream()
+                .allMatch(event -> event.getType() == PermissionChangedEvent.Type.RELATIONSHIP_CHANGED));
+    }
+
+    /**
+     * Tests that an unchanged store announces nothing, and that a store failure leaves the loaded relationships
+     * in place.
+     */
+    @Test
+    void announcesOnlyChanges() {
+        relationshipService.sync();
+        verify(eventPublisher, never()).publishEvent(any(PermissionChangedEvent.class));
+
+        when(relationshipRepository.streamAllBy()).thenThrow(new DataAccessResourceFailureException("Mongo down"));
+        relationshipService.sync();
+
+        assertTrue(canView("ipad", "user:alice"));
+        verify(eventPublisher, never()).publishEvent(any(PermissionChangedEvent.class));
+    }
+}
@@ -0,0 +1,55 @@
+package com.auth.oidcprovider.services;
+
+import com.auth.authz.SubjectRoles;
+import com.auth.oidcprovider.exceptions.BadRequestException;
+import com.auth.oidcprovider.util.TokenPrincipal;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.jwt.Jwt;
+
+import java.time.Instant;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for exchanging access tokens for service tickets.
+ */
+public class ServiceTicketServiceImplTest {
+
+    private final ServiceTicketServiceImpl ticketService = new ServiceTicketServiceImpl(true,
+            "0123456789abcdef0123456789abcdef", "urn:oidc-provider:service-ticket", 60, 3600, false);
+
+    private static Jwt accessToken(Map<String, Object> claims) {
+        return Jwt.withTokenValue("access-token")
+                .header("alg", "RS256")
+                .issuer("https://keycloak.example.com/realms/bhai")
+                .subject("kc-1")
+                .issuedAt(Instant.now())
+                .expiresAt(Instant.now().plusSeconds(300))
+                .claims(tokenClaims -> tokenClaims.putAll(claims))
+                .build();
+    }
+
+    private static TokenPrincipal principal() {
+        return new TokenPrincipal("kc-1", "jane.doe", "jane.doe@example.com", true, List.of("sales_manager"),
+                Map.of(), new SubjectRoles(Set.of(), new BitSet(), false));
+    }
+
+    /**
+     * Tests that an unbound token is exchanged for a ticket, but a DPoP-bound token is refused, since the
+     * ticket could be used without its key.
+     */
+    @Test
+    void refusesDPoPBoundTokens() {
+        String ticket = ticketService.issueTicket(accessToken(Map.of()), principal()).getTicket();
+        assertTrue(ticketService.isTicket(ticket));
+
+        Jwt bound = accessToken(Map.of("cnf", Map.of("jkt", "0ZcOCORZNYy-DWpqq30jZyJGHTN0d2HglBV3uiguA4I")));
+        BadRequestException e = assertThrows(BadRequestException.class,
+                () -> ticketService.issueTicket(bound, principal()));
+        assertTrue(e.getErrors().get("token").contains("DPoP"));
+    }
+}
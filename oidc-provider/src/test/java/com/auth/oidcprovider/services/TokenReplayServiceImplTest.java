@@ -0,0 +1,49 @@
+package com.auth.oidcprovider.services;
+
+import com.auth.oidcprovider.exceptions.UnauthorizedException;
+import com.auth.oidcprovider.repositories.UsedTokenIdRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.jwt.Jwt;
+
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Unit tests for rejecting replayed tokens.
+ */
+public class TokenReplayServiceImplTest {
+
+    private final UsedTokenIdRepository usedTokenIdRepository = mock(UsedTokenIdRepository.class);
+    private final TokenReplayServiceImpl tokenReplayService =
+            new TokenReplayServiceImpl(usedTokenIdRepository, true, 100, 4, true);
+
+    private static Jwt token(String id) {
+        return Jwt.withTokenValue("token-" + id)
+                .header("alg", "RS256")
+                .issuer("https://issuer.example.com")
+                .subject("kc-1")
+                .jti(id)
+                .issuedAt(Instant.now())
+                .expiresAt(Instant.now().plusSeconds(300))
+                .build();
+    }
+
+    /**
+     * Tests that a token is accepted once, and that forgetting its use, as after a failed operation, lets it be
+     * used again on this node and in the shared store.
+     */
+    @Test
+    void acceptsForgottenTokenAgain() {
+        Jwt token = token("jti-1");
+        tokenReplayService.checkFirstUse(token);
+        assertThrows(UnauthorizedException.class, () -> tokenReplayService.checkFirstUse(token));
+
+        tokenReplayService.forget(token);
+        verify(usedTokenIdRepository).deleteById("https://issuer.example.com jti-1");
+        assertDoesNotThrow(() -> tokenReplayService.checkFirstUse(token));
+        assertThrows(UnauthorizedException.class, () -> tokenReplayService.checkFirstUse(token));
+    }
+}
@@ -0,0 +1,113 @@
+package com.auth.oidcprovider.services;
+
+import com.auth.oidcprovider.models.RoleGrant;
+import com.auth.oidcprovider.models.User;
+import com.auth.oidcprovider.repositories.UserRepository;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for the roles added to a request's authorities from the stored user.
+ */
+public class UserServiceImplTest {
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private final GroupService groupService = mock(GroupService.class);
+    private final UserServiceImpl userService = new UserServiceImpl(userRepository, mongoTemplate,
+            mock(ApplicationEventPublisher.class), groupService);
+
+    private static User user(boolean active) {
+        User user = new User("jane.doe", "jane.doe@example.com", "kc-1", new ArrayList<>(List.of("USER")), active);
+        user.setEffectiveRoles(new ArrayList<>(List.of("USER", "AUDITOR")));
+        return user;
+    }
+
+    /**
+     * Tests that group roles and grants in effect are returned, but not grants that ended or have not started.
+     */
+    @Test
+    void includesGroupRolesAndGrantsInEffect() {
+        Instant now = Instant.now();
+        User user = user(true);
+        user.setRoleGrants(new ArrayList<>(List.of(
+                new RoleGrant("ON_CALL", now.minusSeconds(60), now.plusSeconds(3600), "incident"),
+                new RoleGrant("RELEASE_MANAGER", now.plusSeconds(3600), now.plusSeconds(7200), "later"),
+                new RoleGrant("FORMER", now.minusSeconds(7200), now.minusSeconds(3600), "ended"))));
+        when(userRepository.findRolesByKeycloakId("kc-1")).thenReturn(Optional.of(user));
+
+        assertEquals(Set.of("USER", "AUDITOR", "ON_CALL"),
+                Set.copyOf(userService.findEffectiveRolesByKeycloakId("kc-1")));
+    }
+
+    /**
+     * Tests that unknown and inactive users, and store failures, add no roles.
+     */
+    @Test
+    void addsNothingForUnknownOrInactiveUsersOrStoreFailures() {
+        when(userRepository.findRolesByKeycloakId("kc-1")).thenReturn(Optional.of(user(false)));
+        when(userRepository.findRolesByKeycloakId("kc-2")).thenReturn(Optional.empty());
+        when(userRepository.findRolesByKeycloakId("kc-3"))
+                .thenThrow(new DataAccessResourceFailureException("connection refused"));
+
+        assertTrue(userService.findEffectiveRolesByKeycloakId("kc-1").isEmpty());
+        assertTrue(userService.findEffectiveRolesByKeycloakId("kc-2").isEmpty());
+        assertTrue(userService.findEffectiveRolesByKeycloakId("kc-3").isEmpty());
+    }
+
+    /**
+     * Tests that an update writes only the editable fields and the effective roles computed from the stored
+     * group membership, and retries when the membership changes in between.
+     */
+    @Test
+    void updatesEditableFieldsWithoutOverwritingMembershipOrGrants() {
+        User stored = user(true);
+        stored.setId("user-1");
+        stored.setGroupIds(new ArrayList<>(List.of("group-1")));
+        User joinedMeanwhile = user(true);
+        joinedMeanwhile.setId("user-1");
+        joinedMeanwhile.setGroupIds(new ArrayList<>(List.of("group-1", "group-2")));
+        when(userRepository.findById("user-1")).thenReturn(Optional.of(stored))
+                .thenReturn(Optional.of(joinedMeanwhile));
+        when(groupService.resolveEffectiveRoles(any(), any()))
+                .thenAnswer(invocation -> List.of("ADMIN", "GROUPS:" + invocation.getArgument(1)));
+        User saved = user(true);
+        saved.setId("user-1");
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(User.class))).thenReturn(null, saved);
+
+        // The caller holds a stale copy without the membership
+        User request = new User("jane.doe", "jane.doe@example.com", "kc-1", new ArrayList<>(List.of("ADMIN")), true);
+        request.setId("user-1");
+        assertSame(saved, userService.saveUser(request));
+
+        ArgumentCaptor<Update> updates = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate, times(2)).findAndModify(any(Query.class), updates.capture(),
+                any(FindAndModifyOptions.class), eq(User.class));
+        Document set = (Document) updates.getValue().getUpdateObject().get("$set");
+        assertEquals(List.of("ADMIN", "GROUPS:[group-1, group-2]"), set.get("effectiveRoles"));
+        assertEquals(List.of("ADMIN"), set.get("roles"));
+        assertFalse(set.containsKey("groupIds"));
+        assertFalse(set.containsKey("roleGrants"));
+        assertFalse(set.containsKey("roleGrantsVersion"));
+        verify(userRepository, never()).save(any());
+    }
+}
@@ -0,0 +1,63 @@
+package com.auth.oidcprovider.util;
+
+import com.auth.oidcprovider.events.PermissionChangedEvent;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the authorization decision cache.
+ */
+public class AuthorizationDecisionCacheTest {
+
+    /**
+     * Tests that role sets are canonicalized regardless of order and duplicates.
+     */
+    @Test
+    void roleSetKeyIsOrderIndependent() {
+        AuthorizationDecisionCache cache = new AuthorizationDecisionCache(100);
+
+        assertEquals(cache.roleSetKey(Arrays.asList("CRM_REP", "SALES_MANAGER")),
+                cache.roleSetKey(Arrays.asList("SALES_MANAGER", "CRM_REP", "CRM_REP")));
+        assertNotEquals(cache.roleSetKey(Arrays.asList("CRM_REP")),
+                cache.roleSetKey(Arrays.asList("SALES_MANAGER")));
+    }
+
+    /**
+     * Tests that decisions are served from the cache until a permission change is published.
+     */
+    @Test
+    void permissionChangeFlushesCachedDecisions() {
+        AuthorizationDecisionCache cache = new AuthorizationDecisionCache(100);
+        AtomicInteger evaluations = new AtomicInteger();
+        String key = cache.roleSetKey(Arrays.asList("CRM_REP"));
+
+        assertTrue(cache.getOrEvaluate(key, "product-1", "read", () -> evaluations.incrementAndGet() > 0));
+        assertTrue(cache.getOrEvaluate(key, "product-1", "read", () -> evaluations.incrementAndGet() > 0));
+        assertEquals(1, evaluations.get());
+
+        cache.onPermissionChanged(new PermissionChangedEvent(this,
+                PermissionChangedEvent.Type.PRODUCT_ROLES_CHANGED, "product-1", null));
+
+        assertFalse(cache.getOrEvaluate(key, "product-1", "read", () -> evaluations.incrementAndGet() < 0));
+        assertEquals(2, evaluations.get());
+        assertEquals(1, cache.getStats().getHits());
+    }
+
+    /**
+     * Tests that a decision evaluated before a change is not cached after it.
+     */
+    @Test
+    void staleDecisionIsNotStored() {
+        AuthorizationDecisionCache cache = new AuthorizationDecisionCache(100);
+        long generation = cache.getGeneration();
+
+        cache.invalidateAll();
+        cache.put("rs:1", "product-1", "read", true, generation);
+
+        assertNull(cache.get("rs:1", "product-1", "read"));
+    }
+}
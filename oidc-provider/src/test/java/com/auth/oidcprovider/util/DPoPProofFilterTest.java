@@ -0,0 +1,26 @@
+package com.auth.oidcprovider.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the error description of rejected DPoP requests.
+ */
+public class DPoPProofFilterTest {
+
+    /**
+     * Tests that a description keeps only the characters allowed in a quoted header value, and that one with
+     * nothing left falls back to a fixed description.
+     */
+    @Test
+    void restrictsErrorDescriptionToHeaderSafeCharacters() {
+        assertEquals("DPoP proof is not fresh", DPoPProofFilter.errorDescription("DPoP proof is not fresh"));
+        assertEquals("Bad key, error=injectedSet-Cookie: a=b",
+                DPoPProofFilter.errorDescription("Bad key\", error=\"injected\r\nSet-Cookie: a=b"));
+        assertEquals("key caf", DPoPProofFilter.errorDescription("key café\\"));
+        assertEquals(200, DPoPProofFilter.errorDescription("x".repeat(1000)).length());
+        assertEquals("Invalid DPoP proof", DPoPProofFilter.errorDescription("\"é\""));
+        assertEquals("Invalid DPoP proof", DPoPProofFilter.errorDescription(null));
+    }
+}
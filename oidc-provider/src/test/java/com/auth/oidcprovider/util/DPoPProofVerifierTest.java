@@ -0,0 +1,121 @@
+package com.auth.oidcprovider.util;
+
+import com.auth.oidcprovider.dto.DPoPStats;
+import com.auth.oidcprovider.exceptions.InvalidTokenException;
+import com.nimbusds.jose.JOSEObjectType;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.ECDSASigner;
+import com.nimbusds.jose.jwk.Curve;
+import com.nimbusds.jose.jwk.ECKey;
+import com.nimbusds.jose.jwk.gen.ECKeyGenerator;
+import com.nimbusds.jose.util.Base64URL;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Date;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for DPoP proof verification and its proof key cache.
+ */
+public class DPoPProofVerifierTest {
+
+    private static final Instant NOW = Instant.parse("2026-01-01T12:00:00Z");
+    private static final String URI = "https://api.example.com/api/users";
+    private static final String ACCESS_TOKEN = "access.token.value";
+
+    private final Clock clock = Clock.fixed(NOW, ZoneOffset.UTC);
+    private final DPoPProofVerifier verifier = new DPoPProofVerifier(100, Duration.ofSeconds(300),
+            new JtiReplayCache(1000, 4, clock), clock, false);
+    private final ECKey clientKey;
+    private final String thumbprint;
+
+    public DPoPProofVerifierTest() throws Exception {
+        clientKey = new ECKeyGenerator(Curve.P_256).generate();
+        thumbprint = clientKey.computeThumbprint().toString();
+    }
+
+    private String proof(String method, String uri, Instant issuedAt, String jti) throws Exception {
+        JWSHeader header = new JWSHeader.Builder(JWSAlgorithm.ES256)
+                .type(new JOSEObjectType("dpop+jwt"))
+                .jwk(clientKey.toPublicJWK())
+                .build();
+        JWTClaimsSet claims = new JWTClaimsSet.Builder()
+                .jwtID(jti)
+                .claim("htm", method)
+                .claim("htu", uri)
+                .issueTime(Date.from(issuedAt))
+                .claim("ath", Base64URL.encode(MessageDigest.getInstance("SHA-256")
+                        .digest(ACCESS_TOKEN.getBytes(StandardCharsets.US_ASCII))).toString())
+                .build();
+        SignedJWT jwt = new SignedJWT(header, claims);
+        jwt.sign(new ECDSASigner(clientKey));
+        return jwt.serialize();
+    }
+
+    /**
+     * Tests that valid proofs are accepted and that only the first proof of a client parses its key.
+     */
+    @Test
+    void acceptsProofsAndReusesParsedKey() throws Exception {
+        verifier.verify(proof("POST", URI, NOW, UUID.randomUUID().toString()), "POST", URI, ACCESS_TOKEN, thumbprint);
+        // The request URI may differ in case, default port and query
+        verifier.verify(proof("POST", URI + "?page=2", NOW.minusSeconds(10), UUID.randomUUID().toString()),
+                "POST", "HTTPS://API.example.com:443/api/users", ACCESS_TOKEN, thumbprint);
+
+        DPoPStats stats = verifier.getStats();
+        assertEquals(2, stats.getVerified());
+        assertEquals(1, stats.getKeyCacheMisses());
+        assertEquals(1, stats.getKeyCacheHits());
+        assertEquals(1, stats.getKeyCacheSize());
+    }
+
+    /**
+     * Tests that proofs for another method, URI, token or key, and stale proofs, are rejected.
+     */
+    @Test
+    void rejectsMismatchedAndStaleProofs() throws Exception {
+        String jti = UUID.randomUUID().toString();
+        assertThrows(InvalidTokenException.class,
+                () -> verifier.verify(proof("GET", URI, NOW, jti), "POST", URI, ACCESS_TOKEN, thumbprint));
+        assertThrows(InvalidTokenException.class, () -> verifier.verify(
+                proof("POST", "https://api.example.com/api/products", NOW, jti), "POST", URI, ACCESS_TOKEN, thumbprint));
+        assertThrows(InvalidTokenException.class,
+                () -> verifier.verify(proof("POST", URI, NOW, jti), "POST", URI, "other.access.token", thumbprint));
+        assertThrows(InvalidTokenException.class,
+                () -> verifier.verify(proof("POST", URI, NOW, jti), "POST", URI, ACCESS_TOKEN, "other-thumbprint"));
+        assertThrows(InvalidTokenException.class, () -> verifier.verify(
+                proof("POST", URI, NOW.minusSeconds(400), jti), "POST", URI, ACCESS_TOKEN, thumbprint));
+
+        // None of the rejections used up the jti
+        verifier.verify(proof("POST", URI, NOW, jti), "POST", URI, ACCESS_TOKEN, thumbprint);
+        assertEquals(5, verifier.getStats().getRejected());
+    }
+
+    /**
+     * Tests that a proof cannot be replayed, and that a tampered proof fails its signature check.
+     */
+    @Test
+    void rejectsReplayedAndTamperedProofs() throws Exception {
+        String proof = proof("DELETE", URI, NOW, UUID.randomUUID().toString());
+        verifier.verify(proof, "DELETE", URI, ACCESS_TOKEN, thumbprint);
+
+        InvalidTokenException replay = assertThrows(InvalidTokenException.class,
+                () -> verifier.verify(proof, "DELETE", URI, ACCESS_TOKEN, thumbprint));
+        assertTrue(replay.getMessage().contains("already been used"));
+
+        String other = proof("POST", URI, NOW, UUID.randomUUID().toString());
+        String tampered = other.substring(0, other.lastIndexOf('.')) + proof.substring(proof.lastIndexOf('.'));
+        assertThrows(InvalidTokenException.class, () -> verifier.verify(tampered, "POST", URI, ACCESS_TOKEN, thumbprint));
+    }
+}
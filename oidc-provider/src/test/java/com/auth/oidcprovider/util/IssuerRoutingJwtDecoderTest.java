@@ -0,0 +1,205 @@
+package com.auth.oidcprovider.util;
+
+import com.auth.oidcprovider.dto.IssuerRoutingStats;
+import com.auth.oidcprovider.dto.IssuerStats;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.MACSigner;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import org.springframework.security.oauth2.jwt.JwtException;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+
+import javax.crypto.spec.SecretKeySpec;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the issuer-routing JWT decoder.
+ */
+public class IssuerRoutingJwtDecoderTest {
+
+    private static final String SALES = "http://localhost:8080/realms/sales";
+    private static final String SUPPORT = "http://localhost:8080/realms/support";
+
+    private final Map<String, byte[]> secrets = Map.of(
+            SALES, "sales-realm-secret-that-is-at-least-256-bits".getBytes(),
+            SUPPORT, "support-realm-secret-that-is-at-least-256-bits".getBytes());
+    private final Map<String, AtomicInteger> created = new ConcurrentHashMap<>();
+    private final AtomicInteger verifications = new AtomicInteger();
+
+    private IssuerRoutingJwtDecoder newDecoder() {
+        return newDecoder(false);
+    }
+
+    private IssuerRoutingJwtDecoder newDecoder(boolean lazyClaims) {
+        return new IssuerRoutingJwtDecoder(Arrays.asList(SALES, SUPPORT), issuer -> {
+            created.computeIfAbsent(issuer, i -> new AtomicInteger()).incrementAndGet();
+            NimbusJwtDecoder decoder = NimbusJwtDecoder
+                    .withSecretKey(new SecretKeySpec(secrets.get(issuer), "HmacSHA256")).build();
+            return token -> {
+                verifications.incrementAndGet();
+                return decoder.decode(token);
+            };
+        }, Set.of("HS256"), new RejectedTokenCache(100, Duration.ofMinutes(1)),
+                new VerifiedTokenCache(0, Duration.ZERO), lazyClaims);
+    }
+
+    private static String token(String issuer, byte[] secret) throws Exception {
+        return token(issuer, secret, JWSAlgorithm.HS256, new Date(System.currentTimeMillis() + 60_000));
+    }
+
+    private static String token(String issuer, byte[] secret, JWSAlgorithm algorithm, Date expiresAt)
+            throws Exception {
+        JWTClaimsSet claims = new JWTClaimsSet.Builder()
+                .issuer(issuer)
+                .subject("user-1")
+                .expirationTime(expiresAt)
+                .build();
+        SignedJWT jwt = new SignedJWT(new JWSHeader.Builder(algorithm).keyID("key-1").build(), claims);
+        jwt.sign(new MACSigner(secret));
+        return jwt.serialize();
+    }
+
+    /**
+     * Tests that tokens are verified by the decoder of their issuer, which is created once.
+     */
+    @Test
+    void routesTokensToTheDecoderOfTheirIssuer() throws Exception {
+        IssuerRoutingJwtDecoder decoder = newDecoder();
+
+        assertEquals("user-1", decoder.decode(token(SALES, secrets.get(SALES))).getSubject());
+        assertEquals("user-1", decoder.decode(token(SALES, secrets.get(SALES))).getSubject());
+        assertEquals("user-1", decoder.decode(token(SUPPORT, secrets.get(SUPPORT))).getSubject());
+
+        assertEquals(1, created.get(SALES).get());
+        assertEquals(1, created.get(SUPPORT).get());
+        IssuerStats sales = decoder.getStats().getIssuers().get(0);
+        assertEquals(SALES, sales.getIssuer());
+        assertTrue(sales.isDecoderCreated());
+        assertEquals(2, sales.getDecoded());
+    }
+
+    /**
+     * Tests that a token signed by one realm cannot pass as a token of another realm.
+     */
+    @Test
+    void rejectsTokenSignedByAnotherIssuer() throws Exception {
+        IssuerRoutingJwtDecoder decoder = newDecoder();
+
+        assertThrows(JwtException.class, () -> decoder.decode(token(SALES, secrets.get(SUPPORT))));
+        assertEquals(1, decoder.getStats().getIssuers().get(0).getFailed());
+    }
+
+    /**
+     * Tests that unknown issuers and malformed tokens are rejected without creating any decoder.
+     */
+    @Test
+    void rejectsUnknownIssuersBeforeVerification() throws Exception {
+        IssuerRoutingJwtDecoder decoder = newDecoder();
+
+        assertThrows(BadJwtException.class,
+                () -> decoder.decode(token("http://evil.example/realms/sales", secrets.get(SALES))));
+        assertThrows(BadJwtException.class, () -> decoder.decode("not-a-token"));
+
+        assertTrue(created.isEmpty());
+        IssuerRoutingStats stats = decoder.getStats();
+        assertEquals(1, stats.getUnknownIssuers());
+        assertEquals(1, stats.getMalformed());
+        assertFalse(stats.getIssuers().get(0).isDecoderCreated());
+    }
+
+    /**
+     * Tests that a replayed forged token is rejected from the cache without being verified again.
+     */
+    @Test
+    void replayedForgedTokenSkipsVerification() throws Exception {
+        IssuerRoutingJwtDecoder decoder = newDecoder();
+        String forged = token(SALES, secrets.get(SUPPORT));
+
+        for (int i = 0; i < 5; i++) {
+            assertThrows(BadJwtException.class, () -> decoder.decode(forged));
+        }
+
+        assertEquals(1, verifications.get());
+        assertEquals(4, decoder.getStats().getRejectedTokenHits());
+        assertEquals("user-1", decoder.decode(token(SALES, secrets.get(SALES))).getSubject());
+    }
+
+    /**
+     * Tests that expired tokens and disallowed algorithms are rejected before verification.
+     */
+    @Test
+    void structuralChecksRunBeforeVerification() throws Exception {
+        IssuerRoutingJwtDecoder decoder = newDecoder();
+        Date expired = new Date(System.currentTimeMillis() - Duration.ofMinutes(10).toMillis());
+        Date valid = new Date(System.currentTimeMillis() + 60_000);
+        byte[] longSecret = "a-secret-long-enough-for-hs512".repeat(3).getBytes();
+
+        assertThrows(BadJwtException.class,
+                () -> decoder.decode(token(SALES, secrets.get(SALES), JWSAlgorithm.HS256, expired)));
+        assertThrows(BadJwtException.class,
+                () -> decoder.decode(token(SALES, longSecret, JWSAlgorithm.HS512, valid)));
+        assertThrows(BadJwtException.class, () -> decoder.decode("a.b.c.d"));
+
+        assertEquals(0, verifications.get());
+        assertEquals(2, decoder.getStats().getPrecheckFailures());
+    }
+
+    /**
+     * Tests that the checks before verification route and reject tokens the same whether the claims are read
+     * lazily or parsed with Nimbus.
+     */
+    @Test
+    void prechecksTheSameWithAndWithoutLazyClaims() throws Exception {
+        Date expired = new Date(System.currentTimeMillis() - Duration.ofMinutes(10).toMillis());
+        for (boolean lazyClaims : new boolean[] {false, true}) {
+            verifications.set(0);
+            IssuerRoutingJwtDecoder decoder = newDecoder(lazyClaims);
+
+            assertEquals("user-1", decoder.decode(token(SUPPORT, secrets.get(SUPPORT))).getSubject());
+            assertThrows(BadJwtException.class,
+                    () -> decoder.decode(token(SALES, secrets.get(SALES), JWSAlgorithm.HS256, expired)));
+            assertThrows(BadJwtException.class,
+                    () -> decoder.decode(token("http://evil.example/realms/sales", secrets.get(SALES))));
+
+            assertEquals(1, verifications.get());
+            assertEquals(1, decoder.getStats().getPrecheckFailures());
+            assertEquals(1, decoder.getStats().getUnknownIssuers());
+        }
+    }
+
+    /**
+     * Tests that a token presented again is answered from the verified-token cache.
+     */
+    @Test
+    void repeatedTokenSkipsVerification() throws Exception {
+        IssuerRoutingJwtDecoder decoder = new IssuerRoutingJwtDecoder(Arrays.asList(SALES, SUPPORT), issuer -> {
+            NimbusJwtDecoder nimbus = NimbusJwtDecoder
+                    .withSecretKey(new SecretKeySpec(secrets.get(issuer), "HmacSHA256")).build();
+            return token -> {
+                verifications.incrementAndGet();
+                return nimbus.decode(token);
+            };
+        }, Set.of("HS256"), new RejectedTokenCache(100, Duration.ofMinutes(1)),
+                new VerifiedTokenCache(100, Duration.ofMinutes(5)), false);
+        String token = token(SALES, secrets.get(SALES));
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals("user-1", decoder.decode(token).getSubject());
+        }
+
+        assertEquals(1, verifications.get());
+        assertEquals(2, decoder.getStats().getVerifiedTokenCache().getHits());
+        assertEquals(1, decoder.getStats().getVerifiedTokenCache().getSize());
+    }
+}
@@ -0,0 +1,168 @@
+package com.auth.oidcprovider.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the token id replay cache and its timing wheel.
+ */
+public class JtiReplayCacheTest {
+
+    private static final Instant START = Instant.parse("2026-01-01T00:00:00Z");
+
+    private final MutableClock clock = new MutableClock(START);
+
+    /**
+     * Tests that an id is accepted once and rejected until it expires, after which the wheel removes it.
+     */
+    @Test
+    void rejectsReplayUntilExpiry() {
+        JtiReplayCache cache = new JtiReplayCache(100, 4, clock);
+
+        assertEquals(JtiReplayCache.Result.FIRST_USE, cache.markUsed("a", START.plusSeconds(30)));
+        assertEquals(JtiReplayCache.Result.REPLAY, cache.markUsed("a", START.plusSeconds(30)));
+        assertEquals(JtiReplayCache.Result.FIRST_USE, cache.markUsed("b", START.plusSeconds(30)));
+
+        clock.advance(29);
+        assertEquals(JtiReplayCache.Result.REPLAY, cache.markUsed("a", START.plusSeconds(30)));
+        assertEquals(2, cache.size());
+
+        clock.advance(1);
+        cache.markUsed("other", START);
+        assertEquals(0, cache.size());
+        assertEquals(2, cache.getReplayCount());
+    }
+
+    /**
+     * Tests that ids expiring beyond the first and second levels of the wheel cascade down and are removed at
+     * their expiry, not before.
+     */
+    @Test
+    void cascadesLongLivedIdsThroughTheLevels() {
+        JtiReplayCache cache = new JtiReplayCache(100, 1, clock);
+        cache.markUsed("minutes", START.plusSeconds(600));
+        cache.markUsed("hours", START.plusSeconds(3 * 3600 + 17));
+        cache.markUsed("days", START.plusSeconds(5 * 86400));
+
+        for (int second = 1; second <= 3 * 3600 + 17; second++) {
+            clock.advance(1);
+            cache.markUsed("probe", START);
+            int expected = second < 600 ? 3 : second < 3 * 3600 + 17 ? 2 : 1;
+            assertEquals(expected, cache.size(), "at second " + second);
+        }
+        assertEquals(JtiReplayCache.Result.REPLAY, cache.markUsed("days", START.plusSeconds(5 * 86400)));
+
+        // A long idle period is caught up in one sweep
+        clock.advance(5 * 86400);
+        cache.markUsed("probe", START);
+        assertEquals(0, cache.size());
+    }
+
+    /**
+     * Tests that catching up after an idle period longer than the wheel covers keeps ids that are still live, even
+     * when they are rescheduled into a slot that the sweep has yet to reach.
+     */
+    @Test
+    void keepsLiveIdsWhenCatchingUpAfterIdlePeriod() {
+        JtiReplayCache cache = new JtiReplayCache(100, 1, clock);
+        // Parked beyond the wheel, then due in an outer slot after the sweep of the parking slot
+        cache.markUsed("long-lived", START.plusSeconds(400_000));
+
+        clock.advance(300_000);
+        assertTimeoutPreemptively(Duration.ofSeconds(10), () -> cache.markUsed("probe", START));
+        assertEquals(1, cache.size());
+        assertEquals(JtiReplayCache.Result.REPLAY, cache.markUsed("long-lived", START.plusSeconds(400_000)));
+
+        clock.advance(99_999);
+        cache.markUsed("probe", START);
+        assertEquals(1, cache.size());
+
+        clock.advance(1);
+        cache.markUsed("probe", START);
+        assertEquals(0, cache.size());
+    }
+
+    /**
+     * Tests that a full cache refuses new ids instead of forgetting recorded ones, and that forgetting an id
+     * frees its room.
+     */
+    @Test
+    void refusesNewIdsWhenFull() {
+        JtiReplayCache cache = new JtiReplayCache(2, 1, clock);
+        cache.markUsed("a", START.plusSeconds(60));
+        cache.markUsed("b", START.plusSeconds(60));
+
+        assertEquals(JtiReplayCache.Result.FULL, cache.markUsed("c", START.plusSeconds(60)));
+        assertEquals(JtiReplayCache.Result.REPLAY, cache.markUsed("a", START.plusSeconds(60)));
+        assertEquals(1, cache.getOverflowCount());
+
+        cache.forget("b");
+        assertEquals(JtiReplayCache.Result.FIRST_USE, cache.markUsed("c", START.plusSeconds(60)));
+    }
+
+    /**
+     * Tests that exactly one of many concurrent uses of the same id is accepted.
+     */
+    @Test
+    void acceptsOneOfConcurrentUses() throws Exception {
+        JtiReplayCache cache = new JtiReplayCache(10_000, 16, clock);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Callable<JtiReplayCache.Result>> uses = new ArrayList<>();
+            for (int i = 0; i < 64; i++) {
+                uses.add(() -> cache.markUsed("shared", START.plusSeconds(60)));
+            }
+            long firstUses = 0;
+            for (Future<JtiReplayCache.Result> result : executor.invokeAll(uses)) {
+                if (result.get() == JtiReplayCache.Result.FIRST_USE) {
+                    firstUses++;
+                }
+            }
+            assertEquals(1, firstUses);
+            assertEquals(1, cache.size());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(long seconds) {
+            now = now.plusSeconds(seconds);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
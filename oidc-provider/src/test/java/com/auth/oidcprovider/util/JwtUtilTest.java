@@ -0,0 +1,53 @@
+package com.auth.oidcprovider.util;
+
+import com.auth.authz.SubjectRoles;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+
+import java.time.Instant;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Unit tests for building the userinfo claims of an authenticated request.
+ */
+public class JwtUtilTest {
+
+    private final JwtUtil jwtUtil = new JwtUtil(mock(JwtDecoder.class), mock(TokenPrincipalConverter.class));
+
+    /**
+     * Tests that the userinfo claims hold the principal's claims and the token's remaining user claims, but not
+     * the claims that only describe the token.
+     */
+    @Test
+    void returnsPrincipalAndRemainingUserClaims() {
+        Jwt jwt = Jwt.withTokenValue("token")
+                .header("alg", "RS256")
+                .issuer("https://issuer.example.com")
+                .subject("kc-1")
+                .audience(List.of("account"))
+                .jti("jti-1")
+                .issuedAt(Instant.now())
+                .expiresAt(Instant.now().plusSeconds(300))
+                .claim("preferred_username", "alice")
+                .claim("given_name", "Alice")
+                .claim("realm_access", Map.of("roles", List.of("sales")))
+                .build();
+        TokenPrincipal principal = new TokenPrincipal("kc-1", "alice", "alice@example.com", true,
+                List.of("sales"), Map.of(), new SubjectRoles(Set.of(), new BitSet(), false));
+
+        Map<String, Object> userInfo = jwtUtil.getUserInfoClaims(principal, jwt);
+
+        assertEquals(List.of("sub", "preferred_username", "email", "email_verified", "given_name"),
+                List.copyOf(userInfo.keySet()));
+        assertEquals("alice@example.com", userInfo.get("email"));
+        assertEquals(true, userInfo.get("email_verified"));
+        assertEquals("Alice", userInfo.get("given_name"));
+    }
+}
@@ -0,0 +1,123 @@
+package com.auth.oidcprovider.util;
+
+import com.auth.authz.KeycloakRoleExtractor;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.proc.SingleKeyJWSKeySelector;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtValidationException;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.interfaces.RSAPublicKey;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the lazy claim parsing JWT decoder.
+ */
+public class LazyClaimsJwtDecoderTest {
+
+    private static final KeyPair KEY_PAIR = generateKeyPair();
+
+    private static KeyPair generateKeyPair() {
+        try {
+            KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+            generator.initialize(2048);
+            return generator.generateKeyPair();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static LazyClaimsJwtDecoder newDecoder() {
+        return new LazyClaimsJwtDecoder(new SingleKeyJWSKeySelector<>(JWSAlgorithm.RS256, KEY_PAIR.getPublic()));
+    }
+
+    private static String token(Date expiresAt) throws Exception {
+        JWTClaimsSet claims = new JWTClaimsSet.Builder()
+                .issuer("http://localhost:8080/realms/iam-realm")
+                .subject("user-1")
+                .audience(List.of("account", "iam-client"))
+                .issueTime(new Date(expiresAt.getTime() - 300_000))
+                .expirationTime(expiresAt)
+                .claim("name", "Jane \"JD\" Doeé")
+                .claim("realm_access", Map.of("roles", List.of("ADMIN", "USER")))
+                .claim("resource_access", Map.of("account", Map.of("roles", List.of("manage-account"))))
+                .claim("tenant_quota", 12.5)
+                .build();
+        SignedJWT jwt = new SignedJWT(new JWSHeader.Builder(JWSAlgorithm.RS256).keyID("key-1").build(), claims);
+        jwt.sign(new RSASSASigner(KEY_PAIR.getPrivate()));
+        return jwt.serialize();
+    }
+
+    /**
+     * Tests that claims read through the lazy decoder equal those of the Nimbus decoder.
+     */
+    @Test
+    void decodesTheSameClaimsAsTheNimbusDecoder() throws Exception {
+        String token = token(new Date(System.currentTimeMillis() + 60_000));
+        Jwt lazy = newDecoder().decode(token);
+        Jwt eager = NimbusJwtDecoder.withPublicKey((RSAPublicKey) KEY_PAIR.getPublic()).build().decode(token);
+
+        assertEquals(eager.getSubject(), lazy.getSubject());
+        assertEquals(eager.getExpiresAt(), lazy.getExpiresAt());
+        assertEquals(eager.getIssuedAt(), lazy.getIssuedAt());
+        assertEquals(eager.getAudience(), lazy.getAudience());
+        assertEquals(eager.getClaimAsString("name"), lazy.getClaimAsString("name"));
+        assertEquals(12.5, ((Number) lazy.getClaim("tenant_quota")).doubleValue());
+        assertEquals(KeycloakRoleExtractor.realmRoles(eager.getClaims()), KeycloakRoleExtractor.realmRoles(lazy.getClaims()));
+        assertEquals(eager.getClaimAsMap("resource_access"), lazy.getClaimAsMap("resource_access"));
+        assertEquals(Instant.class, lazy.getClaims().get("exp").getClass());
+    }
+
+    /**
+     * Tests that a token whose payload was altered after signing is rejected.
+     */
+    @Test
+    void rejectsTamperedPayload() throws Exception {
+        String[] parts = token(new Date(System.currentTimeMillis() + 60_000)).split("\\.");
+        String forgedPayload = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString("{\"sub\":\"admin\",\"realm_access\":{\"roles\":[\"ADMIN\"]}}".getBytes());
+
+        assertThrows(BadJwtException.class, () -> newDecoder().decode(parts[0] + "." + forgedPayload + "." + parts[2]));
+    }
+
+    /**
+     * Tests that temporal claims are validated eagerly.
+     */
+    @Test
+    void rejectsExpiredToken() throws Exception {
+        String token = token(new Date(System.currentTimeMillis() - 600_000));
+
+        assertThrows(JwtValidationException.class, () -> newDecoder().decode(token));
+    }
+
+    /**
+     * Tests that nested values are parsed only on access, and that malformed nesting is still caught.
+     */
+    @Test
+    void lazyJsonParsesNestedValuesOnAccess() {
+        Map<String, Object> claims = LazyJson.parseObject(
+                "{\"a\":{\"b\":[1,2.5,\"x\\u0041\\n\",true,null,{\"c\":{}}]},\"big\":123456789012345678901234}");
+
+        List<?> values = (List<?>) ((Map<?, ?>) claims.get("a")).get("b");
+        assertEquals(List.of(1L, 2.5, "xA\n", true), values.subList(0, 4));
+        assertNull(values.get(4));
+        assertEquals(Map.of("c", Map.of()), values.get(5));
+        assertEquals("123456789012345678901234", claims.get("big").toString());
+        assertThrows(IllegalArgumentException.class, () -> LazyJson.parseObject("{\"a\":{\"b\":[1,2}"));
+        assertThrows(IllegalArgumentException.class, () -> LazyJson.parseObject("{\"a\":1} x"));
+    }
+}
@@ -0,0 +1,48 @@
+package com.auth.oidcprovider.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for pre-rendered documents.
+ */
+public class PublishedDocumentTest {
+
+    private static final String JSON = "{\"keys\":[{\"kty\":\"EC\",\"kid\":\"es256-1\"}]}";
+
+    /**
+     * Tests that the gzip copy decodes to the body and that the headers are rendered.
+     */
+    @Test
+    void rendersBodyGzipCopyAndHeaders() throws Exception {
+        PublishedDocument document = PublishedDocument.of(JSON, Duration.ofHours(1));
+
+        assertEquals(JSON, new String(document.getBody(), StandardCharsets.UTF_8));
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(document.getGzipBody()))) {
+            assertEquals(JSON, new String(gzip.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        assertEquals("public, max-age=3600", document.getCacheControl());
+        assertTrue(document.getEtag().startsWith("\"") && document.getEtag().endsWith("\""));
+        assertNotEquals(document.getEtag(), document.getGzipEtag());
+    }
+
+    /**
+     * Tests that the ETag depends only on the content, so every node sends the same one for the same keys.
+     */
+    @Test
+    void derivesEtagFromContent() {
+        PublishedDocument first = PublishedDocument.of(JSON, Duration.ofHours(1));
+        PublishedDocument second = PublishedDocument.of(JSON, Duration.ofMinutes(5));
+        PublishedDocument changed = PublishedDocument.of(JSON.replace("es256-1", "es256-2"), Duration.ofHours(1));
+
+        assertEquals(first.getEtag(), second.getEtag());
+        assertEquals(first.getGzipEtag(), second.getGzipEtag());
+        assertNotEquals(first.getEtag(), changed.getEtag());
+    }
+}
@@ -0,0 +1,81 @@
+package com.auth.oidcprovider.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the in-memory front of the refresh token store.
+ */
+public class RefreshTokenReuseCacheTest {
+
+    private static final Instant NOW = Instant.parse("2026-01-01T12:00:00Z");
+
+    private final MutableClock clock = new MutableClock(NOW);
+
+    /**
+     * Tests that rotated tokens and revoked families are answered until the tokens expire.
+     */
+    @Test
+    void answersUsedTokensAndRevokedFamiliesUntilExpiry() {
+        RefreshTokenReuseCache cache = new RefreshTokenReuseCache(100, clock);
+        cache.recordUsed("token-1", "family-1", NOW.plusSeconds(60));
+        cache.recordRevoked("family-2", NOW.plusSeconds(60));
+
+        assertEquals("family-1", cache.getUsedFamily("token-1"));
+        assertNull(cache.getUsedFamily("token-2"));
+        assertTrue(cache.isRevoked("family-2"));
+        assertFalse(cache.isRevoked("family-1"));
+        assertEquals(2, cache.getHitCount());
+
+        clock.instant = NOW.plusSeconds(60);
+        assertNull(cache.getUsedFamily("token-1"));
+        assertFalse(cache.isRevoked("family-2"));
+        assertEquals(0, cache.size());
+    }
+
+    /**
+     * Tests that a full cache is emptied rather than growing past its size.
+     */
+    @Test
+    void emptiesWhenFull() {
+        RefreshTokenReuseCache cache = new RefreshTokenReuseCache(2, clock);
+        cache.recordUsed("token-1", "family-1", NOW.plusSeconds(60));
+        cache.recordUsed("token-2", "family-1", NOW.plusSeconds(60));
+        cache.recordUsed("token-3", "family-1", NOW.plusSeconds(60));
+
+        assertNull(cache.getUsedFamily("token-1"));
+        assertEquals("family-1", cache.getUsedFamily("token-3"));
+        assertEquals(1, cache.size());
+        assertEquals(2, cache.getEvictionCount());
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private Instant instant;
+
+        MutableClock(Instant instant) {
+            this.instant = instant;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
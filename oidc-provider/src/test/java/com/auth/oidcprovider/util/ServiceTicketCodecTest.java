@@ -0,0 +1,135 @@
+package com.auth.oidcprovider.util;
+
+import com.auth.authz.ClaimPath;
+import com.auth.authz.SubjectRoles;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtException;
+import org.springframework.security.oauth2.jwt.JwtValidationException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for issuing and verifying service tickets.
+ */
+public class ServiceTicketCodecTest {
+
+    private static final byte[] SECRET = "0123456789abcdef0123456789abcdef".getBytes(StandardCharsets.UTF_8);
+    private static final String ISSUER = "urn:oidc-provider:service-ticket";
+    private static final Duration TTL = Duration.ofSeconds(60);
+    private static final Duration ROTATION = Duration.ofSeconds(3600);
+    private static final SubjectRoles NO_ROLES = new SubjectRoles(Set.of(), new BitSet(), false);
+    // Start of a rotation period
+    private static final Instant PERIOD_START = Instant.ofEpochSecond(1_700_000_000L / 3600 * 3600);
+
+    private static ServiceTicketCodec codecAt(Instant now) {
+        return codecAt(now, SECRET);
+    }
+
+    private static ServiceTicketCodec codecAt(Instant now, byte[] secret) {
+        return codecAt(now, secret, false);
+    }
+
+    private static ServiceTicketCodec codecAt(Instant now, byte[] secret, boolean lazyClaims) {
+        return new ServiceTicketCodec(secret, ISSUER, TTL, ROTATION, Clock.fixed(now, ZoneOffset.UTC), lazyClaims);
+    }
+
+    private static TokenPrincipal principal() {
+        return new TokenPrincipal("user-1", "jane.doe", "jane.doe@example.com", true,
+                List.of("sales_manager"), Map.of("account", List.of("view-profile")), NO_ROLES);
+    }
+
+    /**
+     * Tests that a ticket carries the identity and roles of the principal, and is verified by another
+     * node sharing the secret, whether the nodes parse claims lazily or not.
+     */
+    @Test
+    void ticketRoundTripsBetweenNodes() {
+        Instant now = PERIOD_START.plusSeconds(100);
+        for (boolean lazyClaims : new boolean[] {false, true}) {
+            Jwt issued = codecAt(now, SECRET, lazyClaims).issue(principal(), now.plusSeconds(300));
+            ServiceTicketCodec otherNode = codecAt(now.plusSeconds(5), SECRET, !lazyClaims);
+
+            assertTrue(otherNode.isTicket(issued.getTokenValue()));
+            Jwt ticket = otherNode.decode(issued.getTokenValue());
+
+            assertEquals("user-1", ticket.getSubject());
+            assertEquals(ISSUER, ticket.getClaimAsString("iss"));
+            assertEquals(now.plus(TTL), ticket.getExpiresAt());
+            assertEquals("jane.doe", ticket.getClaimAsString("preferred_username"));
+            assertEquals(List.of("sales_manager"),
+                    ClaimPath.of("realm_access.roles").getStringList(ticket.getClaims()));
+            assertEquals(List.of("view-profile"),
+                    ClaimPath.of("resource_access.account.roles").getStringList(ticket.getClaims()));
+            assertNotNull(ticket.getId());
+            assertFalse(otherNode.isTicket("eyJhbGciOiJSUzI1NiJ9.e30.c2ln"));
+        }
+    }
+
+    /**
+     * Tests that a ticket never outlives the access token it was exchanged for.
+     */
+    @Test
+    void ticketExpiresWithAccessToken() {
+        Instant now = PERIOD_START.plusSeconds(100);
+
+        Jwt ticket = codecAt(now).issue(principal(), now.plusSeconds(10));
+
+        assertEquals(now.plusSeconds(10), ticket.getExpiresAt());
+        assertThrows(IllegalArgumentException.class, () -> codecAt(now).issue(principal(), now));
+    }
+
+    /**
+     * Tests that the signing key changes with the rotation period, and that the previous key is accepted only
+     * for the overlap window after the period ends.
+     */
+    @Test
+    void previousKeyIsAcceptedDuringOverlapOnly() {
+        Instant endOfPeriod = PERIOD_START.plus(ROTATION).minusSeconds(10);
+        String ticket = codecAt(endOfPeriod).issue(principal(), null).getTokenValue();
+        String nextTicket = codecAt(PERIOD_START.plus(ROTATION)).issue(principal(), null).getTokenValue();
+
+        assertNotEquals(ticket.substring(0, ticket.indexOf('.')), nextTicket.substring(0, nextTicket.indexOf('.')));
+        // The ticket is still valid after the rotation
+        assertEquals("user-1", codecAt(PERIOD_START.plus(ROTATION).plusSeconds(30)).decode(ticket).getSubject());
+        // Past its TTL and the clock skew the key itself is retired
+        ServiceTicketCodec later = codecAt(PERIOD_START.plus(ROTATION).plus(TTL).plusSeconds(61));
+        assertFalse(later.isTicket(ticket));
+        assertThrows(BadJwtException.class, () -> later.decode(ticket));
+    }
+
+    /**
+     * Tests that tampered tickets, tickets signed with another secret and expired tickets are rejected.
+     */
+    @Test
+    void rejectsTamperedForeignAndExpiredTickets() {
+        Instant now = PERIOD_START.plusSeconds(100);
+        String ticket = codecAt(now).issue(principal(), null).getTokenValue();
+        ServiceTicketCodec codec = codecAt(now);
+
+        int second = ticket.lastIndexOf('.');
+        String forged = codecAt(now).issue(new TokenPrincipal("admin", null, null, false,
+                List.of("admin"), Map.of(), NO_ROLES), null).getTokenValue();
+        String tampered = forged.substring(0, forged.lastIndexOf('.')) + ticket.substring(second);
+        assertThrows(BadJwtException.class, () -> codec.decode(tampered));
+
+        byte[] otherSecret = "fedcba9876543210fedcba9876543210".getBytes(StandardCharsets.UTF_8);
+        String foreign = codecAt(now, otherSecret).issue(principal(), null).getTokenValue();
+        assertThrows(BadJwtException.class, () -> codec.decode(foreign));
+
+        JwtException expired = assertThrows(JwtException.class,
+                () -> codecAt(now.plus(TTL).plusSeconds(61)).decode(ticket));
+        assertInstanceOf(JwtValidationException.class, expired);
+    }
+}
@@ -0,0 +1,105 @@
+package com.auth.oidcprovider.util;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.proc.JWSVerificationKeySelector;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jose.util.Base64URL;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtException;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the rotating signing key pool.
+ */
+public class SigningKeyPoolTest {
+
+    private static final Instant NOW = Instant.parse("2026-01-01T12:00:00Z");
+
+    private final SigningKeyPool pool = new SigningKeyPool(List.of(JWSAlgorithm.RS256, JWSAlgorithm.ES256),
+            Duration.ofHours(1), Clock.fixed(NOW, ZoneOffset.UTC));
+    private final LazyClaimsJwtDecoder decoder = new LazyClaimsJwtDecoder(
+            new JWSVerificationKeySelector<SecurityContext>(Set.of(JWSAlgorithm.RS256, JWSAlgorithm.ES256), pool));
+
+    private String claims() {
+        long exp = Instant.now().plusSeconds(300).getEpochSecond();
+        return "{\"sub\":\"user-1\",\"exp\":" + exp + "}";
+    }
+
+    private static String keyId(String token) throws Exception {
+        return JWSHeader.parse(new Base64URL(token.substring(0, token.indexOf('.')))).getKeyID();
+    }
+
+    /**
+     * Tests that tokens signed with either algorithm verify against the published keys.
+     */
+    @Test
+    void signsVerifiableTokens() throws Exception {
+        for (JWSAlgorithm algorithm : List.of(JWSAlgorithm.RS256, JWSAlgorithm.ES256)) {
+            String token = pool.sign(algorithm, claims());
+            Jwt jwt = decoder.decode(token);
+            assertEquals("user-1", jwt.getSubject());
+            assertEquals(algorithm.getName(), jwt.getHeaders().get("alg"));
+        }
+        // Current and next key of both algorithms
+        assertEquals(4, pool.getPublicKeys().getKeys().size());
+        assertTrue(pool.getPublicKeys().getKeys().stream().noneMatch(JWK::isPrivate));
+
+        String token = pool.sign(JWSAlgorithm.ES256, claims());
+        String tampered = token.substring(0, token.indexOf('.') + 1) + Base64URL.encode("{\"sub\":\"admin\"}")
+                + token.substring(token.lastIndexOf('.'));
+        assertThrows(JwtException.class, () -> decoder.decode(tampered));
+    }
+
+    /**
+     * Tests that rotation signs with the key published in advance, and that tokens of the retired key still verify.
+     */
+    @Test
+    void rotatesToPublishedKeyAndKeepsRetiredKey() throws Exception {
+        List<JWKSet> published = new ArrayList<>();
+        pool.addListener(published::add);
+        String before = pool.sign(JWSAlgorithm.RS256, claims());
+        JWKSet keysBefore = pool.getPublicKeys();
+
+        pool.rotate();
+
+        String after = pool.sign(JWSAlgorithm.RS256, claims());
+        assertNotEquals(keyId(before), keyId(after));
+        assertNotNull(keysBefore.getKeyByKeyId(keyId(after)), "The new key was published before it signed");
+        decoder.decode(before);
+        decoder.decode(after);
+        // Retired, current and next key of both algorithms
+        assertEquals(6, pool.getPublicKeys().getKeys().size());
+        assertEquals(1, published.size());
+    }
+
+    /**
+     * Tests that keys of other nodes are published and accepted, while this node's own keys are not duplicated.
+     */
+    @Test
+    void publishesRemoteKeys() throws Exception {
+        SigningKeyPool other = new SigningKeyPool(List.of(JWSAlgorithm.ES256), Duration.ofHours(1),
+                Clock.fixed(NOW, ZoneOffset.UTC));
+        String token = other.sign(JWSAlgorithm.ES256, claims());
+        assertThrows(JwtException.class, () -> decoder.decode(token));
+
+        List<JWK> shared = new ArrayList<>(other.getOwnPublicKeys());
+        shared.addAll(pool.getOwnPublicKeys());
+        pool.setRemoteKeys(shared);
+
+        assertEquals("user-1", decoder.decode(token).getSubject());
+        assertEquals(6, pool.getPublicKeys().getKeys().size());
+    }
+}
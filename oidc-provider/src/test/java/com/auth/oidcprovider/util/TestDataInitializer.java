@@ -2,6 +2,7 @@ package com.auth.oidcprovider.util;
 
 import com.auth.oidcprovider.models.Product;
 import com.auth.oidcprovider.models.User;
+import com.auth.oidcprovider.repositories.GroupRepository;
 import com.auth.oidcprovider.repositories.ProductRepository;
 import com.auth.oidcprovider.repositories.UserRepository;
 import org.slf4j.Logger;
@@ -22,10 +23,13 @@ public class TestDataInitializer {
     
     private final ProductRepository productRepository;
     private final UserRepository userRepository;
+    private final GroupRepository groupRepository;
     
-    public TestDataInitializer(ProductRepository productRepository, UserRepository userRepository) {
+    public TestDataInitializer(ProductRepository productRepository, UserRepository userRepository,
+                               GroupRepository groupRepository) {
         this.productRepository = productRepository;
         this.userRepository = userRepository;
+        this.groupRepository = groupRepository;
     }
     
     /**
@@ -39,12 +43,15 @@ public class TestDataInitializer {
         
         // Create iPhone
         Product iPhone = new Product("iPhone", "Apple iPhone 14 Pro", 999.99);
+        iPhone.setRegion("US");
         
         // Create iPad
         Product iPad = new Product("iPad", "Apple iPad Pro", 799.99);
+        iPad.setRegion("EU");
         
         // Create MacBook Pro
         Product macbookPro = new Product("MacBook Pro", "Apple MacBook Pro 16", 2499.99);
+        macbookPro.setRegion("EU");
         
         // Save all products
         productRepository.saveAll(Arrays.asList(iPhone, iPad, macbookPro));
@@ -125,6 +132,7 @@ public class TestDataInitializer {
         logger.info("Cleaning up test data...");
         productRepository.deleteAll();
         userRepository.deleteAll();
+        groupRepository.deleteAll();
         logger.info("Test data cleaned up successfully");
     }
 } 
\ No newline at end of file
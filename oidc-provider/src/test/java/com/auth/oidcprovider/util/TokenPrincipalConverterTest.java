@@ -0,0 +1,111 @@
+package com.auth.oidcprovider.util;
+
+import com.auth.authz.AccessDecisionEngine;
+import com.auth.authz.ProductAccessIndex;
+import com.auth.authz.RoleDictionary;
+import com.auth.authz.RoleHierarchy;
+import com.auth.oidcprovider.services.PolicySnapshotService;
+import com.auth.oidcprovider.services.RoleHierarchyService;
+import com.auth.oidcprovider.services.UserService;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.AbstractAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.oauth2.jwt.Jwt;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for extracting the token principal during authentication.
+ */
+public class TokenPrincipalConverterTest {
+
+    private final RoleHierarchy hierarchy = RoleHierarchy.of(Map.of("SALES_MANAGER", Set.of("CRM_REP")));
+    private final AccessDecisionEngine engine =
+            new AccessDecisionEngine(new ProductAccessIndex(new RoleDictionary()), hierarchy);
+
+    private final UserService userService = mock(UserService.class);
+
+    private TokenPrincipalConverter newConverter() {
+        RoleHierarchyService roleHierarchyService = mock(RoleHierarchyService.class);
+        when(roleHierarchyService.expandRoles(anyCollection()))
+                .thenAnswer(invocation -> hierarchy.expand(invocation.getArgument(0)));
+        PolicySnapshotService policySnapshotService = mock(PolicySnapshotService.class);
+        when(policySnapshotService.getEngine()).thenReturn(engine);
+        return new TokenPrincipalConverter(roleHierarchyService, policySnapshotService, userService);
+    }
+
+    private static Jwt jwt() {
+        return Jwt.withTokenValue("token")
+                .header("alg", "RS256")
+                .subject("user-1")
+                .issuedAt(Instant.now())
+                .expiresAt(Instant.now().plusSeconds(300))
+                .claim("preferred_username", "jane.doe")
+                .claim("email", "jane.doe@example.com")
+                .claim("email_verified", true)
+                .claim("realm_access", Map.of("roles", List.of("sales_manager")))
+                .claim("resource_access", Map.of("account", Map.of("roles", List.of("view-profile"))))
+                .build();
+    }
+
+    /**
+     * Tests that the principal carries the identity claims and the roles as issued.
+     */
+    @Test
+    void extractsIdentityAndRolesOnce() {
+        TokenPrincipal principal = newConverter().toPrincipal(jwt());
+
+        assertEquals("user-1", principal.getName());
+        assertEquals("jane.doe", principal.username());
+        assertEquals("jane.doe@example.com", principal.email());
+        assertTrue(principal.emailVerified());
+        assertEquals(List.of("sales_manager"), principal.realmRoles());
+        assertEquals(List.of("sales_manager", "account:view-profile"), principal.roleNames());
+        assertEquals(Set.of("SALES_MANAGER", "CRM_REP"), principal.roles().names());
+    }
+
+    /**
+     * Tests that the authentication exposes the principal, and authorities and role bits
+     * include the roles inherited through the hierarchy.
+     */
+    @Test
+    void attachesPrincipalWithExpandedAuthoritiesAndRoleBits() {
+        engine.getIndex().put("product-1", List.of("CRM_REP"));
+
+        AbstractAuthenticationToken authentication = newConverter().convert(jwt());
+
+        assertInstanceOf(TokenPrincipalAuthenticationToken.class, authentication);
+        assertEquals("user-1", authentication.getName());
+        assertEquals(Set.of("ROLE_SALES_MANAGER", "ROLE_CRM_REP"), authentication.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .collect(Collectors.toSet()));
+        TokenPrincipal principal = ((TokenPrincipalAuthenticationToken) authentication).getTokenPrincipal();
+        assertTrue(engine.canAccessProduct(principal.roles(), "product-1"));
+    }
+
+    /**
+     * Tests that the stored effective roles of the user, e.g. inherited from groups, become authorities
+     * alongside the token's roles.
+     */
+    @Test
+    void mergesStoredEffectiveRoles() {
+        when(userService.findEffectiveRolesByKeycloakId("user-1")).thenReturn(List.of("auditor", "SALES_MANAGER"));
+
+        AbstractAuthenticationToken authentication = newConverter().convert(jwt());
+
+        assertEquals(Set.of("ROLE_SALES_MANAGER", "ROLE_CRM_REP", "ROLE_AUDITOR"), authentication.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .collect(Collectors.toSet()));
+        TokenPrincipal principal = ((TokenPrincipalAuthenticationToken) authentication).getTokenPrincipal();
+        assertEquals(List.of("sales_manager"), principal.realmRoles());
+    }
+}
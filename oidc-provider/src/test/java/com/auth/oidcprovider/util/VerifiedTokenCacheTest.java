@@ -0,0 +1,128 @@
+package com.auth.oidcprovider.util;
+
+import com.auth.oidcprovider.models.VerifiedToken;
+import com.auth.oidcprovider.repositories.VerifiedTokenRepository;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.MACSigner;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+
+import javax.crypto.spec.SecretKeySpec;
+import java.time.Duration;
+import java.util.Date;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for the shared level of the verified-token cache.
+ */
+public class VerifiedTokenCacheTest {
+
+    private static final String ISSUER = "http://localhost:8080/realms/iam-realm";
+    private static final byte[] SIGNING_KEY = "realm-signing-key-that-is-at-least-256-bits".getBytes();
+    private static final byte[] SHARED_SECRET = "cache-secret-shared-by-every-node-0123".getBytes();
+
+    private final Map<String, VerifiedToken> records = new ConcurrentHashMap<>();
+
+    private VerifiedTokenRepository sharedStore() {
+        VerifiedTokenRepository store = mock(VerifiedTokenRepository.class);
+        when(store.findById(anyString())).thenAnswer(invocation ->
+                Optional.ofNullable(records.get(invocation.<String>getArgument(0))));
+        when(store.save(any(VerifiedToken.class))).thenAnswer(invocation -> {
+            VerifiedToken record = invocation.getArgument(0);
+            records.put(record.getId(), record);
+            return record;
+        });
+        return store;
+    }
+
+    private VerifiedTokenCache newNode(byte[] secret) {
+        return newNode(secret, false);
+    }
+
+    private VerifiedTokenCache newNode(byte[] secret, boolean lazyClaims) {
+        return new VerifiedTokenCache(100, Duration.ofMinutes(5), sharedStore(), secret, lazyClaims);
+    }
+
+    private static String token() throws Exception {
+        JWTClaimsSet claims = new JWTClaimsSet.Builder()
+                .issuer(ISSUER)
+                .subject("user-1")
+                .expirationTime(new Date(System.currentTimeMillis() + 60_000))
+                .build();
+        SignedJWT jwt = new SignedJWT(new JWSHeader.Builder(JWSAlgorithm.HS256).keyID("key-1").build(), claims);
+        jwt.sign(new MACSigner(SIGNING_KEY));
+        return jwt.serialize();
+    }
+
+    private static Jwt verify(String token) {
+        return NimbusJwtDecoder.withSecretKey(new SecretKeySpec(SIGNING_KEY, "HmacSHA256")).build().decode(token);
+    }
+
+    /**
+     * Tests that a token verified on one node is accepted on another without verification, whether that node
+     * parses claims lazily or not.
+     */
+    @Test
+    void tokenVerifiedOnOneNodeIsSharedWithOthers() throws Exception {
+        for (boolean lazyClaims : new boolean[] {false, true}) {
+            String token = token();
+            VerifiedTokenCache first = newNode(SHARED_SECRET);
+            VerifiedTokenCache second = newNode(SHARED_SECRET, lazyClaims);
+
+            first.put(token, ISSUER, verify(token));
+            Jwt shared = second.getShared(token, ISSUER);
+
+            assertNotNull(shared);
+            assertEquals("user-1", shared.getSubject());
+            assertEquals(1, second.getStats().getSharedHits());
+            assertSame(shared, second.get(token));
+        }
+    }
+
+    /**
+     * Tests that records written without the shared secret, or altered afterwards, are ignored.
+     */
+    @Test
+    void ignoresRecordsThatFailAuthentication() throws Exception {
+        String token = token();
+        newNode("another-secret-that-is-long-enough-too".getBytes()).put(token, ISSUER, verify(token));
+        VerifiedTokenCache node = newNode(SHARED_SECRET);
+
+        assertNull(node.getShared(token, ISSUER));
+
+        newNode(SHARED_SECRET).put(token, ISSUER, verify(token));
+        records.values().forEach(record -> record.setSubject("admin"));
+
+        assertNull(node.getShared(token, ISSUER));
+        assertNull(node.getShared(token, "http://evil.example/realms/iam-realm"));
+        assertEquals(3, node.getStats().getSharedRejections());
+    }
+
+    /**
+     * Tests that store failures are treated as misses.
+     */
+    @Test
+    void storeFailuresAreMisses() throws Exception {
+        VerifiedTokenRepository store = mock(VerifiedTokenRepository.class);
+        when(store.findById(anyString())).thenThrow(new DataAccessResourceFailureException("down"));
+        VerifiedTokenCache node = new VerifiedTokenCache(100, Duration.ofMinutes(5), store, SHARED_SECRET, false);
+
+        assertNull(node.getShared(token(), ISSUER));
+        assertEquals(1, node.getStats().getSharedErrors());
+        assertThrows(IllegalArgumentException.class,
+                () -> new VerifiedTokenCache(100, Duration.ofMinutes(5), store, "short".getBytes(), false));
+    }
+}